@@ -0,0 +1,96 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+// Thread-scaling benchmark for Analytics on the Bench harness. Seeds a synthetic history (fixed seed, so runs
+// compare), takes the columnar snapshot once, then times every query on fork/join pools of each thread count
+// (params.threads), one query per iteration, and reports the speedup over the first thread count as the
+// secondary metric speedup. Speedup is bounded by the cores the machine has.
+//   per vehicle: half a sale, a quarter of a rental, two maintenance records
+//
+//   java iierosebankcollege.carsystem.AnalyticsBench 1000000 1,2,4,8 analytics-bench.json
+//   (vehicles, thread counts, result file)
+class AnalyticsBench {
+
+    private static final String[] MAKES = {"Toyota", "VW", "BMW", "Ford", "Kia", "Audi", "Honda", "Mazda", "Nissan", "Renault"};
+    private static final String[] MECHANICS = {"Joy", "Sam", "Thabo", "Pieter", "Anele", "Grace", "David", "Fatima"};
+
+    // Synthetic history for the given fleet size
+    static Analytics.Snapshot seed(int vehicles, long seed) {
+        Random rnd = new Random(seed);
+        List<Vehicle> vs = new ArrayList<>(vehicles);
+        List<Sale> ss = new ArrayList<>(vehicles / 2);
+        List<Rental> rs = new ArrayList<>(vehicles / 4);
+        List<Maintenance> ms = new ArrayList<>(vehicles * 2);
+        for (int id = 1; id <= vehicles; id++) {
+            vs.add(new Vehicle(id, MAKES[rnd.nextInt(MAKES.length)], "Model" + rnd.nextInt(50), 2000 + rnd.nextInt(25),
+                    "White", 50_000 + rnd.nextInt(950_000)));
+        }
+        for (int i = 0; i < vehicles / 2; i++) {
+            ss.add(new Sale(i + 1, 1 + rnd.nextInt(vehicles), 1, "2025-01-01", 50_000 + rnd.nextInt(950_000)));
+        }
+        for (int i = 0; i < vehicles / 4; i++) {
+            rs.add(new Rental(i + 1, 1 + rnd.nextInt(vehicles), 1, "2025-01-01", "2025-01-05", 500 + rnd.nextInt(5000)));
+        }
+        for (int i = 0; i < vehicles * 2; i++) {
+            ms.add(new Maintenance(i + 1, 1 + rnd.nextInt(vehicles), "Service", "2025-01-01", 500 + rnd.nextInt(60_000),
+                    MECHANICS[rnd.nextInt(MECHANICS.length)]));
+        }
+        return new Analytics.Snapshot(vs, ss, rs, ms);
+    }
+
+    // Every query at every thread count
+    static List<Bench.Result> run(Analytics.Snapshot data, int[] threads, int warmup, int measure) throws Exception {
+        List<Bench.Result> out = new ArrayList<>();
+        double[] base = new double[4];    // per query, at the first thread count
+        for (int t : threads) {
+            ForkJoinPool pool = new ForkJoinPool(t);
+            try {
+                Analytics a = new Analytics(data, pool);
+                List<Supplier<Object>> queries = List.of(a::averageSellingPrice, () -> a.topMechanics(5),
+                        a::rentalIncomeByMake, () -> a.maintenanceOver(0.30));
+                String[] names = {"averageSellingPrice", "topMechanics", "rentalIncomeByMake", "maintenanceOver"};
+                for (int q = 0; q < queries.size(); q++) {
+                    Supplier<Object> query = queries.get(q);
+                    Bench.Result r = new Bench.Result(AnalyticsBench.class, names[q], "avgt", "ms/op", warmup, 1).param("threads", t);
+                    Bench.iterate(warmup, measure, measured -> {
+                        long t0 = System.nanoTime();
+                        query.get();
+                        if (measured) r.add((System.nanoTime() - t0) / 1e6);
+                    });
+                    if (base[q] == 0) base[q] = r.score();
+                    r.add("speedup", "x", base[q] / r.score());
+                    out.add(r);
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int[] threads = Bench.ints(args.length > 1 ? args[1] : "1,2,4,8");
+        File file = new File(args.length > 2 ? args[2] : "analytics-bench.json");
+        List<Bench.Result> results = run(seed(vehicles, 42), threads, Bench.WARMUP, Bench.MEASURE);
+        Bench.report("Analytics over " + vehicles + " vehicles on " + Runtime.getRuntime().availableProcessors() + " cores", results, file);
+    }
+}
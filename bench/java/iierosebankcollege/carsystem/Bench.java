@@ -0,0 +1,199 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// The harness every benchmark here runs on, the way JMH runs one: warm-up iterations whose figures are
+// dropped, then measured iterations that each add one sample to every result they measure. A result is
+// scored as the mean of its samples with the half-width of the 99.9% confidence interval, and the results
+// are written in JMH's JSON result format (benchmark, mode, params, primaryMetric and secondaryMetrics with
+// the raw samples), so runs can be kept and compared with the usual JMH tools, and printed as a table.
+// The benchmarks live in their own source root (bench/java), compiled against the application's classes
+// and never shipped with them.
+final class Bench {
+
+    static final int WARMUP = 3, MEASURE = 5;
+
+    private Bench() {
+    }
+
+    // One iteration; measured is false during warm-up, when nothing may be recorded
+    interface Iteration {
+        void run(boolean measured) throws Exception;
+    }
+
+    static void iterate(int warmup, int measure, Iteration iteration) throws Exception {
+        for (int i = 0; i < warmup; i++) iteration.run(false);
+        for (int i = 0; i < measure; i++) iteration.run(true);
+    }
+
+    // One benchmark at one set of parameters: its samples, and those of the figures measured alongside
+    static final class Result {
+        final String benchmark;    // class and method, as JMH names it
+        final String mode;         // "avgt" time per call, "thrpt" calls per second, "ss" one shot per iteration
+        final String unit;
+        final int warmup;
+        final int batchSize;       // calls per iteration
+        final Map<String, String> params = new LinkedHashMap<>();
+        private double[] samples = new double[0];
+        private final Map<String, Secondary> secondaries = new LinkedHashMap<>();
+
+        private static final class Secondary {
+            final String unit;
+            double[] samples = new double[0];
+
+            Secondary(String unit) {
+                this.unit = unit;
+            }
+        }
+
+        Result(Class<?> bench, String method, String mode, String unit, int warmup, int batchSize) {
+            this.benchmark = bench.getName() + "." + method;
+            this.mode = mode;
+            this.unit = unit;
+            this.warmup = warmup;
+            this.batchSize = batchSize;
+        }
+
+        Result param(String name, Object value) {
+            params.put(name, String.valueOf(value));
+            return this;
+        }
+
+        String param(String name) {
+            return params.get(name);
+        }
+
+        // The method part of the benchmark name
+        String method() {
+            return benchmark.substring(benchmark.lastIndexOf('.') + 1);
+        }
+
+        void add(double sample) {
+            samples = append(samples, sample);
+        }
+
+        void add(String metric, String unit, double sample) {
+            Secondary s = secondaries.computeIfAbsent(metric, k -> new Secondary(unit));
+            s.samples = append(s.samples, sample);
+        }
+
+        private static double[] append(double[] a, double v) {
+            double[] b = Arrays.copyOf(a, a.length + 1);
+            b[a.length] = v;
+            return b;
+        }
+
+        double[] samples() {
+            return samples.clone();
+        }
+
+        double score() {
+            return mean(samples);
+        }
+
+        double error() {
+            return Bench.error(samples);
+        }
+
+        // Mean of a secondary figure, NaN if it was not measured
+        double secondary(String metric) {
+            Secondary s = secondaries.get(metric);
+            return s == null ? Double.NaN : mean(s.samples);
+        }
+
+        String toJson() {
+            Json.Obj json = Json.object().put("benchmark", benchmark).put("mode", mode).put("threads", 1).put("forks", 1)
+                    .put("warmupIterations", warmup).put("measurementIterations", samples.length)
+                    .put("measurementBatchSize", batchSize);
+            if (!params.isEmpty()) {
+                Json.Obj p = Json.object();
+                params.forEach(p::put);
+                json.raw("params", p.toString());
+            }
+            json.raw("primaryMetric", metric(samples, unit));
+            if (!secondaries.isEmpty()) {
+                Json.Obj m = Json.object();
+                secondaries.forEach((name, s) -> m.raw(name, metric(s.samples, s.unit)));
+                json.raw("secondaryMetrics", m.toString());
+            }
+            return json.toString();
+        }
+
+        private static String metric(double[] samples, String unit) {
+            StringBuilder raw = new StringBuilder("[[");
+            for (int i = 0; i < samples.length; i++) raw.append(i > 0 ? "," : "").append(samples[i]);
+            raw.append("]]");
+            return Json.object().put("score", mean(samples)).put("scoreError", Bench.error(samples)).put("scoreUnit", unit)
+                    .raw("rawData", raw.toString()).toString();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder label = new StringBuilder(method());
+            params.forEach((k, v) -> label.append(' ').append(k).append('=').append(v));
+            StringBuilder sb = new StringBuilder(String.format("%-48s %,16.3f +- %,14.3f %s", label, score(), error(), unit));
+            secondaries.forEach((name, s) -> sb.append(String.format("  %s %,.3f %s", name, mean(s.samples), s.unit)));
+            return sb.toString();
+        }
+    }
+
+    static double mean(double[] samples) {
+        if (samples.length == 0) return Double.NaN;
+        double sum = 0;
+        for (double s : samples) sum += s;
+        return sum / samples.length;
+    }
+
+    // Half-width of the 99.9% confidence interval of the mean, as JMH reports it (NaN for one sample)
+    static double error(double[] samples) {
+        int n = samples.length;
+        if (n < 2) return Double.NaN;
+        double mean = mean(samples), var = 0;
+        for (double s : samples) var += (s - mean) * (s - mean);
+        return student(n - 1) * Math.sqrt(var / (n - 1)) / Math.sqrt(n);
+    }
+
+    // t quantile for a two-sided 99.9% interval by degrees of freedom; the normal value beyond the table
+    private static double student(int df) {
+        double[] t = {636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587};
+        return df <= t.length ? t[df - 1] : 3.291;
+    }
+
+    // The results as a JMH JSON result file
+    static String toJson(List<Result> results) {
+        StringBuilder sb = new StringBuilder("[\n");
+        for (int i = 0; i < results.size(); i++) sb.append("  ").append(results.get(i).toJson()).append(i < results.size() - 1 ? ",\n" : "\n");
+        return sb.append("]\n").toString();
+    }
+
+    // Print the results under a title and write them to the file
+    static void report(String title, List<Result> results, File file) throws IOException {
+        System.out.println(title);
+        for (Result r : results) System.out.println(r);
+        Files.write(file.toPath(), toJson(results).getBytes(StandardCharsets.UTF_8));
+        System.out.println("Results written to " + file);
+    }
+
+    // Comma-separated ints from the command line
+    static int[] ints(String list) {
+        String[] parts = list.split(",");
+        int[] out = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) out[i] = Integer.parseInt(parts[i].trim());
+        return out;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarService.Table;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Throughput benchmark for BulkIO, on the Bench harness. Generates a branch as CSV text (fixed seed); each
+// iteration imports it into an empty service table by table, exports every table as CSV and as JSON, then
+// imports the JSON export into another empty service. Every step (import or export, params.format and
+// params.table) is a result in rows per second, with the rows it moved as the secondary metric rows. Files
+// are in memory so the figures are the pipeline's (parse, check, index, store), not the disk's; the journal
+// is off.
+//   per vehicle: a tenth of a customer, a quarter of a rental, half a sale, two maintenance records
+//   (every row is valid, so all of them are added)
+//
+//   java iierosebankcollege.carsystem.BulkBench 200000 bulk-bench.json   (vehicles, result file)
+class BulkBench {
+
+    private static final String[] MAKES = {"Toyota", "VW", "BMW", "Ford", "Kia", "Audi", "Honda", "Mazda", "Nissan", "Renault"};
+    private static final String[] MECHANICS = {"Joy", "Sam", "Thabo", "Pieter", "Anele", "Grace", "David", "Fatima"};
+
+    // Synthetic branch, one CSV text per table
+    static Map<Table, String> seed(int vehicles, long seed) {
+        Random rnd = new Random(seed);
+        Map<Table, String> files = new EnumMap<>(Table.class);
+        int customers = Math.max(1, vehicles / 10);
+        StringBuilder sb = new StringBuilder("id,make,model,year,color,price\n");
+        for (int id = 1; id <= vehicles; id++) {
+            sb.append(id).append(',').append(MAKES[rnd.nextInt(MAKES.length)]).append(",Model ").append(rnd.nextInt(50)).append(',')
+                    .append(2000 + rnd.nextInt(25)).append(",White,").append(50_000 + rnd.nextInt(950_000)).append('\n');
+        }
+        files.put(Table.VEHICLES, sb.toString());
+        sb = new StringBuilder("id,name,phone,email,address\n");
+        for (int id = 1; id <= customers; id++) {
+            sb.append(id).append(",Customer ").append(id).append(",082").append(1_000_000 + id).append(",c").append(id)
+                    .append("@mail.com,\"12 Main Road, Cape Town\"\n");
+        }
+        files.put(Table.CUSTOMERS, sb.toString());
+        sb = new StringBuilder("id,vehicleId,customerId,rentalDate,returnDate,totalCost\n");
+        for (int id = 1; id <= vehicles / 4; id++) { // one rental each on the first quarter of the cars
+            LocalDate from = LocalDate.of(2025, 1, 1).plusDays(rnd.nextInt(300));
+            sb.append(id).append(',').append(id).append(',').append(1 + rnd.nextInt(customers)).append(',').append(from).append(',')
+                    .append(from.plusDays(1 + rnd.nextInt(14))).append(',').append(500 + rnd.nextInt(5000)).append('\n');
+        }
+        files.put(Table.RENTALS, sb.toString());
+        sb = new StringBuilder("id,vehicleId,customerId,dateSold,sellingPrice\n");
+        for (int id = 1; id <= vehicles / 2; id++) { // the next half of the cars are sold
+            sb.append(id).append(',').append(vehicles / 4 + id).append(',').append(1 + rnd.nextInt(customers)).append(',')
+                    .append(LocalDate.of(2025, 1, 1).plusDays(rnd.nextInt(300))).append(',').append(50_000 + rnd.nextInt(950_000)).append('\n');
+        }
+        files.put(Table.SALES, sb.toString());
+        sb = new StringBuilder("id,vehicleId,serviceType,serviceDate,cost,mechanic\n");
+        for (int id = 1; id <= vehicles * 2; id++) {
+            sb.append(id).append(',').append(1 + rnd.nextInt(vehicles)).append(",Service,")
+                    .append(LocalDate.of(2025, 1, 1).plusDays(rnd.nextInt(300))).append(',').append(500 + rnd.nextInt(60_000)).append(".5,")
+                    .append(MECHANICS[rnd.nextInt(MECHANICS.length)]).append('\n');
+        }
+        files.put(Table.MAINTS, sb.toString());
+        return files;
+    }
+
+    // Import the CSV branch, export it both ways, import the JSON export; a result per step
+    static List<Bench.Result> run(Map<Table, String> csv, int warmup, int measure) throws Exception {
+        List<Bench.Result> out = new ArrayList<>();
+        Bench.iterate(warmup, measure, measured -> {
+            Steps steps = new Steps(out, warmup, measured);
+            CarService first = service();
+            importAll(first, csv, BulkIO.Format.CSV, steps);
+            exportAll(first, BulkIO.Format.CSV, steps);
+            Map<Table, String> json = exportAll(first, BulkIO.Format.JSON, steps);
+            importAll(service(), json, BulkIO.Format.JSON, steps);
+        });
+        return out;
+    }
+
+    // The steps of one iteration: the n-th step adds its figures to the n-th result
+    private static final class Steps {
+        final List<Bench.Result> out;
+        final int warmup;
+        final boolean measured;
+        int next;
+
+        Steps(List<Bench.Result> out, int warmup, boolean measured) {
+            this.out = out;
+            this.warmup = warmup;
+            this.measured = measured;
+        }
+
+        void add(String step, BulkIO.Format format, Table table, long rows, long nanos) {
+            if (!measured) return;
+            if (next == out.size()) {
+                out.add(new Bench.Result(BulkBench.class, step, "thrpt", "rows/s", warmup, 1).param("format", format).param("table", table));
+            }
+            Bench.Result r = out.get(next++);
+            r.add(nanos == 0 ? 0 : rows * 1e9 / nanos);
+            r.add("rows", "rows", rows);
+        }
+    }
+
+    private static CarService service() {
+        File dir = new File(System.getProperty("java.io.tmpdir"));
+        return new CarService(new File(dir, "bulkbench.ser"), new File(dir, "bulkbench.journal")); // neither is written
+    }
+
+    private static void importAll(CarService service, Map<Table, String> files, BulkIO.Format format, Steps steps) throws IOException {
+        BulkIO io = new BulkIO(service);
+        for (Table t : Table.values()) {
+            long t0 = System.nanoTime();
+            BulkIO.Result r = io.importFrom(t, new StringReader(files.get(t)), format, Progress.NONE);
+            long nanos = System.nanoTime() - t0;
+            if (r.refused > 0) throw new IllegalStateException(r + " " + r.errors);
+            steps.add("import", format, t, r.imported, nanos);
+        }
+    }
+
+    private static Map<Table, String> exportAll(CarService service, BulkIO.Format format, Steps steps) throws IOException {
+        BulkIO io = new BulkIO(service);
+        Map<Table, String> files = new EnumMap<>(Table.class);
+        for (Table t : Table.values()) {
+            StringWriter w = new StringWriter(1 << 20);
+            long t0 = System.nanoTime();
+            long rows = io.export(t, w, format, Progress.NONE);
+            steps.add("export", format, t, rows, System.nanoTime() - t0);
+            files.put(t, w.toString());
+        }
+        return files;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        File file = new File(args.length > 1 ? args[1] : "bulk-bench.json");
+        List<Bench.Result> results = run(seed(vehicles, 42), Bench.WARMUP, Bench.MEASURE);
+        Bench.report("Bulk import/export of a branch with " + vehicles + " vehicles", results, file);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+// Throughput benchmark for ChangeStream, on the Bench harness: in each iteration one writer publishes a run
+// of changes as fast as it can while 1 to 8 subscribers (params.subscribers), each on its own thread, read
+// them. Each subscriber count runs twice (params.delivery):
+//   lossless  subscribers hold the writer back when they fall a ring behind, and must see every change
+//   lapped    the writer never waits; a subscriber that falls behind skips what it missed
+// Scores changes published per second (until the last subscriber is done); the secondary metrics are changes
+// delivered per second across all subscribers, changes delivered and skipped in all, and how often the
+// writer had to wait.
+//
+//   java iierosebankcollege.carsystem.ChangeStreamBench 5000000 change-stream-bench.json   (changes per run, result file)
+class ChangeStreamBench {
+
+    static final int[] SUBSCRIBERS = {1, 2, 4, 8};
+    static final int RING = 1 << 14;
+
+    // Counts what it is handed and checks it comes in order
+    private static final class Counter implements ChangeStream.Handler {
+        volatile long seen, missed;
+        long last = -1;
+        boolean ordered = true;
+
+        @Override
+        public void onChange(ChangeStream.Change change) {
+            if (change.sequence <= last) ordered = false;
+            last = change.sequence;
+            seen++;
+        }
+
+        @Override
+        public void missed(long count) {
+            missed += count;
+        }
+    }
+
+    static List<Bench.Result> run(long events, int warmup, int measure) throws Exception {
+        List<Bench.Result> out = new ArrayList<>();
+        for (int n : SUBSCRIBERS) {
+            out.add(measure(n, true, events, warmup, measure));
+            out.add(measure(n, false, events, warmup, measure));
+        }
+        return out;
+    }
+
+    private static Bench.Result measure(int subscribers, boolean lossless, long events, int warmup, int measure) throws Exception {
+        Bench.Result r = new Bench.Result(ChangeStreamBench.class, "publish", "thrpt", "events/s", warmup, (int) events)
+                .param("subscribers", subscribers).param("delivery", lossless ? "lossless" : "lapped");
+        Bench.iterate(warmup, measure, measured -> {
+            ChangeStream stream = new ChangeStream(RING);
+            Counter[] counters = new Counter[subscribers];
+            List<ChangeStream.Subscription> subs = new ArrayList<>();
+            for (int i = 0; i < subscribers; i++) {
+                counters[i] = new Counter();
+                subs.add(stream.subscribe("bench-subscriber-" + i, lossless, counters[i]));
+            }
+            Object record = new Object();
+            long t0 = System.nanoTime();
+            for (long e = 0; e < events; e++) stream.publish(ChangeStream.Kind.VEHICLE_ADDED, (int) e, record);
+            for (Counter c : counters) {
+                while (c.seen + c.missed < events) Thread.onSpinWait(); // until each has had (or skipped) them all
+            }
+            long nanos = System.nanoTime() - t0;
+            long delivered = 0, missed = 0;
+            for (ChangeStream.Subscription s : subs) s.close();
+            for (Counter c : counters) {
+                if (!c.ordered) throw new IllegalStateException("Changes out of order");
+                delivered += c.seen;
+                missed += c.missed;
+            }
+            if (lossless && missed > 0) throw new IllegalStateException("Lossless subscriber missed " + missed);
+            if (!measured) return;
+            r.add(events * 1e9 / nanos);
+            r.add("deliveredRate", "events/s", delivered * 1e9 / nanos);
+            r.add("delivered", "events", delivered);
+            r.add("missed", "events", missed);
+            r.add("waits", "publishes", stream.waits());
+        });
+        return r;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long events = args.length > 0 ? Long.parseLong(args[0]) : 5_000_000;
+        File file = new File(args.length > 1 ? args[1] : "change-stream-bench.json");
+        List<Bench.Result> results = run(events, Bench.WARMUP, Bench.MEASURE);
+        Bench.report("ChangeStream, " + events + " changes per run, ring of " + RING, results, file);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.lang.ref.Reference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Memory-footprint benchmark for the columnar layout, on the Bench harness. Each iteration fills each record
+// store (vehicles, rentals, sales, maintenance) with the same synthetic history twice, once as objects
+// (today's layout) and once in Columns (params.layout), and samples the heap each keeps alive after a full
+// collection, in bytes, and as the secondary metric gcTime how long that collection takes with the store
+// live (the tracing cost the records add to every full GC). "all" adds up the four tables.
+// Records are made the way input makes them: dates parsed from text, a new String per model, shared literals
+// for makes, colors, service types and mechanics.
+//   per vehicle: half a sale, a quarter of a rental, two maintenance records
+//
+//   java -Xmx4g iierosebankcollege.carsystem.ColumnsBench 1000000 columns-bench.json   (vehicles, result file)
+class ColumnsBench {
+
+    private static final String[] MAKES = {"Toyota", "VW", "BMW", "Ford", "Kia", "Audi", "Honda", "Mazda", "Nissan", "Renault"};
+    private static final String[] COLORS = {"White", "Black", "Silver", "Red", "Blue"};
+    private static final String[] SERVICES = {"Service", "Oil change", "Tyres", "Brakes"};
+    private static final String[] MECHANICS = {"Joy", "Sam", "Thabo", "Pieter", "Anele", "Grace", "David", "Fatima"};
+
+    static final String[] LAYOUTS = {"objects", "columns"};
+
+    private interface Fill {
+        EntityStore<?> fill(boolean columnar);
+    }
+
+    // Every table at the given fleet size, objects then columns
+    static List<Bench.Result> run(int vehicles, long seed, int warmup, int measure) throws Exception {
+        String[] tables = {"vehicles", "rentals", "sales", "maintenance", "all"};
+        int[] rows = {vehicles, vehicles / 4, vehicles / 2, vehicles * 2, 0};
+        rows[4] = rows[0] + rows[1] + rows[2] + rows[3];
+        Fill[] fills = {columnar -> vehicles(vehicles, seed, columnar), columnar -> rentals(vehicles, seed, columnar),
+            columnar -> sales(vehicles, seed, columnar), columnar -> maints(vehicles, seed, columnar)};
+        Bench.Result[][] results = new Bench.Result[tables.length][LAYOUTS.length];
+        for (int t = 0; t < tables.length; t++) {
+            for (int layout = 0; layout < LAYOUTS.length; layout++) {
+                results[t][layout] = new Bench.Result(ColumnsBench.class, tables[t], "ss", "bytes", warmup, 1)
+                        .param("layout", LAYOUTS[layout]).param("rows", rows[t]);
+            }
+        }
+        Bench.iterate(warmup, measure, measured -> {
+            long[] bytes = new long[LAYOUTS.length];
+            double[] gc = new double[LAYOUTS.length];
+            for (int t = 0; t < fills.length; t++) {
+                for (int layout = 0; layout < LAYOUTS.length; layout++) {
+                    long before = usedAfterGc();
+                    EntityStore<?> store = fills[t].fill(layout == 1);
+                    long after = usedAfterGc();
+                    long t0 = System.nanoTime();
+                    System.gc(); // a full collection with the store live: its cost grows with the objects to trace
+                    double gcMillis = (System.nanoTime() - t0) / 1e6;
+                    Reference.reachabilityFence(store);
+                    bytes[layout] += after - before;
+                    gc[layout] += gcMillis;
+                    if (!measured) continue;
+                    results[t][layout].add(after - before);
+                    results[t][layout].add("gcTime", "ms", gcMillis);
+                }
+            }
+            for (int layout = 0; measured && layout < LAYOUTS.length; layout++) {
+                results[fills.length][layout].add(bytes[layout]);
+                results[fills.length][layout].add("gcTime", "ms", gc[layout]);
+            }
+        });
+        List<Bench.Result> out = new ArrayList<>();
+        for (Bench.Result[] r : results) out.addAll(Arrays.asList(r));
+        return out;
+    }
+
+    private static long usedAfterGc() {
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // The serial collector leaves some dead objects in place and only compacts fully every fourth full
+        // collection, so the figure can hold steady for a few rounds before it drops: take the least of four
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+            used = Math.min(used, rt.totalMemory() - rt.freeMemory());
+        }
+        return used;
+    }
+
+    // Synthetic tables; the same seed gives the same rows in both layouts
+
+    private static String date(Random rnd) {
+        return LocalDate.of(2015, 1, 1).plusDays(rnd.nextInt(3650)).toString();
+    }
+
+    private static EntityStore<Vehicle> vehicles(int n, long seed, boolean columnar) {
+        Random rnd = new Random(seed);
+        EntityStore<Vehicle> store = new EntityStore<>(v -> v.id, columnar ? new Columns.Vehicles() : null);
+        List<Vehicle> batch = new ArrayList<>();
+        for (int id = 1; id <= n; id++) {
+            batch.add(new Vehicle(id, MAKES[rnd.nextInt(MAKES.length)], "Model" + rnd.nextInt(50), 2000 + rnd.nextInt(25),
+                    COLORS[rnd.nextInt(COLORS.length)], 50_000 + rnd.nextInt(950_000)));
+        }
+        store.replaceAll(batch);
+        return store;
+    }
+
+    private static EntityStore<Rental> rentals(int vehicles, long seed, boolean columnar) {
+        Random rnd = new Random(seed);
+        EntityStore<Rental> store = new EntityStore<>(r -> r.id, columnar ? new Columns.Rentals() : null);
+        List<Rental> batch = new ArrayList<>();
+        for (int id = 1; id <= vehicles / 4; id++) {
+            batch.add(new Rental(id, 1 + rnd.nextInt(vehicles), 1 + rnd.nextInt(vehicles), date(rnd), date(rnd), 500 + rnd.nextInt(5000)));
+        }
+        store.replaceAll(batch);
+        return store;
+    }
+
+    private static EntityStore<Sale> sales(int vehicles, long seed, boolean columnar) {
+        Random rnd = new Random(seed);
+        EntityStore<Sale> store = new EntityStore<>(s -> s.id, columnar ? new Columns.Sales() : null);
+        List<Sale> batch = new ArrayList<>();
+        for (int id = 1; id <= vehicles / 2; id++) {
+            batch.add(new Sale(id, 1 + rnd.nextInt(vehicles), 1 + rnd.nextInt(vehicles), date(rnd), 50_000 + rnd.nextInt(950_000)));
+        }
+        store.replaceAll(batch);
+        return store;
+    }
+
+    private static EntityStore<Maintenance> maints(int vehicles, long seed, boolean columnar) {
+        Random rnd = new Random(seed);
+        EntityStore<Maintenance> store = new EntityStore<>(m -> m.id, columnar ? new Columns.Maints() : null);
+        List<Maintenance> batch = new ArrayList<>();
+        for (int id = 1; id <= vehicles * 2; id++) {
+            batch.add(new Maintenance(id, 1 + rnd.nextInt(vehicles), SERVICES[rnd.nextInt(SERVICES.length)], date(rnd),
+                    500 + rnd.nextInt(60_000), MECHANICS[rnd.nextInt(MECHANICS.length)]));
+        }
+        store.replaceAll(batch);
+        return store;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File file = new File(args.length > 1 ? args[1] : "columns-bench.json");
+        // one warm-up round: each fill takes several full collections, and the heap figures need no JIT
+        List<Bench.Result> results = run(vehicles, 42, 1, Bench.MEASURE);
+        Bench.report("Record store footprint, " + vehicles + " vehicles", results, file);
+    }
+}
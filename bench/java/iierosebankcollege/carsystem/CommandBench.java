@@ -0,0 +1,121 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Throughput benchmark for CarService.apply at different batch sizes, on the Bench harness. Each iteration
+// runs the same workload: cycles of five commands on a new car (add it, rent it out, close the rental, sell
+// it, record a service), on a fresh service with the journal on (a temporary file) and a listener standing
+// in for the window. It runs first as single calls (singleCalls: addVehicle, addRental, ..., each journaled
+// and announced on its own) and then as batches of 1, 100 and 10,000 commands (apply, params.batchSize);
+// ids are predictable on a fresh service, so a batch can end in the middle of a cycle. Scores commands per
+// second, with how many times the window would update as the secondary metric uiUpdates.
+//
+//   java iierosebankcollege.carsystem.CommandBench 200000 command-bench.json   (commands, result file)
+class CommandBench {
+
+    static final int[] BATCH_SIZES = {1, 100, 10_000};
+
+    static List<Bench.Result> run(int commands, int warmup, int measure) throws Exception {
+        List<Bench.Result> out = new ArrayList<>();
+        out.add(measure(new Bench.Result(CommandBench.class, "singleCalls", "thrpt", "commands/s", warmup, commands), 0, commands, warmup, measure));
+        for (int size : BATCH_SIZES) {
+            Bench.Result r = new Bench.Result(CommandBench.class, "apply", "thrpt", "commands/s", warmup, commands).param("batchSize", size);
+            out.add(measure(r, size, commands, warmup, measure));
+        }
+        return out;
+    }
+
+    // batchSize 0: single calls
+    private static Bench.Result measure(Bench.Result r, int batchSize, int commands, int warmup, int measure) throws Exception {
+        Bench.iterate(warmup, measure, measured -> workload(r, batchSize, commands, measured));
+        return r;
+    }
+
+    private static void workload(Bench.Result r, int batchSize, int commands, boolean measured) throws IOException {
+        File data = File.createTempFile("commandbench", ".ser"), journal = File.createTempFile("commandbench", ".journal");
+        data.delete();
+        journal.delete();
+        CarService service = new CarService(data, journal);
+        try {
+            service.openJournal();
+            service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+            AtomicLong updates = new AtomicLong();
+            service.addListener(new CarService.Listener() {
+                @Override public void rowInserted(CarService.Table table, int row) { updates.incrementAndGet(); }
+                @Override public void rowUpdated(CarService.Table table, int id) { updates.incrementAndGet(); }
+                @Override public void rowDeleted(CarService.Table table, int row) { updates.incrementAndGet(); }
+                @Override public void dataChanged() { updates.incrementAndGet(); }
+            });
+            long t0 = System.nanoTime();
+            if (batchSize == 0) {
+                for (int i = 0; i < commands; i++) call(service, i);
+            } else {
+                CommandBatch batch = new CommandBatch();
+                for (int i = 0; i < commands; i++) {
+                    command(batch, i);
+                    if (batch.size() == batchSize || i == commands - 1) {
+                        CommandBatch.Result res = service.apply(batch);
+                        if (!res.committed) throw new IllegalStateException(res.toString());
+                        batch = new CommandBatch();
+                    }
+                }
+            }
+            long nanos = System.nanoTime() - t0;
+            if (measured) {
+                r.add(commands * 1e9 / nanos);
+                r.add("uiUpdates", "updates", updates.get());
+            }
+        } finally {
+            service.close();
+            data.delete();
+            journal.delete();
+        }
+    }
+
+    // Command i of the workload; cycle k works on car k, rental k, sale k and maintenance record k
+    private static void command(CommandBatch batch, int i) {
+        int car = i / 5 + 1;
+        String from = LocalDate.of(2025, 1, 1).plusDays(car % 300).toString();
+        switch (i % 5) {
+            case 0: batch.addVehicle("Toyota", "Corolla", 2022, "White", 300_000); break;
+            case 1: batch.addRental(car, 1, from, LocalDate.parse(from).plusDays(3).toString(), 1500); break;
+            case 2: batch.closeRental(car); break;
+            case 3: batch.addSale(car, 1, from, 280_000); break;
+            default: batch.addMaint(car, "Service", from, 900, "Joy");
+        }
+    }
+
+    private static void call(CarService service, int i) {
+        int car = i / 5 + 1;
+        String from = LocalDate.of(2025, 1, 1).plusDays(car % 300).toString();
+        boolean done;
+        switch (i % 5) {
+            case 0: done = service.addVehicle("Toyota", "Corolla", 2022, "White", 300_000) != null; break;
+            case 1: done = service.addRental(car, 1, from, LocalDate.parse(from).plusDays(3).toString(), 1500) != null; break;
+            case 2: done = service.closeRental(car); break;
+            case 3: done = service.addSale(car, 1, from, 280_000) != null; break;
+            default: done = service.addMaint(car, "Service", from, 900, "Joy") != null;
+        }
+        if (!done) throw new IllegalStateException("command " + i + " refused");
+    }
+
+    public static void main(String[] args) throws Exception {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        File file = new File(args.length > 1 ? args[1] : "command-bench.json");
+        List<Bench.Result> results = run(commands, Bench.WARMUP, Bench.MEASURE);
+        Bench.report("Transactions of " + commands + " commands in cycles of five", results, file);
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+// Allocation microbenchmark for dates, before and after they became epoch days, on the Bench harness. Each
+// case is run the old way (params.way=before: dates as text, a SimpleDateFormat per call, LocalDate.parse for
+// every comparison) and the new way (after: Dates), on the same data, scored in nanoseconds per operation with
+// the bytes allocated per operation as the secondary metric gc.alloc.rate.norm, as JMH's GC profiler names
+// it. Bytes come from the JVM's per-thread allocation counter (-1 where the JVM does not offer one).
+//   today   the rental / sale date of a new record
+//   parse   reading a yyyy-MM-dd date
+//   range   is a sale's date within a month (over a list of sales)
+//   show    the text of a date for a table cell
+//
+//   java iierosebankcollege.carsystem.DatesBench 1000000 dates-bench.json   (operations per iteration, result file)
+class DatesBench {
+
+    private interface Case {
+        long run(int ops);         // returns something derived from the work, so it cannot be skipped
+    }
+
+    private static long sink;
+
+    static List<Bench.Result> run(int ops, int warmup, int measure) throws Exception {
+        Random rnd = new Random(7);
+        int n = 1000;
+        String[] texts = new String[n];    // dates as the records used to hold them
+        List<Sale> sales = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            texts[i] = LocalDate.of(2025, 1, 1).plusDays(rnd.nextInt(365)).toString();
+            sales.add(new Sale(i + 1, i + 1, 1, texts[i], 1000));
+        }
+        String lo = "2025-03-01", hi = "2025-03-31";
+
+        List<Bench.Result> out = new ArrayList<>();
+        out.add(measure("today", true, ops, warmup, measure, k -> {
+            long h = 0;
+            for (int i = 0; i < k; i++) h += new SimpleDateFormat("yyyy-MM-dd").format(new Date()).length();
+            return h;
+        }));
+        out.add(measure("today", false, ops, warmup, measure, k -> {
+            long h = 0;
+            for (int i = 0; i < k; i++) h += Dates.format(Dates.today()).length();
+            return h;
+        }));
+        out.add(measure("parse", true, ops, warmup, measure, k -> {
+            long h = 0;
+            for (int i = 0; i < k; i++) h += LocalDate.parse(texts[i % n]).toEpochDay();
+            return h;
+        }));
+        out.add(measure("parse", false, ops, warmup, measure, k -> {
+            long h = 0;
+            for (int i = 0; i < k; i++) h += Dates.parse(texts[i % n]);
+            return h;
+        }));
+        out.add(measure("range", true, ops, warmup, measure, k -> {
+            long h = 0;
+            for (int i = 0; i < k; i++) { // the bounds and every date parsed for each comparison
+                LocalDate d = LocalDate.parse(texts[i % n]);
+                if (!d.isBefore(LocalDate.parse(lo)) && !d.isAfter(LocalDate.parse(hi))) h++;
+            }
+            return h;
+        }));
+        out.add(measure("range", false, ops, warmup, measure, k -> {
+            long h = 0;
+            int from = Dates.parse(lo), to = Dates.parse(hi); // once per query
+            for (int i = 0; i < k; i++) {
+                int d = sales.get(i % n).soldDay;
+                if (d >= from && d <= to) h++;
+            }
+            return h;
+        }));
+        out.add(measure("show", true, ops, warmup, measure, k -> {
+            long h = 0;
+            for (int i = 0; i < k; i++) h += texts[i % n].length();
+            return h;
+        }));
+        out.add(measure("show", false, ops, warmup, measure, k -> {
+            long h = 0;
+            for (int i = 0; i < k; i++) h += sales.get(i % n).dateSold().length();
+            return h;
+        }));
+        return out;
+    }
+
+    private static Bench.Result measure(String name, boolean before, int ops, int warmup, int measure, Case c) throws Exception {
+        Bench.Result r = new Bench.Result(DatesBench.class, name, "avgt", "ns/op", warmup, ops).param("way", before ? "before" : "after");
+        Bench.iterate(warmup, measure, measured -> {
+            long bytes0 = allocated(), t0 = System.nanoTime();
+            sink += c.run(ops);
+            long nanos = System.nanoTime() - t0, bytes1 = allocated();
+            if (!measured) return;
+            r.add((double) nanos / ops);
+            r.add("gc.alloc.rate.norm", "B/op", bytes0 < 0 ? -1 : (double) (bytes1 - bytes0) / ops);
+        });
+        return r;
+    }
+
+    // Bytes this thread has allocated so far, or -1
+    private static long allocated() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean b = (com.sun.management.ThreadMXBean) bean;
+            if (b.isThreadAllocatedMemorySupported() && b.isThreadAllocatedMemoryEnabled()) {
+                return b.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int ops = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        File file = new File(args.length > 1 ? args[1] : "dates-bench.json");
+        List<Bench.Result> results = run(ops, Bench.WARMUP, Bench.MEASURE);
+        Bench.report("Dates, " + ops + " operations per iteration", results, file);
+        if (sink == 42) System.out.println();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+// Benchmark for LookupCache on the Bench harness: vehicle lookups by id with a skewed access pattern, the way
+// a booking desk asks for the same popular cars again and again. Ids are drawn from a Zipfian distribution
+// (exponent 0.99, as in YCSB) over the whole fleet, hot ids scattered across it. In each iteration the same
+// draws are looked up (params.store)
+//   objects      in an object store, no cache (the layout the cache is not needed for)
+//   columns      in a columnar store, no cache (every lookup of a car nobody holds reads its row)
+//   cache n      in the columnar store behind a fresh LookupCache of n records
+// Scores the mean time per lookup of the run; the secondary metrics are the hit rate, and the median and
+// 99th percentile of a second run on a fresh cache with each lookup timed on its own (those include the two
+// clock reads).
+//
+//   java iierosebankcollege.carsystem.LookupCacheBench 100000 2000000 lookup-cache-bench.json
+//   (vehicles, lookups, result file)
+class LookupCacheBench {
+
+    static final int[] CAPACITIES = {256, 1024, 4096};
+    static final double SKEW = 0.99;
+
+    private static final String[] MAKES = {"Toyota", "VW", "BMW", "Ford", "Kia", "Audi", "Honda", "Mazda", "Nissan", "Renault"};
+    private static final String[] COLORS = {"White", "Black", "Silver", "Red", "Blue"};
+
+    static List<Bench.Result> run(int vehicles, int lookups, long seed, int warmup, int measure) throws Exception {
+        int[] ids = zipfian(vehicles, lookups, SKEW, seed);
+        EntityStore<Vehicle> objects = fleet(vehicles, false), columns = fleet(vehicles, true);
+        List<Bench.Result> out = new ArrayList<>();
+        out.add(measure("objects", ids, objects, 0, warmup, measure));
+        out.add(measure("columns", ids, columns, 0, warmup, measure));
+        for (int capacity : CAPACITIES) out.add(measure("cache " + capacity, ids, columns, capacity, warmup, measure));
+        return out;
+    }
+
+    private static Bench.Result measure(String name, int[] ids, EntityStore<Vehicle> store, int capacity, int warmup, int measure) throws Exception {
+        Bench.Result r = new Bench.Result(LookupCacheBench.class, "lookup", "avgt", "ns/op", warmup, ids.length).param("store", name);
+        Bench.iterate(warmup, measure, measured -> {
+            LookupCache<Vehicle> cache = new LookupCache<>(capacity);
+            long found = 0;
+            long t0 = System.nanoTime();
+            for (int id : ids) if (cache.get(id, store::findById) != null) found++;
+            double nanos = System.nanoTime() - t0;
+            if (found != ids.length) throw new IllegalStateException("Lookups missed " + (ids.length - found) + " vehicles");
+            // again on a fresh cache, timing each lookup, for the spread
+            LookupCache<Vehicle> fresh = new LookupCache<>(capacity);
+            Metrics.Histogram latency = new Metrics.Histogram();
+            for (int id : ids) {
+                long s = System.nanoTime();
+                fresh.get(id, store::findById);
+                latency.record(System.nanoTime() - s);
+            }
+            if (!measured) return;
+            r.add(nanos / ids.length);
+            r.add("hitRate", "ratio", cache.hitRate());
+            r.add("p50", "ns", latency.valueAt(0.5));
+            r.add("p99", "ns", latency.valueAt(0.99));
+        });
+        return r;
+    }
+
+    private static EntityStore<Vehicle> fleet(int n, boolean columnar) {
+        EntityStore<Vehicle> store = new EntityStore<>(v -> v.id, columnar ? new Columns.Vehicles() : null);
+        Random rnd = new Random(7);
+        for (int id = 1; id <= n; id++) {
+            store.add(new Vehicle(id, MAKES[rnd.nextInt(MAKES.length)], "Model " + rnd.nextInt(200), 2005 + rnd.nextInt(20),
+                    COLORS[rnd.nextInt(COLORS.length)], 100_000 + rnd.nextInt(900_000)));
+        }
+        return store;
+    }
+
+    // count ids from 1..n, id of rank k (1 = most popular) drawn with probability proportional to 1 / k^skew;
+    // the ranks are shuffled over the ids so the hot cars are not the first ones added
+    static int[] zipfian(int n, int count, double skew, long seed) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1 / Math.pow(k, skew);
+            cdf[k - 1] = sum;
+        }
+        Random rnd = new Random(seed);
+        int[] idOfRank = new int[n];
+        for (int i = 0; i < n; i++) idOfRank[i] = i + 1;
+        for (int i = n - 1; i > 0; i--) {
+            int j = rnd.nextInt(i + 1);
+            int t = idOfRank[i];
+            idOfRank[i] = idOfRank[j];
+            idOfRank[j] = t;
+        }
+        int[] ids = new int[count];
+        for (int i = 0; i < count; i++) {
+            int rank = Arrays.binarySearch(cdf, rnd.nextDouble() * sum);
+            if (rank < 0) rank = -rank - 1;
+            ids[i] = idOfRank[Math.min(rank, n - 1)];
+        }
+        return ids;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int vehicles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        File file = new File(args.length > 2 ? args[2] : "lookup-cache-bench.json");
+        List<Bench.Result> results = run(vehicles, lookups, 1, Bench.WARMUP, Bench.MEASURE);
+        Bench.report("LookupCache, " + vehicles + " vehicles, " + lookups + " Zipfian lookups (skew " + SKEW + ")", results, file);
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javax.swing.table.AbstractTableModel;
+
+// Regression benchmark for the data operations behind the window, an average-time benchmark on the Bench
+// harness: per operation and dataset size (params.size), each iteration times a batch of calls and adds the
+// time per call as a sample.
+// Every size starts from a dataset made by a seeded generator, so runs compare:
+//   per vehicle: a tenth of a customer, a tenth out on rental, a tenth sold, a fifth of a service record
+// The service is in classic mode (no journal), as the window starts by default. Untimed setup before each
+// iteration makes the records the calls work on (fresh cars to rent, rentals to close) and untimed teardown
+// removes them again, so the dataset keeps its size. Runs headless: refreshAllTables is timed on the tabs'
+// table models with a listener reading the rows a window would paint, and needs no display.
+// loadData and loadLegacyData start a service from the same dataset saved as a binary snapshot and with
+// Java serialization (the format before SnapshotCodec); they and saveData report the file's size as the
+// secondary metric fileSize.
+//
+//   java -Xmx4g iierosebankcollege.carsystem.OpsBench 1000,10000,100000,1000000 all ops-bench.json
+//   (sizes, operations by name or "all", result file)
+class OpsBench {
+
+    static final int[] SIZES = {1_000, 10_000, 100_000, 1_000_000};
+    private static final long SEED = 42;
+    private static final int VISIBLE = 30;   // rows a table shows without scrolling
+    private static final String[] MAKES = {"Toyota", "VW", "BMW", "Ford", "Kia", "Audi", "Honda", "Mazda"};
+
+    enum Op {
+        ADD_VEHICLE("addVehicle", 1000), DELETE_VEHICLE("deleteVehicle", 1000), ADD_RENTAL("addRental", 1000),
+        CLOSE_RENTAL("closeRental", 1000), ADD_SALE("addSale", 1000), ADD_MAINT("addMaint", 1000),
+        FIND_VEHICLE("findVehicleById", 100_000), LIST_STATUS("vehiclesWith", 0),
+        FIND_FREE("findFreeVehicle", 1000), SEARCH_VEHICLES("findVehicles", 1000),
+        SEARCH_CUSTOMERS("searchCustomers", 1000), REFRESH_TABLES("refreshAllTables", 200),
+        SAVE_DATA("saveData", 0), LOAD_DATA("loadData", 0), LOAD_LEGACY("loadLegacyData", 0);
+
+        final String method;
+        private final int calls;   // per iteration; 0: scaled to the dataset (operations that cost O(dataset))
+
+        Op(String method, int calls) {
+            this.method = method;
+            this.calls = calls;
+        }
+
+        int calls(int size) {
+            return calls > 0 ? calls : Math.max(1, 100_000 / size);
+        }
+
+        static Op of(String method) {
+            for (Op op : values()) if (op.method.equalsIgnoreCase(method)) return op;
+            throw new IllegalArgumentException("Unknown operation '" + method + "'");
+        }
+    }
+
+    // A service filled with the seeded dataset, and what the operations need to work on it
+    static final class Fixture {
+        final CarService service;
+        final int size, customers;
+        final File dataFile, journalFile, legacyFile;
+        final Random rnd = new Random(SEED);
+        final List<StoreTableModel<?>> tables = new ArrayList<>();
+        long sink;                 // results the timed calls produce, so none can be skipped
+
+        Fixture(int size) throws IOException {
+            this.size = size;
+            dataFile = File.createTempFile("opsbench", ".dat");
+            journalFile = File.createTempFile("opsbench", ".journal");
+            legacyFile = File.createTempFile("opsbench", ".ser");
+            dataFile.delete();
+            journalFile.delete();
+            legacyFile.delete();
+            service = new CarService(dataFile, journalFile);
+            customers = Math.max(10, size / 10);
+            seed(service, size, SEED);
+            tables.add(CarSystem.vehicleModel(service.vehicles));
+            tables.add(CarSystem.customerModel(service.customers));
+            tables.add(CarSystem.rentalModel(service.rentals));
+            tables.add(CarSystem.saleModel(service.sales));
+            tables.add(CarSystem.maintModel(service.maints));
+            for (StoreTableModel<?> t : tables) {
+                t.addTableModelListener(e -> sink += paint((AbstractTableModel) e.getSource())); // what a JTable repaint reads
+            }
+        }
+
+        // Cars added for the next iteration to work on
+        int[] fresh(int n) {
+            int[] ids = new int[n];
+            for (int i = 0; i < n; i++) ids[i] = service.addVehicle("Toyota", "Corolla", 2024, "White", 300_000).id;
+            return ids;
+        }
+
+        int customer() {
+            return 1 + rnd.nextInt(customers);
+        }
+
+        // The saved dataset, also written the way saveData wrote it before the binary snapshot
+        void save() throws Exception {
+            service.writeSnapshot(Progress.NONE);
+            SnapshotCodec.Data d = SnapshotCodec.read(dataFile);
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(legacyFile)))) {
+                out.writeObject(d.vehicles);
+                out.writeObject(d.customers);
+                out.writeObject(d.rentals);
+                out.writeObject(d.sales);
+                out.writeObject(d.maints);
+                out.writeInt(d.nextVehicleId);
+                out.writeInt(d.nextCustomerId);
+                out.writeInt(d.nextRentalId);
+                out.writeInt(d.nextSaleId);
+                out.writeInt(d.nextMaintId);
+                out.writeLong(d.generation);
+            }
+        }
+
+        void close() {
+            dataFile.delete();
+            journalFile.delete();
+            legacyFile.delete();
+        }
+    }
+
+    // The seeded dataset: vehicles, then customers, rentals, sales and service records, in batches
+    static void seed(CarService service, int vehicles, long seed) {
+        Random rnd = new Random(seed);
+        String[] colors = {"White", "Black", "Silver", "Red", "Blue"};
+        int customers = Math.max(10, vehicles / 10), tenth = vehicles / 10;
+        List<Vehicle> vs = new ArrayList<>();
+        for (int i = 0; i < vehicles; i++) {
+            vs.add(new Vehicle(0, MAKES[rnd.nextInt(MAKES.length)], "Model" + rnd.nextInt(50), 2000 + rnd.nextInt(25),
+                    colors[rnd.nextInt(colors.length)], 50_000 + rnd.nextInt(950_000)));
+            if (vs.size() == 10_000) { service.importVehicles(vs); vs.clear(); }
+        }
+        service.importVehicles(vs);
+        List<Customer> cs = new ArrayList<>();
+        for (int i = 1; i <= customers; i++) {
+            cs.add(new Customer(0, "Customer " + i, String.format("08%08d", i), "c" + i + "@mail.com", "Street " + rnd.nextInt(1000)));
+        }
+        service.importCustomers(cs);
+        List<Rental> rs = new ArrayList<>();
+        for (int v = 1; v <= tenth; v++) { // the first tenth of the fleet is out
+            int from = Dates.parse("2025-01-01") + rnd.nextInt(300);
+            rs.add(new Rental(0, v, 1 + rnd.nextInt(customers), from, from + 1 + rnd.nextInt(14), 500 + rnd.nextInt(5000)));
+        }
+        boolean[] out = new boolean[rs.size()];
+        Arrays.fill(out, true);
+        service.importRentals(rs, out);
+        List<Sale> ss = new ArrayList<>();
+        for (int v = tenth + 1; v <= 2 * tenth; v++) { // the second tenth is sold
+            ss.add(new Sale(0, v, 1 + rnd.nextInt(customers), Dates.parse("2025-01-01") + rnd.nextInt(365), 50_000 + rnd.nextInt(950_000)));
+        }
+        service.importSales(ss);
+        List<Maintenance> ms = new ArrayList<>();
+        for (int i = 0; i < vehicles / 5; i++) { // on the rest of the fleet
+            int v = 2 * tenth + 1 + rnd.nextInt(vehicles - 2 * tenth);
+            ms.add(new Maintenance(0, v, "Service", Dates.parse("2025-01-01") + rnd.nextInt(365), 500 + rnd.nextInt(60_000), "Joy"));
+        }
+        service.importMaints(ms);
+    }
+
+    // Read every cell of the rows a window would show
+    private static long paint(AbstractTableModel t) {
+        long h = 0;
+        int rows = Math.min(VISIBLE, t.getRowCount());
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < t.getColumnCount(); c++) {
+                Object v = t.getValueAt(r, c);
+                if (v != null) h += v.hashCode();
+            }
+        }
+        return h;
+    }
+
+    // Every operation at every size
+    static List<Bench.Result> run(int[] sizes, List<Op> ops, int warmup, int measure) throws Exception {
+        List<Bench.Result> out = new ArrayList<>();
+        for (int size : sizes) {
+            Fixture f = new Fixture(size);
+            try {
+                for (Op op : ops) {
+                    int calls = op.calls(size);
+                    Bench.Result r = new Bench.Result(OpsBench.class, op.method, "avgt", "us/op", warmup, calls).param("size", size);
+                    Bench.iterate(warmup, measure, measured -> {
+                        long nanos = iteration(f, op, calls);
+                        if (!measured) return;
+                        r.add(nanos / 1e3 / calls);
+                        File file = op == Op.LOAD_LEGACY ? f.legacyFile : op == Op.SAVE_DATA || op == Op.LOAD_DATA ? f.dataFile : null;
+                        if (file != null) r.add("fileSize", "bytes", file.length());
+                    });
+                    out.add(r);
+                }
+            } finally {
+                f.close();
+            }
+        }
+        return out;
+    }
+
+    // One iteration: untimed setup, the timed calls, untimed teardown; returns the timed nanoseconds
+    private static long iteration(Fixture f, Op op, int calls) throws Exception {
+        CarService s = f.service;
+        int[] ids;
+        long t0;
+        long nanos;
+        switch (op) {
+            case ADD_VEHICLE:
+                ids = new int[calls];
+                t0 = System.nanoTime();
+                for (int i = 0; i < calls; i++) ids[i] = s.addVehicle("Kia", "Rio", 2024, "Blue", 200_000).id;
+                nanos = System.nanoTime() - t0;
+                for (int id : ids) s.deleteVehicle(id);
+                return nanos;
+            case DELETE_VEHICLE:
+                ids = f.fresh(calls);
+                t0 = System.nanoTime();
+                for (int id : ids) if (!s.deleteVehicle(id)) throw new IllegalStateException("delete " + id);
+                return System.nanoTime() - t0;
+            case ADD_RENTAL: {
+                ids = f.fresh(calls);
+                int[] rentals = new int[calls];
+                t0 = System.nanoTime();
+                for (int i = 0; i < calls; i++) rentals[i] = s.addRental(ids[i], f.customer(), "2026-01-01", "2026-01-05", 1500).id;
+                nanos = System.nanoTime() - t0;
+                for (int i = 0; i < calls; i++) { s.closeRental(rentals[i]); s.deleteVehicle(ids[i]); }
+                return nanos;
+            }
+            case CLOSE_RENTAL: {
+                ids = f.fresh(calls);
+                int[] rentals = new int[calls];
+                for (int i = 0; i < calls; i++) rentals[i] = s.addRental(ids[i], f.customer(), "2026-01-01", "2026-01-05", 1500).id;
+                t0 = System.nanoTime();
+                for (int id : rentals) if (!s.closeRental(id)) throw new IllegalStateException("close " + id);
+                nanos = System.nanoTime() - t0;
+                for (int id : ids) s.deleteVehicle(id);
+                return nanos;
+            }
+            case ADD_SALE:
+                ids = f.fresh(calls);
+                t0 = System.nanoTime();
+                for (int id : ids) f.sink += s.addSale(id, f.customer(), "2026-01-01", 280_000).id;
+                nanos = System.nanoTime() - t0;
+                for (int id : ids) s.deleteVehicle(id);
+                return nanos;
+            case ADD_MAINT:
+                ids = f.fresh(calls);
+                t0 = System.nanoTime();
+                for (int id : ids) f.sink += s.addMaint(id, "Service", "2026-01-01", 900, "Joy").id;
+                nanos = System.nanoTime() - t0;
+                for (int id : ids) s.deleteVehicle(id);
+                return nanos;
+            case FIND_VEHICLE:
+                ids = new int[calls];
+                for (int i = 0; i < calls; i++) ids[i] = 1 + f.rnd.nextInt(f.size); // the seeded fleet
+                t0 = System.nanoTime();
+                for (int id : ids) f.sink += s.findVehicle(id).year;
+                return System.nanoTime() - t0;
+            case LIST_STATUS: // the cars out on rental, a tenth of the fleet
+                t0 = System.nanoTime();
+                for (int i = 0; i < calls; i++) f.sink += s.vehiclesWith(Status.RENTED).size();
+                return System.nanoTime() - t0;
+            case FIND_FREE: { // a car of some model for a week of the busy months
+                String[] models = new String[calls];
+                for (int i = 0; i < calls; i++) models[i] = "Model" + f.rnd.nextInt(50);
+                t0 = System.nanoTime();
+                for (String model : models) {
+                    Vehicle v = s.findFreeVehicle(model, "2025-06-01", "2025-06-08");
+                    if (v != null) f.sink += v.id;
+                }
+                return System.nanoTime() - t0;
+            }
+            case SEARCH_VEHICLES: { // the filter bar: a make, some years, a budget, only cars that can go out
+                VehicleIndex.Query[] queries = new VehicleIndex.Query[calls];
+                for (int i = 0; i < calls; i++) {
+                    int from = 2000 + f.rnd.nextInt(20);
+                    queries[i] = new VehicleIndex.Query().make(MAKES[f.rnd.nextInt(MAKES.length)]).years(from, from + 4)
+                            .price(0, 250_000).status(Status.AVAILABLE).limit(100);
+                }
+                t0 = System.nanoTime();
+                for (VehicleIndex.Query q : queries) f.sink += s.findVehicles(q).size();
+                return System.nanoTime() - t0;
+            }
+            case SEARCH_CUSTOMERS: { // a keystroke: part of a customer's name or phone number as typed so far
+                String[] typed = new String[calls];
+                for (int i = 0; i < calls; i++) {
+                    int c = f.customer();
+                    String text = i % 2 == 0 ? "Customer " + c : String.format("08%08d", c);
+                    typed[i] = text.substring(0, 1 + f.rnd.nextInt(text.length()));
+                }
+                t0 = System.nanoTime();
+                for (String q : typed) f.sink += s.searchCustomers(q, 10).size();
+                return System.nanoTime() - t0;
+            }
+            case REFRESH_TABLES:
+                t0 = System.nanoTime();
+                for (int i = 0; i < calls; i++) {
+                    for (StoreTableModel<?> t : f.tables) t.fireTableDataChanged();
+                }
+                return System.nanoTime() - t0;
+            case SAVE_DATA:
+                t0 = System.nanoTime();
+                for (int i = 0; i < calls; i++) s.writeSnapshot(Progress.NONE);
+                return System.nanoTime() - t0;
+            default: { // LOAD_DATA, LOAD_LEGACY: startup reading the saved file into a new service
+                if (!f.legacyFile.exists()) f.save();
+                File file = op == Op.LOAD_LEGACY ? f.legacyFile : f.dataFile;
+                t0 = System.nanoTime();
+                for (int i = 0; i < calls; i++) {
+                    CarService loaded = new CarService(file, f.journalFile);
+                    loaded.load();
+                    f.sink += loaded.vehicles.size();
+                    loaded.close();
+                }
+                return System.nanoTime() - t0;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? Bench.ints(args[0]) : SIZES;
+        List<Op> ops = new ArrayList<>();
+        if (args.length > 1 && !args[1].equals("all")) {
+            for (String name : args[1].split(",")) ops.add(Op.of(name.trim()));
+        } else {
+            ops.addAll(Arrays.asList(Op.values()));
+        }
+        File file = new File(args.length > 2 ? args[2] : "ops-bench.json");
+        List<Bench.Result> results = run(sizes, ops, Bench.WARMUP, Bench.MEASURE);
+        Bench.report("Data operations, " + Bench.WARMUP + " warm-up and " + Bench.MEASURE + " measured iterations each", results, file);
+    }
+}
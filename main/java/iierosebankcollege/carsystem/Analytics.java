@@ -0,0 +1,271 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToDoubleFunction;
+import java.util.function.IntUnaryOperator;
+
+// Month-end analytics ("average selling price by make and year", "top mechanics by cost", ...) over a
+// columnar copy of the records, run in parallel on a fork/join pool.
+// The copy (Snapshot) holds plain arrays: ids, years, prices and costs as int[] / double[], and makes and
+// mechanics dictionary-encoded as int codes. The hash join of sales, rentals and maintenance to their
+// vehicle is done once while copying (an id -> row index), so each record carries its vehicle's row and a
+// query follows it with an array read.
+// Every query is one grouped aggregation: the rows are cut into slices, each slice sums into its own dense
+// per-group arrays (no locks, no boxing, nothing shared while counting) and the slices are merged pairwise,
+// so throughput grows with the pool's threads.
+//
+//   Analytics a = new Analytics(service.analyticsSnapshot(), pool);
+//   a.averageSellingPrice();  a.topMechanics(10);  a.maintenanceOver(0.30);
+class Analytics {
+
+    private static final int MIN_SLICE = 16_384;      // rows below which a slice is not split further
+    private static final int SMALL_GROUPS = 4096;     // few enough groups to give each thread several slices
+
+    // Columnar copy of the records; read-only once built, so any number of threads may query it
+    static final class Snapshot {
+        final int vehicles;
+        final int[] vehicleId, year, make, yearCode;      // make: code into makes; yearCode: index into years
+        final double[] price;
+        final String[] makes;
+        final int[] years;                                // distinct years, ascending
+        final int sales;
+        final int[] saleRow;                              // row of the vehicle sold, -1 if it was deleted
+        final double[] sellingPrice;
+        final int rentals;
+        final int[] rentalRow;
+        final double[] rentalCost;
+        final int maints;
+        final int[] maintRow, mechanic;                  // mechanic: code into mechanics
+        final double[] maintCost;
+        final String[] mechanics;
+
+        Snapshot(List<Vehicle> vs, List<Sale> ss, List<Rental> rs, List<Maintenance> ms) {
+            vehicles = vs.size();
+            vehicleId = new int[vehicles];
+            year = new int[vehicles];
+            make = new int[vehicles];
+            price = new double[vehicles];
+            IntIndex vehicleRow = new IntIndex(vehicles); // vehicle id -> row
+            Dictionary makeCodes = new Dictionary();
+            for (int i = 0; i < vehicles; i++) {
+                Vehicle v = vs.get(i);
+                vehicleId[i] = v.id;
+                year[i] = v.year;
+                make[i] = makeCodes.code(v.make);
+                price[i] = v.price;
+                vehicleRow.put(v.id, i);
+            }
+            makes = makeCodes.values();
+            years = Arrays.stream(year).distinct().sorted().toArray();
+            yearCode = new int[vehicles];
+            for (int i = 0; i < vehicles; i++) yearCode[i] = Arrays.binarySearch(years, year[i]);
+
+            sales = ss.size();
+            saleRow = new int[sales];
+            sellingPrice = new double[sales];
+            for (int i = 0; i < sales; i++) {
+                saleRow[i] = vehicleRow.get(ss.get(i).vehicleId); // IntIndex.MISSING is -1
+                sellingPrice[i] = ss.get(i).sellingPrice;
+            }
+
+            rentals = rs.size();
+            rentalRow = new int[rentals];
+            rentalCost = new double[rentals];
+            for (int i = 0; i < rentals; i++) {
+                rentalRow[i] = vehicleRow.get(rs.get(i).vehicleId);
+                rentalCost[i] = rs.get(i).totalCost;
+            }
+
+            maints = ms.size();
+            maintRow = new int[maints];
+            mechanic = new int[maints];
+            maintCost = new double[maints];
+            Dictionary mechanicCodes = new Dictionary();
+            for (int i = 0; i < maints; i++) {
+                Maintenance m = ms.get(i);
+                maintRow[i] = vehicleRow.get(m.vehicleId);
+                mechanic[i] = mechanicCodes.code(m.mechanic);
+                maintCost[i] = m.cost;
+            }
+            mechanics = mechanicCodes.values();
+        }
+    }
+
+    // Small code per distinct value, ignoring case and surrounding spaces; the first spelling seen is kept
+    private static final class Dictionary {
+        private final HashMap<String, Integer> codes = new HashMap<>();
+        private final ArrayList<String> values = new ArrayList<>();
+
+        int code(String value) {
+            String v = value == null ? "" : value.trim();
+            return codes.computeIfAbsent(VehicleIndex.key(v), k -> { values.add(v); return values.size() - 1; });
+        }
+
+        String[] values() {
+            return values.toArray(new String[0]);
+        }
+    }
+
+    // Count and sum of the values per group, indexed by group number
+    static final class Groups {
+        final long[] count;
+        final double[] sum;
+
+        Groups(int groups) {
+            count = new long[groups];
+            sum = new double[groups];
+        }
+
+        Groups merge(Groups o) {
+            for (int g = 0; g < count.length; g++) {
+                count[g] += o.count[g];
+                sum[g] += o.sum[g];
+            }
+            return this;
+        }
+    }
+
+    // One result line: a group's name (and year, for groups by year), its record count and total
+    static final class Row {
+        final String name;
+        final int year;            // 0 when not grouped by year
+        final long count;
+        final double total;
+
+        Row(String name, int year, long count, double total) {
+            this.name = name;
+            this.year = year;
+            this.count = count;
+            this.total = total;
+        }
+
+        double average() {
+            return count == 0 ? 0 : total / count;
+        }
+
+        @Override
+        public String toString() {
+            return name + (year == 0 ? "" : " " + year) + ": " + count + " x " + String.format("%.2f", average()) + " = " + String.format("%.2f", total);
+        }
+    }
+
+    private final Snapshot data;
+    private final ForkJoinPool pool;
+
+    Analytics(Snapshot data, ForkJoinPool pool) {
+        this.data = data;
+        this.pool = pool;
+    }
+
+    // Queries
+
+    // Average selling price per make and model year, ordered by make then year
+    List<Row> averageSellingPrice() {
+        int years = data.years.length;
+        Groups g = aggregate(data.sales, data.makes.length * years, row -> {
+            int v = data.saleRow[row];
+            return v < 0 ? -1 : data.make[v] * years + data.yearCode[v];
+        }, row -> data.sellingPrice[row]);
+        List<Row> out = new ArrayList<>();
+        for (int k = 0; k < g.count.length; k++) {
+            if (g.count[k] > 0) out.add(new Row(data.makes[k / years], data.years[k % years], g.count[k], g.sum[k]));
+        }
+        out.sort(Comparator.comparing((Row r) -> r.name.toLowerCase()).thenComparingInt(r -> r.year));
+        return out;
+    }
+
+    // The n mechanics with the highest total maintenance cost, highest first
+    List<Row> topMechanics(int n) {
+        Groups g = aggregate(data.maints, data.mechanics.length, row -> data.mechanic[row], row -> data.maintCost[row]);
+        List<Row> out = new ArrayList<>();
+        for (int k = 0; k < g.count.length; k++) out.add(new Row(data.mechanics[k], 0, g.count[k], g.sum[k]));
+        out.sort(Comparator.comparingDouble((Row r) -> r.total).reversed());
+        return out.subList(0, Math.min(Math.max(0, n), out.size()));
+    }
+
+    // Rental income per make, highest first
+    List<Row> rentalIncomeByMake() {
+        Groups g = aggregate(data.rentals, data.makes.length, row -> {
+            int v = data.rentalRow[row];
+            return v < 0 ? -1 : data.make[v];
+        }, row -> data.rentalCost[row]);
+        List<Row> out = new ArrayList<>();
+        for (int k = 0; k < g.count.length; k++) if (g.count[k] > 0) out.add(new Row(data.makes[k], 0, g.count[k], g.sum[k]));
+        out.sort(Comparator.comparingDouble((Row r) -> r.total).reversed());
+        return out;
+    }
+
+    // Ids of the vehicles whose maintenance has cost more than share (e.g. 0.30) of their price, ascending
+    int[] maintenanceOver(double share) {
+        Groups g = aggregate(data.maints, data.vehicles, row -> data.maintRow[row], row -> data.maintCost[row]);
+        int[] ids = new int[data.vehicles];
+        int n = 0;
+        for (int v = 0; v < data.vehicles; v++) if (g.sum[v] > share * data.price[v]) ids[n++] = data.vehicleId[v];
+        ids = Arrays.copyOf(ids, n);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // Engine
+
+    // Count and sum of value(row) per group(row) over rows [0, rows); rows whose group is negative are skipped
+    Groups aggregate(int rows, int groups, IntUnaryOperator group, IntToDoubleFunction value) {
+        // a slice per thread when every slice needs large group arrays, a few per thread to balance otherwise
+        int slices = pool.getParallelism() * (groups <= SMALL_GROUPS ? 4 : 1);
+        int grain = Math.max(MIN_SLICE, (rows + slices - 1) / slices);
+        return pool.invoke(new Slice(0, rows, grain, groups, group, value));
+    }
+
+    private static final class Slice extends RecursiveTask<Groups> {
+        private static final long serialVersionUID = 1L; // serialization version
+        private final int from, to, grain, groups;
+        private final IntUnaryOperator group;
+        private final IntToDoubleFunction value;
+
+        Slice(int from, int to, int grain, int groups, IntUnaryOperator group, IntToDoubleFunction value) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.groups = groups;
+            this.group = group;
+            this.value = value;
+        }
+
+        @Override
+        protected Groups compute() {
+            if (to - from <= grain) {
+                Groups g = new Groups(groups);
+                for (int row = from; row < to; row++) {
+                    int k = group.applyAsInt(row);
+                    if (k < 0) continue;
+                    g.count[k]++;
+                    g.sum[k] += value.applyAsDouble(row);
+                }
+                return g;
+            }
+            int mid = (from + to) >>> 1;
+            Slice left = new Slice(from, mid, grain, groups, group, value);
+            left.fork();
+            Groups right = new Slice(mid, to, grain, groups, group, value).compute();
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,577 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// JSON over HTTP for the same operations the window offers, served by the JDK's built-in HTTP server.
+// Every request runs on its own thread straight against the CarService, which does the locking.
+//
+//   GET    /vehicles?offset=0&limit=100    page of records (same for every collection)
+//   GET    /vehicles/{id}                  one record, 404 if unknown
+//   GET    /vehicles?status=Available      page of the vehicles with that status (from the status index)
+//   GET    /vehicles?make=Toyota&minYear=2018&maxYear=2022&maxPrice=250000&status=Available
+//                                          search on any of make, model, color, minYear, maxYear, minPrice,
+//                                          maxPrice and status (from the search indexes)
+//   POST   /vehicles                       {"make","model","year","color","price"}            -> 201
+//   DELETE /vehicles/{id}
+//   GET    /customers?q=sam%20082&limit=10 best matches for partial name, phone or email words
+//   POST   /customers                      {"name","phone","email","address"}                 -> 201
+//   DELETE /customers/{id}
+//   POST   /rentals                        {"vehicleId","customerId","rentalDate","returnDate","totalCost"}
+//   DELETE /rentals/{id}                   close the rental, vehicle becomes Available
+//   POST   /reservations                   same body as a rental, booked for later            -> 201
+//   POST   /reservations/{id}              pick the reserved car up (it becomes Rented)
+//   DELETE /reservations/{id}              cancel (same as closing the rental)
+//   GET    /reservations?vehicleId=7&from=2025-03-10&to=2025-03-14   {"free":true|false}
+//   GET    /reservations?model=Corolla&from=2025-03-10&to=2025-03-14 a free car of that model, 404 if none
+//   POST   /sales                          {"vehicleId","customerId","dateSold","sellingPrice"}
+//   POST   /maintenance                    {"vehicleId","serviceType","serviceDate","cost","mechanic"}
+//   GET    /reports                        revenue, maintenance spend and utilization of everything held;
+//   GET    /reports?month=2025-03          or of one day=, month=, make=, model= or vehicleId= (running totals)
+//   GET    /metrics                        operation latencies, refusals, record counts and file sizes in the
+//                                          Prometheus text format (see Metrics)
+//
+// A booking or sale of a car that is not Available (or of unknown ids) answers 409, as does a sale of a car
+// with bookings (cancel them first); a malformed field (a date that is
+// not yyyy-MM-dd, an id or year that is not a whole number, text over CarService.MAX_TEXT characters) or a
+// body over MAX_BODY bytes answers 400.
+// Small JSON replies wait ~40 ms for a delayed ACK on keep-alive connections unless the JDK server sets
+// TCP_NODELAY: start the JVM with -Dsun.net.httpserver.nodelay=true (CarSystem --server does).
+class ApiServer {
+
+    private static final int MAX_PAGE = 1000;   // most records one list request returns
+    private static final int MAX_BODY = 1 << 20; // largest request body read, in bytes
+    private static final String[] SEARCH_PARAMS = {"make", "model", "color", "minYear", "maxYear", "minPrice", "maxPrice", "status"};
+
+    private final CarService service;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    // port 0 picks a free port (see port())
+    ApiServer(CarService service, int port) throws IOException {
+        this.service = service;
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/vehicles", new Route(this::vehicles));
+        server.createContext("/customers", new Route(this::customers));
+        server.createContext("/rentals", new Route(this::rentals));
+        server.createContext("/sales", new Route(this::sales));
+        server.createContext("/maintenance", new Route(this::maints));
+        server.createContext("/reservations", new Route(this::reservations));
+        server.createContext("/reports", new Route(this::reports));
+        server.createContext("/metrics", new Route(this::metrics));
+    }
+
+    void start() {
+        server.start();
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    // Stop accepting requests, give running ones a moment to finish
+    void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // One virtual thread per request where the JDK has them (21+); a growing pool of daemon threads otherwise
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "api-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    // Collections
+
+    private Reply vehicles(Request req) {
+        switch (req.method) {
+            case "GET":
+                if (req.id >= 0) return found(service.findVehicle(req.id), ApiServer::json);
+                for (String p : SEARCH_PARAMS) if (req.text(p) != null) return search(req);
+                return page(req, service.vehicles, ApiServer::json);
+            case "POST": {
+                Map<String, Object> f = req.body();
+                Vehicle v = service.addVehicle(text(f, "make"), text(f, "model"), whole(f, "year"),
+                        text(f, "color"), number(f, "price"));
+                return new Reply(201, json(v));
+            }
+            case "DELETE":
+                return deleted(service.deleteVehicle(req.needId()));
+            default:
+                return Reply.methodNotAllowed();
+        }
+    }
+
+    private Reply customers(Request req) {
+        switch (req.method) {
+            case "GET":
+                if (req.id < 0 && req.text("q") != null) return customerSearch(req);
+                if (req.id < 0) return page(req, service.customers, ApiServer::json);
+                return found(service.findCustomer(req.id), ApiServer::json);
+            case "POST": {
+                Map<String, Object> f = req.body();
+                Customer c = service.addCustomer(text(f, "name"), text(f, "phone"), text(f, "email"), text(f, "address"));
+                return new Reply(201, json(c));
+            }
+            case "DELETE":
+                return deleted(service.deleteCustomer(req.needId()));
+            default:
+                return Reply.methodNotAllowed();
+        }
+    }
+
+    private Reply rentals(Request req) {
+        switch (req.method) {
+            case "GET":
+                if (req.id < 0) return page(req, service.rentals, ApiServer::json);
+                return found(service.findRental(req.id), ApiServer::json);
+            case "POST": {
+                Map<String, Object> f = req.body();
+                String from = date(f, "rentalDate"), to = returnDate(f, from);
+                Rental r = service.addRental(whole(f, "vehicleId"), whole(f, "customerId"), from, to, number(f, "totalCost"));
+                return r == null ? Reply.conflict("Vehicle not available or unknown vehicle/customer") : new Reply(201, json(r));
+            }
+            case "DELETE":
+                return deleted(service.closeRental(req.needId())); // closing a rental removes it
+            default:
+                return Reply.methodNotAllowed();
+        }
+    }
+
+    private Reply reservations(Request req) {
+        switch (req.method) {
+            case "GET":
+                if (req.id >= 0) return found(service.findRental(req.id), ApiServer::json);
+                return freeQuery(req);
+            case "POST": {
+                if (req.id >= 0) {
+                    return service.startRental(req.id) ? new Reply(200, json(service.findRental(req.id)))
+                            : Reply.conflict("Unknown reservation, car not available or an earlier booking comes first");
+                }
+                Map<String, Object> f = req.body();
+                String from = date(f, "rentalDate"), to = returnDate(f, from);
+                Rental r = service.reserve(whole(f, "vehicleId"), whole(f, "customerId"), from, to, number(f, "totalCost"));
+                return r == null ? Reply.conflict("Car already booked for those days, sold or unknown vehicle/customer")
+                        : new Reply(201, json(r));
+            }
+            case "DELETE":
+                return deleted(service.closeRental(req.needId()));
+            default:
+                return Reply.methodNotAllowed();
+        }
+    }
+
+    // ?vehicleId=&from=&to= or ?model=&from=&to=
+    private Reply freeQuery(Request req) {
+        String from = req.text("from"), to = req.text("to");
+        if (from == null || to == null) throw new BadRequest("from and to are required");
+        try {
+            if (req.text("model") != null) {
+                return found(service.findFreeVehicle(req.text("model"), from, to), ApiServer::json);
+            }
+            int vehicleId = req.param("vehicleId", -1);
+            if (vehicleId < 0) throw new BadRequest("vehicleId or model is required");
+            return new Reply(200, Json.object().put("vehicleId", vehicleId).put("free", service.isFree(vehicleId, from, to)).toString());
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequest(ex.getMessage());
+        }
+    }
+
+    private Reply sales(Request req) {
+        switch (req.method) {
+            case "GET":
+                if (req.id < 0) return page(req, service.sales, ApiServer::json);
+                return found(service.findSale(req.id), ApiServer::json);
+            case "POST": {
+                Map<String, Object> f = req.body();
+                String date = f.get("dateSold") == null ? Dates.format(Dates.today()) : date(f, "dateSold"); // default today
+                int vehicleId = whole(f, "vehicleId"), customerId = whole(f, "customerId");
+                Sale s = service.addSale(vehicleId, customerId, date, number(f, "sellingPrice"));
+                if (s != null) return new Reply(201, json(s));
+                String why = service.saleRefusal(vehicleId, customerId); // null if it changed meanwhile
+                return Reply.conflict(why == null ? "Vehicle not available or unknown vehicle/customer" : "Sale refused: " + why);
+            }
+            default:
+                return Reply.methodNotAllowed();
+        }
+    }
+
+    private Reply maints(Request req) {
+        switch (req.method) {
+            case "GET":
+                if (req.id < 0) return page(req, service.maints, ApiServer::json);
+                return found(service.findMaint(req.id), ApiServer::json);
+            case "POST": {
+                Map<String, Object> f = req.body();
+                Maintenance m = service.addMaint(whole(f, "vehicleId"), text(f, "serviceType"), date(f, "serviceDate"),
+                        number(f, "cost"), text(f, "mechanic"));
+                return m == null ? Reply.conflict("Unknown vehicle") : new Reply(201, json(m));
+            }
+            default:
+                return Reply.methodNotAllowed();
+        }
+    }
+
+    // Totals of one group, read from the running aggregates in O(1); the whole fleet and months also get
+    // their utilization (share of the car-days spent rented)
+    private Reply reports(Request req) {
+        if (!req.method.equals("GET")) return Reply.methodNotAllowed();
+        Reports r = service.reports();
+        Reports.Totals t;
+        double utilization = -1;
+        try {
+            if (req.text("day") != null) t = r.day(req.text("day"));
+            else if (req.text("month") != null) {
+                YearMonth m = YearMonth.parse(req.text("month").trim());
+                t = r.month(m.getYear(), m.getMonthValue());
+                utilization = service.utilization(m.getYear(), m.getMonthValue());
+            } else if (req.text("make") != null) t = r.make(req.text("make"));
+            else if (req.text("model") != null) t = r.model(req.text("model"));
+            else if (req.text("vehicleId") != null) t = r.vehicle(req.param("vehicleId", -1));
+            else {
+                t = r.total();
+                utilization = service.utilization();
+            }
+        } catch (DateTimeParseException ex) {
+            throw new BadRequest("Dates must be yyyy-MM-dd, months yyyy-MM");
+        }
+        Json.Obj o = Json.object().put("revenue", t.revenue()).put("salesRevenue", t.salesRevenue())
+                .put("rentalRevenue", t.rentalRevenue()).put("maintenanceSpend", t.maintenanceSpend())
+                .put("sales", t.sales).put("rentals", t.rentals).put("maints", t.maints).put("carDays", t.carDays);
+        if (utilization >= 0) o.put("utilization", utilization);
+        return new Reply(200, o.toString());
+    }
+
+    // Everything Metrics records, for a Prometheus scrape
+    private Reply metrics(Request req) {
+        if (!req.method.equals("GET")) return Reply.methodNotAllowed();
+        return new Reply(200, service.metrics.prometheus(), "text/plain; version=0.0.4; charset=utf-8");
+    }
+
+    // Reply helpers
+
+    private interface ToJson<T> {
+        String json(T record);
+    }
+
+    private static <T> Reply found(T record, ToJson<T> toJson) {
+        return record == null ? Reply.notFound() : new Reply(200, toJson.json(record));
+    }
+
+    private static Reply deleted(boolean ok) {
+        return ok ? new Reply(204, null) : Reply.notFound();
+    }
+
+    // ?offset=&limit= page of a store in table order
+    private static <T> Reply page(Request req, EntityStore<T> store, ToJson<T> toJson) {
+        int offset = Math.max(0, req.param("offset", 0));
+        int limit = Math.min(MAX_PAGE, Math.max(0, req.param("limit", 100)));
+        StringBuilder items = new StringBuilder("[");
+        int total;
+        synchronized (store) { // consistent page while other requests write
+            total = store.size();
+            for (int i = offset; i < Math.min(total, offset + limit); i++) {
+                if (items.length() > 1) items.append(',');
+                items.append(toJson.json(store.get(i)));
+            }
+        }
+        items.append(']');
+        return new Reply(200, Json.object().put("total", total).put("offset", offset).raw("items", items.toString()).toString());
+    }
+
+    // Page of the vehicles matching the search parameters; costs O(smallest condition), not O(fleet)
+    private Reply search(Request req) {
+        VehicleIndex.Query q = new VehicleIndex.Query().make(req.text("make")).model(req.text("model")).color(req.text("color"))
+                .years(req.param("minYear", Integer.MIN_VALUE), req.param("maxYear", Integer.MAX_VALUE))
+                .price(req.param("minPrice", Double.NEGATIVE_INFINITY), req.param("maxPrice", Double.POSITIVE_INFINITY));
+        if (req.text("status") != null) {
+            try {
+                q.status(Status.of(req.text("status")));
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequest(ex.getMessage());
+            }
+        }
+        int offset = Math.max(0, req.param("offset", 0));
+        int limit = Math.min(MAX_PAGE, Math.max(0, req.param("limit", 100)));
+        List<Vehicle> matches = service.findVehicles(q);
+        StringBuilder items = new StringBuilder("[");
+        for (int i = offset; i < Math.min(matches.size(), offset + limit); i++) {
+            if (items.length() > 1) items.append(',');
+            items.append(json(matches.get(i)));
+        }
+        items.append(']');
+        return new Reply(200, Json.object().put("total", matches.size()).put("offset", offset).raw("items", items.toString()).toString());
+    }
+
+    // ?q=&limit= best matches for a partial name, phone number or email
+    private Reply customerSearch(Request req) {
+        int limit = Math.min(MAX_PAGE, Math.max(0, req.param("limit", 10)));
+        StringBuilder items = new StringBuilder("[");
+        for (Customer c : service.searchCustomers(req.text("q"), limit)) {
+            if (items.length() > 1) items.append(',');
+            items.append(json(c));
+        }
+        items.append(']');
+        return new Reply(200, Json.object().raw("items", items.toString()).toString());
+    }
+
+    static String json(Vehicle v) {
+        return Json.object().put("id", v.id).put("make", v.make).put("model", v.model).put("year", v.year)
+                .put("color", v.color).put("price", v.price).put("status", v.status.label).toString();
+    }
+
+    static String json(Customer c) {
+        return Json.object().put("id", c.id).put("name", c.name).put("phone", c.phone).put("email", c.email)
+                .put("address", c.address).toString();
+    }
+
+    static String json(Rental r) {
+        return Json.object().put("id", r.id).put("vehicleId", r.vehicleId).put("customerId", r.customerId)
+                .put("rentalDate", r.rentalDate()).put("returnDate", r.returnDate()).put("totalCost", r.totalCost).toString();
+    }
+
+    static String json(Sale s) {
+        return Json.object().put("id", s.id).put("vehicleId", s.vehicleId).put("customerId", s.customerId)
+                .put("dateSold", s.dateSold()).put("sellingPrice", s.sellingPrice).toString();
+    }
+
+    static String json(Maintenance m) {
+        return Json.object().put("id", m.id).put("vehicleId", m.vehicleId).put("serviceType", m.serviceType)
+                .put("serviceDate", m.serviceDate()).put("cost", m.cost).put("mechanic", m.mechanic).toString();
+    }
+
+    // Required non-empty string field
+    private static String text(Map<String, Object> f, String name) {
+        Object v = f.get(name);
+        if (!(v instanceof String) || ((String) v).trim().isEmpty()) throw new BadRequest("Field '" + name + "' must be a non-empty string");
+        String s = ((String) v).trim();
+        if (s.length() > CarService.MAX_TEXT) throw new BadRequest("Field '" + name + "' is longer than " + CarService.MAX_TEXT + " characters");
+        return s;
+    }
+
+    // Required number field
+    private static double number(Map<String, Object> f, String name) {
+        Object v = f.get(name);
+        if (!(v instanceof Double)) throw new BadRequest("Field '" + name + "' must be a number");
+        return (Double) v;
+    }
+
+    // Required whole number field that fits an int (ids, years)
+    private static int whole(Map<String, Object> f, String name) {
+        double v = number(f, name);
+        if (v != Math.rint(v) || v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            throw new BadRequest("Field '" + name + "' must be a whole number");
+        }
+        return (int) v;
+    }
+
+    // Required yyyy-MM-dd date field
+    private static String date(Map<String, Object> f, String name) {
+        String s = text(f, name);
+        if (Dates.parse(s) == Dates.NONE) throw new BadRequest("Field '" + name + "' must be a yyyy-MM-dd date");
+        return s;
+    }
+
+    // Required return date of a booking: a yyyy-MM-dd date not before the rental date
+    private static String returnDate(Map<String, Object> f, String from) {
+        String to = date(f, "returnDate");
+        if (Dates.parse(to) < Dates.parse(from)) throw new BadRequest("Field 'returnDate' must not be before 'rentalDate'");
+        return to;
+    }
+
+    // Request plumbing
+
+    // A client mistake: answered with 400 and the message
+    private static class BadRequest extends RuntimeException {
+        private static final long serialVersionUID = 1L; // serialization version
+
+        BadRequest(String msg) {
+            super(msg);
+        }
+    }
+
+    private static final class Request {
+        final String method;
+        final int id;              // {id} path segment, -1 for the collection itself
+        private final URI uri;
+        private final InputStream bodyStream;
+
+        Request(HttpExchange ex) {
+            this.method = ex.getRequestMethod();
+            this.uri = ex.getRequestURI();
+            this.bodyStream = ex.getRequestBody();
+            String path = uri.getPath();
+            String context = ex.getHttpContext().getPath();
+            String rest = path.substring(Math.min(path.length(), context.length()));
+            if (rest.startsWith("/")) rest = rest.substring(1);
+            if (rest.endsWith("/")) rest = rest.substring(0, rest.length() - 1);
+            if (rest.isEmpty()) id = -1;
+            else {
+                try {
+                    id = Integer.parseInt(rest);
+                } catch (NumberFormatException nfe) {
+                    throw new BadRequest("Bad id '" + rest + "'");
+                }
+            }
+        }
+
+        int needId() {
+            if (id < 0) throw new BadRequest("Id required in path");
+            return id;
+        }
+
+        Map<String, Object> body() {
+            try {
+                byte[] body = bodyStream.readNBytes(MAX_BODY + 1);
+                if (body.length > MAX_BODY) throw new BadRequest("Body is larger than " + MAX_BODY + " bytes");
+                return Json.parseObject(new String(body, StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException ex) {
+                throw new BadRequest(ex.getMessage());
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        int param(String name, int dflt) {
+            String v = text(name);
+            if (v == null) return dflt;
+            try {
+                return Integer.parseInt(v);
+            } catch (NumberFormatException ex) {
+                throw new BadRequest("Bad value for '" + name + "'");
+            }
+        }
+
+        double param(String name, double dflt) {
+            String v = text(name);
+            if (v == null) return dflt;
+            try {
+                return Double.parseDouble(v);
+            } catch (NumberFormatException ex) {
+                throw new BadRequest("Bad value for '" + name + "'");
+            }
+        }
+
+        // Query parameter, decoded; null if absent
+        String text(String name) {
+            String q = uri.getRawQuery();
+            if (q == null) return null;
+            for (String pair : q.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0 && pair.substring(0, eq).equals(name)) return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+            return null;
+        }
+    }
+
+    private static final class Reply {
+        final int status;
+        final String body;         // null for an empty body
+        final String type;         // content type of the body
+
+        Reply(int status, String json) {
+            this(status, json, "application/json; charset=utf-8");
+        }
+
+        Reply(int status, String body, String type) {
+            this.status = status;
+            this.body = body;
+            this.type = type;
+        }
+
+        static Reply error(int status, String msg) {
+            return new Reply(status, Json.object().put("error", msg).toString());
+        }
+
+        static Reply notFound() {
+            return error(404, "Not found");
+        }
+
+        static Reply conflict(String msg) {
+            return error(409, msg);
+        }
+
+        static Reply methodNotAllowed() {
+            return error(405, "Method not allowed");
+        }
+    }
+
+    private interface Endpoint {
+        Reply handle(Request req);
+    }
+
+    // Runs an endpoint and turns its reply (or failure) into the HTTP response
+    private static final class Route implements HttpHandler {
+        private final Endpoint endpoint;
+
+        Route(Endpoint endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public void handle(HttpExchange ex) throws IOException {
+            Reply reply;
+            try {
+                reply = endpoint.handle(new Request(ex));
+            } catch (BadRequest bad) {
+                reply = Reply.error(400, bad.getMessage());
+            } catch (RuntimeException fail) {
+                reply = Reply.error(500, String.valueOf(fail.getMessage())); // e.g. journal write failed
+            }
+            try (OutputStream out = ex.getResponseBody()) {
+                if (reply.body == null) {
+                    ex.sendResponseHeaders(reply.status, -1); // no body
+                } else {
+                    byte[] bytes = reply.body.getBytes(StandardCharsets.UTF_8);
+                    ex.getResponseHeaders().set("Content-Type", reply.type);
+                    ex.sendResponseHeaders(reply.status, bytes.length);
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,466 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+// Cold tier for history: closed rentals, and sales and maintenance records old enough to leave memory
+// (see CarService.openArchive). Records are never changed once archived, so the archive only appends.
+// Each table is split by month of the record's date into its own file (rentals-2025-03.arc, ...; records
+// whose date is not yyyy-MM-dd go to -undated), so a date range reads only the months it covers.
+// A file is a run of frames, one per flush: the byte length and record count, then the records deflated.
+// Records wait in memory until the next flush (CarService flushes before every snapshot, so the journal
+// still holds whatever has not reached the archive). A small index file keeps each file's flushed length,
+// record count and id range, so opening reads no records and a lookup by id only reads the months whose
+// range holds the id. The index is replaced after the frames are on disk: a crash in between leaves whole
+// frames past the indexed length, which opening takes in, or a torn one, which it cuts off.
+// A record can reach the archive twice (a replayed journal closes a rental again); reads return it once.
+class Archive implements Closeable {
+
+    // Archived tables and their file name prefix
+    enum Table {
+        RENTALS("rentals"), SALES("sales"), MAINTS("maintenance");
+
+        final String prefix;
+
+        Table(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    static final String UNDATED = "undated";     // partition of records whose date is not yyyy-MM-dd
+    private static final String INDEX = "archive.index";
+    private static final String SUFFIX = ".arc";
+    private static final int MAGIC = 0x43534131; // "CSA1" at the start of the index
+
+    // One month of one table: its file, and its records not flushed yet
+    private static final class Partition {
+        final Table table;
+        final String key;
+        final File file;
+        long length;            // flushed bytes (the file may hold a torn frame past this)
+        int count;              // records flushed
+        int minId = Integer.MAX_VALUE, maxId = Integer.MIN_VALUE;   // over flushed and pending records
+        final ArrayList<Object> pending = new ArrayList<>();
+
+        Partition(Table table, String key, File file) {
+            this.table = table;
+            this.key = key;
+            this.file = file;
+        }
+
+        boolean mayHold(int id) {
+            return id >= minId && id <= maxId;
+        }
+
+        void took(int id) {
+            minId = Math.min(minId, id);
+            maxId = Math.max(maxId, id);
+        }
+    }
+
+    // What a read needs of a partition, taken under the lock so the file can be read without it
+    private static final class Part {
+        final Table table;
+        final File file;
+        final long length;
+        final Object[] pending;
+
+        Part(Partition p) {
+            table = p.table;
+            file = p.file;
+            length = p.length;
+            pending = p.pending.toArray();
+        }
+    }
+
+    private final File dir;
+    private final EnumMap<Table, TreeMap<String, Partition>> tables = new EnumMap<>(Table.class);
+    private int pending;                 // records waiting for the next flush, all tables
+
+    // Open (or create) the archive in dir
+    Archive(File dir) throws IOException {
+        this.dir = dir;
+        for (Table t : Table.values()) tables.put(t, new TreeMap<>());
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Could not create " + dir);
+        readIndex();
+        boolean changed = false;
+        File[] files = dir.listFiles();
+        for (File f : files == null ? new File[0] : files) changed |= recover(f);
+        if (changed) writeIndex();
+    }
+
+    // The archive directory kept beside a data file
+    static File dirFor(File dataFile) {
+        return new File(dataFile.getPath() + ".archive");
+    }
+
+    // Partition key of a Dates value: "yyyy-MM", or UNDATED
+    static String month(int day) {
+        return Dates.isDay(day) ? Dates.format(day).substring(0, 7) : UNDATED;
+    }
+
+    // Appends; the record is on disk after the next flush
+
+    synchronized void add(Rental r) {
+        append(Table.RENTALS, r.rentalDay, r.id, r);
+    }
+
+    synchronized void add(Sale s) {
+        append(Table.SALES, s.soldDay, s.id, s);
+    }
+
+    synchronized void add(Maintenance m) {
+        append(Table.MAINTS, m.serviceDay, m.id, m);
+    }
+
+    private void append(Table table, int day, int id, Object record) {
+        Partition p = partition(table, month(day));
+        p.pending.add(record);
+        p.took(id);
+        pending++;
+    }
+
+    // Records waiting for the next flush
+    synchronized int pending() {
+        return pending;
+    }
+
+    // Records archived, flushed or not
+    synchronized long records() {
+        long n = pending;
+        for (TreeMap<String, Partition> parts : tables.values()) for (Partition p : parts.values()) n += p.count;
+        return n;
+    }
+
+    // Bytes on disk
+    synchronized long bytes() {
+        long n = 0;
+        for (TreeMap<String, Partition> parts : tables.values()) for (Partition p : parts.values()) n += p.length;
+        return n;
+    }
+
+    // Write the waiting records, one frame per month, force them to disk and then the index
+    synchronized void flush() throws IOException {
+        if (pending == 0) return;
+        for (TreeMap<String, Partition> parts : tables.values()) {
+            for (Partition p : parts.values()) {
+                if (p.pending.isEmpty()) continue;
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+                try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+                    for (Object r : p.pending) write(p.table, out, r);
+                } finally {
+                    deflater.end();
+                }
+                try (FileChannel ch = FileChannel.open(p.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                    ch.truncate(p.length); // a torn frame left by a crash goes
+                    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch.position(p.length))));
+                    out.writeInt(bytes.size());
+                    out.writeInt(p.pending.size());
+                    bytes.writeTo(out);
+                    out.flush();
+                    ch.force(true);
+                }
+                p.length += 8 + bytes.size();
+                p.count += p.pending.size();
+                p.pending.clear();
+            }
+        }
+        pending = 0;
+        writeIndex();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+
+    // Delete every archived record (the data was cleared), reporting files deleted to progress
+    synchronized void clear(Progress progress) throws IOException {
+        int total = 0, done = 0;
+        for (TreeMap<String, Partition> parts : tables.values()) total += parts.size();
+        for (TreeMap<String, Partition> parts : tables.values()) {
+            for (Partition p : parts.values()) {
+                Files.deleteIfExists(p.file.toPath());
+                progress.update(++done, total);
+            }
+            parts.clear();
+        }
+        pending = 0;
+        writeIndex();
+    }
+
+    // Reads. Each reads the files outside the lock (frames are only ever added after the length it saw) and
+    // returns a record once even if it was archived twice. UncheckedIOException if a file cannot be read.
+
+    Rental findRental(int id) {
+        return (Rental) find(Table.RENTALS, id);
+    }
+
+    Sale findSale(int id) {
+        return (Sale) find(Table.SALES, id);
+    }
+
+    Maintenance findMaint(int id) {
+        return (Maintenance) find(Table.MAINTS, id);
+    }
+
+    // Records dated from lo to hi (Dates values, both included), oldest month first
+    @SuppressWarnings("unchecked")
+    <T> List<T> between(Table table, int lo, int hi) {
+        if (lo > hi) return new ArrayList<>();
+        List<Part> parts = new ArrayList<>();
+        synchronized (this) {
+            for (Partition p : tables.get(table).subMap(month(lo), true, month(hi), true).values()) parts.add(new Part(p));
+        }
+        List<T> out = new ArrayList<>();
+        IntSet seen = new IntSet();
+        for (Part p : parts) {
+            for (Object r : read(p)) {
+                int day = day(table, r);
+                if (day >= lo && day <= hi && seen.add(id(table, r))) out.add((T) r);
+            }
+        }
+        return out;
+    }
+
+    // Every record of a table, oldest month first (the undated last)
+    @SuppressWarnings("unchecked")
+    <T> List<T> all(Table table) {
+        List<Part> parts = new ArrayList<>();
+        synchronized (this) {
+            for (Partition p : tables.get(table).values()) parts.add(new Part(p));
+        }
+        List<T> out = new ArrayList<>();
+        IntSet seen = new IntSet();
+        for (Part p : parts) for (Object r : read(p)) if (seen.add(id(table, r))) out.add((T) r);
+        return out;
+    }
+
+    private Object find(Table table, int id) {
+        List<Part> parts = new ArrayList<>();
+        synchronized (this) {
+            for (Partition p : tables.get(table).descendingMap().values()) if (p.mayHold(id)) parts.add(new Part(p));
+        }
+        for (Part p : parts) for (Object r : read(p)) if (id(table, r) == id) return r;
+        return null;
+    }
+
+    // The records of a partition: the flushed frames, then the pending ones
+    private static List<Object> read(Part p) {
+        List<Object> out = new ArrayList<>();
+        if (p.length > 0) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(p.file)))) {
+                readFrames(in, p.table, p.length, out);
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Archive read failed: " + p.file, ex);
+            }
+        }
+        for (Object r : p.pending) out.add(r);
+        return out;
+    }
+
+    // Read whole frames up to limit bytes into out; returns the length of the frames read. Stops early at a
+    // frame cut off by a crash.
+    private static long readFrames(DataInputStream in, Table table, long limit, List<Object> out) throws IOException {
+        long at = 0;
+        while (at + 8 <= limit) {
+            int size, count;
+            try {
+                size = in.readInt();
+                count = in.readInt();
+            } catch (EOFException ex) {
+                break;
+            }
+            if (size < 0 || count < 0 || at + 8 + size > limit) break; // torn
+            byte[] frame = new byte[size];
+            try {
+                in.readFully(frame);
+            } catch (EOFException ex) {
+                break;
+            }
+            List<Object> taken = new ArrayList<>(count);
+            try (DataInputStream records = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(frame)))) {
+                for (int i = 0; i < count; i++) taken.add(read(table, records));
+            } catch (EOFException | ZipException ex) {
+                break; // not a whole frame after all
+            }
+            out.addAll(taken);
+            at += 8 + size;
+        }
+        return at;
+    }
+
+    // Opening
+
+    private Partition partition(Table table, String key) {
+        return tables.get(table).computeIfAbsent(key, k -> new Partition(table, k, new File(dir, table.prefix + "-" + k + SUFFIX)));
+    }
+
+    private void readIndex() throws IOException {
+        File f = new File(dir, INDEX);
+        if (!f.exists()) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not an archive index: " + f);
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                Table table = Table.values()[in.readUnsignedByte()];
+                Partition p = partition(table, in.readUTF());
+                p.length = in.readLong();
+                p.count = in.readInt();
+                p.minId = in.readInt();
+                p.maxId = in.readInt();
+            }
+        }
+    }
+
+    private synchronized void writeIndex() throws IOException {
+        File f = new File(dir, INDEX), tmp = new File(dir, INDEX + ".tmp");
+        List<Partition> all = new ArrayList<>();
+        for (TreeMap<String, Partition> parts : tables.values()) all.addAll(parts.values());
+        try (FileOutputStream file = new FileOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            out.writeInt(MAGIC);
+            out.writeInt(all.size());
+            for (Partition p : all) {
+                out.writeByte(p.table.ordinal());
+                out.writeUTF(p.key);
+                out.writeLong(p.length);
+                out.writeInt(p.count);
+                out.writeInt(p.minId);
+                out.writeInt(p.maxId);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp.toPath(), f.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Take in whole frames past a file's indexed length (a crash between the frames and the index, or an
+    // index lost altogether); true if the index must be written again
+    private boolean recover(File f) throws IOException {
+        String name = f.getName();
+        if (!name.endsWith(SUFFIX)) return false;
+        for (Table table : Table.values()) {
+            if (!name.startsWith(table.prefix + "-")) continue;
+            String key = name.substring(table.prefix.length() + 1, name.length() - SUFFIX.length());
+            Partition p = partition(table, key);
+            if (f.length() == p.length) return false;
+            if (f.length() < p.length) throw new IOException("Archive file shorter than its index: " + f);
+            List<Object> found = new ArrayList<>();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+                in.skipNBytes(p.length);
+                p.length += readFrames(in, table, f.length() - p.length, found);
+            }
+            p.count += found.size();
+            for (Object r : found) p.took(id(table, r));
+            return true;
+        }
+        return false;
+    }
+
+    // Record format
+
+    private static void write(Table table, DataOutputStream out, Object record) throws IOException {
+        switch (table) {
+            case RENTALS: {
+                Rental r = (Rental) record;
+                out.writeInt(r.id);
+                out.writeInt(r.vehicleId);
+                out.writeInt(r.customerId);
+                writeText(out, r.rentalDate());
+                writeText(out, r.returnDate());
+                out.writeDouble(r.totalCost);
+                break;
+            }
+            case SALES: {
+                Sale s = (Sale) record;
+                out.writeInt(s.id);
+                out.writeInt(s.vehicleId);
+                out.writeInt(s.customerId);
+                writeText(out, s.dateSold());
+                out.writeDouble(s.sellingPrice);
+                break;
+            }
+            default: {
+                Maintenance m = (Maintenance) record;
+                out.writeInt(m.id);
+                out.writeInt(m.vehicleId);
+                writeText(out, m.serviceType);
+                writeText(out, m.serviceDate());
+                out.writeDouble(m.cost);
+                writeText(out, m.mechanic);
+            }
+        }
+    }
+
+    private static Object read(Table table, DataInputStream in) throws IOException {
+        switch (table) {
+            case RENTALS: {
+                int id = in.readInt(), vid = in.readInt(), cid = in.readInt();
+                String from = readText(in), to = readText(in);
+                return new Rental(id, vid, cid, from, to, in.readDouble());
+            }
+            case SALES: {
+                int id = in.readInt(), vid = in.readInt(), cid = in.readInt();
+                String date = readText(in);
+                return new Sale(id, vid, cid, date, in.readDouble());
+            }
+            default: {
+                int id = in.readInt(), vid = in.readInt();
+                String service = readText(in), date = readText(in);
+                double cost = in.readDouble();
+                return new Maintenance(id, vid, service, date, cost, readText(in));
+            }
+        }
+    }
+
+    // Dates are kept as text, as the journal keeps them, so odd text reads back as written
+    private static void writeText(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) out.writeUTF(s);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static int id(Table table, Object record) {
+        switch (table) {
+            case RENTALS: return ((Rental) record).id;
+            case SALES: return ((Sale) record).id;
+            default: return ((Maintenance) record).id;
+        }
+    }
+
+    private static int day(Table table, Object record) {
+        switch (table) {
+            case RENTALS: return ((Rental) record).rentalDay;
+            case SALES: return ((Sale) record).soldDay;
+            default: return ((Maintenance) record).serviceDay;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import javax.swing.SwingWorker;
+
+// Runs slow data work (save, load, clear) on a background thread so the Swing event thread keeps painting.
+// Progress is published as the SwingWorker "progress" property (0-100). Cancelling is cooperative: the work
+// stops at its next progress update, and the result or error is always handed back on the event thread
+// only after the background thread has finished.
+class BackgroundTask<T> extends SwingWorker<T, Void> {
+
+    // The background part; must not touch Swing components
+    interface Work<T> {
+        T run(Progress progress) throws Exception;
+    }
+
+    // Called on the event thread with the result
+    interface Done<T> {
+        void done(T result);
+    }
+
+    // Called on the event thread when the work failed or was cancelled (CancellationException)
+    interface Failed {
+        void failed(Throwable error);
+    }
+
+    private final Work<T> work;
+    private final Done<T> onDone;
+    private final Failed onFailed;
+    private volatile boolean cancelRequested; // set from the event thread, read by the worker
+
+    BackgroundTask(Work<T> work, Done<T> onDone, Failed onFailed) {
+        this.work = work;
+        this.onDone = onDone;
+        this.onFailed = onFailed;
+    }
+
+    // Ask the work to stop at its next progress update
+    void requestCancel() {
+        cancelRequested = true;
+    }
+
+    @Override
+    protected T doInBackground() throws Exception {
+        return work.run((done, total) -> {
+            if (cancelRequested) throw new CancellationException("Cancelled");
+            setProgress(total <= 0 ? 0 : (int) Math.min(100, done * 100 / total)); // coalesced by SwingWorker
+        });
+    }
+
+    @Override
+    protected void done() {
+        try {
+            onDone.done(get());
+        } catch (ExecutionException ex) {
+            onFailed.failed(ex.getCause()); // includes CancellationException from a cancelled run
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
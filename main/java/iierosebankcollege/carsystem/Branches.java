@@ -0,0 +1,290 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+// Several dealerships in one process: the data is split into one partition per branch, each a CarService
+// with its own snapshot and journal file (branch-<n>.ser / branch-<n>.journal in one directory), its own
+// locks and its own id counters. Ids carry their branch in the top bits (CarService.BRANCH_SHIFT), so
+// every branch numbers its records on its own and ids are still unique across branches, with no counter
+// or lock shared between them.
+//  - A record found by id is looked up in the one branch its id names.
+//  - A booking goes to the branch that has the car; the customer may belong to any branch.
+//  - Questions about the whole stock (search, counts, a free car of some model) are asked of every branch at
+//    once, on a thread per branch, and the answers merged.
+// A branch can also run as its own process (CarSystem --server --branch n): its ids then still never clash
+// with the other branches'.
+class Branches {
+
+    private final CarService[] branches;
+    private final ExecutorService pool;    // one thread per branch for fan-out queries
+
+    // Work done on one branch; may fail with an IOException
+    private interface Work<T> {
+        T run(CarService branch) throws Exception;
+    }
+
+    // count branches (1 to CarService.MAX_BRANCHES), their files in dir
+    Branches(File dir, int count, boolean columnar) {
+        if (count < 1 || count > CarService.MAX_BRANCHES) throw new IllegalArgumentException("1 to " + CarService.MAX_BRANCHES + " branches");
+        branches = new CarService[count];
+        for (int b = 0; b < count; b++) {
+            branches[b] = new CarService(dataFile(dir, b), journalFile(dir, b), columnar, b);
+        }
+        for (CarService s : branches) s.lookUpCustomersWith(id -> findCustomer(id) != null);
+        pool = Executors.newFixedThreadPool(count, r -> {
+            Thread t = new Thread(r, "branch-query");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    static File dataFile(File dir, int branch) {
+        return new File(dir, "branch-" + branch + ".ser");
+    }
+
+    static File journalFile(File dir, int branch) {
+        return new File(dir, "branch-" + branch + ".journal");
+    }
+
+    int count() {
+        return branches.length;
+    }
+
+    CarService branch(int b) {
+        return branches[b];
+    }
+
+    // The branch that made the record with this id, or null if there is no such branch
+    CarService owner(int id) {
+        int b = CarService.branchOf(id);
+        return id > 0 && b < branches.length ? branches[b] : null;
+    }
+
+    // Persistence: every branch reads or writes its own files, all at once
+
+    // Load each branch's snapshot and replay its journal
+    void open() throws IOException {
+        allIo(s -> {
+            s.load();
+            s.openJournal();
+            return null;
+        });
+    }
+
+    void writeSnapshots() throws IOException {
+        allIo(s -> {
+            s.writeSnapshot(Progress.NONE);
+            return null;
+        });
+    }
+
+    // Flush and close the journals and stop the query threads
+    void close() throws IOException {
+        try {
+            allIo(s -> {
+                s.close();
+                return null;
+            });
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Changes: made in one branch
+
+    Vehicle addVehicle(int branch, String make, String model, int year, String color, double price) {
+        return branches[branch].addVehicle(make, model, year, color, price);
+    }
+
+    Customer addCustomer(int branch, String name, String phone, String email, String address) {
+        return branches[branch].addCustomer(name, phone, email, address);
+    }
+
+    boolean deleteVehicle(int id) {
+        CarService s = owner(id);
+        return s != null && s.deleteVehicle(id);
+    }
+
+    boolean deleteCustomer(int id) {
+        CarService s = owner(id);
+        return s != null && s.deleteCustomer(id);
+    }
+
+    // Rent out a car of any branch (the rental is kept by the car's branch); null as for CarService.addRental
+    Rental addRental(int vehicleId, int customerId, String rentalDate, String returnDate, double totalCost) {
+        CarService s = owner(vehicleId);
+        return s == null ? null : s.addRental(vehicleId, customerId, rentalDate, returnDate, totalCost);
+    }
+
+    Rental reserve(int vehicleId, int customerId, String rentalDate, String returnDate, double totalCost) {
+        CarService s = owner(vehicleId);
+        return s == null ? null : s.reserve(vehicleId, customerId, rentalDate, returnDate, totalCost);
+    }
+
+    boolean startRental(int rentalId) {
+        CarService s = owner(rentalId);
+        return s != null && s.startRental(rentalId);
+    }
+
+    boolean closeRental(int rentalId) {
+        CarService s = owner(rentalId);
+        return s != null && s.closeRental(rentalId);
+    }
+
+    Sale addSale(int vehicleId, int customerId, String dateSold, double sellingPrice) {
+        CarService s = owner(vehicleId);
+        return s == null ? null : s.addSale(vehicleId, customerId, dateSold, sellingPrice);
+    }
+
+    Maintenance addMaint(int vehicleId, String serviceType, String serviceDate, double cost, String mechanic) {
+        CarService s = owner(vehicleId);
+        return s == null ? null : s.addMaint(vehicleId, serviceType, serviceDate, cost, mechanic);
+    }
+
+    // Lookups by id: the id names the branch
+
+    Vehicle findVehicle(int id) {
+        CarService s = owner(id);
+        return s == null ? null : s.findVehicle(id);
+    }
+
+    Customer findCustomer(int id) {
+        CarService s = owner(id);
+        return s == null ? null : s.findCustomer(id);
+    }
+
+    Rental findRental(int id) {
+        CarService s = owner(id);
+        return s == null ? null : s.findRental(id);
+    }
+
+    Sale findSale(int id) {
+        CarService s = owner(id);
+        return s == null ? null : s.findSale(id);
+    }
+
+    Maintenance findMaint(int id) {
+        CarService s = owner(id);
+        return s == null ? null : s.findMaint(id);
+    }
+
+    // Is the car free for the whole window [from, to)? IllegalArgumentException for unreadable dates
+    boolean isFree(int vehicleId, String from, String to) {
+        CarService s = owner(vehicleId);
+        if (s == null) throw new IllegalArgumentException("No vehicle " + vehicleId);
+        return s.isFree(vehicleId, from, to);
+    }
+
+    // Questions about the whole stock: every branch at once
+
+    // Vehicles of every branch matching the query, branch by branch, at most query.limit of them
+    List<Vehicle> findVehicles(VehicleIndex.Query query) {
+        List<Vehicle> out = new ArrayList<>();
+        for (List<Vehicle> part : all(s -> s.findVehicles(query))) {
+            for (Vehicle v : part) {
+                if (out.size() >= query.limit) return out;
+                out.add(v);
+            }
+        }
+        return out;
+    }
+
+    List<Vehicle> vehiclesWith(Status status) {
+        List<Vehicle> out = new ArrayList<>();
+        for (List<Vehicle> part : all(s -> s.vehiclesWith(status))) out.addAll(part);
+        return out;
+    }
+
+    int countVehicles(Status status) {
+        int n = 0;
+        for (int part : all(s -> s.countVehicles(status))) n += part;
+        return n;
+    }
+
+    // Customers of every branch matching the text: each branch's best match first, then each one's second, ...
+    List<Customer> searchCustomers(String text, int limit) {
+        List<List<Customer>> parts = all(s -> s.searchCustomers(text, limit));
+        List<Customer> out = new ArrayList<>();
+        for (int i = 0; out.size() < limit; i++) {
+            boolean more = false;
+            for (List<Customer> part : parts) {
+                if (i >= part.size()) continue;
+                more = true;
+                if (out.size() < limit) out.add(part.get(i));
+            }
+            if (!more) break;
+        }
+        return out;
+    }
+
+    // A car of this model free for the whole window, from the first branch (in branch order) that has one;
+    // null if none does. IllegalArgumentException for unreadable dates.
+    Vehicle findFreeVehicle(String model, String from, String to) {
+        for (Vehicle v : all(s -> s.findFreeVehicle(model, from, to))) if (v != null) return v;
+        return null;
+    }
+
+    // Fan-out
+
+    // The answer of every branch, in branch order; the branches are asked at once
+    private <T> List<T> all(Function<CarService, T> query) {
+        try {
+            return allIo(query::apply);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // queries do no file work
+        }
+    }
+
+    private <T> List<T> allIo(Work<T> work) throws IOException {
+        if (branches.length == 1) { // nothing to overlap
+            try {
+                return Collections.singletonList(work.run(branches[0]));
+            } catch (IOException | RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IOException(ex);
+            }
+        }
+        List<Callable<T>> tasks = new ArrayList<>(branches.length);
+        for (CarService s : branches) tasks.add(() -> work.run(s));
+        List<T> out = new ArrayList<>(branches.length);
+        try {
+            for (Future<T> f : pool.invokeAll(tasks)) out.add(f.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while asking the branches", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,658 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarService.Table;
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Bulk import and export of the five tables as CSV or JSON, e.g. to onboard a branch from a spreadsheet.
+// Both directions stream: an import reads a chunk of rows, checks them and hands them to the service as one
+// batch (ids given out as a block, one table refresh per batch), and an export writes each record as it walks
+// the store, so neither side holds a whole table as text or as a list.
+//   CSV:  a header row naming the columns (any order, case ignored, unknown ones skipped), then one row per
+//         record; fields with a comma, quote or line break are quoted, quotes doubled.
+//   JSON: an array of flat objects, one per line on export; an import also takes objects one per line.
+// An import checks every row the way the window does (a sale needs an available car, and so on); a row that
+// fails is skipped and reported with its line number. Records get new ids. The ids a file gives vehicles and
+// customers are remembered, so rentals, sales and maintenance imported later through the same BulkIO point
+// at the new records; an id it has not seen is taken as a record already in the system.
+// A vehicle's status is not imported: it follows from the rentals, sales and maintenance, as in the journal.
+// The rentals column "started" says whether the car is out on the rental (true, the default) or it is a
+// booking still to come.
+//   BulkIO io = new BulkIO(service);
+//   io.importFolder(dir, progress);   io.exportFolder(dir, BulkIO.Format.CSV, progress);
+class BulkIO {
+
+    static final int BATCH = 4096;            // rows checked and added together
+    private static final int MAX_ERRORS = 100; // refused rows reported in detail per table
+
+    enum Format {
+        CSV(".csv"), JSON(".json");
+
+        final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+
+        // Format for a file name by its extension, or null
+        static Format of(String fileName) {
+            for (Format f : values()) if (fileName.toLowerCase().endsWith(f.extension)) return f;
+            return null;
+        }
+    }
+
+    // Columns of each table, in file order
+    private static final String[] VEHICLE = {"id", "make", "model", "year", "color", "price", "status"};
+    private static final String[] CUSTOMER = {"id", "name", "phone", "email", "address"};
+    private static final String[] RENTAL = {"id", "vehicleId", "customerId", "rentalDate", "returnDate", "totalCost", "started"};
+    private static final String[] SALE = {"id", "vehicleId", "customerId", "dateSold", "sellingPrice"};
+    private static final String[] MAINT = {"id", "vehicleId", "serviceType", "serviceDate", "cost", "mechanic"};
+    // Columns a CSV file may leave out (status is export-only)
+    private static final List<String> OPTIONAL = List.of("id", "status", "started", "color", "phone", "email", "address", "mechanic");
+
+    static String[] columns(Table table) {
+        switch (table) {
+            case VEHICLES: return VEHICLE.clone();
+            case CUSTOMERS: return CUSTOMER.clone();
+            case RENTALS: return RENTAL.clone();
+            case SALES: return SALE.clone();
+            default: return MAINT.clone();
+        }
+    }
+
+    // File name of a table in an import or export folder, without the extension
+    static String fileName(Table table) {
+        return table == Table.MAINTS ? "maintenance" : table.name().toLowerCase();
+    }
+
+    // Outcome of importing one table
+    static final class Result {
+        final Table table;
+        long rows;                 // rows read
+        long imported;             // rows added
+        long refused;              // rows skipped
+        final List<String> errors = new ArrayList<>(); // "line n: reason" for the first refused rows
+
+        Result(Table table) {
+            this.table = table;
+        }
+
+        private void refuse(long line, String reason) {
+            refused++;
+            if (errors.size() < MAX_ERRORS) errors.add("line " + line + ": " + reason);
+        }
+
+        @Override
+        public String toString() {
+            return fileName(table) + ": " + imported + " of " + rows + " rows imported" + (refused == 0 ? "" : ", " + refused + " refused");
+        }
+    }
+
+    private final CarService service;
+    private final IntIndex vehicleIds = new IntIndex();  // vehicle id in the imported files -> id given here
+    private final IntIndex customerIds = new IntIndex();
+
+    BulkIO(CarService service) {
+        this.service = service;
+    }
+
+    // Import
+
+    // Import every table that has a file in dir (vehicles.csv or vehicles.json, customers..., in that order)
+    List<Result> importFolder(File dir, Progress progress) throws IOException {
+        List<File> found = new ArrayList<>();
+        long total = 0;
+        for (Table t : Table.values()) {
+            File f = find(dir, t);
+            found.add(f);
+            if (f != null) total += f.length();
+        }
+        List<Result> results = new ArrayList<>();
+        long before = 0;
+        for (Table t : Table.values()) {
+            File f = found.get(t.ordinal());
+            if (f == null) continue;
+            long base = before, all = total;
+            try (Reader in = Files.newBufferedReader(f.toPath(), StandardCharsets.UTF_8)) {
+                results.add(importFrom(t, in, Format.of(f.getName()), (done, size) -> progress.update(base + done, all)));
+            }
+            before += f.length();
+        }
+        progress.update(total, total);
+        return results;
+    }
+
+    private static File find(File dir, Table table) {
+        for (Format format : Format.values()) {
+            File f = new File(dir, fileName(table) + format.extension);
+            if (f.isFile()) return f;
+        }
+        return null;
+    }
+
+    // Import one table from in; progress gets the characters read so far.
+    // IllegalArgumentException if a CSV header lacks a required column.
+    Result importFrom(Table table, Reader in, Format format, Progress progress) throws IOException {
+        String[] columns = columns(table);
+        Rows rows = format == Format.CSV ? new CsvRows(in, columns) : new JsonRows(in, columns);
+        Result result = new Result(table);
+        Batch batch = new Batch(table);
+        while (true) {
+            String[] f = null;
+            try {
+                f = rows.next();
+                if (f == null) break;
+                result.rows++;
+                batch.add(f, rows.line());
+            } catch (IllegalArgumentException ex) { // this row is unreadable or wrong; the next one may be fine
+                if (f == null) result.rows++;
+                batch.reject(rows.line(), ex.getMessage());
+            }
+            if (batch.size + batch.bad == BATCH) {
+                batch.flush(result);
+                progress.update(rows.position(), 0);
+            }
+        }
+        batch.flush(result);
+        progress.update(rows.position(), 0);
+        return result;
+    }
+
+    // Checked rows of one table waiting to go into the service together
+    private final class Batch {
+        private final Table table;
+        private final List<Object> records = new ArrayList<>(BATCH);
+        private final int[] fileIds = new int[BATCH];      // id the file gave the record, or IntIndex.MISSING
+        private final long[] lines = new long[BATCH];
+        private final boolean[] out = new boolean[BATCH];  // rentals: the car is out on it
+        private final long[] badLines = new long[BATCH];   // rows refused before reaching the service
+        private final String[] badReasons = new String[BATCH];
+        int size, bad;
+
+        Batch(Table table) {
+            this.table = table;
+        }
+
+        // Check one row and keep its record; IllegalArgumentException says what is wrong with it
+        void add(String[] f, long line) {
+            int fileId = f[0] == null || f[0].isBlank() ? IntIndex.MISSING : integer(f[0], "id");
+            switch (table) {
+                case VEHICLES:
+                    records.add(new Vehicle(0, required(f[1], "make"), required(f[2], "model"), integer(required(f[3], "year"), "year"),
+                            text(f[4], "color"), amount(f[5], "price")));
+                    break;
+                case CUSTOMERS:
+                    records.add(new Customer(0, required(f[1], "name"), text(f[2], "phone"), text(f[3], "email"), text(f[4], "address")));
+                    break;
+                case RENTALS:
+                    out[size] = f[6] == null || f[6].isBlank() || bool(f[6], "started");
+                    records.add(new Rental(0, vehicle(f[1]), customer(f[2]), date(f[3], "rentalDate"), date(f[4], "returnDate"),
+                            amount(f[5], "totalCost")));
+                    break;
+                case SALES:
+                    records.add(new Sale(0, vehicle(f[1]), customer(f[2]), date(f[3], "dateSold"), amount(f[4], "sellingPrice")));
+                    break;
+                default:
+                    records.add(new Maintenance(0, vehicle(f[1]), required(f[2], "serviceType"), date(f[3], "serviceDate"),
+                            amount(f[4], "cost"), text(f[5], "mechanic")));
+            }
+            fileIds[size] = fileId;
+            lines[size] = line;
+            size++;
+        }
+
+        void reject(long line, String reason) {
+            badLines[bad] = line;
+            badReasons[bad++] = reason;
+        }
+
+        // Hand the batch to the service and note what it refused (with the rows refused earlier, in line
+        // order) and which ids it gave
+        void flush(Result result) {
+            String[] refused = size == 0 ? new String[0] : send();
+            int b = 0;
+            for (int i = 0; i < size; i++) {
+                while (b < bad && badLines[b] < lines[i]) result.refuse(badLines[b], badReasons[b++]);
+                if (refused[i] != null) {
+                    result.refuse(lines[i], refused[i]);
+                    continue;
+                }
+                result.imported++;
+                if (fileIds[i] == IntIndex.MISSING) continue;
+                if (table == Table.VEHICLES) vehicleIds.put(fileIds[i], ((Vehicle) records.get(i)).id);
+                else if (table == Table.CUSTOMERS) customerIds.put(fileIds[i], ((Customer) records.get(i)).id);
+            }
+            while (b < bad) result.refuse(badLines[b], badReasons[b++]);
+            records.clear();
+            size = 0;
+            bad = 0;
+        }
+
+        // Add the records through the service: one batch, one refresh; null where a record went in
+        @SuppressWarnings("unchecked")
+        private String[] send() {
+            switch (table) {
+                case VEHICLES: return service.importVehicles((List<Vehicle>) (List<?>) records);
+                case CUSTOMERS: return service.importCustomers((List<Customer>) (List<?>) records);
+                case RENTALS: return service.importRentals((List<Rental>) (List<?>) records, out);
+                case SALES: return service.importSales((List<Sale>) (List<?>) records);
+                default: return service.importMaints((List<Maintenance>) (List<?>) records);
+            }
+        }
+    }
+
+    // Vehicle a row points at: the new id of one imported earlier, or an id already in the system
+    private int vehicle(String s) {
+        int id = integer(required(s, "vehicleId"), "vehicleId");
+        int mapped = vehicleIds.get(id);
+        return mapped == IntIndex.MISSING ? id : mapped;
+    }
+
+    private int customer(String s) {
+        int id = integer(required(s, "customerId"), "customerId");
+        int mapped = customerIds.get(id);
+        return mapped == IntIndex.MISSING ? id : mapped;
+    }
+
+    private static String required(String s, String column) {
+        if (s == null || s.isBlank()) throw new IllegalArgumentException(column + " is empty");
+        return text(s, column);
+    }
+
+    private static String text(String s, String column) {
+        if (s == null) return "";
+        String t = s.trim();
+        if (t.length() > CarService.MAX_TEXT) throw new IllegalArgumentException(column + " is longer than " + CarService.MAX_TEXT + " characters");
+        return t;
+    }
+
+    // A yyyy-MM-dd date as a Dates day
+    private static int date(String s, String column) {
+        int day = Dates.parse(required(s, column));
+        if (day == Dates.NONE) throw new IllegalArgumentException(column + " is not a yyyy-MM-dd date: " + s.trim());
+        return day;
+    }
+
+    private static int integer(String s, String column) {
+        try {
+            return Integer.parseInt(s.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + s);
+        }
+    }
+
+    // Money: a number, not negative
+    private static double amount(String s, String column) {
+        double d;
+        try {
+            d = Double.parseDouble(required(s, column));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException(column + " is not a number: " + s);
+        }
+        if (!(d >= 0) || Double.isInfinite(d)) throw new IllegalArgumentException(column + " is negative or not finite: " + s);
+        return d;
+    }
+
+    private static boolean bool(String s, String column) {
+        String t = s.trim();
+        if (t.equalsIgnoreCase("true")) return true;
+        if (t.equalsIgnoreCase("false")) return false;
+        throw new IllegalArgumentException(column + " is not true or false: " + s);
+    }
+
+    // Export
+
+    // Write every table to dir as vehicles.csv, customers.csv, ... (or .json); progress counts records
+    void exportFolder(File dir, Format format, Progress progress) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) throw new IOException("Could not create " + dir);
+        long total = service.vehicles.size() + service.customers.size() + service.rentals.size() + service.sales.size() + service.maints.size();
+        long[] done = {0};
+        for (Table t : Table.values()) {
+            File f = new File(dir, fileName(t) + format.extension);
+            try (Writer out = Files.newBufferedWriter(f.toPath(), StandardCharsets.UTF_8)) {
+                long base = done[0];
+                done[0] += export(t, out, format, (n, size) -> progress.update(base + n, total));
+            }
+        }
+        progress.update(total, total);
+    }
+
+    // Write one table to out as of one moment (writes wait meanwhile); returns the number of records
+    long export(Table table, Writer out, Format format, Progress progress) throws IOException {
+        Writer w = out instanceof BufferedWriter ? out : new BufferedWriter(out, 1 << 16);
+        String[] columns = columns(table);
+        long[] rows = {0};
+        StringBuilder line = new StringBuilder(256);
+        service.scan(() -> {
+            EntityStore<?> store = store(table);
+            long size = store.size();
+            if (format == Format.CSV) w.write(String.join(",", columns) + "\n");
+            else w.write("[\n");
+            // every writer waits for the write lock, so the walk needs no store lock (and isOut may take the schedule's)
+            for (Object record : store) {
+                line.setLength(0);
+                if (format == Format.CSV) csv(line, table, record);
+                else json(line, table, record, rows[0] > 0);
+                w.append(line);
+                if ((++rows[0] & 8191) == 0) progress.update(rows[0], size);
+            }
+            if (format == Format.JSON) w.write(rows[0] > 0 ? "\n]\n" : "]\n");
+        });
+        w.flush();
+        progress.update(rows[0], rows[0]);
+        return rows[0];
+    }
+
+    private EntityStore<?> store(Table table) {
+        switch (table) {
+            case VEHICLES: return service.vehicles;
+            case CUSTOMERS: return service.customers;
+            case RENTALS: return service.rentals;
+            case SALES: return service.sales;
+            default: return service.maints;
+        }
+    }
+
+    // One record's fields as text, in column order
+    private Object[] values(Table table, Object record) {
+        switch (table) {
+            case VEHICLES: {
+                Vehicle v = (Vehicle) record;
+                return new Object[] {v.id, v.make, v.model, v.year, v.color, v.price, v.status.label};
+            }
+            case CUSTOMERS: {
+                Customer c = (Customer) record;
+                return new Object[] {c.id, c.name, c.phone, c.email, c.address};
+            }
+            case RENTALS: {
+                Rental r = (Rental) record;
+                return new Object[] {r.id, r.vehicleId, r.customerId, r.rentalDate(), r.returnDate(), r.totalCost, service.isOut(r)};
+            }
+            case SALES: {
+                Sale s = (Sale) record;
+                return new Object[] {s.id, s.vehicleId, s.customerId, s.dateSold(), s.sellingPrice};
+            }
+            default: {
+                Maintenance m = (Maintenance) record;
+                return new Object[] {m.id, m.vehicleId, m.serviceType, m.serviceDate(), m.cost, m.mechanic};
+            }
+        }
+    }
+
+    private void csv(StringBuilder line, Table table, Object record) {
+        Object[] values = values(table, record);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            Object v = values[i];
+            if (v instanceof String) quoteCsv(line, (String) v);
+            else if (v != null) line.append(v);
+        }
+        line.append('\n');
+    }
+
+    // Append a CSV field, quoted only when it has to be
+    static void quoteCsv(StringBuilder sb, String s) {
+        boolean plain = true;
+        for (int i = 0; i < s.length() && plain; i++) {
+            char c = s.charAt(i);
+            plain = c != ',' && c != '"' && c != '\n' && c != '\r';
+        }
+        if (plain) {
+            sb.append(s);
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"') sb.append('"');
+            sb.append(c);
+        }
+        sb.append('"');
+    }
+
+    private void json(StringBuilder line, Table table, Object record, boolean comma) {
+        if (comma) line.append(",\n");
+        Object[] values = values(table, record);
+        String[] columns = columns(table);
+        line.append('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            Json.quote(line, columns[i]);
+            line.append(':');
+            Object v = values[i];
+            if (v instanceof String) Json.quote(line, (String) v);
+            else if (v instanceof Double && !Double.isFinite((Double) v)) line.append("null");
+            else line.append(v); // numbers, booleans, null
+        }
+        line.append('}');
+    }
+
+    // Parsing
+
+    // Rows of a file as field values in the table's column order (null: not given)
+    private interface Rows {
+        String[] next() throws IOException;   // next row, or null at the end
+        long line();                          // line the last row started on
+        long position();                      // characters read so far
+    }
+
+    // Buffered character input with one character of push-back
+    private abstract static class Input {
+        private final Reader in;
+        private final char[] buf = new char[1 << 16];
+        private int pos, len;
+        private long read;             // characters consumed before buf
+        long lineNo = 1;
+
+        Input(Reader in) {
+            this.in = in;
+        }
+
+        final int read() throws IOException {
+            if (pos == len) {
+                read += len;
+                len = in.read(buf, 0, buf.length);
+                pos = 0;
+                if (len <= 0) {
+                    len = 0;
+                    return -1;
+                }
+            }
+            char c = buf[pos++];
+            if (c == '\n') lineNo++;
+            return c;
+        }
+
+        // Push back the character just read (never called at the end of input)
+        final void unread() {
+            if (buf[--pos] == '\n') lineNo--;
+        }
+
+        public final long position() {
+            return read + pos;
+        }
+    }
+
+    private static final class CsvRows extends Input implements Rows {
+        private final int[] fieldOf;        // file column -> table column, -1 to skip
+        private final int fields;
+        private final StringBuilder sb = new StringBuilder();
+        private final ArrayList<String> cols = new ArrayList<>();
+        private long line;
+
+        CsvRows(Reader in, String[] columns) throws IOException {
+            super(in);
+            fields = columns.length;
+            if (!record()) throw new IllegalArgumentException("The file is empty: a header row is expected");
+            fieldOf = new int[cols.size()];
+            boolean[] seen = new boolean[fields];
+            for (int i = 0; i < cols.size(); i++) {
+                fieldOf[i] = -1;
+                for (int k = 0; k < fields; k++) {
+                    if (columns[k].equalsIgnoreCase(cols.get(i).trim())) {
+                        fieldOf[i] = k;
+                        seen[k] = true;
+                    }
+                }
+            }
+            for (int k = 0; k < fields; k++) {
+                if (!seen[k] && !OPTIONAL.contains(columns[k])) throw new IllegalArgumentException("The header has no " + columns[k] + " column");
+            }
+        }
+
+        @Override
+        public String[] next() throws IOException {
+            if (!record()) return null;
+            String[] f = new String[fields];
+            for (int i = 0; i < cols.size() && i < fieldOf.length; i++) if (fieldOf[i] >= 0) f[fieldOf[i]] = cols.get(i);
+            return f;
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+
+        // Read one record into cols; false at the end of input. Blank lines are skipped.
+        private boolean record() throws IOException {
+            cols.clear();
+            int c = read();
+            while (c == '\n' || c == '\r') c = read();
+            if (c < 0) return false;
+            line = lineNo;
+            while (true) {
+                sb.setLength(0);
+                if (c == '"') {
+                    while (true) {
+                        c = read();
+                        if (c < 0) throw new IllegalArgumentException("unterminated quoted field");
+                        if (c == '"') {
+                            c = read();
+                            if (c != '"') break; // closing quote
+                        }
+                        sb.append((char) c);
+                    }
+                } else {
+                    while (c >= 0 && c != ',' && c != '\n' && c != '\r') {
+                        sb.append((char) c);
+                        c = read();
+                    }
+                }
+                cols.add(sb.toString());
+                if (c == ',') {
+                    c = read();
+                    continue;
+                }
+                if (c < 0 || c == '\n') return true;
+                if (c == '\r') {
+                    c = read();
+                    if (c >= 0 && c != '\n') unread();
+                    return true;
+                }
+                while (c >= 0 && c != '\n') c = read(); // text after a closing quote: skip the rest of the line
+                throw new IllegalArgumentException("text after a closing quote");
+            }
+        }
+    }
+
+    private static final class JsonRows extends Input implements Rows {
+        private final String[] columns;
+        private final StringBuilder sb = new StringBuilder();
+        private long line;
+
+        JsonRows(Reader in, String[] columns) {
+            super(in);
+            this.columns = columns;
+        }
+
+        @Override
+        public String[] next() throws IOException {
+            int c = skip();
+            while (c == '[' || c == ',' || c == ']') c = skip(); // array brackets and separators
+            if (c < 0) return null;
+            line = lineNo;
+            if (c != '{') {
+                while (c >= 0 && c != '\n') c = read();
+                throw new IllegalArgumentException("expected an object");
+            }
+            sb.setLength(0);
+            sb.append('{');
+            boolean quoted = false;
+            int depth = 1;
+            while (depth > 0) { // copy up to the matching brace, minding strings
+                c = read();
+                if (c < 0) throw new IllegalArgumentException("unterminated object");
+                sb.append((char) c);
+                if (quoted) {
+                    if (c == '\\') {
+                        c = read();
+                        if (c < 0) throw new IllegalArgumentException("unterminated object");
+                        sb.append((char) c);
+                    } else if (c == '"') {
+                        quoted = false;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == '{') {
+                    depth++;
+                } else if (c == '}') {
+                    depth--;
+                }
+            }
+            Map<String, Object> fields = Json.parseObject(sb.toString());
+            String[] f = new String[columns.length];
+            for (int k = 0; k < columns.length; k++) f[k] = text(fields.get(columns[k]));
+            return f;
+        }
+
+        private int skip() throws IOException {
+            int c = read();
+            while (c >= 0 && Character.isWhitespace(c)) c = read();
+            return c;
+        }
+
+        // A JSON value as the text a CSV field would hold: whole numbers without ".0"
+        private static String text(Object v) {
+            if (v instanceof Double) {
+                double d = (Double) v;
+                return d == Math.rint(d) && Math.abs(d) < 1e15 ? Long.toString((long) d) : Double.toString(d);
+            }
+            return v == null ? null : v.toString();
+        }
+
+        @Override
+        public long line() {
+            return line;
+        }
+    }
+
+    static String describe(List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        for (Result r : results) {
+            sb.append(r).append('\n');
+            for (String e : r.errors.subList(0, Math.min(5, r.errors.size()))) sb.append("    ").append(e).append('\n');
+        }
+        return sb.length() == 0 ? "No vehicles, customers, rentals, sales or maintenance files found" : sb.toString().trim();
+    }
+}
@@ -0,0 +1,1556 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import iierosebankcollege.carsystem.ChangeStream.Kind;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.LongConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Headless data layer behind the CarSystem window: the five stores, ID counters, journal and snapshot file.
+// Safe to call from many threads at once:
+//  - each store guards its own structure, and IDs come from atomic counters;
+//  - check-then-act on a vehicle's status (rent, sell, service, delete) runs while holding that vehicle's
+//    monitor, so two bookings of the same car serialize and only one sees it Available, while bookings of
+//    different cars run in parallel;
+//  - data operations share a read lock, and whole-data work (snapshot, load, clear) takes the write lock,
+//    so a snapshot always matches the journal generation it starts;
+//  - a batch of commands (see apply) also takes the write lock, so nobody sees it half-applied.
+// Every change is journaled, claims its place in the change stream (changes) under the locks that order it,
+// and is published once applied, outside the store and vehicle locks: changes to one vehicle come out in
+// the order they were made, and a subscriber that reads the stores on an event finds the change there.
+// With the columnar option, vehicles, rentals, sales and maintenance are kept in primitive columns (see Columns)
+// instead of one object per record, for fleets and histories too large to keep as objects.
+// With an archive open (see Archive), history leaves memory: a closed rental goes to the archive instead of
+// being lost, and each snapshot first moves sales and services older than a set age there, so the heap and
+// the snapshot hold active data only. Lookups by id and date ranges read both tiers.
+class CarService {
+
+    // Which table a change happened in
+    enum Table { VEHICLES, CUSTOMERS, RENTALS, SALES, MAINTS }
+
+    // Told about every change, on the thread that made it (the window forwards these to its table models)
+    interface Listener {
+        void rowInserted(Table table, int row);   // record appended at table position row
+        void rowUpdated(Table table, int id);     // record with this id changed in place
+        void rowDeleted(Table table, int row);    // record removed from table position row
+        void dataChanged();                       // bulk change: load, clear
+        default void snapshotDue() { }            // journal is long: a snapshot would shorten startup replay
+    }
+
+    // memeory stores thta acts like a database (each store is indexed by id for O(1) lookups)
+    final EntityStore<Vehicle> vehicles;         // vehicles
+    final EntityStore<Customer> customers = new EntityStore<>(c -> c.id);       // customers
+    final EntityStore<Rental> rentals;           // active rentals
+    final EntityStore<Sale> sales;               // sales records
+    final EntityStore<Maintenance> maints;       // maintenance records
+    final StatusIndex statuses;                  // vehicle ids by status
+    final Reservations reservations;             // booked days per vehicle
+    final VehicleIndex search;                   // vehicle ids by make, model, ...
+    final CustomerIndex customerSearch = new CustomerIndex(customers);          // name, phone and email prefixes
+    // Hot vehicles and customers for the booking path (see LookupCache). Off unless asked for: with objects the
+    // store lookup is as cheap as a hit, and with columns the cache lowers the mean lookup but raises its 99th
+    // percentile (LookupCacheBench, 100k vehicles: p99 679 ns uncached, 759 ns with LOOKUP_CACHE records).
+    static final int LOOKUP_CACHE = 4096;       // capacity to try first
+    final LookupCache<Vehicle> vehicleCache;
+    final LookupCache<Customer> customerCache;
+    private final IntFunction<Vehicle> loadVehicle;
+    private final IntFunction<Customer> loadCustomer;
+    private final Reports reports;               // running revenue and spend totals
+
+    // Ids carry the branch that made them in their top bits (see Branches): branch b numbers its records
+    // b << BRANCH_SHIFT plus 1, 2, ..., so branches never hand out the same id without having to agree on one.
+    // Branch 0 numbers from 1, as a single dealership always has.
+    static final int BRANCH_SHIFT = 24;                        // 16.7 million ids per table and branch
+    static final int MAX_BRANCHES = 1 << (31 - BRANCH_SHIFT);  // 128
+    final int branch;
+
+    // ID counters
+    final AtomicInteger nextVehicleId = new AtomicInteger();
+    final AtomicInteger nextCustomerId = new AtomicInteger();
+    final AtomicInteger nextRentalId = new AtomicInteger();
+    final AtomicInteger nextSaleId = new AtomicInteger();
+    final AtomicInteger nextMaintId = new AtomicInteger();
+
+    private static final int JOURNAL_BATCH = 64;           // journal records buffered before a flush
+    private static final int SNAPSHOT_EVERY = 50_000;      // journal records before a snapshot is suggested
+
+    private final File dataFile;           // snapshot file
+    private final File journalFile;        // journal file
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(); // read: data ops, write: whole-data work
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Journal journal;      // open journal, null when journal mode is off
+    private volatile long snapshotGeneration; // bumped on every snapshot so an old journal is never replayed twice
+    private SnapshotCodec.Opened opened; // snapshot the stores still decode rows from; closed once they no longer do
+    private boolean tiered; // tier() moved records under the write lock held now; see claimTiered()
+    private volatile boolean snapshotSuggested;
+    private volatile IntPredicate knownCustomer;   // customers kept elsewhere (other branches), or null
+    private volatile Archive archive;      // cold tier for history, null until openArchive
+    private volatile int archiveAfterDays; // age in days at which a snapshot archives sales and services; < 0: never
+
+    // Sales and services older than this are archived by the next snapshot, by default
+    static final int ARCHIVE_AFTER_DAYS = 365;
+
+    // Longest text field (make, name, address, ...) the API and imports accept: the journal writes each as at
+    // most 65,535 bytes of modified UTF-8, three per character at worst
+    static final int MAX_TEXT = 10_000;
+
+    // Every change, once applied, for subscribers on other threads (see ChangeStream)
+    private static final int CHANGE_RING = 1 << 14;
+    final ChangeStream changes = new ChangeStream(CHANGE_RING);
+
+    // Runtime metrics (see Metrics): how long each operation takes and how often it is refused, records
+    // imported, record counts and file sizes
+    final Metrics metrics = new Metrics();
+    private final Metrics.Timer addVehicleTime = metrics.timer("addVehicle"), deleteVehicleTime = metrics.timer("deleteVehicle"),
+            addCustomerTime = metrics.timer("addCustomer"), deleteCustomerTime = metrics.timer("deleteCustomer"),
+            addRentalTime = metrics.timer("addRental"), reserveTime = metrics.timer("reserve"),
+            startRentalTime = metrics.timer("startRental"), closeRentalTime = metrics.timer("closeRental"),
+            addSaleTime = metrics.timer("addSale"), addMaintTime = metrics.timer("addMaint"), applyTime = metrics.timer("apply"),
+            importTime = metrics.timer("import"), scanTime = metrics.timer("scan"), readTime = metrics.timer("read"),
+            installTime = metrics.timer("install"), openJournalTime = metrics.timer("openJournal"),
+            writeSnapshotTime = metrics.timer("writeSnapshot"), clearTime = metrics.timer("clear"),
+            archiveTime = metrics.timer("archive");
+    private final Metrics.Counter imported = metrics.counter("imported_records", "Records added by bulk imports");
+    private final Metrics.Counter importRefused = metrics.counter("import_refused_records", "Records a bulk import refused");
+
+    // journalFile is used once openJournal() is called
+    CarService(File dataFile, File journalFile) {
+        this(dataFile, journalFile, false);
+    }
+
+    // columnar: keep the record stores in primitive columns rather than as objects
+    CarService(File dataFile, File journalFile, boolean columnar) {
+        this(dataFile, journalFile, columnar, 0);
+    }
+
+    // branch: which branch's ids this service hands out (0 to MAX_BRANCHES - 1)
+    CarService(File dataFile, File journalFile, boolean columnar, int branch) {
+        this(dataFile, journalFile, columnar, branch, 0);
+    }
+
+    // lookupCache: vehicles and customers each cache holds for the booking path (0: no cache)
+    CarService(File dataFile, File journalFile, boolean columnar, int branch, int lookupCache) {
+        if (branch < 0 || branch >= MAX_BRANCHES) throw new IllegalArgumentException("Branch must be 0 to " + (MAX_BRANCHES - 1));
+        this.branch = branch;
+        this.dataFile = dataFile;
+        this.journalFile = journalFile;
+        resetIds();
+        vehicles = new EntityStore<>(v -> v.id, columnar ? new Columns.Vehicles() : null);
+        rentals = new EntityStore<>(r -> r.id, columnar ? new Columns.Rentals() : null);
+        sales = new EntityStore<>(s -> s.id, columnar ? new Columns.Sales() : null);
+        maints = new EntityStore<>(m -> m.id, columnar ? new Columns.Maints() : null);
+        statuses = new StatusIndex(vehicles);
+        reservations = new Reservations(vehicles, rentals);
+        search = new VehicleIndex(vehicles, statuses);
+        reports = new Reports(vehicles, rentals, sales, maints);
+        vehicleCache = new LookupCache<>(lookupCache);
+        customerCache = new LookupCache<>(lookupCache);
+        loadVehicle = vehicles::findById;
+        loadCustomer = customers::findById;
+        String records = "Records held per table";
+        metrics.gauge("records", "table=\"vehicles\"", records, vehicles::size);
+        metrics.gauge("records", "table=\"customers\"", records, customers::size);
+        metrics.gauge("records", "table=\"rentals\"", records, rentals::size);
+        metrics.gauge("records", "table=\"sales\"", records, sales::size);
+        metrics.gauge("records", "table=\"maintenance\"", records, maints::size);
+        lookupCacheGauges("vehicles", vehicleCache);
+        lookupCacheGauges("customers", customerCache);
+        metrics.gauge("data_file_bytes", null, "Size of the snapshot file", dataFile::length);
+        metrics.gauge("journal_file_bytes", null, "Size of the journal file", journalFile::length);
+        metrics.gauge("archive_records", null, "Records in the archive", () -> {
+            Archive a = archive;
+            return a == null ? 0 : a.records();
+        });
+        metrics.gauge("archive_file_bytes", null, "Size of the archive files", () -> {
+            Archive a = archive;
+            return a == null ? 0 : a.bytes();
+        });
+        metrics.gauge("journal_records", null, "Journal records since the last snapshot", () -> {
+            Journal j = journal;
+            return j == null ? 0 : j.records();
+        });
+    }
+
+    private void lookupCacheGauges(String table, LookupCache<?> cache) {
+        if (cache.capacity() == 0) return;
+        String label = "table=\"" + table + "\"";
+        metrics.gauge("lookup_cache_hits", label, "Lookups answered by the lookup cache", cache::hits);
+        metrics.gauge("lookup_cache_misses", label, "Lookups the lookup cache passed to the store", cache::misses);
+        metrics.gauge("lookup_cache_evictions", label, "Records the lookup cache pushed out to make room", cache::evictions);
+        metrics.gauge("lookup_cache_records", label, "Records held by the lookup cache", cache::size);
+    }
+
+    void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    // Branch that made a record with this id
+    static int branchOf(int id) {
+        return id >>> BRANCH_SHIFT;
+    }
+
+    // An id without its branch: 1, 2, ... in the order the branch made its records
+    static int serialOf(int id) {
+        return id & ((1 << BRANCH_SHIFT) - 1);
+    }
+
+    // Accept rentals and sales for customers this test knows of, besides this service's own (Branches: a
+    // customer of one branch may rent or buy a car of another)
+    void lookUpCustomersWith(IntPredicate known) {
+        knownCustomer = known;
+    }
+
+    private boolean isCustomer(int id) {
+        IntPredicate known = knownCustomer;
+        return customer(id) != null || (known != null && known.test(id));
+    }
+
+    // Vehicle and customer lookups of the booking path, through the lookup caches. Whatever leaves a store
+    // (a delete, a rolled back add, a reload) is invalidated there. A status change needs no invalidation: it
+    // is made on the object the cache holds, which is the record's one view for as long as the cache holds it.
+    private Vehicle vehicle(int id) {
+        return vehicleCache.get(id, loadVehicle);
+    }
+
+    private Customer customer(int id) {
+        return customerCache.get(id, loadCustomer);
+    }
+
+    private void resetIds() {
+        int first = (branch << BRANCH_SHIFT) + 1;
+        nextVehicleId.set(first); nextCustomerId.set(first); nextRentalId.set(first); nextSaleId.set(first); nextMaintId.set(first);
+    }
+
+    // Data operations
+
+    // Add a vehicle with the next numeric ID
+    Vehicle addVehicle(String make, String model, int year, String color, double price) {
+        long t0 = addVehicleTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Vehicle v = new Vehicle(nextVehicleId.getAndIncrement(), make, model, year, color, price);
+            log(j -> j.vehicleAdded(v)); // write-ahead: log before changing memory
+            long seq = changes.claim(1);
+            int row = appended(vehicles, v);
+            statuses.added(v);
+            reservations.vehicleAdded(v);
+            search.added(v);
+            changes.publish(seq, Kind.VEHICLE_ADDED, v.id, v); // once applied
+            for (Listener l : listeners) l.rowInserted(Table.VEHICLES, row);
+            done = true;
+            return v;
+        } finally {
+            lock.readLock().unlock();
+            addVehicleTime.stop(t0, done);
+        }
+    }
+
+    // Delete a vehicle by numeric ID; return true if found and removed, false otherwise
+    boolean deleteVehicle(int id) {
+        long t0 = deleteVehicleTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Vehicle v = vehicles.findById(id);
+            if (v == null) return false; // not found
+            int row;
+            long seq;
+            synchronized (v) { // no booking of this car can be half-way through
+                if (!vehicles.containsId(id)) return false; // deleted by another thread meanwhile
+                log(j -> j.vehicleDeleted(id));
+                seq = changes.claim(1); // in the order of the changes to this car
+                row = removed(vehicles, id);
+                vehicleCache.invalidate(id);
+                statuses.removed(v);
+                reservations.vehicleRemoved(v);
+                search.removed(v);
+                reports.vehicleRemoved(v);
+            }
+            changes.publish(seq, Kind.VEHICLE_DELETED, id, v); // outside the car's lock
+            for (Listener l : listeners) l.rowDeleted(Table.VEHICLES, row);
+            done = true;
+            return true;
+        } finally {
+            lock.readLock().unlock();
+            deleteVehicleTime.stop(t0, done);
+        }
+    }
+
+    // Add a customer with the next numeric ID
+    Customer addCustomer(String name, String phone, String email, String address) {
+        long t0 = addCustomerTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Customer c = new Customer(nextCustomerId.getAndIncrement(), name, phone, email, address);
+            log(j -> j.customerAdded(c));
+            long seq = changes.claim(1);
+            int row = appended(customers, c);
+            customerSearch.added(c);
+            changes.publish(seq, Kind.CUSTOMER_ADDED, c.id, c);
+            for (Listener l : listeners) l.rowInserted(Table.CUSTOMERS, row);
+            done = true;
+            return c;
+        } finally {
+            lock.readLock().unlock();
+            addCustomerTime.stop(t0, done);
+        }
+    }
+
+    // Delete a customer by numeric ID; return true if found and removed, false otherwise
+    boolean deleteCustomer(int id) {
+        long t0 = deleteCustomerTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Customer c = customers.findById(id);
+            if (c == null) return false; // not found
+            customerSearch.removing(c); // before the store: the index may not be called under the store lock
+            int row;
+            long seq;
+            synchronized (customers) { // check and remove as one step
+                if (!customers.containsId(id)) return false; // not found
+                log(j -> j.customerDeleted(id));
+                seq = changes.claim(1);
+                row = removed(customers, id);
+                customerCache.invalidate(id);
+            }
+            changes.publish(seq, Kind.CUSTOMER_DELETED, id, c); // outside the store lock
+            for (Listener l : listeners) l.rowDeleted(Table.CUSTOMERS, row);
+            done = true;
+            return true;
+        } finally {
+            lock.readLock().unlock();
+            deleteCustomerTime.stop(t0, done);
+        }
+    }
+
+    // Rent a vehicle out now if vehicle and customer exist, the vehicle is available and the rental ends before
+    // the car's next reservation starts; null otherwise (also for dates that are not yyyy-MM-dd)
+    Rental addRental(int vehicleId, int customerId, String rentalDate, String returnDate, double totalCost) {
+        long t0 = addRentalTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Vehicle v = vehicle(vehicleId);
+            if (v == null || !isCustomer(customerId)) return null; // invalid ids
+            int from = Dates.parse(rentalDate), to = Dates.parse(returnDate), end = Reservations.end(from, to);
+            if (end == Dates.NONE) return null; // unreadable dates
+            Rental r;
+            long seq;
+            synchronized (v) { // status check and change are one atomic step per vehicle
+                if (v.status != Status.AVAILABLE || !vehicles.containsId(vehicleId)) return null; // not available
+                if (!reservations.isFreeFirst(vehicleId, from, end)) return null; // runs into a reservation
+                r = new Rental(nextRentalId.getAndIncrement(), vehicleId, customerId, from, to, totalCost);
+                log(j -> j.rentalAdded(r));
+                seq = changes.claim(1);
+                applyRentalAdded(r, v); // store rental and mark vehicle as rented
+            }
+            changes.publish(seq, Kind.RENTAL_ADDED, r.id, r);
+            fireInserted(Table.RENTALS, rentals, r.id);
+            for (Listener l : listeners) l.rowUpdated(Table.VEHICLES, vehicleId); // status column
+            done = true;
+            return r;
+        } finally {
+            lock.readLock().unlock();
+            addRentalTime.stop(t0, done);
+        }
+    }
+
+    // Book a vehicle for a later window. The car stays Available (and can be rented out before the booking
+    // starts) until startRental picks the booking up. null if the ids are unknown, the dates are not
+    // yyyy-MM-dd, the car is sold, or the window overlaps another booking of the car.
+    Rental reserve(int vehicleId, int customerId, String rentalDate, String returnDate, double totalCost) {
+        long t0 = reserveTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Vehicle v = vehicle(vehicleId);
+            if (v == null || !isCustomer(customerId)) return null; // invalid ids
+            int from = Dates.parse(rentalDate), to = Dates.parse(returnDate), end = Reservations.end(from, to);
+            if (end == Dates.NONE) return null; // unreadable dates
+            Rental r;
+            long seq;
+            synchronized (v) { // overlap check and booking are one atomic step per vehicle
+                if (v.status == Status.SOLD || !vehicles.containsId(vehicleId)) return null;
+                if (!reservations.isFree(vehicleId, from, end)) return null; // overlaps another booking
+                r = new Rental(nextRentalId.getAndIncrement(), vehicleId, customerId, from, to, totalCost);
+                log(j -> j.rentalReserved(r));
+                seq = changes.claim(1);
+                applyRentalReserved(r);
+            }
+            changes.publish(seq, Kind.RENTAL_RESERVED, r.id, r);
+            fireInserted(Table.RENTALS, rentals, r.id);
+            done = true;
+            return r;
+        } finally {
+            lock.readLock().unlock();
+            reserveTime.stop(t0, done);
+        }
+    }
+
+    // Pick up a reserved rental: the car must be Available and this must be its earliest booking
+    boolean startRental(int rentalId) {
+        long t0 = startRentalTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Rental r = rentals.findById(rentalId);
+            if (r == null) return false;
+            Vehicle v = vehicles.findById(r.vehicleId);
+            if (v == null) return false;
+            long seq;
+            synchronized (v) {
+                if (!rentals.containsId(rentalId) || v.status != Status.AVAILABLE) return false;
+                if (reservations.first(v.id) != rentalId) return false; // an earlier booking comes first
+                log(j -> j.rentalStarted(rentalId));
+                seq = changes.claim(1);
+                statuses.set(v, Status.RENTED);
+            }
+            changes.publish(seq, Kind.RENTAL_STARTED, rentalId, r);
+            for (Listener l : listeners) l.rowUpdated(Table.VEHICLES, v.id); // status column
+            done = true;
+            return true;
+        } finally {
+            lock.readLock().unlock();
+            startRentalTime.stop(t0, done);
+        }
+    }
+
+    // Close rental by ID: remove the rental; if the car is out on it, make the car available again.
+    // Closing a reservation that has not started just cancels it.
+    boolean closeRental(int rentalId) {
+        long t0 = closeRentalTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Rental r = rentals.findById(rentalId);
+            if (r == null) return false; // rental not found
+            Vehicle v = vehicles.findById(r.vehicleId);
+            int row;
+            long seq;
+            synchronized (v != null ? v : r) { // same lock as bookings of this car
+                if (!rentals.containsId(rentalId)) return false; // closed by another thread meanwhile
+                log(j -> j.rentalClosed(rentalId));
+                seq = changes.claim(1);
+                releaseBooking(r);
+                row = removed(rentals, rentalId);
+                reports.rentalClosed(r);
+                archived(r);
+            }
+            changes.publish(seq, Kind.RENTAL_CLOSED, rentalId, r);
+            for (Listener l : listeners) {
+                l.rowDeleted(Table.RENTALS, row);
+                l.rowUpdated(Table.VEHICLES, r.vehicleId); // status column
+            }
+            done = true;
+            return true;
+        } finally {
+            lock.readLock().unlock();
+            closeRentalTime.stop(t0, done);
+        }
+    }
+
+    // Sell a vehicle if vehicle and customer exist, the vehicle is available and it has no bookings (cancel its
+    // reservations first); null otherwise, saleRefusal tells why (also null for a date that is not yyyy-MM-dd)
+    Sale addSale(int vehicleId, int customerId, String dateSold, double sellingPrice) {
+        long t0 = addSaleTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Vehicle v = vehicle(vehicleId);
+            if (v == null || !isCustomer(customerId)) return null; // invalid ids
+            int day = Dates.parse(dateSold);
+            if (day == Dates.NONE) return null; // unreadable date: free text is only kept from older files
+            Sale s;
+            long seq;
+            synchronized (v) {
+                if (v.status != Status.AVAILABLE || !vehicles.containsId(vehicleId)) return null; // not available
+                if (reservations.hasBookings(vehicleId)) return null; // reserved: cancel the bookings first
+                s = new Sale(nextSaleId.getAndIncrement(), vehicleId, customerId, day, sellingPrice);
+                log(j -> j.saleAdded(s));
+                seq = changes.claim(1);
+                applySaleAdded(s, v); // store sale and mark vehicle sold
+            }
+            changes.publish(seq, Kind.SALE_ADDED, s.id, s);
+            fireInserted(Table.SALES, sales, s.id);
+            for (Listener l : listeners) l.rowUpdated(Table.VEHICLES, vehicleId);
+            done = true;
+            return s;
+        } finally {
+            lock.readLock().unlock();
+            addSaleTime.stop(t0, done);
+        }
+    }
+
+    // Why addSale would refuse this vehicle and customer now, or null if it would not
+    String saleRefusal(int vehicleId, int customerId) {
+        lock.readLock().lock();
+        try {
+            Vehicle v = vehicle(vehicleId);
+            if (v == null) return refuseSale(vehicleId, customerId, null);
+            synchronized (v) {
+                return refuseSale(vehicleId, customerId, vehicles.containsId(vehicleId) ? v : null);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Record maintenance and set the vehicle status to Maintenance; null if the vehicle is not found or the
+    // date is not yyyy-MM-dd
+    Maintenance addMaint(int vehicleId, String serviceType, String serviceDate, double cost, String mechanic) {
+        long t0 = addMaintTime.start();
+        boolean done = false;
+        lock.readLock().lock();
+        try {
+            Vehicle v = vehicle(vehicleId);
+            if (v == null) return null; // invalid vehicle
+            int day = Dates.parse(serviceDate);
+            if (day == Dates.NONE) return null; // unreadable date
+            Maintenance m;
+            long seq;
+            synchronized (v) {
+                if (!vehicles.containsId(vehicleId)) return null; // deleted meanwhile
+                m = new Maintenance(nextMaintId.getAndIncrement(), vehicleId, serviceType, day, cost, mechanic);
+                log(j -> j.maintAdded(m));
+                seq = changes.claim(1);
+                applyMaintAdded(m, v); // add record and set status
+            }
+            changes.publish(seq, Kind.MAINT_ADDED, m.id, m);
+            fireInserted(Table.MAINTS, maints, m.id);
+            for (Listener l : listeners) l.rowUpdated(Table.VEHICLES, vehicleId);
+            done = true;
+            return m;
+        } finally {
+            lock.readLock().unlock();
+            addMaintTime.stop(t0, done);
+        }
+    }
+
+    // Number of vehicles with this status, O(1) from the status index
+    int countVehicles(Status status) {
+        return statuses.count(status);
+    }
+
+    // Vehicles with this status, O(result) from the status index
+    List<Vehicle> vehiclesWith(Status status) {
+        int[] ids = statuses.ids(status);
+        List<Vehicle> list = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Vehicle v = vehicles.findById(id);
+            if (v != null) list.add(v); // deleted since the ids were read
+        }
+        return list;
+    }
+
+    // Vehicles matching every condition of the query, from the search indexes
+    List<Vehicle> findVehicles(VehicleIndex.Query query) {
+        return search.find(query);
+    }
+
+    // Rentals starting, sales made and services done from one date to another, both included: the archived
+    // ones first (oldest month first), then those in memory in table order.
+    // IllegalArgumentException for dates that are not yyyy-MM-dd. The bounds are parsed once; each record
+    // is then two int comparisons (a record whose date is not yyyy-MM-dd is never in a range).
+
+    List<Rental> rentalsBetween(String from, String to) {
+        int lo = bound(from), hi = bound(to);
+        List<Rental> list = archived(Archive.Table.RENTALS, lo, hi, rentals);
+        synchronized (rentals) {
+            for (Rental r : rentals) if (r.rentalDay >= lo && r.rentalDay <= hi) list.add(r);
+        }
+        return list;
+    }
+
+    List<Sale> salesBetween(String from, String to) {
+        int lo = bound(from), hi = bound(to);
+        List<Sale> list = archived(Archive.Table.SALES, lo, hi, sales);
+        synchronized (sales) {
+            for (Sale x : sales) if (x.soldDay >= lo && x.soldDay <= hi) list.add(x);
+        }
+        return list;
+    }
+
+    List<Maintenance> maintsBetween(String from, String to) {
+        int lo = bound(from), hi = bound(to);
+        List<Maintenance> list = archived(Archive.Table.MAINTS, lo, hi, maints);
+        synchronized (maints) {
+            for (Maintenance m : maints) if (m.serviceDay >= lo && m.serviceDay <= hi) list.add(m);
+        }
+        return list;
+    }
+
+    // Archived records dated from lo to hi, less any still in memory (archived just before a crash)
+    private <T> List<T> archived(Archive.Table table, int lo, int hi, EntityStore<T> hot) {
+        List<T> list = new ArrayList<>();
+        Archive a = archive;
+        if (a == null) return list;
+        for (T r : fromArchive(() -> a.<T>between(table, lo, hi))) if (!hot.containsId(Archive.id(table, r))) list.add(r);
+        return list;
+    }
+
+    private static int bound(String date) {
+        int day = Dates.parse(date);
+        if (day == Dates.NONE) throw new IllegalArgumentException("Dates must be yyyy-MM-dd");
+        return day;
+    }
+
+    // Is the vehicle free for the whole window [from, to)? IllegalArgumentException for unreadable dates
+    boolean isFree(int vehicleId, String from, String to) {
+        int day = Dates.parse(from), end = Reservations.end(day, Dates.parse(to));
+        if (end == Dates.NONE) throw new IllegalArgumentException("Dates must be yyyy-MM-dd with to not before from");
+        return reservations.isFree(vehicleId, day, end);
+    }
+
+    // Some unsold vehicle of this model that is free for the whole window, or null
+    Vehicle findFreeVehicle(String model, String from, String to) {
+        int day = Dates.parse(from), end = Reservations.end(day, Dates.parse(to));
+        if (end == Dates.NONE) throw new IllegalArgumentException("Dates must be yyyy-MM-dd with to not before from");
+        int id = reservations.findFree(model, day, end, vid -> {
+            Vehicle v = vehicles.findById(vid);
+            return v != null && v.status != Status.SOLD;
+        });
+        return id == Reservations.NONE ? null : vehicles.findById(id);
+    }
+
+    // Revenue, maintenance spend and car-day totals, kept up to date by every write: reading one is O(1).
+    // The first call sums the records under the write lock (no change is half-applied meanwhile), so it must
+    // not be made from inside a data operation.
+    Reports reports() {
+        if (!reports.isBuilt()) {
+            lock.writeLock().lock();
+            try {
+                reports.build();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return reports;
+    }
+
+    // Share of the unsold fleet out on rental right now (0 for an empty fleet), O(1) from the status index
+    double utilization() {
+        int fleet = vehicles.size() - statuses.count(Status.SOLD);
+        return fleet == 0 ? 0 : (double) statuses.count(Status.RENTED) / fleet;
+    }
+
+    // Rented car-days in the month over the car-days the unsold fleet has in it (month 1 to 12)
+    double utilization(int year, int month) {
+        int fleet = vehicles.size() - statuses.count(Status.SOLD);
+        if (fleet == 0) return 0;
+        return (double) reports().month(year, month).carDays / ((long) fleet * YearMonth.of(year, month).lengthOfMonth());
+    }
+
+    // Columnar copy of vehicles, sales, rentals and maintenance for Analytics, consistent across the stores:
+    // the records are listed under the write lock (a short pause for writes), the columns built after it
+    Analytics.Snapshot analyticsSnapshot() {
+        List<Vehicle> v;
+        List<Sale> s;
+        List<Rental> r;
+        List<Maintenance> m;
+        lock.writeLock().lock();
+        try {
+            v = vehicles.toList();
+            s = sales.toList();
+            r = rentals.toList();
+            m = maints.toList();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return new Analytics.Snapshot(v, s, r, m);
+    }
+
+    Vehicle findVehicle(int id) {
+        return vehicles.findById(id); // hash lookup, null if not found
+    }
+
+    // Customers whose name words, phone number or email start with what was typed, best matches first
+    List<Customer> searchCustomers(String text, int limit) {
+        return customerSearch.search(text, limit);
+    }
+
+    Customer findCustomer(int id) {
+        return customers.findById(id);
+    }
+
+    // Rentals, sales and services by id, in memory or else archived (a closed rental is found in the archive)
+
+    Rental findRental(int id) {
+        Rental r = rentals.findById(id);
+        Archive a = archive;
+        return r != null || a == null ? r : fromArchive(() -> a.findRental(id));
+    }
+
+    Sale findSale(int id) {
+        Sale s = sales.findById(id);
+        Archive a = archive;
+        return s != null || a == null ? s : fromArchive(() -> a.findSale(id));
+    }
+
+    Maintenance findMaint(int id) {
+        Maintenance m = maints.findById(id);
+        Archive a = archive;
+        return m != null || a == null ? m : fromArchive(() -> a.findMaint(id));
+    }
+
+    private <T> T fromArchive(Supplier<T> read) {
+        lock.readLock().lock(); // not while clear() deletes the files
+        try {
+            return read.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Apply changes to memory. Used by the operations above (holding the vehicle's monitor) and by
+    // journal replay (holding the write lock), so both stay identical.
+
+    private void applyVehicleAdded(Vehicle v) {
+        vehicles.add(v);
+        statuses.added(v);
+        reservations.vehicleAdded(v);
+        search.added(v);
+        nextVehicleId.accumulateAndGet(v.id + 1, Math::max); // replayed ids keep the counter ahead
+    }
+
+    private void applyCustomerAdded(Customer c) {
+        customers.add(c);
+        nextCustomerId.accumulateAndGet(c.id + 1, Math::max);
+        customerSearch.added(c);
+    }
+
+    private void applyRentalAdded(Rental r, Vehicle v) {
+        applyRentalReserved(r);
+        if (v != null) statuses.set(v, Status.RENTED); // mark vehicle as rented
+    }
+
+    private void applyRentalReserved(Rental r) {
+        rentals.add(r);
+        nextRentalId.accumulateAndGet(r.id + 1, Math::max);
+        reservations.booked(r);
+        reports.rentalAdded(r);
+    }
+
+    private void applyRentalStarted(int rentalId) {
+        Rental r = rentals.findById(rentalId);
+        Vehicle v = r == null ? null : vehicles.findById(r.vehicleId);
+        if (v != null) statuses.set(v, Status.RENTED);
+    }
+
+    private void applyRentalClosed(int rentalId) {
+        Rental r = rentals.findById(rentalId);
+        if (r == null) return;
+        releaseBooking(r);
+        rentals.removeById(rentalId); // remove rental record by id
+        reports.rentalClosed(r);
+        archived(r);
+    }
+
+    // A rental left the rentals store: keep it in the archive, if one is open
+    private void archived(Rental r) {
+        Archive a = archive;
+        if (a != null && r != null) a.add(r);
+    }
+
+    // Take a rental out of the schedule; if the car is out on it (its earliest booking, or an old record
+    // the schedule could not read), the car is available again
+    private void releaseBooking(Rental r) {
+        Vehicle v = vehicles.findById(r.vehicleId); // find associated vehicle
+        boolean current = !reservations.isScheduled(r) || reservations.first(r.vehicleId) == r.id;
+        reservations.released(r);
+        if (v != null && current && v.status == Status.RENTED) statuses.set(v, Status.AVAILABLE); // set vehicle available
+    }
+
+    private void applySaleAdded(Sale s, Vehicle v) {
+        sales.add(s);
+        nextSaleId.accumulateAndGet(s.id + 1, Math::max);
+        reports.saleAdded(s);
+        if (v != null) statuses.set(v, Status.SOLD); // mark vehicle sold
+    }
+
+    private void applyMaintAdded(Maintenance m, Vehicle v) {
+        maints.add(m);
+        nextMaintId.accumulateAndGet(m.id + 1, Math::max);
+        reports.maintAdded(m);
+        if (v != null) statuses.set(v, Status.MAINTENANCE); // set status
+    }
+
+    // Append to a store and return the table position it landed at
+    private static <T> int appended(EntityStore<T> store, T record) {
+        synchronized (store) {
+            store.add(record);
+            return store.size() - 1;
+        }
+    }
+
+    // Remove from a store and return the table position it had
+    private static <T> int removed(EntityStore<T> store, int id) {
+        synchronized (store) {
+            int row = store.indexOf(id);
+            store.removeById(id);
+            return row;
+        }
+    }
+
+    private void fireInserted(Table table, EntityStore<?> store, int id) {
+        if (listeners.isEmpty()) return;
+        int row = store.indexOf(id);
+        for (Listener l : listeners) l.rowInserted(table, row);
+    }
+
+    // Transactions (see CommandBatch)
+
+    // Apply a batch of commands as one transaction, under the write lock. Each command is checked and applied
+    // as its single operation would be, noting how to undo it; if one is refused, the undo steps run last to
+    // first and the id counters are put back, so nothing of the batch is left. Otherwise its journal records
+    // go out as one group with one flush, and listeners hear one dataChanged() for the whole batch.
+    // A closed rental stays in its store until the commit, so a rollback never has to put a row back in place.
+    // UncheckedIOException, with the batch rolled back, if the journal write fails.
+    CommandBatch.Result apply(CommandBatch batch) {
+        int[] ids = new int[batch.size()];
+        Transaction tx = new Transaction();
+        long first = ChangeStream.NONE; // sequence of the batch's first change event
+        long t0 = applyTime.start();
+        boolean done = false;
+        lock.writeLock().lock();
+        try {
+            int[] counters = {nextVehicleId.get(), nextRentalId.get(), nextSaleId.get(), nextMaintId.get()};
+            try {
+                for (int i = 0; i < ids.length; i++) {
+                    String refused = step(batch.get(i), i, ids, tx);
+                    if (refused != null) {
+                        rollback(tx, counters);
+                        return CommandBatch.Result.refused(i, refused);
+                    }
+                }
+                if (!tx.journal.isEmpty()) log(j -> j.group(tx.journal.size(), g -> { for (JournalWrite w : tx.journal) w.write(g); }));
+            } catch (RuntimeException ex) {
+                rollback(tx, counters);
+                throw ex;
+            }
+            for (int id : tx.closed.toArray()) {
+                Rental r = rentals.removeById(id);
+                reports.rentalClosed(r);
+                archived(r);
+            }
+            first = changes.claim(tx.changes.size()); // in commit order; published once the lock is let go
+            done = true;
+        } finally {
+            lock.writeLock().unlock();
+            applyTime.stop(t0, done);
+        }
+        for (int k = 0; k < tx.changes.size(); k++) tx.changes.get(k).accept(first == ChangeStream.NONE ? first : first + k);
+        if (ids.length > 0) for (Listener l : listeners) l.dataChanged();
+        return CommandBatch.Result.committed(ids);
+    }
+
+    // Undo steps and journal records of a transaction in progress
+    private static final class Transaction {
+        final ArrayList<Runnable> undo = new ArrayList<>();
+        final ArrayList<JournalWrite> journal = new ArrayList<>();
+        final IntSet closed = new IntSet();   // rentals closed so far; they leave the store at the commit
+        final ArrayList<LongConsumer> changes = new ArrayList<>(); // change events, given their sequence at the commit
+    }
+
+    private void rollback(Transaction tx, int[] counters) {
+        for (int i = tx.undo.size() - 1; i >= 0; i--) tx.undo.get(i).run();
+        nextVehicleId.set(counters[0]);
+        nextRentalId.set(counters[1]);
+        nextSaleId.set(counters[2]);
+        nextMaintId.set(counters[3]);
+    }
+
+    // An id as given to a command, or for a reference, the id its command's record got
+    private static int resolve(int id, int[] ids) {
+        return CommandBatch.isReference(id) ? ids[CommandBatch.commandOf(id)] : id;
+    }
+
+    // Check and apply one command of a transaction; null if it was applied, otherwise why it was refused
+    private String step(CommandBatch.Command c, int index, int[] ids, Transaction tx) {
+        switch (c.kind) {
+            case ADD_VEHICLE: {
+                Vehicle p = (Vehicle) c.record;
+                Vehicle v = new Vehicle(nextVehicleId.getAndIncrement(), p.make, p.model, p.year, p.color, p.price);
+                applyVehicleAdded(v);
+                tx.journal.add(j -> j.vehicleAdded(v));
+                tx.changes.add(seq -> changes.publish(seq, Kind.VEHICLE_ADDED, v.id, v));
+                tx.undo.add(() -> {
+                    vehicles.removeById(v.id);
+                    vehicleCache.invalidate(v.id); // the id is handed out again
+                    statuses.removed(v);
+                    reservations.vehicleRemoved(v);
+                    search.removed(v);
+                });
+                ids[index] = v.id;
+                return null;
+            }
+            case ADD_RENTAL: {
+                Rental p = (Rental) c.record;
+                Rental r = new Rental(0, resolve(p.vehicleId, ids), p.customerId, p.rentalDay, p.returnDay, p.totalCost);
+                Vehicle v = vehicles.findById(r.vehicleId);
+                String refused = refuseRental(r, v, true);
+                if (refused != null) return refused;
+                r.id = nextRentalId.getAndIncrement();
+                applyRentalAdded(r, v);
+                tx.journal.add(j -> j.rentalAdded(r));
+                tx.changes.add(seq -> changes.publish(seq, Kind.RENTAL_ADDED, r.id, r));
+                tx.undo.add(() -> {
+                    statuses.set(v, Status.AVAILABLE);
+                    reservations.released(r);
+                    reports.rentalRemoved(r);
+                    rentals.removeById(r.id);
+                });
+                ids[index] = r.id;
+                return null;
+            }
+            case CLOSE_RENTAL: {
+                int id = resolve(c.rentalId, ids);
+                Rental r = rentals.findById(id);
+                if (r == null || tx.closed.contains(id)) return "no rental " + id;
+                Vehicle v = vehicles.findById(r.vehicleId);
+                Status before = v == null ? null : v.status;
+                boolean scheduled = reservations.isScheduled(r);
+                releaseBooking(r);
+                tx.closed.add(id);
+                tx.journal.add(j -> j.rentalClosed(id));
+                tx.changes.add(seq -> changes.publish(seq, Kind.RENTAL_CLOSED, id, r));
+                tx.undo.add(() -> {
+                    tx.closed.remove(id);
+                    if (scheduled) reservations.booked(r);
+                    if (v != null) statuses.set(v, before);
+                });
+                ids[index] = id;
+                return null;
+            }
+            case ADD_SALE: {
+                Sale p = (Sale) c.record;
+                Sale s = new Sale(0, resolve(p.vehicleId, ids), p.customerId, p.soldDay, p.sellingPrice);
+                if (!Dates.isDay(s.soldDay)) return "dateSold is not a yyyy-MM-dd date";
+                Vehicle v = vehicles.findById(s.vehicleId);
+                String refused = refuseSale(s.vehicleId, s.customerId, v);
+                if (refused != null) return refused;
+                s.id = nextSaleId.getAndIncrement();
+                applySaleAdded(s, v);
+                tx.journal.add(j -> j.saleAdded(s));
+                tx.changes.add(seq -> changes.publish(seq, Kind.SALE_ADDED, s.id, s));
+                tx.undo.add(() -> {
+                    statuses.set(v, Status.AVAILABLE);
+                    reports.saleRemoved(s);
+                    sales.removeById(s.id);
+                });
+                ids[index] = s.id;
+                return null;
+            }
+            default: {
+                Maintenance p = (Maintenance) c.record;
+                if (!Dates.isDay(p.serviceDay)) return "serviceDate is not a yyyy-MM-dd date";
+                int vehicleId = resolve(p.vehicleId, ids);
+                Vehicle v = vehicles.findById(vehicleId);
+                if (v == null) return "no vehicle " + vehicleId;
+                Status before = v.status;
+                Maintenance m = new Maintenance(nextMaintId.getAndIncrement(), vehicleId, p.serviceType, p.serviceDay, p.cost, p.mechanic);
+                applyMaintAdded(m, v);
+                tx.journal.add(j -> j.maintAdded(m));
+                tx.changes.add(seq -> changes.publish(seq, Kind.MAINT_ADDED, m.id, m));
+                tx.undo.add(() -> {
+                    statuses.set(v, before);
+                    reports.maintRemoved(m);
+                    maints.removeById(m.id);
+                });
+                ids[index] = m.id;
+                return null;
+            }
+        }
+    }
+
+    // Bulk import and export (see BulkIO)
+
+    // Checks and applies one imported record; returns null if it was added, otherwise why it was refused.
+    // Its change event goes to events, to be published once the lock is let go.
+    private interface ImportStep<T> {
+        String apply(T record, int index, List<LongConsumer> events);
+    }
+
+    // Add a batch of records read by a bulk import. The batch goes in under the write lock, each record with
+    // the same checks as the single operations and journaled the same way; its ids are one block of the
+    // counter (refused records leave gaps). Listeners hear one dataChanged() per batch, not an event per row.
+    // Each method returns, per record, null if it was added or why it was refused.
+
+    String[] importVehicles(List<Vehicle> batch) {
+        return importBatch(batch, nextVehicleId, (v, id) -> v.id = id, (v, i, events) -> {
+            log(j -> j.vehicleAdded(v));
+            applyVehicleAdded(v);
+            events.add(seq -> changes.publish(seq, Kind.VEHICLE_ADDED, v.id, v));
+            return null;
+        });
+    }
+
+    String[] importCustomers(List<Customer> batch) {
+        return importBatch(batch, nextCustomerId, (c, id) -> c.id = id, (c, i, events) -> {
+            log(j -> j.customerAdded(c));
+            applyCustomerAdded(c);
+            events.add(seq -> changes.publish(seq, Kind.CUSTOMER_ADDED, c.id, c));
+            return null;
+        });
+    }
+
+    // out[i]: the car is out on rental i now (rented as by addRental); otherwise it is booked as by reserve
+    String[] importRentals(List<Rental> batch, boolean[] out) {
+        return importBatch(batch, nextRentalId, (r, id) -> r.id = id, (r, i, events) -> {
+            Vehicle v = vehicles.findById(r.vehicleId);
+            String refused = refuseRental(r, v, out[i]);
+            if (refused != null) return refused;
+            if (out[i]) {
+                log(j -> j.rentalAdded(r));
+                applyRentalAdded(r, v);
+                events.add(seq -> changes.publish(seq, Kind.RENTAL_ADDED, r.id, r));
+            } else {
+                log(j -> j.rentalReserved(r));
+                applyRentalReserved(r);
+                events.add(seq -> changes.publish(seq, Kind.RENTAL_RESERVED, r.id, r));
+            }
+            return null;
+        });
+    }
+
+    String[] importSales(List<Sale> batch) {
+        return importBatch(batch, nextSaleId, (s, id) -> s.id = id, (s, i, events) -> {
+            Vehicle v = vehicles.findById(s.vehicleId);
+            String refused = refuseSale(s.vehicleId, s.customerId, v);
+            if (refused != null) return refused;
+            log(j -> j.saleAdded(s));
+            applySaleAdded(s, v);
+            events.add(seq -> changes.publish(seq, Kind.SALE_ADDED, s.id, s));
+            return null;
+        });
+    }
+
+    String[] importMaints(List<Maintenance> batch) {
+        return importBatch(batch, nextMaintId, (m, id) -> m.id = id, (m, i, events) -> {
+            Vehicle v = vehicles.findById(m.vehicleId);
+            if (v == null) return "no vehicle " + m.vehicleId;
+            log(j -> j.maintAdded(m));
+            applyMaintAdded(m, v);
+            events.add(seq -> changes.publish(seq, Kind.MAINT_ADDED, m.id, m));
+            return null;
+        });
+    }
+
+    private <T> String[] importBatch(List<T> batch, AtomicInteger ids, ObjIntConsumer<T> setId, ImportStep<T> step) {
+        String[] refused = new String[batch.size()];
+        if (batch.isEmpty()) return refused;
+        long t0 = importTime.start();
+        boolean done = false;
+        int added = 0;
+        List<LongConsumer> events = new ArrayList<>();
+        long seq;
+        lock.writeLock().lock();
+        try {
+            int first = ids.getAndAdd(batch.size());
+            for (int i = 0; i < refused.length; i++) {
+                T record = batch.get(i);
+                setId.accept(record, first + i);
+                refused[i] = step.apply(record, i, events);
+                if (refused[i] == null) added++;
+            }
+            done = true;
+        } finally {
+            seq = changes.claim(events.size()); // in import order, for the records added even if one failed
+            lock.writeLock().unlock();
+            importTime.stop(t0, done);
+            imported.add(added);
+            importRefused.add(done ? refused.length - added : 0);
+            for (int k = 0; k < events.size(); k++) events.get(k).accept(seq == ChangeStream.NONE ? seq : seq + k);
+        }
+        for (Listener l : listeners) l.dataChanged();
+        return refused;
+    }
+
+    // Why rental r (of vehicle v) may not be added, or null if it may. out: the car goes out on it now, as
+    // with addRental; otherwise it is booked, as with reserve. Callers hold the write lock.
+    private String refuseRental(Rental r, Vehicle v, boolean out) {
+        if (v == null) return "no vehicle " + r.vehicleId;
+        if (!isCustomer(r.customerId)) return "no customer " + r.customerId;
+        int end = Reservations.end(r.rentalDay, r.returnDay);
+        if (end == Dates.NONE) return "dates are not yyyy-MM-dd or end before they start";
+        if (out) {
+            if (v.status != Status.AVAILABLE) return "vehicle " + v.id + " is " + v.status.label;
+            if (!reservations.isFreeFirst(v.id, r.rentalDay, end)) return "runs into a reservation of vehicle " + v.id;
+        } else {
+            if (v.status == Status.SOLD) return "vehicle " + v.id + " is sold";
+            if (!reservations.isFree(v.id, r.rentalDay, end)) return "overlaps another booking of vehicle " + v.id;
+        }
+        return null;
+    }
+
+    // Why a sale of vehicle v (vehicleId) to this customer may not be added, or null if it may. A car with
+    // bookings, reservations not picked up yet included, is not sold: they would be left with no car.
+    private String refuseSale(int vehicleId, int customerId, Vehicle v) {
+        if (v == null) return "no vehicle " + vehicleId;
+        if (!isCustomer(customerId)) return "no customer " + customerId;
+        if (v.status != Status.AVAILABLE) return "vehicle " + v.id + " is " + v.status.label;
+        if (reservations.hasBookings(v.id)) return "vehicle " + v.id + " has bookings; cancel them before selling it";
+        return null;
+    }
+
+    // Reads the stores as of one moment
+    interface Scan {
+        void run() throws IOException;
+    }
+
+    // Run scan with data operations held off, so every table it reads is from the same point in time
+    // (a bulk export streams the stores without copying them first)
+    void scan(Scan scan) throws IOException {
+        long t0 = scanTime.start();
+        boolean done = false;
+        lock.writeLock().lock();
+        try {
+            scan.run();
+            done = true;
+        } finally {
+            lock.writeLock().unlock();
+            scanTime.stop(t0, done);
+        }
+    }
+
+    // True if the car is out on this rental now, false for a booking still to start
+    boolean isOut(Rental r) {
+        Vehicle v = vehicles.findById(r.vehicleId);
+        if (v == null || v.status != Status.RENTED) return false;
+        return !reservations.isScheduled(r) || reservations.first(r.vehicleId) == r.id;
+    }
+
+    // Persistence
+
+    // A journal append that may fail with an IOException
+    private interface JournalWrite {
+        void write(Journal j) throws IOException;
+    }
+
+    // Run one journal append (if journal mode is on); suggest a snapshot once the journal gets long
+    private void log(JournalWrite write) {
+        Journal j = journal;
+        if (j == null) return;
+        try {
+            write.write(j);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Journal write failed", ex); // change is not applied
+        }
+        if (j.records() >= SNAPSHOT_EVERY && !snapshotSuggested) {
+            snapshotSuggested = true;
+            for (Listener l : listeners) l.snapshotDue();
+        }
+    }
+
+    // Data read from the snapshot file, not yet installed into the stores
+    static class Loaded {
+        final SnapshotCodec.Opened opened; // lazily decoded snapshot, or
+        final SnapshotCodec.Data data;     // fully decoded older file
+
+        Loaded(SnapshotCodec.Opened opened, SnapshotCodec.Data data) {
+            this.opened = opened;
+            this.data = data;
+        }
+    }
+
+    // Read the data file without touching the stores (safe on any thread); null if there is no file
+    Loaded read() throws Exception {
+        return read(Progress.NONE);
+    }
+
+    // The same, reporting bytes read to progress (a lazily opened snapshot reads next to nothing)
+    Loaded read(Progress progress) throws Exception {
+        if (!dataFile.exists()) return null; // if no file, nothing to load
+        long t0 = readTime.start();
+        boolean done = false;
+        try {
+            Loaded loaded;
+            if (SnapshotCodec.hasDirectory(dataFile)) {
+                // open the snapshot and let each store decode rows only when they are touched,
+                // so startup time no longer grows with the size of the history
+                loaded = new Loaded(SnapshotCodec.open(dataFile), null);
+            } else {
+                // older binary snapshot, or a file saved with Java serialization: decode everything now
+                loaded = new Loaded(null, SnapshotCodec.isSnapshot(dataFile)
+                        ? SnapshotCodec.read(dataFile, progress) : readSerialized(dataFile, progress));
+            }
+            done = true;
+            return loaded;
+        } finally {
+            readTime.stop(t0, done);
+        }
+    }
+
+    // Put loaded data into the stores and, when the journal is open, replay the changes made after it
+    void install(Loaded loaded) throws IOException {
+        install(loaded, Progress.NONE);
+    }
+
+    // The same, reporting the replay to progress (see openJournal)
+    void install(Loaded loaded, Progress progress) throws IOException {
+        long t0 = installTime.start();
+        boolean done = false;
+        lock.writeLock().lock();
+        try {
+            SnapshotCodec.Opened old = opened;
+            if (loaded != null && loaded.opened != null) {
+                SnapshotCodec.Opened m = loaded.opened;
+                vehicles.replaceAll(m.vehicles);
+                customers.replaceAll(m.customers);
+                rentals.replaceAll(m.rentals);
+                sales.replaceAll(m.sales);
+                maints.replaceAll(m.maints);
+                nextVehicleId.set(m.nextVehicleId); nextCustomerId.set(m.nextCustomerId); nextRentalId.set(m.nextRentalId);
+                nextSaleId.set(m.nextSaleId); nextMaintId.set(m.nextMaintId);
+                snapshotGeneration = m.generation;
+            } else if (loaded != null) {
+                SnapshotCodec.Data d = loaded.data;
+                vehicles.replaceAll(d.vehicles); // restore vehicles and rebuild index
+                customers.replaceAll(d.customers); // restore customers
+                rentals.replaceAll(d.rentals); // restore rentals
+                sales.replaceAll(d.sales); // restore sales
+                maints.replaceAll(d.maints); // restore maintenance
+                // restore ID counters
+                nextVehicleId.set(d.nextVehicleId);
+                nextCustomerId.set(d.nextCustomerId);
+                nextRentalId.set(d.nextRentalId);
+                nextSaleId.set(d.nextSaleId);
+                nextMaintId.set(d.nextMaintId);
+                snapshotGeneration = d.generation; // journal generation
+            }
+            if (loaded != null) {
+                opened = loaded.opened;
+                if (old != null) old.close(); // the stores no longer read from it
+            }
+            vehicleCache.clear(); // new records: nothing cached is theirs
+            customerCache.clear();
+            statuses.reset(); // new fleet: rebuilt on the next status query
+            reservations.reset(); // likewise the schedule
+            search.reset(); // and the search indexes
+            customerSearch.reset();
+            reports.reset(); // and the report totals
+            if (journal != null) openJournal(progress); // reloaded snapshot: replay the changes made after it
+            done = true;
+        } finally {
+            long reloaded = changes.claim(1); // published once the lock is let go, even if this failed half-way
+            lock.writeLock().unlock();
+            installTime.stop(t0, done);
+            changes.publish(reloaded, Kind.RELOADED, 0, null);
+        }
+        for (Listener l : listeners) l.dataChanged();
+    }
+
+    // Read and install in one go (startup)
+    void load() throws Exception {
+        load(Progress.NONE);
+    }
+
+    // The same, reporting the read and then the replay to progress
+    void load(Progress progress) throws Exception {
+        install(read(progress), progress);
+    }
+
+    // Replay the journal written since the last snapshot and keep appending to it.
+    // On failure the journal stays off and the service carries on without it.
+    void openJournal() throws IOException {
+        openJournal(Progress.NONE);
+    }
+
+    // The same, reporting bytes replayed to progress. A cancelled replay ends like a failed one: the journal
+    // stays off with the changes replayed so far, and its file is kept whole for the next start.
+    void openJournal(Progress progress) throws IOException {
+        long t0 = openJournalTime.start();
+        boolean done = false;
+        lock.writeLock().lock();
+        try {
+            if (journal != null) journal.close();
+            journal = null;
+            Journal j = new Journal(journalFile, JOURNAL_BATCH);
+            j.open(snapshotGeneration, new Journal.Handler() {
+                @Override public void vehicleAdded(Vehicle v) { applyVehicleAdded(v); }
+                @Override public void vehicleDeleted(int id) {
+                    Vehicle v = vehicles.removeById(id);
+                    vehicleCache.invalidate(id);
+                    if (v != null) { statuses.removed(v); reservations.vehicleRemoved(v); search.removed(v); reports.vehicleRemoved(v); }
+                }
+                @Override public void customerAdded(Customer c) { applyCustomerAdded(c); }
+                @Override public void customerDeleted(int id) {
+                    Customer c = customers.findById(id);
+                    if (c != null) customerSearch.removing(c);
+                    customers.removeById(id);
+                    customerCache.invalidate(id);
+                }
+                @Override public void rentalAdded(Rental r) { applyRentalAdded(r, vehicles.findById(r.vehicleId)); }
+                @Override public void rentalClosed(int id) { applyRentalClosed(id); }
+                @Override public void saleAdded(Sale s) { applySaleAdded(s, vehicles.findById(s.vehicleId)); }
+                @Override public void maintAdded(Maintenance m) { applyMaintAdded(m, vehicles.findById(m.vehicleId)); }
+                @Override public void rentalReserved(Rental r) { applyRentalReserved(r); }
+                @Override public void rentalStarted(int id) { applyRentalStarted(id); }
+            }, progress);
+            journal = j;
+            done = true;
+        } finally {
+            // replayed changes are not published one by one; inside install() it announces the reload itself
+            long reloaded = lock.getWriteHoldCount() == 1 ? changes.claim(1) : ChangeStream.NONE;
+            lock.writeLock().unlock();
+            openJournalTime.stop(t0, done);
+            changes.publish(reloaded, Kind.RELOADED, 0, null);
+        }
+    }
+
+    // Flush and close the journal (shutdown)
+    void close() throws IOException {
+        Journal j = journal;
+        if (j != null) j.close();
+        Archive a = archive;
+        if (a != null) a.close();
+        lock.writeLock().lock();
+        try {
+            if (opened != null) opened.close(); // rows not decoded yet can no longer be read
+            opened = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Write every store and the ID counters to the data file in the binary snapshot format. The file is written
+    // beside the old one and then swapped in, so a crash mid-save leaves the previous snapshot intact.
+    // Holds the write lock: data operations wait until the snapshot and the fresh journal are in place.
+    // With an archive open, sales and services past archiveAfterDays go there first, and closed rentals still
+    // waiting reach its files before the journal that also holds them restarts.
+    void writeSnapshot(Progress progress) throws IOException {
+        long t0 = writeSnapshotTime.start();
+        boolean done = false;
+        int moved = 0;
+        lock.writeLock().lock();
+        try {
+            Archive a = archive;
+            if (a != null) {
+                if (archiveAfterDays >= 0) moved = tier(a, Dates.today() - archiveAfterDays);
+                a.flush();
+            }
+            long generation = snapshotGeneration + 1;
+            SnapshotCodec.Data d = new SnapshotCodec.Data();
+            d.vehicles = vehicles.toList(); // vehicles list
+            d.customers = customers.toList(); // customers list
+            d.rentals = rentals.toList(); // rentals list
+            d.sales = sales.toList(); // sales list
+            d.maints = maints.toList(); // maints list
+            // next ID counters so IDs continue after reload
+            d.nextVehicleId = nextVehicleId.get();
+            d.nextCustomerId = nextCustomerId.get();
+            d.nextRentalId = nextRentalId.get();
+            d.nextSaleId = nextSaleId.get();
+            d.nextMaintId = nextMaintId.get();
+            d.generation = generation; // journal generation this snapshot covers
+            File tmp = new File(dataFile.getPath() + ".tmp");
+            try {
+                SnapshotCodec.write(tmp, d, progress);
+            } catch (IOException | RuntimeException ex) {
+                // failed or cancelled: keep the previous snapshot
+                if (!tmp.delete() && tmp.exists()) ex.addSuppressed(new IOException("Could not delete " + tmp));
+                throw ex;
+            }
+            Files.move(tmp.toPath(), dataFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            snapshotGeneration = generation;
+            if (journal != null) journal.restart(generation); // older changes now live in the snapshot
+            done = true;
+        } finally {
+            snapshotSuggested = false; // done or failed: a long journal may suggest again
+            long reloaded = lock.getWriteHoldCount() == 1 ? claimTiered() : ChangeStream.NONE; // else archive() does
+            lock.writeLock().unlock();
+            writeSnapshotTime.stop(t0, done);
+            changes.publish(reloaded, Kind.RELOADED, 0, null);
+        }
+        if (moved > 0 && lock.getWriteHoldCount() == 0) for (Listener l : listeners) l.dataChanged();
+    }
+
+    // Tiering (see Archive)
+
+    // Keep history in an archive in dir from now on. keepDays: age at which each snapshot moves sales and
+    // services to the archive (ARCHIVE_AFTER_DAYS by default; < 0: only archive() moves them).
+    // Open it before load() and openJournal(), so the rentals a replayed journal closes are archived too.
+    void openArchive(File dir, int keepDays) throws IOException {
+        lock.writeLock().lock();
+        try {
+            Archive old = archive;
+            if (old != null) old.close();
+            archive = null;
+            Archive a = new Archive(dir);
+            archive = a;
+            archiveAfterDays = keepDays;
+            reports.countArchived(a);
+            reports.reset(); // rebuilt on next use, archived records included
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Move sales and services dated before this day to the archive now and write a snapshot without them;
+    // returns how many moved. IllegalArgumentException for a date that is not yyyy-MM-dd,
+    // IllegalStateException if no archive is open.
+    int archive(String before) throws IOException {
+        int day = bound(before);
+        Archive a = archive;
+        if (a == null) throw new IllegalStateException("No archive open");
+        long t0 = archiveTime.start();
+        boolean done = false;
+        int moved;
+        lock.writeLock().lock();
+        try {
+            moved = tier(a, day);
+            writeSnapshot(Progress.NONE);
+            done = true;
+        } finally {
+            long reloaded = claimTiered();
+            lock.writeLock().unlock();
+            archiveTime.stop(t0, done);
+            changes.publish(reloaded, Kind.RELOADED, 0, null);
+        }
+        if (moved > 0) for (Listener l : listeners) l.dataChanged();
+        return moved;
+    }
+
+    // Move sales and services dated before day out of memory into the archive; the write lock is held.
+    // They reach the archive's files before they leave the stores, and they stay in the report totals.
+    private int tier(Archive a, int day) throws IOException {
+        List<Sale> oldSales = new ArrayList<>();
+        synchronized (sales) {
+            for (Sale s : sales) if (Dates.isDay(s.soldDay) && s.soldDay < day) oldSales.add(s);
+        }
+        List<Maintenance> oldMaints = new ArrayList<>();
+        synchronized (maints) {
+            for (Maintenance m : maints) if (Dates.isDay(m.serviceDay) && m.serviceDay < day) oldMaints.add(m);
+        }
+        if (oldSales.isEmpty() && oldMaints.isEmpty()) return 0;
+        for (Sale s : oldSales) a.add(s);
+        for (Maintenance m : oldMaints) a.add(m);
+        a.flush();
+        for (Sale s : oldSales) sales.removeById(s.id);
+        for (Maintenance m : oldMaints) maints.removeById(m.id);
+        tiered = true; // records left the stores as a whole batch: announced as a reload once the lock is let go
+        return oldSales.size() + oldMaints.size();
+    }
+
+    // Sequence of the RELOADED change owed for records tier() moved, NONE if it moved none; the write lock is held
+    private long claimTiered() {
+        if (!tiered) return ChangeStream.NONE;
+        tiered = false;
+        return changes.claim(1);
+    }
+
+    // Clear all data, delete the data file and start an empty journal
+    void clear() throws IOException {
+        clear(Progress.NONE);
+    }
+
+    // The same, reporting archive files deleted to progress. Cancel is honoured until the clear starts;
+    // from then on it goes through, as a half-cleared data set would be worse.
+    void clear(Progress progress) throws IOException {
+        progress.update(0, 1);
+        long t0 = clearTime.start();
+        boolean done = false;
+        long reloaded;
+        lock.writeLock().lock();
+        try {
+            // delete persisted file first: if that fails nothing has been cleared yet
+            if (dataFile.exists() && !dataFile.delete()) throw new IOException("Could not delete " + dataFile);
+            vehicles.clear(); customers.clear(); rentals.clear(); sales.clear(); maints.clear(); // clear lists
+            if (opened != null) opened.close(); // the stores no longer read from it
+            opened = null;
+            vehicleCache.clear();
+            customerCache.clear();
+            Archive a = archive;
+            if (a != null) a.clear((n, total) -> { // the history goes too
+                try {
+                    progress.update(n, total);
+                } catch (CancellationException tooLate) {
+                    // the clear is under way: finish it
+                }
+            });
+            statuses.reset();
+            reservations.reset();
+            search.reset();
+            customerSearch.reset();
+            reports.reset();
+            resetIds(); // reset ID counters
+            snapshotGeneration = 0;
+            if (journal != null) journal.restart(0); // empty journal for the empty data set
+            reloaded = changes.claim(1); // published once the lock is let go
+            done = true;
+        } finally {
+            lock.writeLock().unlock();
+            clearTime.stop(t0, done);
+        }
+        changes.publish(reloaded, Kind.RELOADED, 0, null);
+        for (Listener l : listeners) l.dataChanged();
+    }
+
+    // Read a data file written with Java serialization (before the binary snapshot format)
+    static SnapshotCodec.Data readSerialized(File f) throws IOException, ClassNotFoundException {
+        return readSerialized(f, Progress.NONE);
+    }
+
+    // The same, reporting bytes read to progress
+    @SuppressWarnings("unchecked")
+    static SnapshotCodec.Data readSerialized(File f, Progress progress) throws IOException, ClassNotFoundException {
+        SnapshotCodec.Data d = new SnapshotCodec.Data();
+        long length = f.length();
+        InputStream file = new FilterInputStream(new FileInputStream(f)) {
+            long read; // bytes so far
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                int n = super.read(b, off, len);
+                if (n > 0) progress.update(read += n, length); // called per buffer fill, not per byte
+                return n;
+            }
+        };
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(file))) {
+            d.vehicles = (ArrayList<Vehicle>) in.readObject(); // read vehicles list
+            d.customers = (ArrayList<Customer>) in.readObject(); // read customers
+            d.rentals = (ArrayList<Rental>) in.readObject(); // read rentals
+            d.sales = (ArrayList<Sale>) in.readObject(); // read sales
+            d.maints = (ArrayList<Maintenance>) in.readObject(); // read maintenance
+            // restore ID counters
+            d.nextVehicleId = in.readInt();
+            d.nextCustomerId = in.readInt();
+            d.nextRentalId = in.readInt();
+            d.nextSaleId = in.readInt();
+            d.nextMaintId = in.readInt();
+            try {
+                d.generation = in.readLong(); // journal generation
+            } catch (EOFException old) {
+                d.generation = 0; // file saved before journal mode existed
+            }
+        }
+        return d;
+    }
+}
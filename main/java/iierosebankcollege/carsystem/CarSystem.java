@@ -9,24 +9,53 @@ package iierosebankcollege.carsystem;
  * @author Bongumusa Maseko
  */
 import javax.swing.*; 
-import javax.swing.table.DefaultTableModel; 
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import java.awt.*; 
 import java.awt.event.*; 
 import java.io.*; 
 import java.util.ArrayList; 
-import java.util.Date; 
-import java.text.SimpleDateFormat;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class CarSystem extends JFrame implements Serializable{
 
+    // Vehicle status. Stored and shown by its label, so data files and the table read the same as before.
+    enum Status {
+        AVAILABLE("Available"), RENTED("Rented"), SOLD("Sold"), MAINTENANCE("Maintenance");
+
+        final String label;
+
+        Status(String label) {
+            this.label = label;
+        }
+
+        // Status with this label; IllegalArgumentException for unknown text
+        static Status of(String label) {
+            for (Status s : values()) if (s.label.equals(label)) return s;
+            throw new IllegalArgumentException("Unknown vehicle status '" + label + "'");
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
     // Vehicle model: holds vehicle-related fields
     static class Vehicle implements Serializable {
         private static final long serialVersionUID = 1L; // version for serialization
+        // files saved when status was a String keep loading: status is still written as its label
+        private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", int.class), new ObjectStreamField("make", String.class),
+            new ObjectStreamField("model", String.class), new ObjectStreamField("color", String.class),
+            new ObjectStreamField("year", int.class), new ObjectStreamField("price", double.class),
+            new ObjectStreamField("status", String.class)
+        };
         int id;                          // unique numeric ID for the vehicle
         String make, model, color;       // make (brand), model name, and color
         int year;                        // manufacture year
         double price;                    // price for sale or rental base
-        String status;                   // status: Available / Rented / Sold / Maintenance
+        Status status;                   // status: Available / Rented / Sold / Maintenance (change it through CarService)
 
         // Constructor: set default status to "Available"
         Vehicle(int id, String make, String model, int year, String color, double price) {
@@ -36,7 +65,25 @@ public class CarSystem extends JFrame implements Serializable{
             this.year = year;           // assign year
             this.color = color;         // assign color
             this.price = price;         // assign price
-            this.status = "Available"; // default status when created
+            this.status = Status.AVAILABLE; // default status when created
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField f = out.putFields();
+            f.put("id", id); f.put("make", make); f.put("model", model); f.put("color", color);
+            f.put("year", year); f.put("price", price); f.put("status", status.label);
+            out.writeFields();
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField f = in.readFields();
+            id = f.get("id", 0); make = (String) f.get("make", null); model = (String) f.get("model", null);
+            color = (String) f.get("color", null); year = f.get("year", 0); price = f.get("price", 0.0);
+            try {
+                status = Status.of((String) f.get("status", Status.AVAILABLE.label));
+            } catch (IllegalArgumentException ex) {
+                throw new InvalidObjectException(ex.getMessage());
+            }
         }
     }
 
@@ -59,98 +106,263 @@ public class CarSystem extends JFrame implements Serializable{
     // Rental model
     static class Rental implements Serializable {
         private static final long serialVersionUID = 1L; // serialization version
+        // dates are kept as epoch days (see Dates) but still written as text, so older data files keep loading
+        private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", int.class), new ObjectStreamField("vehicleId", int.class),
+            new ObjectStreamField("customerId", int.class), new ObjectStreamField("rentalDate", String.class),
+            new ObjectStreamField("returnDate", String.class), new ObjectStreamField("totalCost", double.class)
+        };
         int id;                 // unique rental ID
         int vehicleId;          // ID of rented vehicle
         int customerId;         // ID of renting customer
-        String rentalDate;      // rental start date as string
-        String returnDate;      // expected return date as string
+        int rentalDay;          // rental start date (Dates value)
+        int returnDay;          // expected return date (Dates value)
         double totalCost;       // total cost charged for the rental
 
         // Constructor: create a rental record with provided values
         Rental(int id, int vehicleId, int customerId, String rentalDate, String returnDate, double totalCost) {
+            this(id, vehicleId, customerId, Dates.of(rentalDate), Dates.of(returnDate), totalCost);
+        }
+
+        Rental(int id, int vehicleId, int customerId, int rentalDay, int returnDay, double totalCost) {
             this.id = id;                 // set rental ID
             this.vehicleId = vehicleId;   // set vehicle reference
             this.customerId = customerId; // set customer reference
-            this.rentalDate = rentalDate; // set rental date
-            this.returnDate = returnDate; // set return date
+            this.rentalDay = rentalDay;   // set rental date
+            this.returnDay = returnDay;   // set return date
             this.totalCost = totalCost;   // set cost
         }
+
+        String rentalDate() {
+            return Dates.format(rentalDay);
+        }
+
+        String returnDate() {
+            return Dates.format(returnDay);
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField f = out.putFields();
+            f.put("id", id); f.put("vehicleId", vehicleId); f.put("customerId", customerId);
+            f.put("rentalDate", rentalDate()); f.put("returnDate", returnDate()); f.put("totalCost", totalCost);
+            out.writeFields();
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField f = in.readFields();
+            id = f.get("id", 0); vehicleId = f.get("vehicleId", 0); customerId = f.get("customerId", 0);
+            rentalDay = Dates.of((String) f.get("rentalDate", null)); returnDay = Dates.of((String) f.get("returnDate", null));
+            totalCost = f.get("totalCost", 0.0);
+        }
     }
 
     // Sale model: represents a sales transaction
     static class Sale implements Serializable {
         private static final long serialVersionUID = 1L; // serialization version
+        private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", int.class), new ObjectStreamField("vehicleId", int.class),
+            new ObjectStreamField("customerId", int.class), new ObjectStreamField("dateSold", String.class),
+            new ObjectStreamField("sellingPrice", double.class)
+        };
         int id;                 // unique sale ID
         int vehicleId;          // vehicle sold
         int customerId;         // buyer
-        String dateSold;        // sale date string
+        int soldDay;            // sale date (Dates value)
         double sellingPrice;    // price sold for
 
         // Constructor: set sale fields
         Sale(int id, int vehicleId, int customerId, String dateSold, double sellingPrice) {
+            this(id, vehicleId, customerId, Dates.of(dateSold), sellingPrice);
+        }
+
+        Sale(int id, int vehicleId, int customerId, int soldDay, double sellingPrice) {
             this.id = id;               // set sale ID
             this.vehicleId = vehicleId; // set vehicle reference
             this.customerId = customerId; // set customer reference
-            this.dateSold = dateSold;   // set date
+            this.soldDay = soldDay;     // set date
             this.sellingPrice = sellingPrice; // set price
         }
+
+        String dateSold() {
+            return Dates.format(soldDay);
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField f = out.putFields();
+            f.put("id", id); f.put("vehicleId", vehicleId); f.put("customerId", customerId);
+            f.put("dateSold", dateSold()); f.put("sellingPrice", sellingPrice);
+            out.writeFields();
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField f = in.readFields();
+            id = f.get("id", 0); vehicleId = f.get("vehicleId", 0); customerId = f.get("customerId", 0);
+            soldDay = Dates.of((String) f.get("dateSold", null)); sellingPrice = f.get("sellingPrice", 0.0);
+        }
     }
 
     // Maintenance model: represents vehicle servicing record
     static class Maintenance implements Serializable {
         private static final long serialVersionUID = 1L; // serialization version
+        private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("id", int.class), new ObjectStreamField("vehicleId", int.class),
+            new ObjectStreamField("serviceType", String.class), new ObjectStreamField("serviceDate", String.class),
+            new ObjectStreamField("cost", double.class), new ObjectStreamField("mechanic", String.class)
+        };
         int id;                 // unique maintenance ID
         int vehicleId;          // vehicle under maintenance
         String serviceType;     // description of service (e.g., Oil change)
-        String serviceDate;     // date of service
+        int serviceDay;         // date of service (Dates value)
         double cost;            // cost of service
         String mechanic;        // who performed the service
 
         // Constructor: initialize maintenance record
         Maintenance(int id, int vehicleId, String serviceType, String serviceDate, double cost, String mechanic) {
+            this(id, vehicleId, serviceType, Dates.of(serviceDate), cost, mechanic);
+        }
+
+        Maintenance(int id, int vehicleId, String serviceType, int serviceDay, double cost, String mechanic) {
             this.id = id;               // set maintenance ID
             this.vehicleId = vehicleId; // set vehicle reference
             this.serviceType = serviceType; // set service type
-            this.serviceDate = serviceDate; // set date
+            this.serviceDay = serviceDay; // set date
             this.cost = cost;           // set cost
             this.mechanic = mechanic;   // set mechanic name
         }
+
+        String serviceDate() {
+            return Dates.format(serviceDay);
+        }
+
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            ObjectOutputStream.PutField f = out.putFields();
+            f.put("id", id); f.put("vehicleId", vehicleId); f.put("serviceType", serviceType);
+            f.put("serviceDate", serviceDate()); f.put("cost", cost); f.put("mechanic", mechanic);
+            out.writeFields();
+        }
+
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            ObjectInputStream.GetField f = in.readFields();
+            id = f.get("id", 0); vehicleId = f.get("vehicleId", 0); serviceType = (String) f.get("serviceType", null);
+            serviceDay = Dates.of((String) f.get("serviceDate", null)); cost = f.get("cost", 0.0);
+            mechanic = (String) f.get("mechanic", null);
+        }
     }
 
-    // memeory stores thta acts like a database
-    ArrayList<Vehicle> vehicles = new ArrayList<>();      // list of vehicles
-    ArrayList<Customer> customers = new ArrayList<>();    // list of customers
-    ArrayList<Rental> rentals = new ArrayList<>();        // list of active rentals
-    ArrayList<Sale> sales = new ArrayList<>();            // list of sales records
-    ArrayList<Maintenance> maints = new ArrayList<>();    // list of maintenance records
+    // Serialization filename 
+    static final String DATA_FILE = "car_system_data.ser";
+    // Journal filename: changes appended since the last snapshot in DATA_FILE
+    static final String JOURNAL_FILE = "car_system_data.journal";
 
-    // ID counter
-    int nextVehicleId = 1;   // next ID to assign to a new Vehicle
-    int nextCustomerId = 1;  // next ID for Customer
-    int nextRentalId = 1;    // next ID for Rental
-    int nextSaleId = 1;      // next ID for Sale
-    int nextMaintId = 1;     // next ID for Maintenance
+    // Data layer: stores, ID counters, journal and snapshot file; safe to call from any thread
+    final CarService service = new CarService(new File(DATA_FILE), new File(JOURNAL_FILE));
+
+    // memeory stores thta acts like a database (owned by the service; the tables read them directly)
+    final EntityStore<Vehicle> vehicles = service.vehicles;         // vehicles
+    final EntityStore<Customer> customers = service.customers;      // customers
+    final EntityStore<Rental> rentals = service.rentals;            // active rentals
+    final EntityStore<Sale> sales = service.sales;                  // sales records
+    final EntityStore<Maintenance> maints = service.maints;         // maintenance records
 
     //GUI components
-    private DefaultTableModel vehicleTableModel;   // model for vehicle table
-    private DefaultTableModel customerTableModel;  // model for customer table
-    private DefaultTableModel rentalTableModel;    // model for rental table
-    private DefaultTableModel saleTableModel;      // model for sales table
-    private DefaultTableModel maintTableModel;     // model for maintenance table
+    private StoreTableModel<Vehicle> vehicleTableModel;      // model for vehicle table
+    private StoreTableModel<Customer> customerTableModel;    // model for customer table
+    private StoreTableModel<Rental> rentalTableModel;        // model for rental table
+    private StoreTableModel<Sale> saleTableModel;            // model for sales table
+    private StoreTableModel<Maintenance> maintTableModel;    // model for maintenance table
 
-    // Serialization filename 
-    private static final String DATA_FILE = "car_system_data.ser";
+    private final AtomicBoolean refreshQueued = new AtomicBoolean(); // a table refresh for off-EDT changes is pending
+    private final Metrics.Timer refreshTime = service.metrics.timer("refreshAllTables");
 
     // Constructor: build the main window and initialize state
     public CarSystem() {
+        this(false); // classic mode: data is only written when Save is clicked
+    }
+
+    // Constructor: journaled=true appends every change to JOURNAL_FILE as it happens
+    public CarSystem(boolean journaled) {
         super("Car System — All In One (Java Only)"); // set window title
         setDefaultCloseOperation(EXIT_ON_CLOSE); // close program when window is closed
         setSize(950, 600); // window size width=950 height=600
         setLocationRelativeTo(null); // center window on screen
 
         initGUI();      // setup GUI components and layout
-        loadData();     // attempt to load persisted data from disk
-        refreshAllTables(); // update table views with current in-memory data
+        service.addListener(new TableEvents()); // keep the tables in step with the service
+        openArchive();  // before the journal: rentals it closes again go to the archive
+        refreshAllTables(); // empty until the data is loaded
+        registerMetrics("window");
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                loadAtStartup(journaled); // the window is up and paints while the files are read
+            }
+        });
+    }
+
+    // Table models of the tabs, reading rows straight from the stores (nothing is copied). They need no
+    // window, so OpsBench can drive them headless.
+    static StoreTableModel<Vehicle> vehicleModel(EntityStore<Vehicle> vehicles) {
+        return new StoreTableModel<>(vehicles, (v, col) -> {
+            switch (col) {
+                case 0: return v.id;
+                case 1: return v.make;
+                case 2: return v.model;
+                case 3: return v.year;
+                case 4: return v.color;
+                case 5: return v.price;
+                default: return v.status.label;
+            }
+        }, "ID", "Make", "Model", "Year", "Color", "Price", "Status");
+    }
+
+    static StoreTableModel<Customer> customerModel(EntityStore<Customer> customers) {
+        return new StoreTableModel<>(customers, (c, col) -> {
+            switch (col) {
+                case 0: return c.id;
+                case 1: return c.name;
+                case 2: return c.phone;
+                case 3: return c.email;
+                default: return c.address;
+            }
+        }, "ID", "Name", "Phone", "Email", "Address");
+    }
+
+    static StoreTableModel<Rental> rentalModel(EntityStore<Rental> rentals) {
+        return new StoreTableModel<>(rentals, (r, col) -> {
+            switch (col) {
+                case 0: return r.id;
+                case 1: return r.vehicleId;
+                case 2: return r.customerId;
+                case 3: return r.rentalDate();
+                case 4: return r.returnDate();
+                default: return r.totalCost;
+            }
+        }, "ID", "VehicleID", "CustomerID", "RentalDate", "ReturnDate", "TotalCost");
+    }
+
+    static StoreTableModel<Sale> saleModel(EntityStore<Sale> sales) {
+        return new StoreTableModel<>(sales, (sl, col) -> {
+            switch (col) {
+                case 0: return sl.id;
+                case 1: return sl.vehicleId;
+                case 2: return sl.customerId;
+                case 3: return sl.dateSold();
+                default: return sl.sellingPrice;
+            }
+        }, "ID", "VehicleID", "CustomerID", "DateSold", "SellingPrice");
+    }
+
+    static StoreTableModel<Maintenance> maintModel(EntityStore<Maintenance> maints) {
+        return new StoreTableModel<>(maints, (m, col) -> {
+            switch (col) {
+                case 0: return m.id;
+                case 1: return m.vehicleId;
+                case 2: return m.serviceType;
+                case 3: return m.serviceDate();
+                case 4: return m.cost;
+                default: return m.mechanic;
+            }
+        }, "ID", "VehicleID", "ServiceType", "ServiceDate", "Cost", "Mechanic");
     }
 
     // Initialize the GUI: tabs, tables and control panels
@@ -159,23 +371,25 @@ public class CarSystem extends JFrame implements Serializable{
 
         // Vehicles Tab 
         JPanel vehiclePanel = new JPanel(new BorderLayout()); // panel with BorderLayout
-        vehicleTableModel = new DefaultTableModel(new Object[]{"ID", "Make", "Model", "Year", "Color", "Price", "Status"}, 0);
+        vehicleTableModel = vehicleModel(vehicles); // table models read rows straight from the stores
         JTable vehicleTable = new JTable(vehicleTableModel); // create table using model
         vehiclePanel.add(new JScrollPane(vehicleTable), BorderLayout.CENTER); // add table inside a scroll pane to center
         vehiclePanel.add(vehicleControlsPanel(), BorderLayout.SOUTH); // add controls at bottom
+        vehiclePanel.add(vehicleFilterPanel(), BorderLayout.NORTH); // search bar on top
         tabs.addTab("Vehicles", vehiclePanel); // add tab labeled "Vehicles"
 
         // Customers Tab 
         JPanel customerPanel = new JPanel(new BorderLayout());
-        customerTableModel = new DefaultTableModel(new Object[]{"ID", "Name", "Phone", "Email", "Address"}, 0);
+        customerTableModel = customerModel(customers);
         JTable customerTable = new JTable(customerTableModel); // table to display customers
         customerPanel.add(new JScrollPane(customerTable), BorderLayout.CENTER); // center table
         customerPanel.add(customerControlsPanel(), BorderLayout.SOUTH); // controls below
+        customerPanel.add(customerSearchPanel(), BorderLayout.NORTH); // search as you type
         tabs.addTab("Customers", customerPanel); // add customer tab
 
         // Rentals Tab
         JPanel rentalPanel = new JPanel(new BorderLayout());
-        rentalTableModel = new DefaultTableModel(new Object[]{"ID", "VehicleID", "CustomerID", "RentalDate", "ReturnDate", "TotalCost"}, 0);
+        rentalTableModel = rentalModel(rentals);
         JTable rentalTable = new JTable(rentalTableModel); // create rental table
         rentalPanel.add(new JScrollPane(rentalTable), BorderLayout.CENTER); // center rental table
         rentalPanel.add(rentalControlsPanel(), BorderLayout.SOUTH); // add rental controls
@@ -183,7 +397,7 @@ public class CarSystem extends JFrame implements Serializable{
 
         // Sales Tab
         JPanel salesPanel = new JPanel(new BorderLayout());
-        saleTableModel = new DefaultTableModel(new Object[]{"ID", "VehicleID", "CustomerID", "DateSold", "SellingPrice"}, 0);
+        saleTableModel = saleModel(sales);
         JTable saleTable = new JTable(saleTableModel); // create sales table
         salesPanel.add(new JScrollPane(saleTable), BorderLayout.CENTER); // add scrollable table to center
         salesPanel.add(salesControlsPanel(), BorderLayout.SOUTH); // add sales controls at bottom
@@ -191,7 +405,7 @@ public class CarSystem extends JFrame implements Serializable{
 
         // Maintenance Tab
         JPanel maintPanel = new JPanel(new BorderLayout());
-        maintTableModel = new DefaultTableModel(new Object[]{"ID", "VehicleID", "ServiceType", "ServiceDate", "Cost", "Mechanic"}, 0);
+        maintTableModel = maintModel(maints);
         JTable maintTable = new JTable(maintTableModel); // table for maintenance records
         maintPanel.add(new JScrollPane(maintTable), BorderLayout.CENTER); // center table
         maintPanel.add(maintenanceControlsPanel(), BorderLayout.SOUTH); // add maintenance controls
@@ -202,21 +416,36 @@ public class CarSystem extends JFrame implements Serializable{
         JButton saveBtn = new JButton("Save Data"); // button to save data
         JButton loadBtn = new JButton("Load Data"); // button to load data from disk
         JButton clearBtn = new JButton("Clear All (reset)"); // clear/reset stored data
+        JButton importBtn = new JButton("Import..."); // bulk import from a folder of CSV/JSON files
+        JButton exportBtn = new JButton("Export..."); // bulk export to a folder
 
         // wire button actions to methods
+        // file work runs in the background behind a progress dialog, so the window keeps painting
         saveBtn.addActionListener(e -> saveData()); // when clicked, call saveData()
-        loadBtn.addActionListener(e -> { loadData(); refreshAllTables(); }); // load then refresh tables
-        clearBtn.addActionListener(e -> { if (confirm("Clear ALL data?")) { clearAllData(); refreshAllTables(); } });
+        loadBtn.addActionListener(e -> loadDataInBackground()); // load, then refresh tables when done
+        clearBtn.addActionListener(e -> { if (confirm("Clear ALL data?")) clearAllData(); });
+        importBtn.addActionListener(e -> importData());
+        exportBtn.addActionListener(e -> exportData());
 
         // add buttons to top panel
         top.add(saveBtn);
         top.add(loadBtn);
         top.add(clearBtn);
+        top.add(importBtn);
+        top.add(exportBtn);
 
         // attach top and tabs to frame content
         getContentPane().setLayout(new BorderLayout()); // set frame layout
         getContentPane().add(top, BorderLayout.NORTH); // top panel at north
         getContentPane().add(tabs, BorderLayout.CENTER); // tabs in center
+
+        // flush the journal's last batch when the window closes
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                closeJournal();
+            }
+        });
     }
 
     //Panels for controls 
@@ -245,7 +474,6 @@ public class CarSystem extends JFrame implements Serializable{
                 addVehicle(make, model, year, color, price); // add vehicle to list
                 // clear input fields after successful add
                 makeF.setText(""); modelF.setText(""); yearF.setText(""); colorF.setText(""); priceF.setText("");
-                refreshAllTables(); // refresh table views to show new vehicle
             } catch (Exception ex) {
                 showError("Invalid input: " + ex.getMessage()); // show error if parsing fails
             }
@@ -258,7 +486,6 @@ public class CarSystem extends JFrame implements Serializable{
                 boolean ok = deleteVehicle(id); // attempt to delete
                 if (!ok) showError("No vehicle with ID " + id); // show error if not found
                 deleteId.setText(""); // clear delete field
-                refreshAllTables(); // refresh table after deletion
             } catch (Exception ex) { showError("Invalid ID"); } // show error if parse fails
         });
 
@@ -273,6 +500,65 @@ public class CarSystem extends JFrame implements Serializable{
         return p; // return constructed panel
     }
 
+    // Filter bar for Vehicles: narrows the table to the vehicles matching every filled-in field
+    private JPanel vehicleFilterPanel() {
+        JPanel p = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JTextField makeF = new JTextField(7); // make, any case
+        JTextField modelF = new JTextField(7); // model
+        JTextField colorF = new JTextField(5); // color
+        JTextField yearFromF = new JTextField(4), yearToF = new JTextField(4); // year range
+        JTextField priceFromF = new JTextField(6), priceToF = new JTextField(6); // price range
+        JComboBox<Object> statusF = new JComboBox<>(); // status or any
+        statusF.addItem("Any");
+        for (Status s : Status.values()) statusF.addItem(s);
+        JButton filter = new JButton("Filter"); // run the search
+        JButton all = new JButton("Show All"); // drop the filter
+
+        filter.addActionListener(e -> {
+            try {
+                VehicleIndex.Query q = new VehicleIndex.Query();
+                if (!makeF.getText().trim().isEmpty()) q.make(makeF.getText());
+                if (!modelF.getText().trim().isEmpty()) q.model(modelF.getText());
+                if (!colorF.getText().trim().isEmpty()) q.color(colorF.getText());
+                q.years(yearFromF.getText().trim().isEmpty() ? Integer.MIN_VALUE : Integer.parseInt(yearFromF.getText().trim()),
+                        yearToF.getText().trim().isEmpty() ? Integer.MAX_VALUE : Integer.parseInt(yearToF.getText().trim()));
+                q.price(priceFromF.getText().trim().isEmpty() ? Double.NEGATIVE_INFINITY : Double.parseDouble(priceFromF.getText().trim()),
+                        priceToF.getText().trim().isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(priceToF.getText().trim()));
+                if (statusF.getSelectedItem() instanceof Status) q.status((Status) statusF.getSelectedItem());
+                vehicleTableModel.show(service.findVehicles(q).stream().mapToInt(v -> v.id).sorted().toArray());
+            } catch (NumberFormatException ex) { showError("Invalid number: " + ex.getMessage()); }
+        });
+        all.addActionListener(e -> vehicleTableModel.show(null)); // whole fleet again
+
+        p.add(new JLabel("Make:")); p.add(makeF);
+        p.add(new JLabel("Model:")); p.add(modelF);
+        p.add(new JLabel("Color:")); p.add(colorF);
+        p.add(new JLabel("Year:")); p.add(yearFromF); p.add(new JLabel("to")); p.add(yearToF);
+        p.add(new JLabel("Price:")); p.add(priceFromF); p.add(new JLabel("to")); p.add(priceToF);
+        p.add(new JLabel("Status:")); p.add(statusF);
+        p.add(filter); p.add(all);
+        return p;
+    }
+
+    // Search box for Customers: the table shows the best matches for a partial name, phone or email as it is typed
+    private JPanel customerSearchPanel() {
+        JPanel p = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        JTextField findF = new JTextField(24); // partial name, phone number or email
+        findF.getDocument().addDocumentListener(new DocumentListener() {
+            @Override public void insertUpdate(DocumentEvent e) { find(); }
+            @Override public void removeUpdate(DocumentEvent e) { find(); }
+            @Override public void changedUpdate(DocumentEvent e) { find(); }
+
+            private void find() {
+                String text = findF.getText().trim();
+                if (text.isEmpty()) customerTableModel.show(null); // whole list again
+                else customerTableModel.show(service.searchCustomers(text, 50).stream().mapToInt(c -> c.id).toArray());
+            }
+        });
+        p.add(new JLabel("Find customer:")); p.add(findF);
+        return p;
+    }
+
     // Controls panel for Customers
     private JPanel customerControlsPanel() {
         JPanel p = new JPanel(new FlowLayout(FlowLayout.LEFT));
@@ -293,7 +579,6 @@ public class CarSystem extends JFrame implements Serializable{
                 String address = addressF.getText().trim(); // get address
                 addCustomer(name, phone, email, address); // add customer to list
                 nameF.setText(""); phoneF.setText(""); emailF.setText(""); addressF.setText(""); // clear fields
-                refreshAllTables(); // refresh tables to show new customer
             } catch (Exception ex) { showError("Invalid input"); } // generic error
         });
 
@@ -304,7 +589,6 @@ public class CarSystem extends JFrame implements Serializable{
                 boolean ok = deleteCustomer(id); // attempt delete
                 if (!ok) showError("No customer with ID " + id); // notify if not found
                 deleteId.setText("");
-                refreshAllTables();
             } catch (Exception ex) { showError("Invalid ID"); }
         });
 
@@ -326,6 +610,9 @@ public class CarSystem extends JFrame implements Serializable{
         JTextField returnDateF = new JTextField(8); // return date input (yyyy-MM-dd expected)
         JTextField costF = new JTextField(6); // total cost input
         JButton add = new JButton("Add Rental"); // add rental button
+        JTextField fromF = new JTextField(8); // start date of a reservation (yyyy-MM-dd)
+        JButton reserve = new JButton("Reserve"); // book for later
+        JButton start = new JButton("Start Rental (by ID)"); // pick up a reservation
         JButton close = new JButton("Close Rental (by ID)"); // close rental button
         JTextField closeId = new JTextField(4); // rental id to close
 
@@ -340,10 +627,30 @@ public class CarSystem extends JFrame implements Serializable{
                 boolean ok = addRental(vid, cid, rDate, ret, cost); // attempt to add rental
                 if (!ok) showError("Vehicle not available or IDs invalid"); // error if not valid
                 vehicleIdF.setText(""); customerIdF.setText(""); returnDateF.setText(""); costF.setText(""); // clear
-                refreshAllTables(); // refresh UI
             } catch (Exception ex) { showError("Invalid input: " + ex.getMessage()); }
         });
 
+        // Reserve action: same fields as a rental, starting on the From date
+        reserve.addActionListener(e -> {
+            try {
+                int vid = Integer.parseInt(vehicleIdF.getText().trim()); // vehicle id
+                int cid = Integer.parseInt(customerIdF.getText().trim()); // customer id
+                double cost = Double.parseDouble(costF.getText().trim()); // total cost
+                boolean ok = reserve(vid, cid, fromF.getText().trim(), returnDateF.getText().trim(), cost);
+                if (!ok) showError("Vehicle already booked for those days, dates invalid or IDs invalid");
+                vehicleIdF.setText(""); customerIdF.setText(""); fromF.setText(""); returnDateF.setText(""); costF.setText("");
+            } catch (Exception ex) { showError("Invalid input: " + ex.getMessage()); }
+        });
+
+        // Start rental action: the car goes out on a reservation
+        start.addActionListener(e -> {
+            try {
+                int id = Integer.parseInt(closeId.getText().trim()); // reservation id
+                if (!startRental(id)) showError("Cannot start rental " + id + ": vehicle not available or an earlier booking comes first");
+                closeId.setText("");
+            } catch (Exception ex) { showError("Invalid ID"); }
+        });
+
         // Close rental action
         close.addActionListener(e -> {
             try {
@@ -351,7 +658,6 @@ public class CarSystem extends JFrame implements Serializable{
                 boolean ok = closeRental(id); // attempt to close rental
                 if (!ok) showError("No rental with ID " + id); // show error if not found
                 closeId.setText("");
-                refreshAllTables();
             } catch (Exception ex) { showError("Invalid ID"); }
         });
 
@@ -361,7 +667,8 @@ public class CarSystem extends JFrame implements Serializable{
         p.add(new JLabel("ReturnDate (yyyy-MM-dd):")); p.add(returnDateF);
         p.add(new JLabel("TotalCost:")); p.add(costF);
         p.add(add);
-        p.add(new JLabel("RentalID:")); p.add(closeId); p.add(close);
+        p.add(new JLabel("From (yyyy-MM-dd):")); p.add(fromF); p.add(reserve);
+        p.add(new JLabel("RentalID:")); p.add(closeId); p.add(start); p.add(close);
         return p;
     }
 
@@ -380,9 +687,11 @@ public class CarSystem extends JFrame implements Serializable{
                 int cid = Integer.parseInt(customerIdF.getText().trim()); // customer id
                 double sp = Double.parseDouble(sellingPriceF.getText().trim()); // selling price
                 boolean ok = addSale(vid, cid, today(), sp); // attempt to add sale
-                if (!ok) showError("Vehicle not available or IDs invalid"); // show error otherwise
+                if (!ok) { // show why otherwise
+                    String why = service.saleRefusal(vid, cid);
+                    showError(why == null ? "Vehicle not available or IDs invalid" : "Sale refused: " + why);
+                }
                 vehicleIdF.setText(""); customerIdF.setText(""); sellingPriceF.setText(""); // clear
-                refreshAllTables(); // refresh UI
             } catch (Exception ex) { showError("Invalid input"); }
         });
 
@@ -412,13 +721,13 @@ public class CarSystem extends JFrame implements Serializable{
                     int vid = Integer.parseInt(vehicleIdF.getText().trim()); // parse vehicle id
                     String type = serviceTypeF.getText().trim(); // service type
                     String date = dateF.getText().trim(); // date string
+                    if (Dates.parse(date) == Dates.NONE) throw new IllegalArgumentException("date must be yyyy-MM-dd");
                     double c = Double.parseDouble(costF.getText().trim()); // parse cost
                     String m = mechF.getText().trim(); // mechanic name
                     boolean ok = addMaint(vid, type, date, c, m); // attempt to add maintenance
                     if (!ok) showError("Vehicle ID invalid"); // show error if vehicle not found
                     // clear input fields
                     vehicleIdF.setText(""); serviceTypeF.setText(""); dateF.setText(""); costF.setText(""); mechF.setText("");
-                    refreshAllTables(); // refresh tables
                 } catch (Exception ex) { showError("Invalid input: " + ex.getMessage()); }
             }
         });
@@ -433,183 +742,248 @@ public class CarSystem extends JFrame implements Serializable{
         return p;
     }
 
-    // Data operations 
+    // Data operations (the service does the work; these keep the window's original signatures)
 
     // Add a vehicle to the vehicles list with next numeric ID
     void addVehicle(String make, String model, int year, String color, double price) {
-        vehicles.add(new Vehicle(nextVehicleId++, make, model, year, color, price)); // create and append new Vehicle; increment nextVehicleId
+        service.addVehicle(make, model, year, color, price);
     }
 
     // Delete a vehicle by numeric ID; return true if found and removed, false otherwise
     boolean deleteVehicle(int id) {
-        for (Vehicle v : vehicles) {
-            if (v.id == id) {
-                vehicles.remove(v); // remove the matching vehicle from the list
-                return true; // success
-            }
-        }
-        return false; // not found
+        return service.deleteVehicle(id);
     }
 
     // Add a customer to the customers list with next numeric ID
     void addCustomer(String name, String phone, String email, String address) {
-        customers.add(new Customer(nextCustomerId++, name, phone, email, address)); // create and append, increment ID
+        service.addCustomer(name, phone, email, address);
     }
 
     // Delete a customer by numeric ID; return true if found and removed, false otherwise
     boolean deleteCustomer(int id) {
-        for (Customer c : customers) {
-            if (c.id == id) {
-                customers.remove(c); // remove matching customer
-                return true; // success
-            }
-        }
-        return false; // not found
+        return service.deleteCustomer(id);
     }
 
     // Add a rental if vehicle and customer exist and vehicle is available. Return true on success.
     boolean addRental(int vehicleId, int customerId, String rentalDate, String returnDate, double totalCost) {
-        Vehicle v = findVehicleById(vehicleId); // find vehicle by id
-        Customer c = findCustomerById(customerId); // find customer by id
-        if (v == null || c == null || !v.status.equals("Available")) return false; // fail if invalid or not available
-        rentals.add(new Rental(nextRentalId++, vehicleId, customerId, rentalDate, returnDate, totalCost)); // create rental record
-        v.status = "Rented"; // mark vehicle as rented
-        return true; // success
+        return service.addRental(vehicleId, customerId, rentalDate, returnDate, totalCost) != null;
+    }
+
+    // Book a vehicle for a later window; false if it overlaps another booking, the dates are invalid or IDs invalid
+    boolean reserve(int vehicleId, int customerId, String rentalDate, String returnDate, double totalCost) {
+        return service.reserve(vehicleId, customerId, rentalDate, returnDate, totalCost) != null;
+    }
+
+    // Start a reserved rental: the vehicle becomes Rented; false if it is not its turn yet
+    boolean startRental(int rentalId) {
+        return service.startRental(rentalId);
     }
 
     // Close rental by ID: set vehicle status back to Available and remove rental record; return true on success
     boolean closeRental(int rentalId) {
-        for (Rental r : rentals) {
-            if (r.id == rentalId) {
-                Vehicle v = findVehicleById(r.vehicleId); // find associated vehicle
-                if (v != null) v.status = "Available"; // set vehicle available
-                rentals.remove(r); // remove rental record
-                return true; // success
-            }
-        }
-        return false; // rental not found
+        return service.closeRental(rentalId);
     }
 
     // Add a sale record if vehicle/customer valid and vehicle is available; set vehicle status to Sold
     boolean addSale(int vehicleId, int customerId, String dateSold, double sellingPrice) {
-        Vehicle v = findVehicleById(vehicleId); // lookup
-        Customer c = findCustomerById(customerId); // lookup
-        if (v == null || c == null || !v.status.equals("Available")) return false; // fail if invalid
-        sales.add(new Sale(nextSaleId++, vehicleId, customerId, dateSold, sellingPrice)); // create sale
-        v.status = "Sold"; // mark vehicle sold
-        return true; // success
+        return service.addSale(vehicleId, customerId, dateSold, sellingPrice) != null;
     }
 
     // Add maintenance record and set vehicle status to Maintenance; return false if vehicle not found
     boolean addMaint(int vehicleId, String serviceType, String serviceDate, double cost, String mechanic) {
-        Vehicle v = findVehicleById(vehicleId); // find vehicle
-        if (v == null) return false; // invalid vehicle
-        maints.add(new Maintenance(nextMaintId++, vehicleId, serviceType, serviceDate, cost, mechanic)); // add record
-        v.status = "Maintenance"; // set status
-        return true; // success
+        return service.addMaint(vehicleId, serviceType, serviceDate, cost, mechanic) != null;
     }
 
-    // Helper: find vehicle by ID 
-    private Vehicle findVehicleById(int id) {
-        for (Vehicle v : vehicles) if (v.id == id) return v; // return first match
-        return null; // not found
-    }
+    // UI helpers
 
-    // Helper: find customer by ID
-    private Customer findCustomerById(int id) {
-        for (Customer c : customers) if (c.id == id) return c; // return match
-        return null; // not found
-    }
+    // Forwards service changes to the table models. Changes made on the event thread become one-row events;
+    // changes made on other threads (row positions may be stale by the time Swing runs) are coalesced into
+    // a single refresh queued on the event thread.
+    private class TableEvents implements CarService.Listener {
+        @Override
+        public void rowInserted(CarService.Table table, int row) {
+            if (onEventThread()) modelFor(table).rowAdded(row);
+        }
 
-    // UI helpers
+        @Override
+        public void rowUpdated(CarService.Table table, int id) {
+            if (onEventThread()) modelFor(table).rowChanged(id);
+        }
 
-    // Refresh all JTable models from the in-memory lists
-    private void refreshAllTables() {
-        // Vehicles table: clear rows then append all vehicle data rows
-        vehicleTableModel.setRowCount(0); // remove existing rows
-        for (Vehicle v : vehicles) {
-            vehicleTableModel.addRow(new Object[]{v.id, v.make, v.model, v.year, v.color, v.price, v.status}); // add row
+        @Override
+        public void rowDeleted(CarService.Table table, int row) {
+            if (onEventThread()) modelFor(table).rowRemoved(row);
         }
 
-        // Customers table
-        customerTableModel.setRowCount(0);
-        for (Customer c : customers) {
-            customerTableModel.addRow(new Object[]{c.id, c.name, c.phone, c.email, c.address});
+        @Override
+        public void dataChanged() {
+            if (onEventThread()) refreshAllTables();
         }
 
-        // Rentals table 
-        rentalTableModel.setRowCount(0);
-        for (Rental r : rentals) {
-            rentalTableModel.addRow(new Object[]{r.id, r.vehicleId, r.customerId, r.rentalDate, r.returnDate, r.totalCost});
+        @Override
+        public void snapshotDue() {
+            // keeps startup replay short; runs after the current operation
+            SwingUtilities.invokeLater(() -> runInBackground("Saving snapshot",
+                    p -> { service.writeSnapshot(p); return null; }, done -> { }));
         }
 
-        // Sales table
-        saleTableModel.setRowCount(0);
-        for (Sale s : sales) {
-            saleTableModel.addRow(new Object[]{s.id, s.vehicleId, s.customerId, s.dateSold, s.sellingPrice});
+        // True on the event thread; otherwise queue one refresh for all the changes made meanwhile
+        private boolean onEventThread() {
+            if (SwingUtilities.isEventDispatchThread()) return true;
+            if (refreshQueued.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> {
+                    refreshQueued.set(false);
+                    refreshAllTables();
+                });
+            }
+            return false;
         }
+    }
 
-        // Maintenance table
-        maintTableModel.setRowCount(0);
-        for (Maintenance m : maints) {
-            maintTableModel.addRow(new Object[]{m.id, m.vehicleId, m.serviceType, m.serviceDate, m.cost, m.mechanic});
+    private StoreTableModel<?> modelFor(CarService.Table table) {
+        switch (table) {
+            case VEHICLES: return vehicleTableModel;
+            case CUSTOMERS: return customerTableModel;
+            case RENTALS: return rentalTableModel;
+            case SALES: return saleTableModel;
+            default: return maintTableModel;
         }
     }
 
-    // Save all in-memory lists and ID counters to disk via serialization
+    // Refresh all JTable models after a bulk change (load, clear). Single changes fire one-row events instead.
+    private void refreshAllTables() {
+        long t0 = refreshTime.start();
+        vehicleTableModel.fireTableDataChanged(); // tables re-read only the rows they show
+        customerTableModel.fireTableDataChanged();
+        rentalTableModel.fireTableDataChanged();
+        saleTableModel.fireTableDataChanged();
+        maintTableModel.fireTableDataChanged();
+        refreshTime.stop(t0, true);
+    }
+
+    // Show the service's metrics to JMX clients (JConsole: MBeans tab, iierosebankcollege.carsystem)
+    private void registerMetrics(String name) {
+        try {
+            service.metrics.register(name);
+        } catch (javax.management.JMException ex) {
+            System.err.println("Metrics not registered: " + ex.getMessage()); // the app works without them
+        }
+    }
+
+    // Save all in-memory lists and ID counters to disk in the background
     private void saveData() {
-        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            out.writeObject(vehicles); // write vehicles list
-            out.writeObject(customers); // write customers list
-            out.writeObject(rentals); // write rentals list
-            out.writeObject(sales); // write sales list
-            out.writeObject(maints); // write maints list
-            // write next ID counters so IDs continue after reload
-            out.writeInt(nextVehicleId);
-            out.writeInt(nextCustomerId);
-            out.writeInt(nextRentalId);
-            out.writeInt(nextSaleId);
-            out.writeInt(nextMaintId);
-            showInfo("Data saved to " + DATA_FILE); // inform user of success
-        } catch (Exception ex) {
-            showError("Save failed: " + ex.getMessage()); // show error message on exception
-        }
-    }
-
-    // Load data from disk if file exists and restore lists and counters
-    @SuppressWarnings("unchecked")
-    private void loadData() {
-        File f = new File(DATA_FILE); // create File object for data file
+        runInBackground("Saving data", p -> { service.writeSnapshot(p); return null; },
+                done -> showInfo("Data saved to " + DATA_FILE)); // inform user of success
+    }
+
+    // Startup: load the data file if it exists, then (journaled) replay the changes made since the snapshot and
+    // keep logging, in the background. If either fails or is cancelled the window carries on without the
+    // journal: replaying it over data that did not load would lose the changes it holds.
+    private void loadAtStartup(boolean journaled) {
+        File f = new File(DATA_FILE);
+        runInBackground("Loading data", p -> {
+            if (f.exists()) service.load(p);
+            if (journaled) service.openJournal(p);
+            return null;
+        }, done -> refreshAllTables());
+    }
+
+    // Load button: read the file and swap it into the stores in the background (the tables refresh afterwards)
+    private void loadDataInBackground() {
+        File f = new File(DATA_FILE);
         if (!f.exists()) return; // if no file, nothing to load
-        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(f))) {
-            vehicles = (ArrayList<Vehicle>) in.readObject(); // read vehicles list
-            customers = (ArrayList<Customer>) in.readObject(); // read customers
-            rentals = (ArrayList<Rental>) in.readObject(); // read rentals
-            sales = (ArrayList<Sale>) in.readObject(); // read sales
-            maints = (ArrayList<Maintenance>) in.readObject(); // read maintenance
-            // restore ID counters
-            nextVehicleId = in.readInt();
-            nextCustomerId = in.readInt();
-            nextRentalId = in.readInt();
-            nextSaleId = in.readInt();
-            nextMaintId = in.readInt();
-            showInfo("Data loaded from " + DATA_FILE); // inform user
-        } catch (Exception ex) {
-            showError("Load failed: " + ex.getMessage()); // show error if load fails
-        }
-    }
-
-    // Clear all in-memory data and delete the data file if exists
+        runInBackground("Loading data", p -> { service.load(p); return null; },
+                done -> showInfo("Data loaded from " + DATA_FILE)); // inform user
+    }
+
+    // Import button: pick a folder holding vehicles.csv, customers.csv, ... (or .json) and add its records
+    private void importData() {
+        File dir = chooseFolder("Import from folder");
+        if (dir == null) return;
+        runInBackground("Importing", p -> new BulkIO(service).importFolder(dir, p),
+                results -> showInfo(BulkIO.describe(results))); // tables refresh once per batch meanwhile
+    }
+
+    // Export button: write every table to a folder as CSV or JSON
+    private void exportData() {
+        File dir = chooseFolder("Export to folder");
+        if (dir == null) return;
+        Object[] formats = {"CSV", "JSON"};
+        int choice = JOptionPane.showOptionDialog(this, "Export format", "Export", JOptionPane.DEFAULT_OPTION,
+                JOptionPane.QUESTION_MESSAGE, null, formats, formats[0]);
+        if (choice < 0) return;
+        BulkIO.Format format = choice == 0 ? BulkIO.Format.CSV : BulkIO.Format.JSON;
+        runInBackground("Exporting", p -> { new BulkIO(service).exportFolder(dir, format, p); return null; },
+                done -> showInfo("Data exported to " + dir));
+    }
+
+    private File chooseFolder(String title) {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle(title);
+        chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+        return chooser.showOpenDialog(this) == JFileChooser.APPROVE_OPTION ? chooser.getSelectedFile() : null;
+    }
+
+    // History beside the data file (see Archive); without it closed rentals are dropped as before
+    private void openArchive() {
+        try {
+            service.openArchive(Archive.dirFor(new File(DATA_FILE)), CarService.ARCHIVE_AFTER_DAYS);
+        } catch (IOException ex) {
+            showError("Archive unavailable: " + ex.getMessage());
+        }
+    }
+
+    // Flush and close the journal (window closing)
+    private void closeJournal() {
+        try {
+            service.close();
+        } catch (IOException ex) {
+            showError("Journal flush failed: " + ex.getMessage());
+        }
+    }
+
+    // Clear all in-memory data and delete the data file if exists (file work in the background)
     private void clearAllData() {
-        vehicles.clear(); customers.clear(); rentals.clear(); sales.clear(); maints.clear(); // clear lists
-        // reset ID counters
-        nextVehicleId = 1; nextCustomerId = 1; nextRentalId = 1; nextSaleId = 1; nextMaintId = 1;
-        File f = new File(DATA_FILE); if (f.exists()) f.delete(); // delete persisted file
+        runInBackground("Clearing data", p -> { service.clear(p); return null; }, done -> refreshAllTables());
+    }
+
+    // Run slow file work on a background thread. A small modal dialog shows progress and offers Cancel;
+    // it blocks input (so the data can't change underneath the work) but the window keeps repainting.
+    // done runs on the event thread with the result; errors and cancellation are reported once at the end.
+    private <T> void runInBackground(String title, BackgroundTask.Work<T> work, BackgroundTask.Done<T> done) {
+        JDialog dialog = new JDialog(this, title, true);
+        JProgressBar bar = new JProgressBar(0, 100);
+        JButton cancel = new JButton("Cancel");
+        BackgroundTask<T> task = new BackgroundTask<>(work, result -> {
+            dialog.dispose();
+            done.done(result);
+        }, error -> {
+            dialog.dispose();
+            if (error instanceof java.util.concurrent.CancellationException) showInfo(title + " cancelled");
+            else showError(title + " failed: " + error.getMessage());
+        });
+        task.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) bar.setValue((Integer) e.getNewValue()); // update bar
+        });
+        cancel.addActionListener(e -> { cancel.setEnabled(false); task.requestCancel(); });
+
+        JPanel p = new JPanel(new BorderLayout(8, 8));
+        p.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        p.add(new JLabel(title + "..."), BorderLayout.NORTH);
+        p.add(bar, BorderLayout.CENTER);
+        p.add(cancel, BorderLayout.SOUTH);
+        dialog.setContentPane(p);
+        dialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE); // finish or cancel, don't abandon
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+
+        task.execute();
+        dialog.setVisible(true); // modal: returns once the task disposes it
     }
 
     // Helper that returns today's date formatted as yyyy-MM-dd
     private String today() {
-        return new SimpleDateFormat("yyyy-MM-dd").format(new Date()); // format current date
+        return Dates.format(Dates.today()); // cached text of the current day
     }
 
     // Helper: show confirm dialog and return true if user clicks YES
@@ -627,10 +1001,71 @@ public class CarSystem extends JFrame implements Serializable{
         JOptionPane.showMessageDialog(this, msg, "Info", JOptionPane.INFORMATION_MESSAGE);
     }
 
-    // Main
-    public static void main(String[] args) {
+    // Headless server mode: the same data files and journal as the window, served as a JSON HTTP API.
+    // branch >= 0: serve that branch of a multi-branch business instead, from its own files (see Branches)
+    private static void runServer(int port, boolean columnar, int branch) throws Exception {
+        File dataFile = branch < 0 ? new File(DATA_FILE) : Branches.dataFile(new File("."), branch);
+        File journalFile = branch < 0 ? new File(JOURNAL_FILE) : Branches.journalFile(new File("."), branch);
+        CarService service = new CarService(dataFile, journalFile, columnar, Math.max(branch, 0));
+        service.openArchive(Archive.dirFor(dataFile), CarService.ARCHIVE_AFTER_DAYS); // history on disk,
+        service.load();         // the snapshot,
+        service.openJournal();  // then the changes made since
+        service.addListener(new CarService.Listener() {
+            @Override public void rowInserted(CarService.Table table, int row) { }
+            @Override public void rowUpdated(CarService.Table table, int id) { }
+            @Override public void rowDeleted(CarService.Table table, int row) { }
+            @Override public void dataChanged() { }
+
+            @Override
+            public void snapshotDue() {
+                new Thread(() -> { // keep startup replay short without holding up the request that noticed
+                    try {
+                        service.writeSnapshot(Progress.NONE);
+                    } catch (IOException ex) {
+                        System.err.println("Snapshot failed: " + ex.getMessage());
+                    }
+                }, "snapshot").start();
+            }
+        });
+        try {
+            service.metrics.register("server"); // JMX, besides GET /metrics
+        } catch (javax.management.JMException ex) {
+            System.err.println("Metrics not registered: " + ex.getMessage());
+        }
+        ApiServer api = new ApiServer(service, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            api.stop();
+            try {
+                service.close(); // flush the journal's last batch
+            } catch (IOException ex) {
+                System.err.println("Journal flush failed: " + ex.getMessage());
+            }
+        }));
+        api.start();
+        System.out.println("Car System API listening on port " + api.port());
+    }
+
+    // Main: no arguments opens the window; --server [port] [--branch n] [--columnar] (options in any order)
+    // runs the HTTP API without one, --branch n serving branch n of several (one process per branch, ids never
+    // clash) and --columnar keeping the records in primitive columns (large data sets)
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--server")) {
+            // small JSON replies: without TCP_NODELAY every keep-alive response waits ~40 ms for a delayed ACK.
+            // Set before the JDK's HTTP server first loads; a -D on the command line wins.
+            if (System.getProperty("sun.net.httpserver.nodelay") == null) System.setProperty("sun.net.httpserver.nodelay", "true");
+            int port = 8080, branch = -1;
+            boolean columnar = false;
+            for (int i = 1; i < args.length; i++) { // options in any order
+                if (args[i].equals("--columnar")) columnar = true;
+                else if (args[i].equals("--branch") && i + 1 < args.length) branch = Integer.parseInt(args[++i]);
+                else if (!args[i].startsWith("--")) port = Integer.parseInt(args[i]);
+                else throw new IllegalArgumentException("Usage: --server [port] [--branch n] [--columnar], not " + args[i]);
+            }
+            runServer(port, columnar, branch);
+            return;
+        }
         SwingUtilities.invokeLater(() -> {
-            CarSystem app = new CarSystem(); // create app instance
+            CarSystem app = new CarSystem(true); // create app instance with the change journal on
             app.setVisible(true); // show the main window
         });
     }
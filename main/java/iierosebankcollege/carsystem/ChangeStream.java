@@ -0,0 +1,237 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Change data capture: every change CarService makes is published as a typed Change to this ring buffer,
+// and any number of subscribers read it on their own threads. A change takes its place in the order (claim)
+// right after it is journaled, under the locks that order it, and is handed over (publish) once it is
+// applied and those locks are let go: a reader that looks at the stores sees at least that change, and a
+// reader holding writers back never holds them inside a store or vehicle lock.
+// The ring is lock-free on both sides. A writer takes the next sequence number from an atomic counter and
+// fills the slot it maps to; the slot's own sequence number, set last, tells readers the event is there.
+// Each reader only keeps its own position, so readers never wait for each other and the writers (the
+// booking path) never wait for a reader, unless that reader asked for it:
+//  - a lossless subscriber holds writers back once it is a whole ring behind (back-pressure: bookings
+//    wait for it), so it sees every event;
+//  - any other subscriber that falls a whole ring behind is lapped: it is told how many events it missed
+//    and carries on from the oldest event still in the ring (and may re-read the stores to catch up).
+// With no subscriber, publishing costs one volatile read.
+// Handlers run on the subscriber's thread. A lossless handler must not call CarService data operations: a
+// booking waiting for it would wait for itself.
+final class ChangeStream {
+
+    // What changed; the record is the one added, or for a delete or close the one removed
+    enum Kind {
+        VEHICLE_ADDED, VEHICLE_DELETED, CUSTOMER_ADDED, CUSTOMER_DELETED,
+        RENTAL_ADDED, RENTAL_RESERVED, RENTAL_STARTED, RENTAL_CLOSED, SALE_ADDED, MAINT_ADDED,
+        RELOADED     // the data was loaded, replayed or cleared as a whole: re-read the stores (record null)
+    }
+
+    // One change; immutable, so it is safe to hand to every reader
+    static final class Change {
+        final long sequence;   // 0, 1, 2, ... in publishing order
+        final Kind kind;
+        final int id;          // id of the record
+        final Object record;   // Vehicle, Customer, Rental, Sale or Maintenance
+
+        Change(long sequence, Kind kind, int id, Object record) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.id = id;
+            this.record = record;
+        }
+
+        @Override
+        public String toString() {
+            return sequence + " " + kind + " " + id;
+        }
+    }
+
+    interface Handler {
+        void onChange(Change change);
+        default void missed(long count) { }       // lapped: this many changes went by unseen
+    }
+
+    private static final long WRITING = Long.MIN_VALUE;  // slot sequence while a writer fills the slot
+
+    private final int mask;
+    private final AtomicReferenceArray<Change> slots;
+    private final AtomicLongArray published;     // sequence of the change in each slot
+    private final AtomicLong next = new AtomicLong();      // next sequence to hand out
+    private final CopyOnWriteArrayList<Subscription> subscribers = new CopyOnWriteArrayList<>();
+    private volatile boolean active;             // some subscriber is reading
+    private final LongAdder waits = new LongAdder();        // publishes that had to wait for a lossless reader
+
+    // size: slots in the ring, a power of two
+    ChangeStream(int size) {
+        if (size < 2 || Integer.bitCount(size) != 1) throw new IllegalArgumentException("Size must be a power of two");
+        mask = size - 1;
+        slots = new AtomicReferenceArray<>(size);
+        published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) published.set(i, i - (long) size); // "one lap ago": nothing there yet
+    }
+
+    int size() {
+        return mask + 1;
+    }
+
+    static final long NONE = -1;                 // claimed while nobody subscribes: publishing it does nothing
+
+    // Sequences of the next n changes, first of them returned; NONE while nobody subscribes. Never waits.
+    // Readers stop at a claimed sequence until it is published, so each one claimed must be published.
+    long claim(int n) {
+        return active && n > 0 ? next.getAndAdd(n) : NONE;
+    }
+
+    // Claim and publish a change at once
+    void publish(Kind kind, int id, Object record) {
+        publish(claim(1), kind, id, record);
+    }
+
+    // Publish the change claimed as seq. Safe from any number of threads at once; it waits here, not in
+    // claim(), when a lossless subscriber is a whole ring behind.
+    void publish(long seq, Kind kind, int id, Object record) {
+        if (seq == NONE) return;
+        if (seq - size() >= 0) holdFor(seq);
+        int i = (int) seq & mask;
+        for (;;) { // claim the slot; a writer a lap ahead may have beaten this one to it (lapped readers only)
+            long cur = published.get(i);
+            if (cur >= seq) return;
+            if (cur != WRITING && published.compareAndSet(i, cur, WRITING)) break;
+            Thread.onSpinWait();
+        }
+        slots.set(i, new Change(seq, kind, id, record));
+        published.set(i, seq); // now readers may take it
+    }
+
+    // Wait until every lossless reader has taken the change a lap before seq
+    private void holdFor(long seq) {
+        boolean waited = false;
+        for (int spins = 0; ; spins++) {
+            long behind = Long.MAX_VALUE;
+            for (Subscription s : subscribers) if (s.lossless && !s.closed) behind = Math.min(behind, s.position);
+            if (seq - size() < behind) break;
+            waited = true;
+            if (spins < 100) Thread.onSpinWait();
+            else LockSupport.parkNanos(10_000);
+        }
+        if (waited) waits.increment();
+    }
+
+    // Publishes that waited for a lossless subscriber (how often back-pressure reached the booking path)
+    long waits() {
+        return waits.sum();
+    }
+
+    // Sequence the next change will get
+    long head() {
+        return next.get();
+    }
+
+    // Read changes from the next one published on, on a new daemon thread, until the subscription is closed
+    Subscription subscribe(String name, boolean lossless, Handler handler) {
+        Subscription s = new Subscription(lossless, handler);
+        Thread t = new Thread(() -> {
+            int idle = 0;
+            while (!s.closed) {
+                if (s.poll(256) > 0) idle = 0;
+                else if (++idle < 100) Thread.onSpinWait();
+                else if (idle < 200) Thread.yield();
+                else LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(Math.min(1000, idle - 199))); // back off to 1 ms
+            }
+        }, name);
+        t.setDaemon(true);
+        s.thread = t;
+        t.start();
+        return s;
+    }
+
+    // Read changes from the next one published on, by calling poll() (no thread of its own)
+    Subscription reader(boolean lossless, Handler handler) {
+        return new Subscription(lossless, handler);
+    }
+
+    final class Subscription {
+        final boolean lossless;
+        private final Handler handler;
+        private volatile long position;          // next sequence to read
+        private volatile boolean closed;
+        private Thread thread;
+        private long missed;
+
+        private Subscription(boolean lossless, Handler handler) {
+            this.lossless = lossless;
+            this.handler = handler;
+            synchronized (ChangeStream.this) { // with close(): active is true while anyone reads
+                position = next.get();
+                subscribers.add(this);
+                active = true;
+            }
+        }
+
+        // Hand up to max waiting changes to the handler; returns how many. One thread at a time.
+        int poll(int max) {
+            long p = position;
+            int n = 0;
+            while (n < max && !closed) {
+                int i = (int) p & mask;
+                long seq = published.get(i);
+                if (seq < p) break; // not published yet (or still being written)
+                Change c = slots.get(i);
+                if (seq == p && published.get(i) == p) { // unchanged while read: it is change p
+                    handler.onChange(c);
+                    position = ++p;
+                    n++;
+                } else { // lapped: skip to the oldest change still in the ring
+                    long oldest = Math.max(p + 1, next.get() - size() + 1);
+                    missed += oldest - p;
+                    handler.missed(oldest - p);
+                    position = p = oldest;
+                }
+            }
+            return n;
+        }
+
+        // Changes this reader was lapped on
+        long missed() {
+            return missed;
+        }
+
+        // Changes published that this reader has not taken yet
+        long lag() {
+            return Math.max(0, next.get() - position);
+        }
+
+        // Stop reading (and stop holding writers back); waits for the reader thread, if any, to finish
+        void close() {
+            closed = true;
+            synchronized (ChangeStream.this) {
+                subscribers.remove(this);
+                active = !subscribers.isEmpty();
+            }
+            Thread t = thread;
+            if (t != null && t != Thread.currentThread()) {
+                LockSupport.unpark(t);
+                try {
+                    t.join();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Columnar row layout for an EntityStore: one primitive array per field instead of one object per record.
+// Numbers go into int[] / double[], dates into int[] as the records hold them (see Dates), and repetitive text (make, model,
+// color, service type, mechanic) into int codes through a per-column dictionary; status is its ordinal.
+// A row costs a few dozen bytes and no object headers or pointers, so millions of rows stay small and the
+// collector has almost nothing to trace. The model classes stay as they are: the store builds a record
+// object (a view) from its row when one is asked for.
+// Dictionaries only grow; codes are dropped on clear().
+// Not thread-safe on its own: the owning store calls it under its lock.
+abstract class Columns<T> {
+
+    private int[] id = new int[16];
+
+    // Set a row from a record, growing the columns when the row is past the end
+    final void write(int row, T r) {
+        if (row >= id.length) grow(Math.max(row + 1, id.length * 2));
+        id[row] = idOf(r);
+        set(row, r);
+    }
+
+    // Room for this many rows without growing again (a bulk load)
+    final void reserve(int rows) {
+        if (rows > id.length) grow(rows);
+    }
+
+    // Build the record object for a row
+    abstract T read(int row);
+
+    // Primary key of the record in a row
+    final int id(int row) {
+        return id[row];
+    }
+
+    // Copy a row to another position (the store squeezing out deleted rows)
+    void move(int from, int to) {
+        id[to] = id[from];
+    }
+
+    // Forget every dictionary code; rows are about to be rewritten from the start
+    void clear() {
+    }
+
+    abstract int idOf(T r);
+
+    // Store a record's fields, other than the id, in a row the columns already have room for
+    abstract void set(int row, T r);
+
+    void grow(int capacity) {
+        id = Arrays.copyOf(id, capacity);
+    }
+
+    // Small code per distinct string (exact match; -1 for null); the same String object comes back for a code
+    static final class Strings {
+        private final HashMap<String, Integer> codes = new HashMap<>();
+        private String[] values = new String[16];
+        private int size;
+
+        int code(String s) {
+            if (s == null) return -1;
+            Integer c = codes.get(s);
+            if (c != null) return c;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size] = s;
+            codes.put(s, size);
+            return size++;
+        }
+
+        String get(int code) {
+            return code < 0 ? null : values[code];
+        }
+
+        void clear() {
+            codes.clear();
+            Arrays.fill(values, 0, size, null);
+            size = 0;
+        }
+    }
+
+    // Vehicles: make, model and color coded, status as its ordinal
+    static final class Vehicles extends Columns<Vehicle> {
+        private static final Status[] STATUSES = Status.values();
+        private int[] make = new int[16], model = new int[16], color = new int[16], year = new int[16];
+        private double[] price = new double[16];
+        private byte[] status = new byte[16];
+        final Strings makes = new Strings(), models = new Strings(), colors = new Strings();
+
+        @Override int idOf(Vehicle v) { return v.id; }
+
+        @Override
+        void set(int row, Vehicle v) {
+            make[row] = makes.code(v.make);
+            model[row] = models.code(v.model);
+            color[row] = colors.code(v.color);
+            year[row] = v.year;
+            price[row] = v.price;
+            status[row] = (byte) v.status.ordinal();
+        }
+
+        @Override
+        Vehicle read(int row) {
+            Vehicle v = new Vehicle(id(row), makes.get(make[row]), models.get(model[row]), year[row], colors.get(color[row]), price[row]);
+            v.status = STATUSES[status[row]];
+            return v;
+        }
+
+        @Override
+        void move(int from, int to) {
+            super.move(from, to);
+            make[to] = make[from];
+            model[to] = model[from];
+            color[to] = color[from];
+            year[to] = year[from];
+            price[to] = price[from];
+            status[to] = status[from];
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            makes.clear();
+            models.clear();
+            colors.clear();
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            make = Arrays.copyOf(make, capacity);
+            model = Arrays.copyOf(model, capacity);
+            color = Arrays.copyOf(color, capacity);
+            year = Arrays.copyOf(year, capacity);
+            price = Arrays.copyOf(price, capacity);
+            status = Arrays.copyOf(status, capacity);
+        }
+    }
+
+    static final class Rentals extends Columns<Rental> {
+        private int[] vehicleId = new int[16], customerId = new int[16];
+        private int[] rentalDay = new int[16], returnDay = new int[16];
+        private double[] totalCost = new double[16];
+
+        @Override int idOf(Rental r) { return r.id; }
+
+        @Override
+        void set(int row, Rental r) {
+            vehicleId[row] = r.vehicleId;
+            customerId[row] = r.customerId;
+            rentalDay[row] = r.rentalDay;
+            returnDay[row] = r.returnDay;
+            totalCost[row] = r.totalCost;
+        }
+
+        @Override
+        Rental read(int row) {
+            return new Rental(id(row), vehicleId[row], customerId[row], rentalDay[row], returnDay[row], totalCost[row]);
+        }
+
+        @Override
+        void move(int from, int to) {
+            super.move(from, to);
+            vehicleId[to] = vehicleId[from];
+            customerId[to] = customerId[from];
+            rentalDay[to] = rentalDay[from];
+            returnDay[to] = returnDay[from];
+            totalCost[to] = totalCost[from];
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            vehicleId = Arrays.copyOf(vehicleId, capacity);
+            customerId = Arrays.copyOf(customerId, capacity);
+            rentalDay = Arrays.copyOf(rentalDay, capacity);
+            returnDay = Arrays.copyOf(returnDay, capacity);
+            totalCost = Arrays.copyOf(totalCost, capacity);
+        }
+    }
+
+    static final class Sales extends Columns<Sale> {
+        private int[] vehicleId = new int[16], customerId = new int[16];
+        private int[] soldDay = new int[16];
+        private double[] sellingPrice = new double[16];
+
+        @Override int idOf(Sale s) { return s.id; }
+
+        @Override
+        void set(int row, Sale s) {
+            vehicleId[row] = s.vehicleId;
+            customerId[row] = s.customerId;
+            soldDay[row] = s.soldDay;
+            sellingPrice[row] = s.sellingPrice;
+        }
+
+        @Override
+        Sale read(int row) {
+            return new Sale(id(row), vehicleId[row], customerId[row], soldDay[row], sellingPrice[row]);
+        }
+
+        @Override
+        void move(int from, int to) {
+            super.move(from, to);
+            vehicleId[to] = vehicleId[from];
+            customerId[to] = customerId[from];
+            soldDay[to] = soldDay[from];
+            sellingPrice[to] = sellingPrice[from];
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            vehicleId = Arrays.copyOf(vehicleId, capacity);
+            customerId = Arrays.copyOf(customerId, capacity);
+            soldDay = Arrays.copyOf(soldDay, capacity);
+            sellingPrice = Arrays.copyOf(sellingPrice, capacity);
+        }
+    }
+
+    // Maintenance: service type and mechanic coded
+    static final class Maints extends Columns<Maintenance> {
+        private int[] vehicleId = new int[16], serviceType = new int[16], mechanic = new int[16];
+        private int[] serviceDay = new int[16];
+        private double[] cost = new double[16];
+        final Strings serviceTypes = new Strings(), mechanics = new Strings();
+
+        @Override int idOf(Maintenance m) { return m.id; }
+
+        @Override
+        void set(int row, Maintenance m) {
+            vehicleId[row] = m.vehicleId;
+            serviceType[row] = serviceTypes.code(m.serviceType);
+            serviceDay[row] = m.serviceDay;
+            cost[row] = m.cost;
+            mechanic[row] = mechanics.code(m.mechanic);
+        }
+
+        @Override
+        Maintenance read(int row) {
+            return new Maintenance(id(row), vehicleId[row], serviceTypes.get(serviceType[row]), serviceDay[row], cost[row],
+                    mechanics.get(mechanic[row]));
+        }
+
+        @Override
+        void move(int from, int to) {
+            super.move(from, to);
+            vehicleId[to] = vehicleId[from];
+            serviceType[to] = serviceType[from];
+            serviceDay[to] = serviceDay[from];
+            cost[to] = cost[from];
+            mechanic[to] = mechanic[from];
+        }
+
+        @Override
+        void clear() {
+            super.clear();
+            serviceTypes.clear();
+            mechanics.clear();
+        }
+
+        @Override
+        void grow(int capacity) {
+            super.grow(capacity);
+            vehicleId = Arrays.copyOf(vehicleId, capacity);
+            serviceType = Arrays.copyOf(serviceType, capacity);
+            serviceDay = Arrays.copyOf(serviceDay, capacity);
+            cost = Arrays.copyOf(cost, capacity);
+            mechanic = Arrays.copyOf(mechanic, capacity);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.util.ArrayList;
+
+// A list of data commands that CarService.apply runs as one transaction: every command takes effect, or
+// (if one is refused) none does. E.g. a sale that closes the car's rental, records its service and sells it.
+// Each add returns a reference, a negative number that later commands of the same batch can pass where an
+// id is expected: it stands for the id the record gets when the batch is applied.
+// Not thread-safe: build it on one thread, then apply it.
+class CommandBatch {
+
+    enum Kind { ADD_VEHICLE, ADD_RENTAL, CLOSE_RENTAL, ADD_SALE, ADD_MAINT }
+
+    // One command: the record to add (id 0, ids in it may be references), or the rental to close
+    static final class Command {
+        final Kind kind;
+        final Object record;   // Vehicle, Rental, Sale or Maintenance; null for CLOSE_RENTAL
+        final int rentalId;    // CLOSE_RENTAL: id or reference
+
+        Command(Kind kind, Object record, int rentalId) {
+            this.kind = kind;
+            this.record = record;
+            this.rentalId = rentalId;
+        }
+    }
+
+    // Outcome of applying a batch
+    static final class Result {
+        final boolean committed;
+        final int failed;      // index of the command that was refused, -1 if committed
+        final String reason;   // why it was refused, null if committed
+        final int[] ids;       // if committed, the id of each command's record (the rental closed, for a close)
+
+        private Result(boolean committed, int failed, String reason, int[] ids) {
+            this.committed = committed;
+            this.failed = failed;
+            this.reason = reason;
+            this.ids = ids;
+        }
+
+        static Result committed(int[] ids) {
+            return new Result(true, -1, null, ids);
+        }
+
+        static Result refused(int failed, String reason) {
+            return new Result(false, failed, reason, new int[0]);
+        }
+
+        @Override
+        public String toString() {
+            return committed ? "committed " + ids.length + " commands" : "rolled back: command " + failed + " refused, " + reason;
+        }
+    }
+
+    private final ArrayList<Command> commands = new ArrayList<>();
+
+    int addVehicle(String make, String model, int year, String color, double price) {
+        return add(Kind.ADD_VEHICLE, new Vehicle(0, make, model, year, color, price), 0);
+    }
+
+    // Rent a car out now, as CarService.addRental; vehicleId may be a reference to an added vehicle
+    int addRental(int vehicleId, int customerId, String rentalDate, String returnDate, double totalCost) {
+        check(vehicleId, Kind.ADD_VEHICLE);
+        return add(Kind.ADD_RENTAL, new Rental(0, vehicleId, customerId, Dates.parse(rentalDate), Dates.parse(returnDate), totalCost), 0);
+    }
+
+    // rentalId may be a reference to an added rental
+    void closeRental(int rentalId) {
+        check(rentalId, Kind.ADD_RENTAL);
+        add(Kind.CLOSE_RENTAL, null, rentalId);
+    }
+
+    // Dates must be yyyy-MM-dd (the command is refused at apply otherwise), as for rentals
+    int addSale(int vehicleId, int customerId, String dateSold, double sellingPrice) {
+        check(vehicleId, Kind.ADD_VEHICLE);
+        return add(Kind.ADD_SALE, new Sale(0, vehicleId, customerId, Dates.parse(dateSold), sellingPrice), 0);
+    }
+
+    int addMaint(int vehicleId, String serviceType, String serviceDate, double cost, String mechanic) {
+        check(vehicleId, Kind.ADD_VEHICLE);
+        return add(Kind.ADD_MAINT, new Maintenance(0, vehicleId, serviceType, Dates.parse(serviceDate), cost, mechanic), 0);
+    }
+
+    int size() {
+        return commands.size();
+    }
+
+    Command get(int index) {
+        return commands.get(index);
+    }
+
+    // True for an id that stands for the record of an earlier command
+    static boolean isReference(int id) {
+        return id < 0;
+    }
+
+    // Index of the command a reference points at
+    static int commandOf(int reference) {
+        return -1 - reference;
+    }
+
+    private int add(Kind kind, Object record, int rentalId) {
+        commands.add(new Command(kind, record, rentalId));
+        return -commands.size(); // reference to this command
+    }
+
+    // A reference must point back at a command that adds that kind of record
+    private void check(int id, Kind adds) {
+        if (!isReference(id)) return;
+        int at = commandOf(id);
+        if (at >= commands.size() || commands.get(at).kind != adds) {
+            throw new IllegalArgumentException("Reference " + id + " is not to an earlier " + adds + " command");
+        }
+    }
+}
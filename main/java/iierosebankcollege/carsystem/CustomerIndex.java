@@ -0,0 +1,408 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Search-as-you-type over customers: every word of the name, the email address and the phone number are
+// tokens, and a query word finds the customers with a token starting with it (phone numbers also by their
+// last digits). When nothing starts with what was typed, words one typo away are tried instead.
+//
+// The tokens are kept sorted as entries (customer id, which token of that customer) in a long[]; the text
+// of a token is read back from the customer when a search compares it, so an entry costs 8 bytes however
+// long the names are, and a prefix is found with a binary search, O(log n). New customers go into a small
+// sorted array that is merged into the big one when it fills up. Deleted customers stay in the arrays
+// (their records kept aside so their tokens can still be read) until that merge.
+// Phone numbers are compared as digits without the trunk 0 or the +27 country code, so "082 316 3452",
+// "0823163452" and "+27 82 316 3452" are the same number.
+// Built from the store on the first search.
+class CustomerIndex {
+
+    private static final int EMAIL = 0, PHONE = 1, PHONE_REVERSED = 2, FIRST_WORD = 3; // token kinds
+    private static final char REVERSED = '~';      // starts reversed phone tokens, keeps them apart from the rest
+    private static final int MIN_SUFFIX = 4;       // digits needed before phone numbers are matched by their end
+
+    private final EntityStore<Customer> customers;
+    private boolean built;
+    private long[] main = new long[0];             // sorted entries
+    private int mainSize;
+    private long[] recent = new long[64];          // sorted entries added since the last merge
+    private int recentSize;
+    private final HashMap<Integer, Customer> removed = new HashMap<>(); // deleted since the last merge
+
+    CustomerIndex(EntityStore<Customer> customers) {
+        this.customers = customers;
+    }
+
+    // A customer was added
+    synchronized void added(Customer c) {
+        if (!built) return;
+        List<String> tokens = tokens(c);
+        for (int k = 0; k < tokens.size(); k++) insert(entry(c.id, k), tokens.get(k));
+        if (recentSize > Math.max(4096, mainSize / 32)) merge();
+    }
+
+    // A customer is about to be removed from the store: hide it, and keep its record until the next merge
+    synchronized void removing(Customer c) {
+        if (!built) return;
+        removed.put(c.id, c);
+        if (removed.size() > Math.max(4096, mainSize / 32)) merge();
+    }
+
+    // The store was replaced or cleared: rebuild on the next search
+    synchronized void reset() {
+        built = false;
+        main = new long[0];
+        mainSize = 0;
+        recentSize = 0;
+        removed.clear();
+    }
+
+    // Up to limit customers matching every word of the text, or if there are none, matching it with one typo.
+    // At most SCAN_BUDGET index entries are looked at, so a very common word or typo cannot stall the counter.
+    synchronized List<Customer> search(String text, int limit) {
+        ensureBuilt();
+        List<String> words = words(text);
+        List<Customer> out = new ArrayList<>();
+        if (words.isEmpty() || limit <= 0) return out;
+
+        // lead with the word that has the fewest matching tokens (two binary searches per form)
+        List<List<String>> forms = new ArrayList<>();
+        int lead = 0, fewest = Integer.MAX_VALUE;
+        for (int w = 0; w < words.size(); w++) {
+            forms.add(forms(words.get(w)));
+            int n = 0;
+            for (String f : forms.get(w)) n += count(f);
+            if (n < fewest) { fewest = n; lead = w; }
+        }
+        List<List<String>> others = new ArrayList<>(forms);
+        others.remove(lead);
+
+        budget = SCAN_BUDGET;
+        LinkedHashSet<Integer> seen = new LinkedHashSet<>();
+        for (String prefix : forms.get(lead)) {
+            if (collect(prefix, others, limit, seen, out)) return out;
+        }
+        String word = words.get(lead);
+        String key = isPhone(word) ? phoneKey(word) : word;
+        if (out.isEmpty() && key.length() >= 3) { // nothing as typed: maybe a typo
+            for (String variant : oneTypoAway(key)) {
+                if (collect(variant, others, limit, seen, out)) return out;
+            }
+        }
+        return out;
+    }
+
+    private static final int SCAN_BUDGET = 20_000; // index entries one search may look at
+    private int budget;                            // left for the running search
+
+    // Number of entries with a token starting with prefix
+    private int count(String prefix) {
+        String end = prefix + Character.MAX_VALUE;
+        return lowerBound(main, mainSize, end) - lowerBound(main, mainSize, prefix)
+                + lowerBound(recent, recentSize, end) - lowerBound(recent, recentSize, prefix);
+    }
+
+    // Adds the customers with a token starting with prefix that also match the other words; true once full
+    // or out of budget
+    private boolean collect(String prefix, List<List<String>> others, int limit, LinkedHashSet<Integer> seen, List<Customer> out) {
+        for (int pass = 0; pass < 2; pass++) {
+            long[] entries = pass == 0 ? main : recent;
+            int size = pass == 0 ? mainSize : recentSize;
+            for (int i = lowerBound(entries, size, prefix); i < size; i++) {
+                if (--budget < 0) return true;
+                if (!token(entries[i]).startsWith(prefix)) break;
+                int id = idOf(entries[i]);
+                if (removed.containsKey(id) || !seen.add(id)) continue;
+                Customer c = customers.findById(id);
+                if (c == null || !matchesAll(tokens(c), others)) continue;
+                out.add(c);
+                if (out.size() >= limit) return true;
+            }
+        }
+        return false;
+    }
+
+    // Each of the other words (in one of its forms) is a prefix of one of the customer's tokens
+    private static boolean matchesAll(List<String> tokens, List<List<String>> others) {
+        for (List<String> forms : others) {
+            boolean hit = false;
+            for (String form : forms) {
+                for (int k = 0; k < tokens.size() && !hit; k++) hit = tokens.get(k).startsWith(form);
+            }
+            if (!hit) return false;
+        }
+        return true;
+    }
+
+    // Forms a query word is looked up in: the word itself, or for a phone number its digits and, unless it
+    // is written as an international number (+...), its last digits
+    private static List<String> forms(String word) {
+        List<String> forms = new ArrayList<>();
+        if (!isPhone(word)) {
+            forms.add(word);
+            return forms;
+        }
+        String digits = phoneKey(word);
+        if (!digits.isEmpty()) forms.add(digits);
+        String raw = digits(word);
+        if (raw.length() >= MIN_SUFFIX && !word.startsWith("+")) {
+            forms.add(REVERSED + new StringBuilder(raw).reverse().toString());
+        }
+        return forms;
+    }
+
+    // Prefixes one edit (deletion, swap of neighbours, substitution, insertion) away from word
+    private static Set<String> oneTypoAway(String word) {
+        String alphabet = isPhone(word) ? "0123456789" : "abcdefghijklmnopqrstuvwxyz";
+        Set<String> out = new LinkedHashSet<>();
+        for (int i = 0; i < word.length(); i++) {
+            out.add(word.substring(0, i) + word.substring(i + 1));
+            if (i + 1 < word.length()) out.add(word.substring(0, i) + word.charAt(i + 1) + word.charAt(i) + word.substring(i + 2));
+            for (int a = 0; a < alphabet.length(); a++) {
+                char ch = alphabet.charAt(a);
+                if (ch != word.charAt(i)) out.add(word.substring(0, i) + ch + word.substring(i + 1));
+                out.add(word.substring(0, i) + ch + word.substring(i));
+            }
+        }
+        out.remove(word);
+        return out;
+    }
+
+    // Query split into lower-case words
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) return words;
+        if (isPhone(text.trim())) { // "082 316 3452" is one phone number, not three words
+            if (!text.trim().isEmpty()) words.add(text.trim());
+            return words;
+        }
+        for (String w : text.trim().toLowerCase().split("\\s+")) if (!w.isEmpty()) words.add(w);
+        return words;
+    }
+
+    private static boolean isPhone(String s) {
+        boolean digit = false;
+        for (int i = 0; i < s.length(); i++) {
+            char ch = s.charAt(i);
+            if (Character.isDigit(ch)) digit = true;
+            else if ("+ -()".indexOf(ch) < 0) return false;
+        }
+        return digit;
+    }
+
+    private static String digits(String s) {
+        StringBuilder b = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) if (s.charAt(i) >= '0' && s.charAt(i) <= '9') b.append(s.charAt(i));
+        return b.toString();
+    }
+
+    // Digits of a phone number without the international (00 / +27) or trunk (0) prefix
+    static String phoneKey(String phone) {
+        if (phone == null) return "";
+        String d = digits(phone);
+        boolean international = phone.trim().startsWith("+") || d.startsWith("00");
+        if (d.startsWith("00")) d = d.substring(2);
+        if (d.startsWith("27") && (international || d.length() == 11)) d = d.substring(2); // +27 82 ... or 2782...
+        else if (d.startsWith("0")) d = d.substring(1);                                     // 082 ...
+        return d;
+    }
+
+    // Tokens
+
+    private static long entry(int id, int kind) {
+        return ((long) id << 8) | kind;
+    }
+
+    private static int idOf(long entry) {
+        return (int) (entry >>> 8);
+    }
+
+    // All tokens of a customer, in token kind order
+    private static List<String> tokens(Customer c) {
+        List<String> tokens = new ArrayList<>(5);
+        for (int k = 0; k < FIRST_WORD; k++) tokens.add(token(c, k));
+        tokens.addAll(nameWords(c.name));
+        return tokens;
+    }
+
+    private String token(long entry) {
+        int id = idOf(entry);
+        Customer c = customers.findById(id);
+        if (c == null) c = removed.get(id);
+        return c == null ? "" : token(c, (int) (entry & 0xFF));
+    }
+
+    private static String token(Customer c, int kind) {
+        switch (kind) {
+            case EMAIL: return c.email == null ? "" : c.email.trim().toLowerCase();
+            case PHONE: return phoneKey(c.phone);
+            case PHONE_REVERSED:
+                return REVERSED + new StringBuilder(c.phone == null ? "" : digits(c.phone)).reverse().toString();
+            default:
+                List<String> words = nameWords(c.name);
+                return kind - FIRST_WORD < words.size() ? words.get(kind - FIRST_WORD) : "";
+        }
+    }
+
+    // Lower-case words of a name (at most 200, the rest are not indexed)
+    private static List<String> nameWords(String name) {
+        List<String> words = new ArrayList<>(3);
+        if (name == null) return words;
+        String s = name.toLowerCase();
+        int start = -1;
+        for (int i = 0; i <= s.length() && words.size() < 200; i++) {
+            boolean letter = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (letter && start < 0) start = i;
+            else if (!letter && start >= 0) {
+                words.add(s.substring(start, i));
+                start = -1;
+            }
+        }
+        return words;
+    }
+
+    // First position whose token is not less than key
+    private int lowerBound(long[] entries, int size, String key) {
+        return lowerBound(entries, 0, size, key);
+    }
+
+    private int lowerBound(long[] entries, int lo, int hi, String key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (token(entries[mid]).compareTo(key) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void insert(long entry, String token) {
+        int at = lowerBound(recent, recentSize, token);
+        if (recentSize == recent.length) recent = Arrays.copyOf(recent, recentSize * 2);
+        System.arraycopy(recent, at, recent, at + 1, recentSize - at);
+        recent[at] = entry;
+        recentSize++;
+    }
+
+    // Merge the recent entries into the main array and drop the entries of removed customers. Each recent
+    // entry is placed with a binary search, so this reads O(recent x log n) tokens, plus one array copy.
+    private void merge() {
+        long[] merged = new long[mainSize + recentSize];
+        int n = 0, from = 0;
+        for (int j = 0; j < recentSize; j++) {
+            int at = lowerBound(main, from, mainSize, token(recent[j]));
+            n = copyLive(main, from, at, merged, n);
+            from = at;
+            if (!removed.containsKey(idOf(recent[j]))) merged[n++] = recent[j];
+        }
+        n = copyLive(main, from, mainSize, merged, n);
+        main = merged;
+        mainSize = n;
+        recentSize = 0;
+        removed.clear();
+    }
+
+    private int copyLive(long[] src, int from, int to, long[] dst, int n) {
+        if (removed.isEmpty()) {
+            System.arraycopy(src, from, dst, n, to - from);
+            return n + to - from;
+        }
+        for (int i = from; i < to; i++) if (!removed.containsKey(idOf(src[i]))) dst[n++] = src[i];
+        return n;
+    }
+
+    // Sorts entries by their tokens, three characters at a time (MSD radix): the characters are packed into a
+    // long once per level and the partitioning compares those, so each token is read a few times in all
+    // instead of at every comparison, and a prefix shared by many tokens (user..., surname...) costs little
+    private static void sort(String[] keys, long[] entries, long[] digits, int lo, int hi, int depth) {
+        for (int i = lo; i < hi; i++) digits[i] = digit(keys[i], depth);
+        while (hi - lo > 16) {
+            swap(keys, entries, digits, lo, (lo + hi) >>> 1); // middle element as pivot: input is often in order
+            long v = digits[lo];
+            int lt = lo, gt = hi - 1, i = lo + 1;
+            while (i <= gt) {
+                if (digits[i] < v) swap(keys, entries, digits, lt++, i++);
+                else if (digits[i] > v) swap(keys, entries, digits, i, gt--);
+                else i++;
+            }
+            sortDigits(keys, entries, digits, lo, lt, depth);
+            if ((v & CHAR_MASK) != 0) sort(keys, entries, digits, lt, gt + 1, depth + 3); // same three characters, not ended
+            lo = gt + 1;
+        }
+        for (int i = lo + 1; i < hi; i++) { // small range: insertion sort
+            for (int j = i; j > lo && keys[j].compareTo(keys[j - 1]) < 0; j--) swap(keys, entries, digits, j, j - 1);
+        }
+    }
+
+    // Same as sort, for a range whose digits at this depth are already packed
+    private static void sortDigits(String[] keys, long[] entries, long[] digits, int lo, int hi, int depth) {
+        while (hi - lo > 16) {
+            swap(keys, entries, digits, lo, (lo + hi) >>> 1);
+            long v = digits[lo];
+            int lt = lo, gt = hi - 1, i = lo + 1;
+            while (i <= gt) {
+                if (digits[i] < v) swap(keys, entries, digits, lt++, i++);
+                else if (digits[i] > v) swap(keys, entries, digits, i, gt--);
+                else i++;
+            }
+            sortDigits(keys, entries, digits, lo, lt, depth);
+            if ((v & CHAR_MASK) != 0) sort(keys, entries, digits, lt, gt + 1, depth + 3);
+            lo = gt + 1;
+        }
+        for (int i = lo + 1; i < hi; i++) {
+            for (int j = i; j > lo && keys[j].compareTo(keys[j - 1]) < 0; j--) swap(keys, entries, digits, j, j - 1);
+        }
+    }
+
+    private static final long CHAR_MASK = 0x1FFFF;
+
+    // Characters depth..depth+2 as 17-bit fields (character + 1, or 0 past the end), so longs order like the strings
+    private static long digit(String s, int depth) {
+        long d = 0;
+        for (int i = depth; i < depth + 3; i++) d = (d << 17) | (i < s.length() ? s.charAt(i) + 1 : 0);
+        return d;
+    }
+
+    private static void swap(String[] keys, long[] entries, long[] digits, int a, int b) {
+        String k = keys[a]; keys[a] = keys[b]; keys[b] = k;
+        long e = entries[a]; entries[a] = entries[b]; entries[b] = e;
+        long d = digits[a]; digits[a] = digits[b]; digits[b] = d;
+    }
+
+    private void ensureBuilt() {
+        if (built) return;
+        built = true;
+        String[] keys = new String[Math.max(16, customers.size() * 5)];
+        long[] entries = new long[keys.length];
+        int n = 0;
+        HashMap<String, String> shared = new HashMap<>(); // one copy of each name word: first names repeat a lot
+        synchronized (customers) { // iterating: hold the store still
+            for (Customer c : customers) {
+                List<String> tokens = tokens(c);
+                for (int k = 0; k < tokens.size(); k++) {
+                    if (n == keys.length) {
+                        keys = Arrays.copyOf(keys, n * 2);
+                        entries = Arrays.copyOf(entries, n * 2);
+                    }
+                    keys[n] = k < FIRST_WORD ? tokens.get(k) : shared.computeIfAbsent(tokens.get(k), w -> w);
+                    entries[n++] = entry(c.id, k);
+                }
+            }
+        }
+        sort(keys, entries, new long[n], 0, n, 0);
+        main = n == entries.length ? entries : Arrays.copyOf(entries, n);
+        mainSize = n;
+    }
+}
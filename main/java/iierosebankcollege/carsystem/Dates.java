@@ -0,0 +1,148 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Dates as the records keep them: one int, the epoch day (days since 1970-01-01), so comparing two dates or
+// testing a range is plain int arithmetic. Text is parsed once, when a record is made; yyyy-MM-dd is read
+// by hand, without allocating. The text is only made again when a date is shown or written out, and the
+// strings for the days around today are cached, so showing a table row does not allocate either.
+// Older records may hold a date that is not yyyy-MM-dd ("next week"); that text is kept as written, through
+// a small shared dictionary, and format() gives it back unchanged. Such a value is not a day (isDay).
+// The dictionary is never emptied, so only records read from older files (serialized data, snapshots and
+// journals) come through of(); new records are refused a date that parse() does not read.
+// All methods are safe to call from any thread.
+final class Dates {
+
+    static final int NONE = Integer.MIN_VALUE;                 // no date (null)
+    private static final int TEXT = Integer.MIN_VALUE + 1;     // TEXT + code: text kept as written
+    private static final int TEXT_END = -1_000_000_000;        // days of years 0000 to 9999 are far above this
+
+    private static final int CACHE_FROM = (int) LocalDate.of(1970, 1, 1).toEpochDay();
+    private static final int CACHE_TO = (int) LocalDate.of(2100, 1, 1).toEpochDay();
+    // Text of each day in [CACHE_FROM, CACHE_TO), made on first use. Racing threads may both make a day's
+    // string; either one is fine to keep, and a String is safe to share without a lock.
+    private static final String[] formatted = new String[CACHE_TO - CACHE_FROM];
+
+    private static final HashMap<String, Integer> codes = new HashMap<>(); // odd text -> code (guarded by Dates.class)
+    private static String[] texts = new String[16];
+
+    // Today, and the local-time millis it starts and ends at
+    private static final class Today {
+        final int day;
+        final long start, end;
+
+        Today(int day, long start, long end) {
+            this.day = day;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static volatile Today today = new Today(0, 0, 0);
+
+    private Dates() {
+    }
+
+    // Epoch day of a yyyy-MM-dd date (spaces around it are ignored), or NONE if the text is not a real date
+    static int parse(String s) {
+        if (s == null) return NONE;
+        int from = 0, to = s.length();
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        if (to - from != 10 || s.charAt(from + 4) != '-' || s.charAt(from + 7) != '-') return NONE;
+        int year = digits(s, from, 4), month = digits(s, from + 5, 2), day = digits(s, from + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > length(year, month)) return NONE;
+        return epochDay(year, month, day);
+    }
+
+    // A date as written on a record: its day if it is exactly yyyy-MM-dd, NONE for null, otherwise the text
+    // itself, so format() always gives back what was stored
+    static int of(String s) {
+        if (s == null) return NONE;
+        int day = s.length() == 10 ? parse(s) : NONE;
+        if (day != NONE) return day;
+        synchronized (Dates.class) {
+            Integer code = codes.get(s);
+            if (code == null) {
+                code = codes.size();
+                if (code == texts.length) texts = Arrays.copyOf(texts, code * 2);
+                texts[code] = s;
+                codes.put(s, code);
+            }
+            return TEXT + code;
+        }
+    }
+
+    // True for a real day (not NONE and not kept text)
+    static boolean isDay(int date) {
+        return date > TEXT_END;
+    }
+
+    // The text of a date: yyyy-MM-dd for a day, the kept text otherwise, null for NONE
+    static String format(int date) {
+        if (date == NONE) return null;
+        if (!isDay(date)) {
+            synchronized (Dates.class) {
+                return texts[date - TEXT];
+            }
+        }
+        if (date < CACHE_FROM || date >= CACHE_TO) return LocalDate.ofEpochDay(date).toString();
+        String s = formatted[date - CACHE_FROM];
+        if (s == null) {
+            s = LocalDate.ofEpochDay(date).toString();
+            formatted[date - CACHE_FROM] = s;
+        }
+        return s;
+    }
+
+    // Today's epoch day in the local time zone; worked out again only when the day changes
+    static int today() {
+        Today t = today;
+        long now = System.currentTimeMillis();
+        if (now < t.start || now >= t.end) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate d = LocalDate.now(zone);
+            t = new Today((int) d.toEpochDay(), d.atStartOfDay(zone).toInstant().toEpochMilli(),
+                    d.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli());
+            today = t;
+        }
+        return t.day;
+    }
+
+    // Value of count decimal digits at s[at], or -1 if one is not a digit
+    private static int digits(String s, int at, int count) {
+        int v = 0;
+        for (int i = at; i < at + count; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private static int length(int year, int month) {
+        if (month == 2) return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    // Days from 1970-01-01 to a date of the proleptic Gregorian calendar (what LocalDate.toEpochDay gives)
+    private static int epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1; // from March 1st
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
@@ -0,0 +1,377 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.ToIntFunction;
+
+// In-memory table for one record type: rows kept in insertion order plus a primary-key index (id -> slot).
+// Deletes only mark the slot as a tombstone so removing by id is O(1) and nothing shifts; reading by
+// table position skips tombstones through a small count tree, and the gaps are squeezed out when the
+// array would otherwise have to grow.
+// A store can also start out backed by a Source (rows still sitting in a snapshot file): those rows
+// are only decoded into objects the first time they are looked up, listed or iterated.
+// Optionally the rows live in Columns (primitive arrays) instead of objects. The store then hands out views:
+// a record object built from its row. A view looked up by id (or just added) stays the one object for that
+// record for as long as anyone holds it, so locking on it and changing its status work as before; a status
+// change is written back to the row through updated(). Listing and iterating give copies of the rows
+// (or the held view, if there is one) without keeping track of them.
+// Every operation locks the store, so it can be shared between threads; code that iterates or needs
+// several calls to act as one step (e.g. remove and report the old position) holds synchronized(store).
+class EntityStore<T> implements Iterable<T> {
+
+    // Rows that have not been decoded yet, e.g. a section of an opened snapshot file
+    interface Source<T> {
+        int size();                        // number of rows
+        int rowOf(int id);                 // row holding this id, or -1
+        T decode(int row);                 // build the record object for a row
+    }
+
+    private static final Object DELETED = new Object(); // tombstone marker
+
+    private final ToIntFunction<T> idOf;   // reads the primary key from a record
+    private final IntIndex byId = new IntIndex(); // id -> slot position (rows added in memory)
+    private Object[] slots = new Object[16]; // records in insertion order; DELETED = tombstone, null = not decoded yet
+    private int used;                      // number of slots filled so far (live + tombstones)
+    private int dead;                      // number of tombstones among the used slots
+    private int[] deadTree;                // Fenwick tree of tombstones per slot, built on demand (null = not built)
+    private Source<T> source;              // undecoded rows behind slots [0, sourceRows), or null
+    private int sourceRows;
+    private final Columns<T> columns;      // row values when the layout is columnar (slots then stay null), or null
+    private final HashMap<Integer, View<T>> views = new HashMap<>(); // id -> view handed out and maybe still held
+    private final ReferenceQueue<T> dropped = new ReferenceQueue<>();
+    private long reads;                    // records handed out: found by id, read by position or iterated
+
+    // A view nobody may hold any more is forgotten once the collector clears it
+    private static final class View<T> extends WeakReference<T> {
+        final int id;
+
+        View(int id, T record, ReferenceQueue<T> queue) {
+            super(record, queue);
+            this.id = id;
+        }
+    }
+
+    EntityStore(ToIntFunction<T> idOf) {
+        this(idOf, null);
+    }
+
+    // columns: keep the rows in this columnar layout instead of as objects (null: objects)
+    EntityStore(ToIntFunction<T> idOf, Columns<T> columns) {
+        this.idOf = idOf;
+        this.columns = columns;
+    }
+
+    // Append a record; ids must be unique
+    synchronized void add(T record) {
+        append(record);
+        if (columns != null) share(idOf.applyAsInt(record), record); // the caller's object is the record's view
+    }
+
+    private void append(T record) {
+        int id = idOf.applyAsInt(record);
+        if (containsId(id)) throw new IllegalStateException("Duplicate id " + id);
+        if (used == slots.length) {
+            if (dead * 2 >= used) compact(); // mostly gaps: reuse the space instead of growing
+            else {
+                slots = Arrays.copyOf(slots, used * 2);
+                deadTree = null; // sized for the old array; rebuilt when next needed
+            }
+        }
+        byId.put(id, used); // new record goes to the end
+        if (columns != null) columns.write(used++, record);
+        else slots[used++] = record;
+    }
+
+    // A record from this store was changed in place (its status): a columnar row takes the new values
+    synchronized void updated(T record) {
+        if (columns == null) return; // the object is the row
+        int slot = slotOf(idOf.applyAsInt(record));
+        if (slot >= 0) columns.write(slot, record);
+    }
+
+    // True when the rows are kept in columns
+    boolean isColumnar() {
+        return columns != null;
+    }
+
+    // Find a record by id in O(1); null if not present
+    synchronized T findById(int id) {
+        int slot = slotOf(id);
+        if (slot < 0) return null;
+        reads++;
+        return load(slot);
+    }
+
+    // True if a record with this id exists
+    synchronized boolean containsId(int id) {
+        return slotOf(id) >= 0;
+    }
+
+    // Remove a record by id in O(1); return the removed record or null if not present
+    synchronized T removeById(int id) {
+        int slot = slotOf(id);
+        if (slot < 0) return null; // not found
+        T removed = load(slot);
+        byId.remove(id);
+        views.remove(id);
+        slots[slot] = DELETED; // leave a tombstone, nothing shifts
+        dead++;
+        if (deadTree != null) treeAdd(slot); // keep the position tree current
+        if (slot == used - 1) trimTail(); // deleting the last rows leaves no gap behind
+        return removed;
+    }
+
+    // Record at a table position (0 = first added)
+    synchronized T get(int index) {
+        if (index < 0 || index >= size()) throw new IndexOutOfBoundsException("Index " + index + ", size " + size());
+        reads++;
+        return copy(dead == 0 ? index : slotAt(index));
+    }
+
+    // Table position of the record with this id, or -1 if not present
+    synchronized int indexOf(int id) {
+        int slot = slotOf(id);
+        if (slot < 0) return -1;
+        if (dead == 0) return slot;
+        if (deadTree == null) buildTree();
+        return slot - deadBefore(slot); // live rows before it
+    }
+
+    // Number of records
+    synchronized int size() {
+        return used - dead;
+    }
+
+    synchronized boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Records handed out so far: what the queries on this store have cost, whatever their time
+    synchronized long reads() {
+        return reads;
+    }
+
+    // Number of rows still waiting to be decoded from the source
+    synchronized int undecoded() {
+        if (source == null) return 0;
+        int n = 0;
+        for (int i = 0; i < sourceRows; i++) if (slots[i] == null) n++;
+        return n;
+    }
+
+    // Remove every record
+    synchronized void clear() {
+        Arrays.fill(slots, 0, used, null);
+        used = 0;
+        dead = 0;
+        deadTree = null;
+        source = null;
+        sourceRows = 0;
+        byId.clear();
+        views.clear();
+        if (columns != null) columns.clear();
+    }
+
+    // Replace the contents with the given records (used when loading from disk)
+    synchronized void replaceAll(Collection<? extends T> records) {
+        clear();
+        if (slots.length < records.size()) slots = new Object[records.size()];
+        if (columns != null) columns.reserve(records.size());
+        for (T r : records) append(r);
+    }
+
+    // Replace the contents with rows that are decoded only when touched
+    synchronized void replaceAll(Source<T> rows) {
+        clear();
+        int n = rows.size();
+        if (columns != null) { // columnar: copy the rows in now, there is no object slot to decode into
+            if (slots.length < n) slots = new Object[n];
+            columns.reserve(n);
+            for (int i = 0; i < n; i++) append(rows.decode(i));
+            return;
+        }
+        if (slots.length < n) slots = new Object[Math.max(16, n)];
+        source = rows;
+        sourceRows = n;
+        used = n; // slots stay null until decoded
+    }
+
+    // Copy of the records in table order (used when saving to disk)
+    synchronized ArrayList<T> toList() {
+        ArrayList<T> list = new ArrayList<>(size());
+        for (T r : this) list.add(r);
+        return list;
+    }
+
+    // Slot holding this id, or -1
+    private int slotOf(int id) {
+        int slot = byId.get(id);
+        if (slot != IntIndex.MISSING) return slot;
+        if (source == null) return -1;
+        int row = source.rowOf(id); // rows from the source keep their original slot
+        return row < 0 || slots[row] == DELETED ? -1 : row;
+    }
+
+    // Record in a live slot, decoding it from the source on first use; a columnar row gives its shared view
+    @SuppressWarnings("unchecked")
+    private T load(int slot) {
+        Object r = slots[slot];
+        if (r == null && columns != null) {
+            int id = columns.id(slot);
+            T v = held(id);
+            return v != null ? v : share(id, columns.read(slot));
+        }
+        if (r == null) {
+            r = source.decode(slot);
+            slots[slot] = r; // decoded once; later status changes land on this object
+        }
+        return (T) r;
+    }
+
+    // Record in a live slot for listing: a columnar row is read into a fresh copy unless its view is held
+    private T copy(int slot) {
+        if (columns == null) return load(slot);
+        T v = held(columns.id(slot));
+        return v != null ? v : columns.read(slot);
+    }
+
+    // View of this id that is still held somewhere, or null
+    private T held(int id) {
+        for (Object ref; (ref = dropped.poll()) != null; ) views.remove(((View<?>) ref).id, ref); // forget collected views
+        if (views.isEmpty()) return null;
+        View<T> ref = views.get(id);
+        return ref == null ? null : ref.get();
+    }
+
+    private T share(int id, T record) {
+        views.put(id, new View<>(id, record, dropped));
+        return record;
+    }
+
+    // Decode everything still in the source and index it, so slots can move
+    private void detachSource() {
+        if (source == null) return;
+        for (int i = 0; i < sourceRows; i++) {
+            if (slots[i] == DELETED) continue;
+            T r = load(i);
+            byId.put(idOf.applyAsInt(r), i);
+        }
+        source = null;
+        sourceRows = 0;
+    }
+
+    // Slide live records down over the tombstones, keeping their order, and re-point the index
+    @SuppressWarnings("unchecked")
+    private void compact() {
+        detachSource();
+        int to = 0;
+        for (int from = 0; from < used; from++) {
+            Object r = slots[from];
+            if (r == DELETED) continue; // skip tombstone
+            if (from != to) {
+                slots[to] = r;
+                if (columns != null) columns.move(from, to);
+                byId.put(columns != null ? columns.id(to) : idOf.applyAsInt((T) r), to); // record moved: update its slot
+            }
+            to++;
+        }
+        Arrays.fill(slots, to, used, null);
+        used = to;
+        dead = 0;
+        deadTree = null;
+    }
+
+    // Drop tombstones sitting at the end of the used range
+    private void trimTail() {
+        while (used > 0 && slots[used - 1] == DELETED) {
+            slots[--used] = null;
+            dead--;
+            if (deadTree != null) treeRemove(used);
+        }
+        if (used < sourceRows) sourceRows = used;
+    }
+
+    // Fenwick tree over tombstones: deadBefore(slot) and slotAt(index) in O(log n)
+
+    private void buildTree() {
+        int[] t = new int[slots.length + 1];
+        for (int i = 1; i <= used; i++) {
+            if (slots[i - 1] == DELETED) t[i]++;
+            int parent = i + (i & -i);
+            if (parent < t.length) t[parent] += t[i];
+        }
+        deadTree = t;
+    }
+
+    private void treeAdd(int slot) {
+        for (int i = slot + 1; i < deadTree.length; i += i & -i) deadTree[i]++;
+    }
+
+    private void treeRemove(int slot) {
+        for (int i = slot + 1; i < deadTree.length; i += i & -i) deadTree[i]--;
+    }
+
+    // Tombstones in slots [0, slot)
+    private int deadBefore(int slot) {
+        int n = 0;
+        for (int i = slot; i > 0; i -= i & -i) n += deadTree[i];
+        return n;
+    }
+
+    // Slot of the index-th live record
+    private int slotAt(int index) {
+        if (deadTree == null) buildTree();
+        int pos = 0, remaining = index + 1;
+        for (int step = Integer.highestOneBit(deadTree.length - 1); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next < deadTree.length) {
+                int live = step - deadTree[next]; // live slots in (pos, next]
+                if (live < remaining) {
+                    pos = next;
+                    remaining -= live;
+                }
+            }
+        }
+        return pos; // 1-based position pos+1 is the answer, i.e. slot pos
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            private int next = skip(0); // next live slot to return
+
+            private int skip(int i) {
+                while (i < used && slots[i] == DELETED) i++; // step over tombstones
+                return i;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < used;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                reads++;
+                T r = copy(next);
+                next = skip(next + 1);
+                return r;
+            }
+        };
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.util.Arrays;
+
+// Primitive int -> int hash map (open addressing, linear probing) so id lookups never box
+class IntIndex {
+
+    static final int MISSING = -1;         // returned by get() when the key is not present
+
+    private int[] keys;                    // stored keys
+    private int[] values;                  // stored values (same position as key)
+    private boolean[] used;                // true when a position holds a key
+    private int size;                      // number of keys stored
+    private int mask;                      // capacity - 1 (capacity is always a power of two)
+
+    IntIndex() {
+        this(16); // small default capacity
+    }
+
+    IntIndex(int expected) {
+        int cap = 16;
+        while (cap * 3 < expected * 4) cap <<= 1; // keep load factor under 0.75
+        allocate(cap);
+    }
+
+    // Number of keys in the index
+    int size() {
+        return size;
+    }
+
+    // Return the value for key, or MISSING if not present
+    int get(int key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) return values[i]; // found
+            i = (i + 1) & mask; // probe next position
+        }
+        return MISSING; // hit an empty position: not present
+    }
+
+    // True if key is present
+    boolean containsKey(int key) {
+        return get(key) != MISSING;
+    }
+
+    // Insert or overwrite key -> value; return the previous value or MISSING
+    int put(int key, int value) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                int old = values[i];
+                values[i] = value; // overwrite existing mapping
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        used[i] = true; keys[i] = key; values[i] = value; // take empty position
+        if (++size * 4 > keys.length * 3) resize(keys.length << 1); // grow past 0.75 load
+        return MISSING;
+    }
+
+    // Remove key; return its value or MISSING. Uses backward-shift so no tombstones are left behind
+    int remove(int key) {
+        int i = slot(key);
+        while (used[i]) {
+            if (keys[i] == key) {
+                int old = values[i];
+                shiftBack(i); // close the gap in the probe chain
+                size--;
+                return old;
+            }
+            i = (i + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    // Remove every key
+    void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    // Move later entries of the probe chain into the freed position
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            if (!used[i]) break; // end of chain
+            int home = slot(keys[i]);
+            // entry at i may move into gap only if its home position is not between gap and i (cyclically)
+            boolean between = gap <= i ? (gap < home && home <= i) : (gap < home || home <= i);
+            if (!between) {
+                keys[gap] = keys[i]; values[gap] = values[i];
+                gap = i;
+            }
+        }
+        used[gap] = false;
+    }
+
+    // Home position of a key: spread the bits so sequential ids don't cluster
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int cap) {
+        keys = new int[cap];
+        values = new int[cap];
+        used = new boolean[cap];
+        mask = cap - 1;
+    }
+
+    // Rehash every key into a larger table
+    private void resize(int cap) {
+        int[] oldKeys = keys, oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(cap);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) put(oldKeys[i], oldValues[i]);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.util.Arrays;
+
+// Set of int ids with O(1) add, remove and contains: the ids are packed in an array (so listing costs
+// O(size)) and an IntIndex remembers where each one sits; removal moves the last id into the gap.
+// Not thread-safe; the owning index locks around it.
+class IntSet {
+
+    private int[] ids = new int[16];
+    private int size;
+    private final IntIndex position = new IntIndex(); // id -> index in ids
+
+    // Add an id; false if it was already there
+    boolean add(int id) {
+        if (position.containsKey(id)) return false;
+        if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+        position.put(id, size);
+        ids[size++] = id;
+        return true;
+    }
+
+    // Remove an id; false if it was not there
+    boolean remove(int id) {
+        int at = position.remove(id);
+        if (at == IntIndex.MISSING) return false;
+        int last = ids[--size];
+        if (at != size) {
+            ids[at] = last; // fill the gap with the last id
+            position.put(last, at);
+        }
+        return true;
+    }
+
+    boolean contains(int id) {
+        return position.containsKey(id);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Id at a position in [0, size); order is arbitrary and changes on removal
+    int get(int index) {
+        return ids[index];
+    }
+
+    // Copy of the ids, in no particular order
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.*;
+import java.util.ArrayList;
+
+// Append-only write-ahead log of data changes made since the last snapshot.
+// Each add/delete/close appends one small record; records are flushed to the file in batches,
+// so a crash loses at most the last unflushed batch. Startup loads the snapshot and replays the log.
+// Appends from several threads are serialized, so records never interleave.
+// A group of records (one transaction, see CarService.apply) is written behind a header giving its length
+// and flushed once; replay applies a group only once all of it has been read, so it is never half-replayed.
+// A text field takes at most 65,535 bytes of modified UTF-8 (see CarService.MAX_TEXT); a record holding a
+// longer one is refused whole (IOException) and the log is left as it was.
+class Journal implements Closeable {
+
+    // record type codes (first byte of every record)
+    static final byte VEHICLE_ADDED = 1;
+    static final byte VEHICLE_DELETED = 2;
+    static final byte CUSTOMER_ADDED = 3;
+    static final byte CUSTOMER_DELETED = 4;
+    static final byte RENTAL_ADDED = 5;
+    static final byte RENTAL_CLOSED = 6;
+    static final byte SALE_ADDED = 7;
+    static final byte MAINT_ADDED = 8;
+    static final byte RENTAL_RESERVED = 9;   // future booking: vehicle status unchanged
+    static final byte RENTAL_STARTED = 10;   // reserved rental picked up: vehicle becomes Rented
+    static final byte GROUP = 11;            // the next n records are one transaction
+
+    private static final int MAGIC = 0x43534A31; // "CSJ1" at the start of the file
+
+    // Receives the changes read back from the log during replay
+    interface Handler {
+        void vehicleAdded(Vehicle v);
+        void vehicleDeleted(int id);
+        void customerAdded(Customer c);
+        void customerDeleted(int id);
+        void rentalAdded(Rental r);
+        void rentalClosed(int id);
+        void saleAdded(Sale s);
+        void maintAdded(Maintenance m);
+        void rentalReserved(Rental r);
+        void rentalStarted(int id);
+    }
+
+    private final File file;               // log file on disk
+    private final int batchSize;           // records buffered before a flush
+    private DataOutputStream log;          // open append stream (null until opened)
+    private int pending;                   // records written but not yet flushed
+    private int records;                   // records in the log since the last snapshot
+    private boolean grouping;              // inside group(): flush once at the end
+    private int grouped;                   // records of the group written so far
+    // Each record (or group) is put together here and reaches the log only once complete, so a write that
+    // fails half-way (a string writeUTF cannot take) leaves nothing behind for replay to stop at
+    private final ByteArrayOutputStream scratch = new ByteArrayOutputStream(256);
+    private final DataOutputStream out = new DataOutputStream(scratch);
+
+    Journal(File file, int batchSize) {
+        this.file = file;
+        this.batchSize = batchSize;
+    }
+
+    // Replay the log onto handler if it belongs to the given snapshot generation, then open it for appending.
+    // A log from another generation was already folded into a snapshot and is discarded.
+    // Returns the number of records replayed.
+    synchronized int open(long generation, Handler handler) throws IOException {
+        return open(generation, handler, Progress.NONE);
+    }
+
+    // The same, reporting bytes replayed to progress. If progress cancels, the log is left as it is.
+    synchronized int open(long generation, Handler handler, Progress progress) throws IOException {
+        long goodLength = 0; // end of the last complete record
+        records = 0;
+        if (file.exists()) {
+            long length = file.length();
+            int reads = 0;
+            try (CountingInput counter = new CountingInput(new FileInputStream(file));
+                 DataInputStream in = new DataInputStream(counter)) {
+                if (in.readInt() == MAGIC && in.readLong() == generation) {
+                    goodLength = counter.count;
+                    while (true) {
+                        int n = readRecord(in, handler);
+                        if (n == 0) break; // end of file or torn last record
+                        goodLength = counter.count;
+                        records += n;
+                        if ((++reads & 1023) == 0) progress.update(goodLength, length);
+                    }
+                }
+            } catch (EOFException ex) {
+                // header itself incomplete: treat as an empty log
+            }
+        }
+        if (goodLength == 0) {
+            restart(generation); // no usable log: start a fresh one
+        } else {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(goodLength); // cut off a torn record left by a crash
+            }
+            log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        }
+        return records;
+    }
+
+    // Start an empty log for a new snapshot generation (called right after a snapshot is written)
+    synchronized void restart(long generation) throws IOException {
+        if (log != null) log.close();
+        log = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, false)));
+        log.writeInt(MAGIC);
+        log.writeLong(generation);
+        log.flush();
+        pending = 0;
+        records = 0;
+    }
+
+    // Number of records appended since the last snapshot
+    synchronized int records() {
+        return records;
+    }
+
+    synchronized void vehicleAdded(Vehicle v) throws IOException {
+        begin();
+        out.writeByte(VEHICLE_ADDED);
+        out.writeInt(v.id);
+        out.writeUTF(v.make);
+        out.writeUTF(v.model);
+        out.writeInt(v.year);
+        out.writeUTF(v.color);
+        out.writeDouble(v.price);
+        written();
+    }
+
+    synchronized void vehicleDeleted(int id) throws IOException {
+        begin();
+        out.writeByte(VEHICLE_DELETED);
+        out.writeInt(id);
+        written();
+    }
+
+    synchronized void customerAdded(Customer c) throws IOException {
+        begin();
+        out.writeByte(CUSTOMER_ADDED);
+        out.writeInt(c.id);
+        out.writeUTF(c.name);
+        out.writeUTF(c.phone);
+        out.writeUTF(c.email);
+        out.writeUTF(c.address);
+        written();
+    }
+
+    synchronized void customerDeleted(int id) throws IOException {
+        begin();
+        out.writeByte(CUSTOMER_DELETED);
+        out.writeInt(id);
+        written();
+    }
+
+    synchronized void rentalAdded(Rental r) throws IOException {
+        writeRental(RENTAL_ADDED, r);
+    }
+
+    synchronized void rentalReserved(Rental r) throws IOException {
+        writeRental(RENTAL_RESERVED, r);
+    }
+
+    synchronized void rentalStarted(int id) throws IOException {
+        begin();
+        out.writeByte(RENTAL_STARTED);
+        out.writeInt(id);
+        written();
+    }
+
+    private void writeRental(byte type, Rental r) throws IOException {
+        begin();
+        out.writeByte(type);
+        out.writeInt(r.id);
+        out.writeInt(r.vehicleId);
+        out.writeInt(r.customerId);
+        out.writeUTF(r.rentalDate());
+        out.writeUTF(r.returnDate());
+        out.writeDouble(r.totalCost);
+        written();
+    }
+
+    synchronized void rentalClosed(int id) throws IOException {
+        begin();
+        out.writeByte(RENTAL_CLOSED);
+        out.writeInt(id);
+        written();
+    }
+
+    synchronized void saleAdded(Sale s) throws IOException {
+        begin();
+        out.writeByte(SALE_ADDED);
+        out.writeInt(s.id);
+        out.writeInt(s.vehicleId);
+        out.writeInt(s.customerId);
+        out.writeUTF(s.dateSold());
+        out.writeDouble(s.sellingPrice);
+        written();
+    }
+
+    synchronized void maintAdded(Maintenance m) throws IOException {
+        begin();
+        out.writeByte(MAINT_ADDED);
+        out.writeInt(m.id);
+        out.writeInt(m.vehicleId);
+        out.writeUTF(m.serviceType);
+        out.writeUTF(m.serviceDate());
+        out.writeDouble(m.cost);
+        out.writeUTF(m.mechanic);
+        written();
+    }
+
+    // Appends made inside a group: the journal's own methods, called on the journal passed in
+    interface Group {
+        void write(Journal j) throws IOException;
+    }
+
+    // Append count records as one transaction and flush them together. The caller makes sure no other
+    // thread appends meanwhile (the journal's monitor is held throughout, so other appends simply wait).
+    synchronized void group(int count, Group group) throws IOException {
+        begin();
+        out.writeByte(GROUP);
+        out.writeInt(count);
+        grouping = true;
+        grouped = 0;
+        try {
+            group.write(this);
+        } finally {
+            grouping = false;
+        }
+        scratch.writeTo(log); // the whole group; nothing if a record of it failed above
+        records += grouped;
+        flush();
+    }
+
+    // Push buffered records to the file
+    synchronized void flush() throws IOException {
+        if (log != null) log.flush();
+        pending = 0;
+    }
+
+    // Flush and close the log
+    @Override
+    public synchronized void close() throws IOException {
+        if (log != null) log.close();
+        log = null;
+        pending = 0;
+    }
+
+    // Close and remove the log file
+    synchronized void delete() throws IOException {
+        close();
+        if (file.exists() && !file.delete()) throw new IOException("Could not delete " + file);
+        records = 0;
+    }
+
+    // Start a record (inside a group: after the records before it)
+    private void begin() {
+        if (!grouping) scratch.reset();
+    }
+
+    // The record is complete: append it, count it and flush once a full batch is buffered
+    private void written() throws IOException {
+        if (grouping) {
+            grouped++;
+            return;
+        }
+        scratch.writeTo(log);
+        records++;
+        if (++pending >= batchSize) flush();
+    }
+
+    // Read one record (or group) and hand it to handler; returns the number of records read, 0 at end of file
+    // or on a torn (half-written) record or group
+    private static int readRecord(DataInputStream in, Handler handler) throws IOException {
+        int type = in.read();
+        if (type < 0) return 0; // clean end of file
+        try {
+            switch (type) {
+                case GROUP: {
+                    int count = in.readInt();
+                    Held held = new Held();
+                    for (int i = 0; i < count; i++) {
+                        if (readRecord(in, held) == 0) return 0; // cut off: none of the group is applied
+                    }
+                    for (Held.Call c : held.calls) c.apply(handler);
+                    return count;
+                }
+                case VEHICLE_ADDED: {
+                    int id = in.readInt();
+                    String make = in.readUTF(), model = in.readUTF();
+                    int year = in.readInt();
+                    String color = in.readUTF();
+                    double price = in.readDouble();
+                    handler.vehicleAdded(new Vehicle(id, make, model, year, color, price));
+                    break;
+                }
+                case VEHICLE_DELETED:
+                    handler.vehicleDeleted(in.readInt());
+                    break;
+                case CUSTOMER_ADDED: {
+                    int id = in.readInt();
+                    String name = in.readUTF(), phone = in.readUTF(), email = in.readUTF(), address = in.readUTF();
+                    handler.customerAdded(new Customer(id, name, phone, email, address));
+                    break;
+                }
+                case CUSTOMER_DELETED:
+                    handler.customerDeleted(in.readInt());
+                    break;
+                case RENTAL_ADDED:
+                case RENTAL_RESERVED: {
+                    int id = in.readInt(), vid = in.readInt(), cid = in.readInt();
+                    String rDate = in.readUTF(), ret = in.readUTF();
+                    double cost = in.readDouble();
+                    Rental r = new Rental(id, vid, cid, rDate, ret, cost);
+                    if (type == RENTAL_ADDED) handler.rentalAdded(r);
+                    else handler.rentalReserved(r);
+                    break;
+                }
+                case RENTAL_STARTED:
+                    handler.rentalStarted(in.readInt());
+                    break;
+                case RENTAL_CLOSED:
+                    handler.rentalClosed(in.readInt());
+                    break;
+                case SALE_ADDED: {
+                    int id = in.readInt(), vid = in.readInt(), cid = in.readInt();
+                    String date = in.readUTF();
+                    double price = in.readDouble();
+                    handler.saleAdded(new Sale(id, vid, cid, date, price));
+                    break;
+                }
+                case MAINT_ADDED: {
+                    int id = in.readInt(), vid = in.readInt();
+                    String service = in.readUTF(), date = in.readUTF();
+                    double cost = in.readDouble();
+                    String mech = in.readUTF();
+                    handler.maintAdded(new Maintenance(id, vid, service, date, cost, mech));
+                    break;
+                }
+                default:
+                    return 0; // garbage after a crash: stop here
+            }
+            return 1;
+        } catch (EOFException ex) {
+            return 0; // record cut off by a crash
+        }
+    }
+
+    // Records of a group read so far, handed on once the whole group is there
+    private static final class Held implements Handler {
+        interface Call {
+            void apply(Handler h);
+        }
+
+        final ArrayList<Call> calls = new ArrayList<>();
+
+        @Override public void vehicleAdded(Vehicle v) { calls.add(h -> h.vehicleAdded(v)); }
+        @Override public void vehicleDeleted(int id) { calls.add(h -> h.vehicleDeleted(id)); }
+        @Override public void customerAdded(Customer c) { calls.add(h -> h.customerAdded(c)); }
+        @Override public void customerDeleted(int id) { calls.add(h -> h.customerDeleted(id)); }
+        @Override public void rentalAdded(Rental r) { calls.add(h -> h.rentalAdded(r)); }
+        @Override public void rentalClosed(int id) { calls.add(h -> h.rentalClosed(id)); }
+        @Override public void saleAdded(Sale s) { calls.add(h -> h.saleAdded(s)); }
+        @Override public void maintAdded(Maintenance m) { calls.add(h -> h.maintAdded(m)); }
+        @Override public void rentalReserved(Rental r) { calls.add(h -> h.rentalReserved(r)); }
+        @Override public void rentalStarted(int id) { calls.add(h -> h.rentalStarted(id)); }
+    }
+
+    // Input stream that counts bytes read so replay knows where the last complete record ends
+    private static class CountingInput extends FilterInputStream {
+        long count; // bytes consumed so far
+
+        CountingInput(InputStream in) {
+            super(new BufferedInputStream(in));
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long s = super.skip(n);
+            count += s;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Just enough JSON for the HTTP API: flat objects whose values are strings, numbers, booleans or null.
+// Writing goes through a small builder; reading returns the fields as a map.
+final class Json {
+
+    private Json() {
+    }
+
+    // Builds one JSON object: Json.object().put("id", 1).put("make", "BMW").toString()
+    static final class Obj {
+        private final StringBuilder sb = new StringBuilder("{");
+
+        Obj put(String key, String value) {
+            key(key);
+            if (value == null) sb.append("null");
+            else quote(sb, value);
+            return this;
+        }
+
+        Obj put(String key, long value) {
+            key(key);
+            sb.append(value);
+            return this;
+        }
+
+        Obj put(String key, double value) {
+            key(key);
+            if (Double.isFinite(value)) sb.append(value);
+            else sb.append("null"); // JSON has no NaN or Infinity
+            return this;
+        }
+
+        Obj put(String key, boolean value) {
+            key(key);
+            sb.append(value);
+            return this;
+        }
+
+        // Value that is already JSON (a nested object or array)
+        Obj raw(String key, String json) {
+            key(key);
+            sb.append(json);
+            return this;
+        }
+
+        private void key(String key) {
+            if (sb.length() > 1) sb.append(',');
+            quote(sb, key);
+            sb.append(':');
+        }
+
+        @Override
+        public String toString() {
+            return sb + "}";
+        }
+    }
+
+    static Obj object() {
+        return new Obj();
+    }
+
+    // Append s as a quoted JSON string
+    static void quote(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c)); // other control characters
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+
+    // Parse a flat JSON object. Strings come back as String, numbers as Double, true/false as Boolean.
+    // Throws IllegalArgumentException if the text is not such an object.
+    static Map<String, Object> parseObject(String text) {
+        Parser p = new Parser(text);
+        Map<String, Object> fields = new LinkedHashMap<>();
+        p.expect('{');
+        if (!p.tryConsume('}')) {
+            do {
+                String key = p.string();
+                p.expect(':');
+                fields.put(key, p.value());
+            } while (p.tryConsume(','));
+            p.expect('}');
+        }
+        p.end();
+        return fields;
+    }
+
+    private static final class Parser {
+        private final String s;
+        private int pos;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        private void skipSpace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        boolean tryConsume(char c) {
+            skipSpace();
+            if (pos < s.length() && s.charAt(pos) == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!tryConsume(c)) throw error("expected '" + c + "'");
+        }
+
+        void end() {
+            skipSpace();
+            if (pos != s.length()) throw error("unexpected text after object");
+        }
+
+        Object value() {
+            skipSpace();
+            if (pos >= s.length()) throw error("value expected");
+            char c = s.charAt(pos);
+            if (c == '"') return string();
+            if (s.startsWith("true", pos)) { pos += 4; return Boolean.TRUE; }
+            if (s.startsWith("false", pos)) { pos += 5; return Boolean.FALSE; }
+            if (s.startsWith("null", pos)) { pos += 4; return null; }
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) pos++;
+            if (start == pos) throw error("value expected");
+            try {
+                return Double.valueOf(s.substring(start, pos));
+            } catch (NumberFormatException ex) {
+                throw error("bad number");
+            }
+        }
+
+        String string() {
+            skipSpace();
+            if (pos >= s.length() || s.charAt(pos) != '"') throw error("string expected");
+            pos++;
+            StringBuilder sb = new StringBuilder();
+            while (true) {
+                if (pos >= s.length()) throw error("unterminated string");
+                char c = s.charAt(pos++);
+                if (c == '"') return sb.toString();
+                if (c != '\\') {
+                    sb.append(c);
+                    continue;
+                }
+                if (pos >= s.length()) throw error("unterminated string");
+                char e = s.charAt(pos++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) throw error("bad escape");
+                        try {
+                            sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException ex) {
+                            throw error("bad escape");
+                        }
+                        pos += 4;
+                        break;
+                    default: sb.append(e); // \" \\ \/
+                }
+            }
+        }
+
+        private IllegalArgumentException error(String what) {
+            return new IllegalArgumentException("Bad JSON at " + pos + ": " + what);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Load-test harness for the HTTP API. Seeds a small fleet, then a number of client threads fire a
+// kiosk-like mix for a fixed time and the requests/sec and latency percentiles are reported:
+//   70% look up a vehicle, 20% book a rental (201 or 409 both count as served), 10% close a rental.
+//
+//   java iierosebankcollege.carsystem.LoadTest http://localhost:8080 32 30   (url, threads, seconds)
+class LoadTest {
+
+    // Outcome of one run
+    static final class Report {
+        final long requests;       // requests answered (any status below 500)
+        final long errors;         // 5xx answers and failed connections
+        final double seconds;
+        final long p50Micros, p99Micros, maxMicros;
+
+        Report(long requests, long errors, double seconds, long p50Micros, long p99Micros, long maxMicros) {
+            this.requests = requests;
+            this.errors = errors;
+            this.seconds = seconds;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        double perSecond() {
+            return requests / seconds;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests in %.1f s = %.0f req/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms, %d errors",
+                    requests, seconds, perSecond(), p50Micros / 1000.0, p99Micros / 1000.0, maxMicros / 1000.0, errors);
+        }
+    }
+
+    private static final int FLEET = 500;      // vehicles seeded before the run
+    private static final int CUSTOMERS = 100;  // customers seeded before the run
+
+    private final URI base;
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1) // the JDK server speaks HTTP/1.1 only
+            .connectTimeout(Duration.ofSeconds(5)).build();
+    private int firstVehicle, firstCustomer;   // ids of the seeded records
+
+    LoadTest(URI base) {
+        this.base = base;
+    }
+
+    // Seed the fleet, run threads clients for the given time, report
+    Report run(int threads, Duration length) throws Exception {
+        seed();
+        long end = System.nanoTime() + length.toNanos();
+        Client[] clients = new Client[threads];
+        List<Thread> running = new ArrayList<>();
+        long started = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            clients[i] = new Client(end);
+            Thread t = new Thread(clients[i], "load-" + i);
+            running.add(t);
+            t.start();
+        }
+        for (Thread t : running) t.join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        // merge per-thread latencies and read the percentiles
+        int n = 0;
+        long errors = 0;
+        for (Client c : clients) { n += c.count; errors += c.errors; }
+        long[] all = new long[n];
+        int at = 0;
+        for (Client c : clients) {
+            System.arraycopy(c.latencies, 0, all, at, c.count);
+            at += c.count;
+        }
+        Arrays.sort(all);
+        return new Report(n, errors, seconds, percentile(all, 0.50), percentile(all, 0.99), n == 0 ? 0 : all[n - 1]);
+    }
+
+    private static long percentile(long[] sorted, double q) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(q * sorted.length) - 1)];
+    }
+
+    private void seed() throws Exception {
+        firstVehicle = idOf(post("/vehicles", Json.object().put("make", "Toyota").put("model", "Corolla")
+                .put("year", 2020).put("color", "White").put("price", 150000.0).toString()));
+        for (int i = 1; i < FLEET; i++) {
+            post("/vehicles", Json.object().put("make", "Make" + i % 20).put("model", "Model" + i % 50)
+                    .put("year", 2000 + i % 25).put("color", "Silver").put("price", 100000.0 + i).toString());
+        }
+        firstCustomer = idOf(post("/customers", Json.object().put("name", "Customer0").put("phone", "0820000000")
+                .put("email", "c0@mail.com").put("address", "Durban").toString()));
+        for (int i = 1; i < CUSTOMERS; i++) {
+            post("/customers", Json.object().put("name", "Customer" + i).put("phone", "082000" + i)
+                    .put("email", "c" + i + "@mail.com").put("address", "Durban").toString());
+        }
+    }
+
+    private static int idOf(HttpResponse<String> created) {
+        if (created.statusCode() != 201) throw new IllegalStateException("Seeding failed: " + created.statusCode() + " " + created.body());
+        return ((Double) Json.parseObject(created.body()).get("id")).intValue();
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        return client.send(HttpRequest.newBuilder(base.resolve(path)).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // One simulated client; latencies are kept per thread and merged at the end
+    private final class Client implements Runnable {
+        private final long end;
+        long[] latencies = new long[1 << 14];  // microseconds
+        int count;
+        long errors;
+        private final List<Integer> open = new ArrayList<>(); // rentals this client booked and has not closed
+
+        Client(long end) {
+            this.end = end;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            while (System.nanoTime() < end) {
+                int op = rnd.nextInt(100);
+                long t0 = System.nanoTime();
+                try {
+                    HttpResponse<String> res;
+                    if (op < 70 || (op >= 90 && open.isEmpty())) {
+                        res = client.send(HttpRequest.newBuilder(base.resolve("/vehicles/" + (firstVehicle + rnd.nextInt(FLEET)))).build(),
+                                HttpResponse.BodyHandlers.ofString());
+                    } else if (op < 90) {
+                        res = post("/rentals", Json.object().put("vehicleId", firstVehicle + rnd.nextInt(FLEET))
+                                .put("customerId", firstCustomer + rnd.nextInt(CUSTOMERS)).put("rentalDate", "2025-01-01")
+                                .put("returnDate", "2025-01-05").put("totalCost", 2000.0).toString());
+                        if (res.statusCode() == 201) open.add(idOf(res));
+                    } else {
+                        int rental = open.remove(open.size() - 1);
+                        res = client.send(HttpRequest.newBuilder(base.resolve("/rentals/" + rental)).DELETE().build(),
+                                HttpResponse.BodyHandlers.ofString());
+                    }
+                    if (res.statusCode() >= 500) errors++;
+                    else record((System.nanoTime() - t0) / 1000);
+                } catch (Exception ex) {
+                    if (ex instanceof InterruptedException) return;
+                    errors++;
+                }
+            }
+        }
+
+        private void record(long micros) {
+            if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+            latencies[count++] = micros;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        URI base = URI.create(args.length > 0 ? args[0] : "http://localhost:8080");
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        System.out.println("Load test against " + base + " with " + threads + " clients for " + seconds + " s");
+        System.out.println(new LoadTest(base).run(threads, Duration.ofSeconds(seconds)));
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.ToLongFunction;
+
+// Bounded read-through cache of records by id, least recently used out first. It sits in front of a store
+// lookup whose misses cost something: in a columnar store every lookup of a view nobody holds reads its row
+// into a new object (and an opened snapshot decodes it), while the same few hundred cars and customers are
+// asked for over and over. Holding the hot records here also keeps their views alive, so the store hands out
+// the same object for them (see EntityStore).
+// The cache is split into segments by id, each its own small LRU list on int arrays under its own lock, so
+// lookups of different records rarely wait for each other. Nothing found is not cached.
+// A record removed from its store (or a whole store replaced) must be invalidated here; a lookup that was
+// reading the store while that happened does not put its (now stale) answer in.
+final class LookupCache<T> {
+
+    private static final int MIN_PER_SEGMENT = 64;
+    private static final int MAX_SEGMENTS = 16;
+
+    private final int capacity;
+    private final Segment<T>[] segments;
+    private final int mask;
+    private final LongAdder uncached = new LongAdder();   // lookups with no cache (capacity 0)
+
+    // capacity: most records kept (0: no cache, every lookup goes to the store)
+    @SuppressWarnings({"unchecked", "rawtypes"}) // no generic array creation
+    LookupCache(int capacity) {
+        if (capacity < 0) throw new IllegalArgumentException("Capacity must not be negative");
+        this.capacity = capacity;
+        int n = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, capacity / MIN_PER_SEGMENT)));
+        segments = new Segment[capacity == 0 ? 0 : n];
+        for (int i = 0; i < segments.length; i++) segments[i] = new Segment<>(capacity / n + (i < capacity % n ? 1 : 0));
+        mask = n - 1;
+    }
+
+    // The record with this id: from the cache, or else from load (kept if not null)
+    T get(int id, IntFunction<T> load) {
+        if (capacity == 0) {
+            uncached.increment();
+            return load.apply(id);
+        }
+        Segment<T> s = segment(id);
+        long version;
+        synchronized (s) {
+            T v = s.get(id);
+            if (v != null) {
+                s.hits++;
+                return v;
+            }
+            s.misses++;
+            version = s.version;
+        }
+        T v = load.apply(id); // outside the segment lock: the store takes its own
+        if (v != null) {
+            synchronized (s) {
+                if (s.version == version) s.put(id, v); // no invalidation in between
+            }
+        }
+        return v;
+    }
+
+    // Forget the record with this id (deleted, or its id given back)
+    void invalidate(int id) {
+        if (capacity == 0) return;
+        Segment<T> s = segment(id);
+        synchronized (s) {
+            s.remove(id);
+            s.version++;
+        }
+    }
+
+    // Forget everything (the store was cleared or reloaded)
+    void clear() {
+        for (Segment<T> s : segments) {
+            synchronized (s) {
+                s.clear();
+                s.version++;
+            }
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    // Records held now
+    int size() {
+        return (int) sum(s -> s.count);
+    }
+
+    long hits() {
+        return sum(s -> s.hits);
+    }
+
+    long misses() {
+        return capacity == 0 ? uncached.sum() : sum(s -> s.misses);
+    }
+
+    // Records pushed out to make room
+    long evictions() {
+        return sum(s -> s.evictions);
+    }
+
+    // Share of lookups answered from the cache, 0 before the first
+    double hitRate() {
+        long h = hits(), total = h + misses();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    // Statistics are counted per segment, under its lock, so a lookup pays for no other shared write
+    private long sum(ToLongFunction<Segment<T>> stat) {
+        long n = 0;
+        for (Segment<T> s : segments) {
+            synchronized (s) {
+                n += stat.applyAsLong(s);
+            }
+        }
+        return n;
+    }
+
+    private Segment<T> segment(int id) {
+        return segments[(id ^ id >>> 16) & mask];
+    }
+
+    // One LRU list: entries live in fixed slots, linked most recent first through prev/next
+    private static final class Segment<T> {
+        private static final int NONE = -1;
+
+        private final IntIndex slotOf = new IntIndex(); // id -> slot
+        private final int[] ids, prev, next;
+        private final Object[] values;
+        private int head = NONE, tail = NONE;   // most and least recently used
+        private int count;
+        long version;                           // bumped by every invalidation
+        long hits, misses, evictions;
+
+        Segment(int capacity) {
+            ids = new int[capacity];
+            prev = new int[capacity];
+            next = new int[capacity];
+            values = new Object[capacity];
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int id) {
+            int slot = slotOf.get(id);
+            if (slot == IntIndex.MISSING) return null;
+            if (slot != head) {
+                unlink(slot);
+                pushFront(slot);
+            }
+            return (T) values[slot];
+        }
+
+        // Add (or replace) an entry as the most recent, pushing out the least recent one if full
+        void put(int id, T value) {
+            int slot = slotOf.get(id);
+            if (slot != IntIndex.MISSING) {
+                values[slot] = value;
+                if (slot != head) {
+                    unlink(slot);
+                    pushFront(slot);
+                }
+                return;
+            }
+            if (count == values.length) { // reuse the least recent slot
+                slot = tail;
+                unlink(slot);
+                slotOf.remove(ids[slot]);
+                evictions++;
+            } else {
+                slot = count++;
+            }
+            ids[slot] = id;
+            values[slot] = value;
+            slotOf.put(id, slot);
+            pushFront(slot);
+        }
+
+        void remove(int id) {
+            int slot = slotOf.remove(id);
+            if (slot == IntIndex.MISSING) return;
+            unlink(slot);
+            int last = --count;
+            if (slot != last) { // keep slots [0, count) filled: move the last one into the hole
+                boolean wasHead = head == last, wasTail = tail == last;
+                ids[slot] = ids[last];
+                values[slot] = values[last];
+                prev[slot] = prev[last];
+                next[slot] = next[last];
+                if (prev[slot] != NONE) next[prev[slot]] = slot;
+                if (next[slot] != NONE) prev[next[slot]] = slot;
+                if (wasHead) head = slot;
+                if (wasTail) tail = slot;
+                slotOf.put(ids[slot], slot);
+            }
+            values[last] = null;
+        }
+
+        void clear() {
+            Arrays.fill(values, 0, count, null);
+            slotOf.clear();
+            head = tail = NONE;
+            count = 0;
+        }
+
+        private void unlink(int slot) {
+            int p = prev[slot], n = next[slot];
+            if (p != NONE) next[p] = n;
+            else head = n;
+            if (n != NONE) prev[n] = p;
+            else tail = p;
+        }
+
+        private void pushFront(int slot) {
+            prev[slot] = NONE;
+            next[slot] = head;
+            if (head != NONE) prev[head] = slot;
+            head = slot;
+            if (tail == NONE) tail = slot;
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import javax.management.*;
+
+// Runtime metrics of one CarService, cheap enough to leave on under load:
+//  - a Timer per operation: a latency histogram plus a count of refused or failed calls;
+//  - counters (LongAdder) for things that are not calls, e.g. records imported;
+//  - gauges, read only when the metrics are looked at (record counts, file sizes).
+// Recording never locks: a histogram is an array of atomic counts, and the sum and max are striped
+// (LongAdder, LongAccumulator), so threads recording at once do not queue behind each other.
+// The metrics can be read two ways: prometheus() gives the Prometheus text format (served by the API at
+// GET /metrics), and register() puts them on the platform MBean server, so JConsole or any JMX client
+// sees each value as an attribute. With enabled off, timers skip the clock and record nothing.
+final class Metrics {
+
+    static final String DOMAIN = "iierosebankcollege.carsystem";   // JMX domain
+
+    volatile boolean enabled = true;
+
+    private final CopyOnWriteArrayList<Timer> timers = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<Counter> counters = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<Gauge> gauges = new CopyOnWriteArrayList<>();
+    private volatile ObjectName registered;
+
+    // Latencies, log-linear like HdrHistogram: values below 2*SUB are counted exactly, above that each power
+    // of two is split into SUB equal buckets, so a value is known to within 1/SUB (1.6%). Values are in
+    // nanoseconds; anything above 2^MAX_EXP ns (about 36 minutes) lands in the last bucket.
+    static final class Histogram {
+        private static final int SUB_BITS = 6, SUB = 1 << SUB_BITS;
+        private static final int MAX_EXP = 41;
+        private static final int SIZE = 2 * SUB + (MAX_EXP - SUB_BITS - 1) * SUB + 1; // the last one for overflow
+
+        private final AtomicLongArray counts = new AtomicLongArray(SIZE);
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value) {
+            if (value < 0) value = 0; // a clock that stepped back
+            counts.incrementAndGet(index(value));
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        static int index(long value) {
+            if (value < 2 * SUB) return (int) value;
+            int e = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXP); // value >= 2^e
+            if (e == MAX_EXP) return SIZE - 1;
+            return 2 * SUB + (e - SUB_BITS - 1) * SUB + (int) ((value >>> (e - SUB_BITS)) & (SUB - 1));
+        }
+
+        // Highest value that lands in bucket i
+        static long highest(int i) {
+            if (i < 2 * SUB) return i;
+            if (i == SIZE - 1) return Long.MAX_VALUE;
+            int e = (i - 2 * SUB) / SUB + SUB_BITS + 1, sub = (i - 2 * SUB) % SUB;
+            return ((long) (SUB + sub + 1) << (e - SUB_BITS)) - 1;
+        }
+
+        long count() {
+            long n = 0;
+            for (int i = 0; i < SIZE; i++) n += counts.get(i);
+            return n;
+        }
+
+        long sum() {
+            return sum.sum();
+        }
+
+        long max() {
+            return max.get();
+        }
+
+        // Smallest recorded value that q of the values are at or below (to within a bucket), 0 if none.
+        // Reads while others record: the result is as of some moment during the call.
+        long valueAt(double q) {
+            long[] snapshot = new long[SIZE];
+            long n = 0;
+            for (int i = 0; i < SIZE; i++) n += snapshot[i] = counts.get(i);
+            if (n == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(q * n)), seen = 0;
+            for (int i = 0; i < SIZE; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) return Math.min(highest(i), max());
+            }
+            return max();
+        }
+    }
+
+    // Times calls of one operation. Use as
+    //     long t0 = timer.start();
+    //     boolean done = false;
+    //     try { ...; done = true; return result; } finally { timer.stop(t0, done); }
+    // where done stays false for a refused call or one that threw.
+    final class Timer {
+        final String operation;
+        final Histogram latency = new Histogram();  // nanoseconds
+        private final LongAdder failures = new LongAdder();
+
+        private Timer(String operation) {
+            this.operation = operation;
+        }
+
+        // Start of a call, or 0 when metrics are off
+        long start() {
+            return enabled ? System.nanoTime() : 0;
+        }
+
+        void stop(long t0, boolean done) {
+            if (t0 == 0) return;
+            latency.record(System.nanoTime() - t0);
+            if (!done) failures.increment();
+        }
+
+        long count() {
+            return latency.count();
+        }
+
+        long failures() {
+            return failures.sum();
+        }
+    }
+
+    final class Counter {
+        final String name, help;
+        private final LongAdder value = new LongAdder();
+
+        private Counter(String name, String help) {
+            this.name = name;
+            this.help = help;
+        }
+
+        void add(long n) {
+            if (enabled) value.add(n);
+        }
+
+        long get() {
+            return value.sum();
+        }
+    }
+
+    // A value read when the metrics are looked at; label is a Prometheus label such as table="vehicles", or null
+    private static final class Gauge {
+        final String name, label, help;
+        final LongSupplier value;
+
+        Gauge(String name, String label, String help, LongSupplier value) {
+            this.name = name;
+            this.label = label;
+            this.help = help;
+            this.value = value;
+        }
+
+        // JMX attribute name: the name, and the label's value if any (records.vehicles)
+        String attribute() {
+            return label == null ? name : name + "." + label.substring(label.indexOf('"') + 1, label.lastIndexOf('"'));
+        }
+    }
+
+    // The timer of an operation, made on first use
+    synchronized Timer timer(String operation) {
+        for (Timer t : timers) if (t.operation.equals(operation)) return t;
+        Timer t = new Timer(operation);
+        timers.add(t);
+        return t;
+    }
+
+    // A counter; name is the Prometheus name without the carsystem_ prefix and _total suffix
+    synchronized Counter counter(String name, String help) {
+        for (Counter c : counters) if (c.name.equals(name)) return c;
+        Counter c = new Counter(name, help);
+        counters.add(c);
+        return c;
+    }
+
+    void gauge(String name, String label, String help, LongSupplier value) {
+        gauges.add(new Gauge(name, label, help, value));
+    }
+
+    List<Timer> timers() {
+        return new ArrayList<>(timers);
+    }
+
+    // Prometheus text exposition format (version 0.0.4)
+    String prometheus() {
+        StringBuilder sb = new StringBuilder(4096);
+        family(sb, "operation_seconds", "summary", "Time taken by data and persistence operations");
+        for (Timer t : timers) {
+            Histogram h = t.latency;
+            String op = "operation=\"" + t.operation + "\"";
+            for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+                sample(sb, "operation_seconds", op + ",quantile=\"" + q + "\"", seconds(h.valueAt(q)));
+            }
+            sample(sb, "operation_seconds_sum", op, seconds(h.sum()));
+            sample(sb, "operation_seconds_count", op, Long.toString(h.count()));
+        }
+        family(sb, "operation_max_seconds", "gauge", "Longest single call of each operation");
+        for (Timer t : timers) sample(sb, "operation_max_seconds", "operation=\"" + t.operation + "\"", seconds(t.latency.max()));
+        family(sb, "operation_failures_total", "counter", "Calls refused (unknown ids, car not available, ...) or failed");
+        for (Timer t : timers) sample(sb, "operation_failures_total", "operation=\"" + t.operation + "\"", Long.toString(t.failures()));
+        for (Counter c : counters) {
+            family(sb, c.name + "_total", "counter", c.help);
+            sample(sb, c.name + "_total", null, Long.toString(c.get()));
+        }
+        LinkedHashMap<String, List<Gauge>> byName = new LinkedHashMap<>(); // one HELP/TYPE per name
+        for (Gauge g : gauges) byName.computeIfAbsent(g.name, k -> new ArrayList<>()).add(g);
+        for (List<Gauge> family : byName.values()) {
+            family(sb, family.get(0).name, "gauge", family.get(0).help);
+            for (Gauge g : family) sample(sb, g.name, g.label, Long.toString(g.value.getAsLong()));
+        }
+        return sb.toString();
+    }
+
+    private static void family(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP carsystem_").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE carsystem_").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, String value) {
+        sb.append("carsystem_").append(name);
+        if (labels != null) sb.append('{').append(labels).append('}');
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    // JMX
+
+    // Put the metrics on the platform MBean server as DOMAIN:type=CarService,name=<name>, replacing whatever
+    // was registered under that name before
+    ObjectName register(String name) throws JMException {
+        ObjectName on = new ObjectName(DOMAIN + ":type=CarService,name=" + ObjectName.quote(name));
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        unregister();
+        if (server.isRegistered(on)) server.unregisterMBean(on);
+        server.registerMBean(new MBean(), on);
+        registered = on;
+        return on;
+    }
+
+    void unregister() throws JMException {
+        ObjectName on = registered;
+        registered = null;
+        if (on != null && ManagementFactory.getPlatformMBeanServer().isRegistered(on)) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(on);
+        }
+    }
+
+    // The metrics as read-only attributes: <operation>.count, .failures, .meanMicros, .p50Micros, .p90Micros,
+    // .p99Micros, .p999Micros and .maxMicros for each timer, then counters and gauges by name. enabled is
+    // writable, and the prometheus operation gives the same text as GET /metrics. The attribute list is
+    // worked out on every call, so timers made after registering show up too.
+    private final class MBean implements DynamicMBean {
+        private static final String[] STATS = {"count", "failures", "meanMicros", "p50Micros", "p90Micros", "p99Micros", "p999Micros", "maxMicros"};
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            if (attribute.equals("enabled")) return enabled;
+            int dot = attribute.lastIndexOf('.');
+            if (dot > 0) {
+                String op = attribute.substring(0, dot), stat = attribute.substring(dot + 1);
+                for (Timer t : timers) if (t.operation.equals(op)) return stat(t, stat, attribute);
+            }
+            for (Counter c : counters) if (c.name.equals(attribute)) return c.get();
+            for (Gauge g : gauges) if (g.attribute().equals(attribute)) return g.value.getAsLong();
+            throw new AttributeNotFoundException(attribute);
+        }
+
+        private Object stat(Timer t, String stat, String attribute) throws AttributeNotFoundException {
+            Histogram h = t.latency;
+            switch (stat) {
+                case "count": return h.count();
+                case "failures": return t.failures();
+                case "meanMicros": { long n = h.count(); return n == 0 ? 0.0 : h.sum() / 1e3 / n; }
+                case "p50Micros": return h.valueAt(0.5) / 1e3;
+                case "p90Micros": return h.valueAt(0.9) / 1e3;
+                case "p99Micros": return h.valueAt(0.99) / 1e3;
+                case "p999Micros": return h.valueAt(0.999) / 1e3;
+                case "maxMicros": return h.max() / 1e3;
+                default: throw new AttributeNotFoundException(attribute);
+            }
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException, InvalidAttributeValueException {
+            if (!attribute.getName().equals("enabled")) throw new AttributeNotFoundException(attribute.getName());
+            if (!(attribute.getValue() instanceof Boolean)) throw new InvalidAttributeValueException("enabled is a boolean");
+            enabled = (Boolean) attribute.getValue();
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] names) {
+            AttributeList list = new AttributeList();
+            for (String name : names) {
+                try {
+                    list.add(new Attribute(name, getAttribute(name)));
+                } catch (AttributeNotFoundException skip) {
+                    // left out, as the DynamicMBean contract asks
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            AttributeList set = new AttributeList();
+            for (Attribute a : attributes.asList()) {
+                try {
+                    setAttribute(a);
+                    set.add(a);
+                } catch (JMException skip) {
+                    // left out
+                }
+            }
+            return set;
+        }
+
+        @Override
+        public Object invoke(String action, Object[] params, String[] signature) throws ReflectionException {
+            if (action.equals("prometheus") && (params == null || params.length == 0)) return prometheus();
+            throw new ReflectionException(new NoSuchMethodException(action));
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attrs = new ArrayList<>();
+            attrs.add(new MBeanAttributeInfo("enabled", "boolean", "Record metrics", true, true, true));
+            for (Timer t : timers) {
+                for (String s : STATS) {
+                    boolean whole = s.equals("count") || s.equals("failures");
+                    attrs.add(new MBeanAttributeInfo(t.operation + "." + s, whole ? "long" : "double", t.operation + " " + s, true, false, false));
+                }
+            }
+            for (Counter c : counters) attrs.add(new MBeanAttributeInfo(c.name, "long", c.help, true, false, false));
+            for (Gauge g : gauges) attrs.add(new MBeanAttributeInfo(g.attribute(), "long", g.help, true, false, false));
+            MBeanOperationInfo dump = new MBeanOperationInfo("prometheus", "All metrics in the Prometheus text format",
+                    new MBeanParameterInfo[0], "java.lang.String", MBeanOperationInfo.INFO);
+            return new MBeanInfo(Metrics.class.getName(), "Car System runtime metrics", attrs.toArray(new MBeanAttributeInfo[0]),
+                    null, new MBeanOperationInfo[] {dump}, null);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+// Progress callback for long data operations (save, load, import).
+// Implementations may throw java.util.concurrent.CancellationException to stop the operation.
+interface Progress {
+
+    Progress NONE = (done, total) -> { }; // for callers that don't track progress
+
+    // done out of total units finished
+    void update(long done, long total);
+}
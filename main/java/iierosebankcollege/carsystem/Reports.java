@@ -0,0 +1,292 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Running totals for reporting: revenue (sales and rentals) and maintenance spend per day, per month, per
+// make, per model and per vehicle, plus rented car-days for utilization. Every write adds its record to the
+// totals it belongs to, so a dashboard reads a figure in O(1) instead of summing the record lists.
+// A rental earned its amount and used its car-days whether it is still open or already closed, so closing
+// one leaves the totals as they are; only a rolled-back transaction takes a record back out. A closed rental
+// leaves the rentals list, so one closed before the first build is counted from the archive (see Archive),
+// which it has gone to, as are the sales and services moved there and the rentals closed before the last
+// snapshot. Without an archive open it is counted straight away, so nothing is held per rental; after a
+// restart the journal closes again what it holds, and rentals closed before the last snapshot are no longer
+// in the data, and no longer in the totals either.
+// Amounts are kept in whole cents, so adding and taking records away never drifts.
+// A record is dated by its rental, sale or service date; one whose date is not yyyy-MM-dd counts everywhere
+// except per day and month. Records of a vehicle that is unknown or deleted count under make and model "".
+// Built from the stores on first use (see CarService.reports()).
+class Reports {
+
+    static final String UNKNOWN = "";           // make and model of records whose vehicle is gone
+
+    // Totals of one group of records
+    static class Totals {
+        long salesCents, rentalCents, maintCents;
+        int sales, rentals, maints;             // number of records
+        long carDays;                           // rented car-days; per month, the days that fall in the month
+
+        double salesRevenue() { return salesCents / 100.0; }
+        double rentalRevenue() { return rentalCents / 100.0; }
+        double revenue() { return (salesCents + rentalCents) / 100.0; }
+        double maintenanceSpend() { return maintCents / 100.0; }
+
+        boolean isEmpty() {
+            return sales == 0 && rentals == 0 && maints == 0 && carDays == 0;
+        }
+
+        Totals copy() {
+            Totals t = new Totals();
+            t.add(this, 1);
+            return t;
+        }
+
+        void add(Totals o, int sign) {
+            salesCents += sign * o.salesCents;
+            rentalCents += sign * o.rentalCents;
+            maintCents += sign * o.maintCents;
+            sales += sign * o.sales;
+            rentals += sign * o.rentals;
+            maints += sign * o.maints;
+            carDays += sign * o.carDays;
+        }
+    }
+
+    // Totals of one vehicle, and the make and model they are filed under
+    private static final class VehicleTotals extends Totals {
+        String make, model;
+    }
+
+    private final EntityStore<Vehicle> vehicles;
+    private final EntityStore<Rental> rentals;
+    private final EntityStore<Sale> sales;
+    private final EntityStore<Maintenance> maints;
+    private volatile Archive archive;        // rentals, sales and services archived, also counted; or null
+    private boolean built;                   // the records in the stores are counted
+    private Totals all = new Totals();
+    private final TreeMap<Integer, Totals> byDay = new TreeMap<>();      // epoch day -> totals
+    private final TreeMap<Integer, Totals> byMonth = new TreeMap<>();    // yyyyMM -> totals
+    private final HashMap<String, Totals> byMake = new HashMap<>();      // lower-case make -> totals
+    private final HashMap<String, Totals> byModel = new HashMap<>();     // lower-case model -> totals
+    private final HashMap<Integer, VehicleTotals> byVehicle = new HashMap<>();
+
+    Reports(EntityStore<Vehicle> vehicles, EntityStore<Rental> rentals, EntityStore<Sale> sales, EntityStore<Maintenance> maints) {
+        this.vehicles = vehicles;
+        this.rentals = rentals;
+        this.sales = sales;
+        this.maints = maints;
+    }
+
+    // Count the records in this archive too, from the next build on
+    void countArchived(Archive archive) {
+        this.archive = archive;
+    }
+
+    // Changes
+
+    synchronized void rentalAdded(Rental r) {
+        if (built) count(rental(r), r.vehicleId, r.rentalDay, Reservations.end(r.rentalDay, r.returnDay), 1);
+    }
+
+    // A rental was closed or cancelled: it leaves the rentals list but stays in the totals. Before the build,
+    // one that did not go to an archive is counted now (totals so far are only of such rentals).
+    synchronized void rentalClosed(Rental r) {
+        if (!built && archive == null) count(rental(r), r.vehicleId, r.rentalDay, Reservations.end(r.rentalDay, r.returnDay), 1);
+    }
+
+    // A rental was taken back (a rolled-back transaction)
+    synchronized void rentalRemoved(Rental r) {
+        if (built) count(rental(r), r.vehicleId, r.rentalDay, Reservations.end(r.rentalDay, r.returnDay), -1);
+    }
+
+    synchronized void saleAdded(Sale s) {
+        if (built) count(sale(s), s.vehicleId, s.soldDay, Dates.NONE, 1);
+    }
+
+    // A sale was taken back (a rolled-back transaction)
+    synchronized void saleRemoved(Sale s) {
+        if (built) count(sale(s), s.vehicleId, s.soldDay, Dates.NONE, -1);
+    }
+
+    synchronized void maintAdded(Maintenance m) {
+        if (built) count(maint(m), m.vehicleId, m.serviceDay, Dates.NONE, 1);
+    }
+
+    // A maintenance record was taken back (a rolled-back transaction)
+    synchronized void maintRemoved(Maintenance m) {
+        if (built) count(maint(m), m.vehicleId, m.serviceDay, Dates.NONE, -1);
+    }
+
+    // A vehicle was deleted: its records stay, and move to make and model UNKNOWN
+    synchronized void vehicleRemoved(Vehicle v) {
+        VehicleTotals t = byVehicle.get(v.id);
+        if (t == null || t.make.equals(UNKNOWN) && t.model.equals(UNKNOWN)) return;
+        add(byMake, t.make, t, -1);
+        add(byModel, t.model, t, -1);
+        add(byMake, UNKNOWN, t, 1);
+        add(byModel, UNKNOWN, t, 1);
+        t.make = UNKNOWN;
+        t.model = UNKNOWN;
+    }
+
+    // The stores were replaced or cleared: rebuild on next use
+    synchronized void reset() {
+        built = false;
+        all = new Totals();
+        byDay.clear();
+        byMonth.clear();
+        byMake.clear();
+        byModel.clear();
+        byVehicle.clear();
+    }
+
+    synchronized boolean isBuilt() {
+        return built;
+    }
+
+    // Sum every record once, on top of the rentals closed before (see rentalClosed). The caller keeps writes
+    // out meanwhile, or a record being added could be both in its store and counted by the write.
+    synchronized void build() {
+        if (built) return;
+        built = true;
+        for (Rental r : rentals.toList()) rentalAdded(r); // copies: the store locks are not held while counting
+        for (Sale s : sales.toList()) saleAdded(s);
+        for (Maintenance m : maints.toList()) maintAdded(m);
+        Archive a = archive;
+        if (a != null) { // not counted twice
+            for (Rental r : a.<Rental>all(Archive.Table.RENTALS)) if (!rentals.containsId(r.id)) rentalAdded(r);
+            for (Sale s : a.<Sale>all(Archive.Table.SALES)) if (!sales.containsId(s.id)) saleAdded(s);
+            for (Maintenance m : a.<Maintenance>all(Archive.Table.MAINTS)) if (!maints.containsId(m.id)) maintAdded(m);
+        }
+    }
+
+    // Reads; each is a copy, empty if nothing was recorded
+
+    synchronized Totals total() {
+        return all.copy();
+    }
+
+    // Records dated that day; DateTimeParseException if it is not yyyy-MM-dd
+    synchronized Totals day(String date) {
+        return copy(byDay.get(Reservations.day(date)));
+    }
+
+    // Records dated in that month (1 to 12); rented car-days falling in it
+    synchronized Totals month(int year, int month) {
+        return copy(byMonth.get(year * 100 + month));
+    }
+
+    synchronized Totals make(String make) {
+        return copy(byMake.get(VehicleIndex.key(make)));
+    }
+
+    synchronized Totals model(String model) {
+        return copy(byModel.get(VehicleIndex.key(model)));
+    }
+
+    synchronized Totals vehicle(int vehicleId) {
+        return copy(byVehicle.get(vehicleId));
+    }
+
+    // Months that have records, in order, with their totals
+    synchronized Map<Integer, Totals> months() {
+        TreeMap<Integer, Totals> out = new TreeMap<>();
+        for (Map.Entry<Integer, Totals> e : byMonth.entrySet()) out.put(e.getKey(), e.getValue().copy());
+        return out;
+    }
+
+    // Counting
+
+    private static Totals rental(Rental r) {
+        Totals t = new Totals();
+        t.rentalCents = cents(r.totalCost);
+        t.rentals = 1;
+        return t;
+    }
+
+    private static Totals sale(Sale s) {
+        Totals t = new Totals();
+        t.salesCents = cents(s.sellingPrice);
+        t.sales = 1;
+        return t;
+    }
+
+    private static Totals maint(Maintenance m) {
+        Totals t = new Totals();
+        t.maintCents = cents(m.cost);
+        t.maints = 1;
+        return t;
+    }
+
+    // Add (sign 1) or take away (-1) one record's totals everywhere it belongs. date is the record's Dates
+    // value; for a rental, [date, end) is its window (end is Dates.NONE otherwise)
+    private void count(Totals t, int vehicleId, int date, int end, int sign) {
+        if (end != Dates.NONE) t.carDays = end - date;
+        all.add(t, sign);
+        VehicleTotals vt = byVehicle.get(vehicleId);
+        if (vt == null) {
+            vt = new VehicleTotals();
+            Vehicle v = vehicles.findById(vehicleId);
+            vt.make = v == null ? UNKNOWN : VehicleIndex.key(v.make);
+            vt.model = v == null ? UNKNOWN : VehicleIndex.key(v.model);
+            byVehicle.put(vehicleId, vt);
+        }
+        vt.add(t, sign);
+        if (vt.isEmpty()) byVehicle.remove(vehicleId);
+        add(byMake, vt.make, t, sign);
+        add(byModel, vt.model, t, sign);
+
+        long days = t.carDays;
+        t.carDays = 0; // car-days are split over the months below, and not kept per day
+        if (Dates.isDay(date)) {
+            add(byDay, date, t, sign);
+            add(byMonth, month(date), t, sign);
+        }
+        if (end != Dates.NONE) {
+            Totals part = new Totals();
+            for (int from = date; from < end; ) {
+                LocalDate d = LocalDate.ofEpochDay(from);
+                int next = (int) d.withDayOfMonth(1).plusMonths(1).toEpochDay();
+                part.carDays = Math.min(next, end) - from;
+                add(byMonth, month(from), part, sign);
+                from = next;
+            }
+        }
+        t.carDays = days;
+    }
+
+    // Add to a group, dropping it once it holds nothing
+    private static <K> void add(Map<K, Totals> groups, K key, Totals t, int sign) {
+        Totals g = groups.computeIfAbsent(key, k -> new Totals());
+        g.add(t, sign);
+        if (g.isEmpty()) groups.remove(key);
+    }
+
+    private static int month(int day) {
+        LocalDate d = LocalDate.ofEpochDay(day);
+        return d.getYear() * 100 + d.getMonthValue();
+    }
+
+    static long cents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    private static Totals copy(Totals t) {
+        return t == null ? new Totals() : t.copy();
+    }
+}
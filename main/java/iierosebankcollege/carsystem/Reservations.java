@@ -0,0 +1,217 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.function.IntPredicate;
+
+// Schedule of every booked rental, per vehicle, over epoch days (see Dates). A booking covers the days
+// [rentalDate, returnDate): the return day is free for the next customer.
+// A car's bookings never overlap, so each car keeps them as parallel arrays sorted by start day; then the
+// only booking that can clash with a window is the last one starting before the window ends, and
+// "is car X free from the 10th to the 14th" is one binary search, O(log bookings of that car).
+// Vehicles are also grouped by model so "any free car of model M" only looks at cars of that model: that
+// query is O(cars of the model x log bookings), linear in the model's fleet, not logarithmic.
+// Built from the stores on first use (a lazily loaded snapshot stays undecoded until then).
+class Reservations {
+
+    static final int NONE = -1;            // no rental
+
+    private final EntityStore<Vehicle> vehicles;
+    private final EntityStore<Rental> rentals;
+    private boolean built;
+    private final IntIndex slotOf = new IntIndex();               // vehicle id -> index in schedules
+    private final ArrayList<Bookings> schedules = new ArrayList<>();
+    private final HashMap<String, IntSet> byModel = new HashMap<>(); // model -> vehicle ids
+
+    Reservations(EntityStore<Vehicle> vehicles, EntityStore<Rental> rentals) {
+        this.vehicles = vehicles;
+        this.rentals = rentals;
+    }
+
+    // Day number of a yyyy-MM-dd date; DateTimeParseException if it is not one
+    static int day(String date) {
+        int day = Dates.parse(date);
+        if (day == Dates.NONE) throw new DateTimeParseException("Not a yyyy-MM-dd date: " + date, String.valueOf(date), 0);
+        return day;
+    }
+
+    // End of the booked window [from, end) for a rental's dates, or Dates.NONE if either is not a day or
+    // it ends before it starts. A same-day rental still blocks its day.
+    static int end(int from, int to) {
+        if (!Dates.isDay(from) || !Dates.isDay(to) || to < from) return Dates.NONE;
+        return Math.max(to, from + 1);
+    }
+
+    // Booked days of one vehicle: non-overlapping [start, end) sorted by start
+    private static final class Bookings {
+        int[] start = new int[4], end = new int[4], rental = new int[4];
+        int size;
+
+        // Position of the last booking starting before day, or -1
+        int lastStartingBefore(int day) {
+            int lo = 0, hi = size - 1, found = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (start[mid] < day) { found = mid; lo = mid + 1; }
+                else hi = mid - 1;
+            }
+            return found;
+        }
+
+        boolean free(int from, int to) {
+            int i = lastStartingBefore(to);
+            return i < 0 || end[i] <= from; // ends are sorted too, so only booking i can reach into the window
+        }
+
+        // Insert keeping the order; caller has checked it is free. Appending in date order is O(1).
+        void insert(int from, int to, int rentalId) {
+            if (size == start.length) {
+                start = Arrays.copyOf(start, size * 2);
+                end = Arrays.copyOf(end, size * 2);
+                rental = Arrays.copyOf(rental, size * 2);
+            }
+            int at = lastStartingBefore(from) + 1;
+            int move = size - at;
+            System.arraycopy(start, at, start, at + 1, move);
+            System.arraycopy(end, at, end, at + 1, move);
+            System.arraycopy(rental, at, rental, at + 1, move);
+            start[at] = from;
+            end[at] = to;
+            rental[at] = rentalId;
+            size++;
+        }
+
+        boolean remove(int from, int rentalId) {
+            int at = lastStartingBefore(from + 1); // the booking starting on day from
+            if (at < 0 || start[at] != from || rental[at] != rentalId) return false;
+            int move = size - at - 1;
+            System.arraycopy(start, at + 1, start, at, move);
+            System.arraycopy(end, at + 1, end, at, move);
+            System.arraycopy(rental, at + 1, rental, at, move);
+            size--;
+            return true;
+        }
+    }
+
+    // Is the vehicle free for [from, to)?
+    synchronized boolean isFree(int vehicleId, int from, int to) {
+        Bookings b = bookings(vehicleId, false);
+        return b == null || b.free(from, to);
+    }
+
+    // Free for [from, to) with no booking starting earlier, i.e. the car could go out now and
+    // this rental would be its current one
+    synchronized boolean isFreeFirst(int vehicleId, int from, int to) {
+        Bookings b = bookings(vehicleId, false);
+        return b == null || b.size == 0 || (b.start[0] >= to);
+    }
+
+    // Rental id of the vehicle's earliest booking (the one it is out on, if rented), or NONE
+    synchronized int first(int vehicleId) {
+        Bookings b = bookings(vehicleId, false);
+        return b == null || b.size == 0 ? NONE : b.rental[0];
+    }
+
+    // True if the vehicle has any booking
+    synchronized boolean hasBookings(int vehicleId) {
+        Bookings b = bookings(vehicleId, false);
+        return b != null && b.size > 0;
+    }
+
+    // True if this rental is in the schedule (rentals with unreadable dates are not)
+    synchronized boolean isScheduled(Rental r) {
+        if (end(r.rentalDay, r.returnDay) == Dates.NONE) return false;
+        Bookings b = bookings(r.vehicleId, false);
+        if (b == null) return false;
+        int at = b.lastStartingBefore(r.rentalDay + 1);
+        return at >= 0 && b.start[at] == r.rentalDay && b.rental[at] == r.id;
+    }
+
+    // Some vehicle of this model that is free for [from, to) and accepted by eligible, or NONE.
+    // Each candidate costs one O(log n) check, and only cars of that model are looked at.
+    synchronized int findFree(String model, int from, int to, IntPredicate eligible) {
+        ensureBuilt();
+        IntSet cars = byModel.get(key(model));
+        if (cars == null) return NONE;
+        for (int i = 0; i < cars.size(); i++) {
+            int id = cars.get(i);
+            Bookings b = bookings(id, false);
+            if ((b == null || b.free(from, to)) && eligible.test(id)) return id;
+        }
+        return NONE;
+    }
+
+    // Record a booking; false (and nothing recorded) if its dates are unreadable or it overlaps another
+    synchronized boolean booked(Rental r) {
+        if (!built) return true; // picked up when the schedule is built
+        int end = end(r.rentalDay, r.returnDay);
+        if (end == Dates.NONE) return false;
+        Bookings b = bookings(r.vehicleId, true);
+        if (!b.free(r.rentalDay, end)) return false;
+        b.insert(r.rentalDay, end, r.id);
+        return true;
+    }
+
+    // A booking ended or was cancelled
+    synchronized void released(Rental r) {
+        if (!built) return;
+        Bookings b = bookings(r.vehicleId, false);
+        if (end(r.rentalDay, r.returnDay) != Dates.NONE && b != null) b.remove(r.rentalDay, r.id);
+    }
+
+    synchronized void vehicleAdded(Vehicle v) {
+        if (built) byModel.computeIfAbsent(key(v.model), k -> new IntSet()).add(v.id);
+    }
+
+    synchronized void vehicleRemoved(Vehicle v) {
+        if (!built) return;
+        IntSet cars = byModel.get(key(v.model));
+        if (cars != null) cars.remove(v.id); // its bookings stay with the rental records
+    }
+
+    // The stores were replaced or cleared: rebuild on next use
+    synchronized void reset() {
+        built = false;
+        slotOf.clear();
+        schedules.clear();
+        byModel.clear();
+    }
+
+    private static String key(String model) {
+        return model == null ? "" : model.trim().toLowerCase();
+    }
+
+    private Bookings bookings(int vehicleId, boolean create) {
+        ensureBuilt();
+        int slot = slotOf.get(vehicleId);
+        if (slot != IntIndex.MISSING) return schedules.get(slot);
+        if (!create) return null;
+        Bookings b = new Bookings();
+        slotOf.put(vehicleId, schedules.size());
+        schedules.add(b);
+        return b;
+    }
+
+    private void ensureBuilt() {
+        if (built) return;
+        built = true;
+        synchronized (vehicles) {
+            for (Vehicle v : vehicles) vehicleAdded(v);
+        }
+        synchronized (rentals) {
+            for (Rental r : rentals) booked(r); // unreadable or clashing old records are left out
+        }
+    }
+}
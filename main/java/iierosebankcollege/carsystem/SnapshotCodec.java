@@ -0,0 +1,638 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Compact binary snapshot of the whole data set.
+// Layout: header (magic, version, ID counters, journal generation), a string table holding every
+// distinct string once, then one section per record type with primitive fields written directly
+// and strings written as small varint indexes into the table.
+// Since version 2 a row directory follows the sections (string offsets, and per section the row ids
+// and row offsets) so open() can open a file without decoding it and decode single rows on demand.
+// Nothing is memory-mapped: a mapped file can be neither replaced nor deleted on Windows, and the next
+// snapshot replaces it (see CarService.writeSnapshot).
+class SnapshotCodec {
+
+    static final int MAGIC = 0x43535332;   // "CSS2" at the start of the file
+    static final short VERSION = 2;        // bump when a section layout changes
+    private static final int HEADER_SIZE = 4 + 2 + 5 * 4 + 8; // magic, version, counters, generation
+
+    // section tags, each followed by the field count (so a reader can reject a layout it doesn't know) and the row count
+    private static final byte VEHICLES = 1;
+    private static final byte CUSTOMERS = 2;
+    private static final byte RENTALS = 3;
+    private static final byte SALES = 4;
+    private static final byte MAINTS = 5;
+
+    private static final int VEHICLE_FIELDS = 7;
+    private static final int CUSTOMER_FIELDS = 5;
+    private static final int RENTAL_FIELDS = 6;
+    private static final int SALE_FIELDS = 5;
+    private static final int MAINT_FIELDS = 6;
+
+    // Everything stored in a snapshot
+    static class Data {
+        ArrayList<Vehicle> vehicles = new ArrayList<>();
+        ArrayList<Customer> customers = new ArrayList<>();
+        ArrayList<Rental> rentals = new ArrayList<>();
+        ArrayList<Sale> sales = new ArrayList<>();
+        ArrayList<Maintenance> maints = new ArrayList<>();
+        int nextVehicleId = 1, nextCustomerId = 1, nextRentalId = 1, nextSaleId = 1, nextMaintId = 1; // ID counters
+        long generation;                   // journal generation the snapshot covers
+    }
+
+    // True if the file starts with this codec's magic number (older files are Java serialization)
+    static boolean isSnapshot(File f) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(f))) {
+            return f.length() >= 4 && in.readInt() == MAGIC;
+        }
+    }
+
+    // True if the file is a snapshot with a row directory, so it can be opened with open()
+    static boolean hasDirectory(File f) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(f))) {
+            return f.length() >= HEADER_SIZE + 8 && in.readInt() == MAGIC && in.readShort() >= 2;
+        }
+    }
+
+    // Write data to file
+    static void write(File file, Data d) throws IOException {
+        write(file, d, Progress.NONE);
+    }
+
+    // Write data to file, reporting rows written to progress
+    static void write(File file, Data d, Progress progress) throws IOException {
+        long total = (long) d.vehicles.size() + d.customers.size() + d.rentals.size() + d.sales.size() + d.maints.size();
+        long done = 0; // rows written so far
+        Strings strings = new Strings();
+        // first pass: collect every distinct string so each is stored once
+        for (Vehicle v : d.vehicles) { strings.add(v.make); strings.add(v.model); strings.add(v.color); strings.add(v.status.label); }
+        for (Customer c : d.customers) { strings.add(c.name); strings.add(c.phone); strings.add(c.email); strings.add(c.address); }
+        for (Rental r : d.rentals) { strings.add(r.rentalDate()); strings.add(r.returnDate()); }
+        for (Sale s : d.sales) strings.add(s.dateSold());
+        for (Maintenance m : d.maints) { strings.add(m.serviceType); strings.add(m.serviceDate()); strings.add(m.mechanic); }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(d.nextVehicleId);
+            out.writeInt(d.nextCustomerId);
+            out.writeInt(d.nextRentalId);
+            out.writeInt(d.nextSaleId);
+            out.writeInt(d.nextMaintId);
+            out.writeLong(d.generation);
+
+            // string table (index 0 is null)
+            int[] stringAt = new int[strings.list.size()]; // file offset of each string
+            out.writeInt(strings.list.size());
+            for (int i = 1; i < strings.list.size(); i++) {
+                byte[] bytes = strings.list.get(i).getBytes(StandardCharsets.UTF_8);
+                stringAt[i] = out.size();
+                writeVarInt(out, bytes.length);
+                out.write(bytes);
+            }
+
+            int[][] rowAt = new int[5][]; // file offset of each row, per section
+            section(out, VEHICLES, VEHICLE_FIELDS, d.vehicles.size());
+            rowAt[0] = new int[d.vehicles.size()];
+            int row = 0;
+            for (Vehicle v : d.vehicles) {
+                rowAt[0][row++] = out.size();
+                out.writeInt(v.id);
+                writeVarInt(out, strings.indexOf(v.make));
+                writeVarInt(out, strings.indexOf(v.model));
+                out.writeInt(v.year);
+                writeVarInt(out, strings.indexOf(v.color));
+                out.writeDouble(v.price);
+                writeVarInt(out, strings.indexOf(v.status.label));
+                if ((++done & 8191) == 0) progress.update(done, total);
+            }
+            section(out, CUSTOMERS, CUSTOMER_FIELDS, d.customers.size());
+            rowAt[1] = new int[d.customers.size()];
+            row = 0;
+            for (Customer c : d.customers) {
+                rowAt[1][row++] = out.size();
+                out.writeInt(c.id);
+                writeVarInt(out, strings.indexOf(c.name));
+                writeVarInt(out, strings.indexOf(c.phone));
+                writeVarInt(out, strings.indexOf(c.email));
+                writeVarInt(out, strings.indexOf(c.address));
+                if ((++done & 8191) == 0) progress.update(done, total);
+            }
+            section(out, RENTALS, RENTAL_FIELDS, d.rentals.size());
+            rowAt[2] = new int[d.rentals.size()];
+            row = 0;
+            for (Rental r : d.rentals) {
+                rowAt[2][row++] = out.size();
+                out.writeInt(r.id);
+                out.writeInt(r.vehicleId);
+                out.writeInt(r.customerId);
+                writeVarInt(out, strings.indexOf(r.rentalDate()));
+                writeVarInt(out, strings.indexOf(r.returnDate()));
+                out.writeDouble(r.totalCost);
+                if ((++done & 8191) == 0) progress.update(done, total);
+            }
+            section(out, SALES, SALE_FIELDS, d.sales.size());
+            rowAt[3] = new int[d.sales.size()];
+            row = 0;
+            for (Sale s : d.sales) {
+                rowAt[3][row++] = out.size();
+                out.writeInt(s.id);
+                out.writeInt(s.vehicleId);
+                out.writeInt(s.customerId);
+                writeVarInt(out, strings.indexOf(s.dateSold()));
+                out.writeDouble(s.sellingPrice);
+                if ((++done & 8191) == 0) progress.update(done, total);
+            }
+            section(out, MAINTS, MAINT_FIELDS, d.maints.size());
+            rowAt[4] = new int[d.maints.size()];
+            row = 0;
+            for (Maintenance m : d.maints) {
+                rowAt[4][row++] = out.size();
+                out.writeInt(m.id);
+                out.writeInt(m.vehicleId);
+                writeVarInt(out, strings.indexOf(m.serviceType));
+                writeVarInt(out, strings.indexOf(m.serviceDate()));
+                out.writeDouble(m.cost);
+                writeVarInt(out, strings.indexOf(m.mechanic));
+                if ((++done & 8191) == 0) progress.update(done, total);
+            }
+
+            // row directory: lets open() find any string or row without reading the rest of the file
+            int directoryAt = out.size();
+            out.writeInt(stringAt.length);
+            for (int at : stringAt) out.writeInt(at);
+            int[][] ids = {
+                d.vehicles.stream().mapToInt(v -> v.id).toArray(),
+                d.customers.stream().mapToInt(c -> c.id).toArray(),
+                d.rentals.stream().mapToInt(r -> r.id).toArray(),
+                d.sales.stream().mapToInt(s -> s.id).toArray(),
+                d.maints.stream().mapToInt(m -> m.id).toArray()
+            };
+            for (int sec = 0; sec < 5; sec++) {
+                out.writeInt(ids[sec].length);
+                out.writeBoolean(ascending(ids[sec])); // ids are normally handed out in order: binary search works
+                for (int id : ids[sec]) out.writeInt(id);
+                for (int at : rowAt[sec]) out.writeInt(at);
+            }
+            out.writeInt(directoryAt); // footer: where the directory starts
+            out.writeInt(MAGIC);
+            progress.update(total, total);
+        }
+    }
+
+    private static boolean ascending(int[] ids) {
+        for (int i = 1; i < ids.length; i++) if (ids[i] <= ids[i - 1]) return false;
+        return true;
+    }
+
+    // Read and decode a whole snapshot file
+    static Data read(File file) throws IOException {
+        return read(file, Progress.NONE);
+    }
+
+    // Read and decode a whole snapshot file, reporting bytes decoded to progress
+    static Data read(File file, Progress progress) throws IOException {
+        try {
+            return read(ByteBuffer.wrap(Files.readAllBytes(file.toPath())), progress); // big-endian, matches DataOutputStream
+        } catch (BufferUnderflowException ex) {
+            throw new IOException("Snapshot file is truncated", ex);
+        }
+    }
+
+    // Decode a snapshot from a buffer positioned at its start
+    static Data read(ByteBuffer buf) throws IOException {
+        return read(buf, Progress.NONE);
+    }
+
+    // The same, reporting bytes decoded to progress
+    static Data read(ByteBuffer buf, Progress progress) throws IOException {
+        if (buf.remaining() < 6 || buf.getInt() != MAGIC) throw new IOException("Not a snapshot file");
+        short version = buf.getShort();
+        if (version > VERSION) throw new IOException("Snapshot version " + version + " is newer than this program");
+        if (version >= 2 && buf.getInt(buf.limit() - 4) != MAGIC) throw new IOException("Snapshot file is truncated");
+
+        Data d = new Data();
+        d.nextVehicleId = buf.getInt();
+        d.nextCustomerId = buf.getInt();
+        d.nextRentalId = buf.getInt();
+        d.nextSaleId = buf.getInt();
+        d.nextMaintId = buf.getInt();
+        d.generation = buf.getLong();
+
+        String[] table = new String[buf.getInt()];
+        for (int i = 1; i < table.length; i++) { // slot 0 stays null
+            byte[] bytes = new byte[readVarInt(buf)];
+            buf.get(bytes);
+            table[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int n = expect(buf, VEHICLES, VEHICLE_FIELDS);
+        d.vehicles.ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            if ((i & 8191) == 0) progress.update(buf.position(), buf.limit());
+            int id = buf.getInt();
+            String make = table[readVarInt(buf)], model = table[readVarInt(buf)];
+            int year = buf.getInt();
+            String color = table[readVarInt(buf)];
+            double price = buf.getDouble();
+            Vehicle v = new Vehicle(id, make, model, year, color, price);
+            v.status = Status.of(table[readVarInt(buf)]);
+            d.vehicles.add(v);
+        }
+        n = expect(buf, CUSTOMERS, CUSTOMER_FIELDS);
+        d.customers.ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            if ((i & 8191) == 0) progress.update(buf.position(), buf.limit());
+            int id = buf.getInt();
+            d.customers.add(new Customer(id, table[readVarInt(buf)], table[readVarInt(buf)], table[readVarInt(buf)], table[readVarInt(buf)]));
+        }
+        n = expect(buf, RENTALS, RENTAL_FIELDS);
+        d.rentals.ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            if ((i & 8191) == 0) progress.update(buf.position(), buf.limit());
+            int id = buf.getInt(), vid = buf.getInt(), cid = buf.getInt();
+            String rDate = table[readVarInt(buf)], ret = table[readVarInt(buf)];
+            d.rentals.add(new Rental(id, vid, cid, rDate, ret, buf.getDouble()));
+        }
+        n = expect(buf, SALES, SALE_FIELDS);
+        d.sales.ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            if ((i & 8191) == 0) progress.update(buf.position(), buf.limit());
+            int id = buf.getInt(), vid = buf.getInt(), cid = buf.getInt();
+            String date = table[readVarInt(buf)];
+            d.sales.add(new Sale(id, vid, cid, date, buf.getDouble()));
+        }
+        n = expect(buf, MAINTS, MAINT_FIELDS);
+        d.maints.ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            if ((i & 8191) == 0) progress.update(buf.position(), buf.limit());
+            int id = buf.getInt(), vid = buf.getInt();
+            String type = table[readVarInt(buf)], date = table[readVarInt(buf)];
+            double cost = buf.getDouble();
+            d.maints.add(new Maintenance(id, vid, type, date, cost, table[readVarInt(buf)]));
+        }
+        return d;
+    }
+
+    // Open a snapshot without decoding it: records are built one at a time when a store touches them.
+    // The file stays open until close(); it may be replaced or deleted meanwhile, the rows are still read
+    // from the version that was opened.
+    static Opened open(File file) throws IOException {
+        Pages pages = new Pages(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+        try {
+            if (pages.size > Integer.MAX_VALUE) throw new IOException("Snapshot too large: " + pages.size + " bytes");
+            return new Opened(pages);
+        } catch (IOException | RuntimeException ex) {
+            pages.close();
+            if (ex instanceof IndexOutOfBoundsException) throw new IOException("Snapshot file is truncated", ex);
+            throw ex;
+        }
+    }
+
+    // An opened snapshot: header values are read up front, rows are exposed as lazy store sources
+    static class Opened implements Closeable {
+        final int nextVehicleId, nextCustomerId, nextRentalId, nextSaleId, nextMaintId; // ID counters
+        final long generation;             // journal generation the snapshot covers
+        final EntityStore.Source<Vehicle> vehicles;
+        final EntityStore.Source<Customer> customers;
+        final EntityStore.Source<Rental> rentals;
+        final EntityStore.Source<Sale> sales;
+        final EntityStore.Source<Maintenance> maints;
+
+        private final Pages buf;           // the file, read at absolute positions
+        private final int stringsAt;       // start of the string offset column
+        private final String[] strings;    // decoded strings, filled in on first use
+
+        private Opened(Pages buf) throws IOException {
+            this.buf = buf;
+            if (buf.limit() < HEADER_SIZE + 8 || buf.getInt(0) != MAGIC) throw new IOException("Not a snapshot file");
+            short version = buf.getShort(4);
+            if (version > VERSION) throw new IOException("Snapshot version " + version + " is newer than this program");
+            if (version < 2 || buf.getInt(buf.limit() - 4) != MAGIC) throw new IOException("Snapshot has no row directory");
+            nextVehicleId = buf.getInt(6);
+            nextCustomerId = buf.getInt(10);
+            nextRentalId = buf.getInt(14);
+            nextSaleId = buf.getInt(18);
+            nextMaintId = buf.getInt(22);
+            generation = buf.getLong(26);
+
+            int at = buf.getInt(buf.limit() - 8); // directory position from the footer
+            strings = new String[buf.getInt(at)];
+            stringsAt = at + 4;
+            at = stringsAt + 4 * strings.length;
+
+            // each section: row count, ascending flag, id column, offset column
+            Section<Vehicle> vs = new Section<>(at, c -> {
+                int id = c.i32();
+                String make = c.str(), model = c.str();
+                int year = c.i32();
+                String color = c.str();
+                double price = c.f64();
+                Vehicle v = new Vehicle(id, make, model, year, color, price);
+                v.status = Status.of(c.str());
+                return v;
+            });
+            Section<Customer> cs = new Section<>(vs.end, c -> new Customer(c.i32(), c.str(), c.str(), c.str(), c.str()));
+            Section<Rental> rs = new Section<>(cs.end, c -> {
+                int id = c.i32(), vid = c.i32(), cid = c.i32();
+                String rDate = c.str(), ret = c.str();
+                return new Rental(id, vid, cid, rDate, ret, c.f64());
+            });
+            Section<Sale> ss = new Section<>(rs.end, c -> {
+                int id = c.i32(), vid = c.i32(), cid = c.i32();
+                String date = c.str();
+                return new Sale(id, vid, cid, date, c.f64());
+            });
+            Section<Maintenance> ms = new Section<>(ss.end, c -> {
+                int id = c.i32(), vid = c.i32();
+                String type = c.str(), date = c.str();
+                double cost = c.f64();
+                return new Maintenance(id, vid, type, date, cost, c.str());
+            });
+            vehicles = vs; customers = cs; rentals = rs; sales = ss; maints = ms;
+        }
+
+        // String by table index, decoded once
+        private String string(int index) {
+            if (index == 0) return null;
+            String s = strings[index];
+            if (s == null) {
+                int at = buf.getInt(stringsAt + 4 * index);
+                Cursor c = new Cursor(at);
+                int len = c.varInt();
+                byte[] bytes = new byte[len];
+                buf.get(c.pos, bytes);
+                s = new String(bytes, StandardCharsets.UTF_8);
+                strings[index] = s; // racing decoders produce equal strings, either one may win
+            }
+            return s;
+        }
+
+        // Reads fields sequentially from a row using absolute buffer reads
+        private class Cursor {
+            int pos;
+
+            Cursor(int pos) {
+                this.pos = pos;
+            }
+
+            int i32() {
+                int v = buf.getInt(pos);
+                pos += 4;
+                return v;
+            }
+
+            double f64() {
+                double v = buf.getDouble(pos);
+                pos += 8;
+                return v;
+            }
+
+            int varInt() {
+                int value = 0, shift = 0;
+                byte b;
+                do {
+                    b = buf.get(pos++);
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                return value;
+            }
+
+            String str() {
+                return string(varInt());
+            }
+        }
+
+        // Builds one record from the cursor placed at the start of its row
+        private interface RowDecoder<T> {
+            T decode(Cursor c);
+        }
+
+        // One section of the row directory, used as a lazy store source
+        private class Section<T> implements EntityStore.Source<T> {
+            final int rows;                // number of rows
+            final boolean ascending;       // ids sorted: binary search instead of an index
+            final int idsAt, rowsAt;       // id column and row offset column
+            final int end;                 // where the next section's directory entry starts
+            final RowDecoder<T> decoder;
+            private IntIndex index;        // id -> row, only built when ids are not sorted
+
+            Section(int at, RowDecoder<T> decoder) {
+                this.rows = buf.getInt(at);
+                this.ascending = buf.get(at + 4) != 0;
+                this.idsAt = at + 5;
+                this.rowsAt = idsAt + 4 * rows;
+                this.end = rowsAt + 4 * rows;
+                this.decoder = decoder;
+            }
+
+            @Override
+            public int size() {
+                return rows;
+            }
+
+            @Override
+            public int rowOf(int id) {
+                if (!ascending) return unsortedRowOf(id);
+                int lo = 0, hi = rows - 1;
+                while (lo <= hi) {
+                    int mid = (lo + hi) >>> 1;
+                    int at = buf.getInt(idsAt + 4 * mid);
+                    if (at < id) lo = mid + 1;
+                    else if (at > id) hi = mid - 1;
+                    else return mid;
+                }
+                return -1;
+            }
+
+            private synchronized int unsortedRowOf(int id) {
+                if (index == null) {
+                    index = new IntIndex(rows);
+                    for (int r = 0; r < rows; r++) index.put(buf.getInt(idsAt + 4 * r), r);
+                }
+                int r = index.get(id);
+                return r == IntIndex.MISSING ? -1 : r;
+            }
+
+            @Override
+            public T decode(int row) {
+                return decoder.decode(new Cursor(buf.getInt(rowsAt + 4 * row)));
+            }
+        }
+
+        // Let go of the file; rows not decoded yet can no longer be read
+        @Override
+        public void close() throws IOException {
+            buf.close();
+        }
+    }
+
+    // A file read through a small cache of pages with positional reads (safe from any thread). Only the
+    // pages touched recently are held, so a large snapshot costs little heap.
+    private static final class Pages implements Closeable {
+        private static final int PAGE_BITS = 12;         // 4 KB pages
+        private static final int PAGE = 1 << PAGE_BITS;
+        private static final int CACHED = 64;            // pages held, in slots by page number
+
+        final long size;
+        private final FileChannel ch;
+        private final byte[][] pages = new byte[CACHED][];
+        private final long[] held = new long[CACHED];    // page number in each slot, -1 for none
+
+        Pages(FileChannel ch) throws IOException {
+            this.ch = ch;
+            this.size = ch.size();
+            Arrays.fill(held, -1);
+        }
+
+        int limit() {
+            return (int) size;
+        }
+
+        byte get(int pos) {
+            return (byte) bits(pos, 1);
+        }
+
+        short getShort(int pos) {
+            return (short) bits(pos, 2);
+        }
+
+        int getInt(int pos) {
+            return (int) bits(pos, 4);
+        }
+
+        long getLong(int pos) {
+            return bits(pos, 8);
+        }
+
+        double getDouble(int pos) {
+            return Double.longBitsToDouble(bits(pos, 8));
+        }
+
+        // n big-endian bytes from pos
+        private synchronized long bits(int pos, int n) {
+            long v = 0;
+            for (int i = 0; i < n; i++) {
+                long at = (long) pos + i;
+                v = v << 8 | (page(at)[(int) (at & (PAGE - 1))] & 0xFF);
+            }
+            return v;
+        }
+
+        synchronized void get(int pos, byte[] dst) {
+            for (int done = 0; done < dst.length; ) {
+                long at = (long) pos + done;
+                int off = (int) (at & (PAGE - 1)), n = Math.min(dst.length - done, PAGE - off);
+                System.arraycopy(page(at), off, dst, done, n);
+                done += n;
+            }
+        }
+
+        // The page holding position at, read in if it is not held. IndexOutOfBoundsException past the end.
+        private byte[] page(long at) {
+            if (at < 0 || at >= size) throw new IndexOutOfBoundsException("Position " + at + " of " + size);
+            long no = at >>> PAGE_BITS;
+            int slot = (int) (no & (CACHED - 1));
+            if (held[slot] != no) {
+                if (pages[slot] == null) pages[slot] = new byte[PAGE];
+                held[slot] = -1; // until it is read in whole
+                ByteBuffer b = ByteBuffer.wrap(pages[slot], 0, (int) Math.min(PAGE, size - (no << PAGE_BITS)));
+                try {
+                    while (b.hasRemaining()) {
+                        if (ch.read(b, (no << PAGE_BITS) + b.position()) < 0) throw new EOFException("Snapshot file shrank");
+                    }
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+                held[slot] = no;
+            }
+            return pages[slot];
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            Arrays.fill(held, -1); // nothing is served from the cache either
+            ch.close();
+        }
+    }
+
+    // Section header: tag, field count, row count
+    private static void section(DataOutputStream out, byte tag, int fields, int rows) throws IOException {
+        out.writeByte(tag);
+        out.writeByte(fields);
+        out.writeInt(rows);
+    }
+
+    // Check a section header and return its row count
+    private static int expect(ByteBuffer buf, byte tag, int fields) throws IOException {
+        byte t = buf.get();
+        byte f = buf.get();
+        if (t != tag || f != fields) throw new IOException("Unexpected section " + t + " with " + f + " fields (wanted " + tag + ")");
+        return buf.getInt();
+    }
+
+    // Unsigned LEB128 varint: 1 byte for values < 128, 2 bytes < 16384, ...
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(ByteBuffer buf) {
+        int value = 0, shift = 0;
+        byte b;
+        do {
+            b = buf.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0); // high bit set: more bytes follow
+        return value;
+    }
+
+    // Distinct strings in first-seen order; index 0 is reserved for null
+    private static class Strings {
+        final ArrayList<String> list = new ArrayList<>();
+        final HashMap<String, Integer> index = new HashMap<>();
+
+        Strings() {
+            list.add(null);
+        }
+
+        void add(String s) {
+            if (s != null && !index.containsKey(s)) {
+                index.put(s, list.size());
+                list.add(s);
+            }
+        }
+
+        int indexOf(String s) {
+            return s == null ? 0 : index.get(s);
+        }
+    }
+}
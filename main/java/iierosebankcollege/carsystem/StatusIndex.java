@@ -0,0 +1,75 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+
+// Secondary index on Vehicle.status: for each status, the ids of the vehicles that have it.
+// Each status has an IntSet, so add, remove and moving a vehicle between statuses are O(1), and counting
+// or listing one status costs O(result) instead of a fleet scan.
+// Status changes are made through set() so the field, the index and a columnar row change together under one lock.
+// The index is built on the first query, so a lazily loaded fleet is not decoded at startup just for this.
+class StatusIndex {
+
+    private final EntityStore<Vehicle> fleet; // every vehicle, read once to build the index
+    private IntSet[] byStatus;               // one set per Status ordinal; null until built
+
+    StatusIndex(EntityStore<Vehicle> fleet) {
+        this.fleet = fleet;
+    }
+
+    // A vehicle was added to the fleet
+    synchronized void added(Vehicle v) {
+        if (byStatus != null) byStatus[v.status.ordinal()].add(v.id);
+    }
+
+    // A vehicle was removed from the fleet
+    synchronized void removed(Vehicle v) {
+        if (byStatus != null) byStatus[v.status.ordinal()].remove(v.id);
+    }
+
+    // Change a vehicle's status and move it to the matching set
+    synchronized void set(Vehicle v, Status to) {
+        if (v.status == to) return;
+        if (byStatus != null) {
+            byStatus[v.status.ordinal()].remove(v.id);
+            byStatus[to.ordinal()].add(v.id);
+        }
+        v.status = to;
+        fleet.updated(v); // columnar store: the row keeps the new status once the view is let go
+    }
+
+    // The fleet was replaced or cleared: rebuild on the next query
+    synchronized void reset() {
+        byStatus = null;
+    }
+
+    // Number of vehicles with this status, O(1)
+    synchronized int count(Status s) {
+        return sets()[s.ordinal()].size();
+    }
+
+    // Ids of the vehicles with this status, O(result)
+    synchronized int[] ids(Status s) {
+        return sets()[s.ordinal()].toArray();
+    }
+
+    private IntSet[] sets() {
+        if (byStatus == null) {
+            IntSet[] sets = new IntSet[Status.values().length];
+            for (int i = 0; i < sets.length; i++) sets[i] = new IntSet();
+            synchronized (fleet) { // iterating: hold the store still
+                for (Vehicle v : fleet) sets[v.status.ordinal()].add(v.id);
+            }
+            byStatus = sets;
+        }
+        return byStatus;
+    }
+}
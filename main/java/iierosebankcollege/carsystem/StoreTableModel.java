@@ -0,0 +1,98 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import javax.swing.table.AbstractTableModel;
+
+// Table model that reads rows straight from an EntityStore instead of copying them into a DefaultTableModel.
+// Only the rows the JTable actually paints are read, and a one-row change fires a one-row event.
+// show(ids) narrows the table to a list of record ids (a search result); show(null) goes back to every row.
+class StoreTableModel<T> extends AbstractTableModel {
+    private static final long serialVersionUID = 1L; // serialization version
+
+    // Reads the value of one column from a record
+    interface Columns<T> {
+        Object value(T record, int column);
+    }
+
+    private final String[] names;          // column headers
+    private final EntityStore<T> store;    // backing rows
+    private final Columns<T> columns;
+    private volatile int[] shown;          // ids of the rows on display, or null for the whole store
+
+    StoreTableModel(EntityStore<T> store, Columns<T> columns, String... names) {
+        this.store = store;
+        this.columns = columns;
+        this.names = names;
+    }
+
+    // Show only the records with these ids, in this order; null shows the whole store again
+    void show(int[] ids) {
+        shown = ids;
+        fireTableDataChanged();
+    }
+
+    boolean isFiltered() {
+        return shown != null;
+    }
+
+    @Override
+    public int getRowCount() {
+        int[] ids = shown;
+        return ids != null ? ids.length : store.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return names.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return names[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        T record;
+        int[] ids = shown;
+        if (ids != null) {
+            if (row >= ids.length) return null;
+            record = store.findById(ids[row]);
+            return record == null ? null : columns.value(record, column); // deleted since the search
+        }
+        synchronized (store) {
+            if (row >= store.size()) return null; // store shrank on another thread; an update event is on its way
+            record = store.get(row); // decoded on demand for lazily loaded stores
+        }
+        return columns.value(record, column);
+    }
+
+    // A record was appended to the store at table position row
+    void rowAdded(int row) {
+        if (shown != null) return; // not part of the search result
+        if (row >= 0) fireTableRowsInserted(row, row);
+    }
+
+    // The record with this id changed in place
+    void rowChanged(int id) {
+        if (shown != null) {
+            fireTableDataChanged(); // few rows on display
+            return;
+        }
+        int row = store.indexOf(id);
+        if (row >= 0) fireTableRowsUpdated(row, row);
+    }
+
+    // A record was removed from table position row (look the position up before removing)
+    void rowRemoved(int row) {
+        if (shown != null) fireTableDataChanged();
+        else if (row >= 0) fireTableRowsDeleted(row, row);
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ */
+
+package iierosebankcollege.carsystem;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Secondary indexes for searching the fleet: hash indexes (make, model, color -> vehicle ids, ignoring case)
+// for the equality fields and sorted ones for the ranges (year -> ids, price band -> ids).
+// A price band holds the prices that agree in their first two digits (e.g. 240,000-249,999), so a price
+// range covers a few hundred bands at most and the number of vehicles in it is a cheap sum of set sizes.
+// A query counts every condition it has and starts from the one that matches the fewest vehicles (status
+// included, from the StatusIndex). The other conditions are checked on columns kept by vehicle id (value
+// codes, year, price), so a vehicle is only read once it matches; a selective query costs
+// O(smallest condition), not O(fleet). Those columns are indexed by the id's serial (CarService.serialOf),
+// so a branch whose ids start high keeps them as short as its fleet.
+// Make, model, color, year and price never change after a vehicle is added, so only add and delete touch
+// these indexes. Built on the first query, like the status index.
+class VehicleIndex {
+
+    // Search conditions; every condition left unset matches everything. Bounds are inclusive.
+    static final class Query {
+        String make, model, color;
+        int minYear = Integer.MIN_VALUE, maxYear = Integer.MAX_VALUE;
+        double minPrice = Double.NEGATIVE_INFINITY, maxPrice = Double.POSITIVE_INFINITY;
+        Status status;
+        int limit = Integer.MAX_VALUE;   // stop after this many matches
+
+        Query make(String make) { this.make = make; return this; }
+        Query model(String model) { this.model = model; return this; }
+        Query color(String color) { this.color = color; return this; }
+        Query years(int min, int max) { minYear = min; maxYear = max; return this; }
+        Query price(double min, double max) { minPrice = min; maxPrice = max; return this; }
+        Query status(Status status) { this.status = status; return this; }
+        Query limit(int limit) { this.limit = limit; return this; }
+
+        boolean matches(Vehicle v) {
+            return (make == null || key(make).equals(key(v.make)))
+                    && (model == null || key(model).equals(key(v.model)))
+                    && (color == null || key(color).equals(key(v.color)))
+                    && v.year >= minYear && v.year <= maxYear
+                    && v.price >= minPrice && v.price <= maxPrice
+                    && (status == null || v.status == status);
+        }
+
+        private boolean hasYears() {
+            return minYear != Integer.MIN_VALUE || maxYear != Integer.MAX_VALUE;
+        }
+
+        private boolean hasPrice() {
+            return minPrice != Double.NEGATIVE_INFINITY || maxPrice != Double.POSITIVE_INFINITY;
+        }
+    }
+
+    // One equality field: each distinct value (ignoring case) gets a small code with the set of its vehicle ids,
+    // and codeOf[serial] is the code of that vehicle's value (-1 for ids not in the fleet)
+    private static final class Field {
+        final HashMap<String, Integer> codes = new HashMap<>();
+        final ArrayList<IntSet> ids = new ArrayList<>();
+        int[] codeOf = new int[0];
+
+        // Code of a value, or -1 if no vehicle has it
+        int code(String value) {
+            Integer c = codes.get(key(value));
+            return c == null ? -1 : c;
+        }
+
+        void add(int id, String value) {
+            int c = codes.computeIfAbsent(key(value), k -> { ids.add(new IntSet()); return ids.size() - 1; });
+            ids.get(c).add(id);
+            codeOf[slot(id)] = c;
+        }
+
+        void remove(int id) {
+            ids.get(codeOf[slot(id)]).remove(id);
+            codeOf[slot(id)] = -1;
+        }
+
+        void clear() {
+            codes.clear();
+            ids.clear();
+            codeOf = new int[0];
+        }
+    }
+
+    private static final int ANY = -2;      // field not part of the query
+
+    private final EntityStore<Vehicle> fleet;
+    private final StatusIndex statuses;
+    private boolean built;
+    private final Field makes = new Field(), models = new Field(), colors = new Field();
+    private final TreeMap<Integer, IntSet> byYear = new TreeMap<>();
+    private final TreeMap<Double, IntSet> byPrice = new TreeMap<>();   // price band -> ids
+    private int[] yearOf = new int[0];       // by id serial, so candidates are checked without reading the vehicle
+    private double[] priceOf = new double[0];
+
+    VehicleIndex(EntityStore<Vehicle> fleet, StatusIndex statuses) {
+        this.fleet = fleet;
+        this.statuses = statuses;
+    }
+
+    // A vehicle was added to the fleet
+    synchronized void added(Vehicle v) {
+        if (built) index(v);
+    }
+
+    // A vehicle was removed from the fleet
+    synchronized void removed(Vehicle v) {
+        if (!built || slot(v.id) >= yearOf.length || makes.codeOf[slot(v.id)] < 0) return;
+        makes.remove(v.id);
+        models.remove(v.id);
+        colors.remove(v.id);
+        unindex(byYear, v.year, v.id);
+        unindex(byPrice, band(v.price), v.id);
+    }
+
+    // The fleet was replaced or cleared: rebuild on the next query
+    synchronized void reset() {
+        built = false;
+        makes.clear();
+        models.clear();
+        colors.clear();
+        byYear.clear();
+        byPrice.clear();
+        yearOf = new int[0];
+        priceOf = new double[0];
+    }
+
+    // Vehicles matching every condition, at most q.limit of them, in the order of the index the search started from
+    synchronized List<Vehicle> find(Query q) {
+        ensureBuilt();
+        List<Vehicle> out = new ArrayList<>();
+        if (q.limit <= 0 || q.minYear > q.maxYear || !(q.minPrice <= q.maxPrice)) return out;
+        int make = q.make == null ? ANY : makes.code(q.make);
+        int model = q.model == null ? ANY : models.code(q.model);
+        int color = q.color == null ? ANY : colors.code(q.color);
+        if (make == -1 || model == -1 || color == -1) return out; // a value no vehicle has
+
+        // the candidates of each condition: one set for an equality, the covered buckets for a range
+        Collection<IntSet> from = null;
+        int best = Integer.MAX_VALUE;
+        for (IntSet s : new IntSet[] {
+                make == ANY ? null : makes.ids.get(make),
+                model == ANY ? null : models.ids.get(model),
+                color == ANY ? null : colors.ids.get(color)}) {
+            if (s != null && s.size() < best) { from = List.of(s); best = s.size(); }
+        }
+        Collection<IntSet> years = q.hasYears() ? byYear.subMap(q.minYear, true, q.maxYear, true).values() : null;
+        int n = total(years);
+        if (n < best) { from = years; best = n; }
+        Collection<IntSet> prices = q.hasPrice() ? byPrice.subMap(band(q.minPrice), true, q.maxPrice, true).values() : null;
+        n = total(prices);
+        if (n < best) { from = prices; best = n; }
+
+        // start from the smallest
+        if (q.status != null && statuses.count(q.status) < best) {
+            for (int id : statuses.ids(q.status)) if (check(id, q, make, model, color, out)) return out;
+            return out;
+        }
+        if (from == null) {
+            synchronized (fleet) { // no usable condition: scan
+                for (Vehicle v : fleet) {
+                    if (q.matches(v)) out.add(v);
+                    if (out.size() >= q.limit) return out;
+                }
+            }
+            return out;
+        }
+        for (IntSet s : from) {
+            for (int i = 0; i < s.size(); i++) if (check(s.get(i), q, make, model, color, out)) return out;
+        }
+        return out;
+    }
+
+    // Total ids in the sets, or MAX_VALUE for a condition that was not given
+    private static int total(Collection<IntSet> sets) {
+        if (sets == null) return Integer.MAX_VALUE;
+        int n = 0;
+        for (IntSet s : sets) n += s.size(); // a few dozen years, a few hundred price bands
+        return n;
+    }
+
+    // Checks a candidate on the id-indexed columns first and reads the vehicle only if those match (for its
+    // status); true once the limit is reached
+    private boolean check(int id, Query q, int make, int model, int color, List<Vehicle> out) {
+        int i = slot(id);
+        if (i >= yearOf.length || makes.codeOf[i] < 0) return false; // not indexed (yet)
+        if ((make != ANY && makes.codeOf[i] != make) || (model != ANY && models.codeOf[i] != model)
+                || (color != ANY && colors.codeOf[i] != color)
+                || yearOf[i] < q.minYear || yearOf[i] > q.maxYear
+                || !(priceOf[i] >= q.minPrice && priceOf[i] <= q.maxPrice)) return false;
+        Vehicle v = fleet.findById(id);
+        if (v != null && (q.status == null || v.status == q.status)) out.add(v);
+        return out.size() >= q.limit;
+    }
+
+    // Price band: the price cut down to its first two digits, so bands are 1% to 10% wide
+    static double band(double price) {
+        if (!(price > 0) || Double.isInfinite(price)) return price <= 0 ? 0 : price; // zero, negative, NaN, infinity
+        double unit = Math.pow(10, Math.floor(Math.log10(price)) - 1);
+        return Math.min(price, Math.floor(price / unit) * unit); // never above the price itself, despite rounding
+    }
+
+    static String key(String s) {
+        return s == null ? "" : s.trim().toLowerCase();
+    }
+
+    private void index(Vehicle v) {
+        int i = slot(v.id);
+        if (i >= yearOf.length) grow(i);
+        makes.add(v.id, v.make);
+        models.add(v.id, v.model);
+        colors.add(v.id, v.color);
+        yearOf[i] = v.year;
+        priceOf[i] = v.price;
+        byYear.computeIfAbsent(v.year, k -> new IntSet()).add(v.id);
+        byPrice.computeIfAbsent(band(v.price), k -> new IntSet()).add(v.id);
+    }
+
+    // Column position of an id. The fleet is one branch's, and its ids come from a counter, so the columns
+    // stay about as long as the fleet
+    private static int slot(int id) {
+        return CarService.serialOf(id);
+    }
+
+    private void grow(int slot) {
+        int n = Math.max(slot + 1, Math.max(16, yearOf.length * 2));
+        for (Field f : new Field[] {makes, models, colors}) {
+            int old = f.codeOf.length;
+            f.codeOf = Arrays.copyOf(f.codeOf, n);
+            Arrays.fill(f.codeOf, old, n, -1);
+        }
+        yearOf = Arrays.copyOf(yearOf, n);
+        priceOf = Arrays.copyOf(priceOf, n);
+    }
+
+    private static <K> void unindex(Map<K, IntSet> index, K key, int id) {
+        IntSet s = index.get(key);
+        if (s != null && s.remove(id) && s.size() == 0) index.remove(key);
+    }
+
+    private void ensureBuilt() {
+        if (built) return;
+        built = true;
+        synchronized (fleet) { // iterating: hold the store still
+            for (Vehicle v : fleet) index(v);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class AnalyticsIT {
+
+    public AnalyticsIT() {
+    }
+
+    private static final String[] MAKES = {"Toyota", "VW", "BMW", "Ford", "Kia"};
+    private static final String[] MECHANICS = {"Joy", "Sam", "Thabo", "Pieter"};
+
+    private File dataFile;
+    private CarService service;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        dataFile = File.createTempFile("carsystem", ".ser");
+        dataFile.delete();
+        service = new CarService(dataFile, new File(dataFile.getPath() + ".journal"));
+        Random rnd = new Random(9);
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        for (int i = 0; i < 3000; i++) {
+            service.addVehicle(MAKES[rnd.nextInt(MAKES.length)], "Model" + rnd.nextInt(5), 2015 + rnd.nextInt(10), "White",
+                    50_000 + rnd.nextInt(450_000));
+        }
+        for (int i = 1; i <= 3000; i += 2) service.addSale(i, 1, "2025-03-01", 40_000 + rnd.nextInt(500_000));
+        for (int i = 2; i <= 3000; i += 3) service.addRental(i, 1, "2025-03-01", "2025-03-05", 1000 + rnd.nextInt(4000));
+        for (int i = 0; i < 40_000; i++) { // more rows than one slice, so the pools split the work
+            service.addMaint(1 + rnd.nextInt(3000), "Service", "2025-02-01", rnd.nextInt(20_000) + 0.5, MECHANICS[rnd.nextInt(MECHANICS.length)]);
+        }
+        for (int i = 1; i <= 3000; i += 97) service.deleteVehicle(i); // their records stay, without a vehicle
+    }
+
+    @AfterEach
+    public void cleanup() {
+        dataFile.delete();
+    }
+
+    // "make year" -> {count, sum} the slow way: a loop over the lists with a lookup per record
+    private Map<String, double[]> averageByScan() {
+        Map<String, double[]> out = new TreeMap<>();
+        for (Sale s : service.sales.toList()) {
+            Vehicle v = service.findVehicle(s.vehicleId);
+            if (v == null) continue;
+            double[] a = out.computeIfAbsent(v.make + " " + v.year, k -> new double[2]);
+            a[0]++;
+            a[1] += s.sellingPrice;
+        }
+        return out;
+    }
+
+    @Test
+    public void testQueriesMatchAScanAtAnyParallelism() {
+        Analytics.Snapshot data = service.analyticsSnapshot();
+        Map<String, double[]> expected = averageByScan();
+        assertTrue(expected.size() > 40);
+        Map<Integer, Double> maintByVehicle = new HashMap<>();
+        Map<String, Double> byMechanic = new HashMap<>();
+        for (Maintenance m : service.maints.toList()) {
+            maintByVehicle.merge(m.vehicleId, m.cost, Double::sum);
+            byMechanic.merge(m.mechanic, m.cost, Double::sum);
+        }
+        int[] costly = service.vehicles.toList().stream()
+                .filter(v -> maintByVehicle.getOrDefault(v.id, 0.0) > 0.30 * v.price).mapToInt(v -> v.id).sorted().toArray();
+        assertTrue(costly.length > 0);
+
+        for (int threads : new int[] {1, 2, 4}) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Analytics a = new Analytics(data, pool);
+                List<Analytics.Row> rows = a.averageSellingPrice();
+                assertEquals(expected.size(), rows.size());
+                for (Analytics.Row r : rows) {
+                    double[] e = expected.get(r.name + " " + r.year);
+                    assertEquals((long) e[0], r.count, r.name + " " + r.year);
+                    assertEquals(e[1] / e[0], r.average(), 1e-6);
+                }
+
+                List<Analytics.Row> top = a.topMechanics(2);
+                assertEquals(2, top.size());
+                assertTrue(top.get(0).total >= top.get(1).total);
+                for (Analytics.Row r : top) assertEquals(byMechanic.get(r.name), r.total, 1e-3);
+
+                assertArrayEquals(costly, a.maintenanceOver(0.30));
+                double rentals = a.rentalIncomeByMake().stream().mapToDouble(r -> r.total).sum();
+                assertEquals(service.rentals.toList().stream().filter(r -> service.findVehicle(r.vehicleId) != null)
+                        .mapToDouble(r -> r.totalCost).sum(), rentals, 1e-3);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // the snapshot is a copy: later writes do not show up in it
+    @Test
+    public void testSnapshotIsAPointInTimeCopy() {
+        Analytics.Snapshot data = service.analyticsSnapshot();
+        long before = new Analytics(data, ForkJoinPool.commonPool()).averageSellingPrice().stream().mapToLong(r -> r.count).sum();
+        Vehicle v = service.addVehicle("Kia", "Rio", 2024, "Red", 250_000);
+        assertNotNull(service.addSale(v.id, 1, "2025-04-01", 240_000));
+        assertEquals(before, new Analytics(data, ForkJoinPool.commonPool()).averageSellingPrice().stream().mapToLong(r -> r.count).sum());
+        assertEquals(before + 1, new Analytics(service.analyticsSnapshot(), ForkJoinPool.commonPool())
+                .averageSellingPrice().stream().mapToLong(r -> r.count).sum());
+    }
+
+    // short run of the benchmark harness: a result per query and thread count
+    @Test
+    public void testBenchmarkReportsEveryQueryAndThreadCount() throws Exception {
+        List<Bench.Result> results = AnalyticsBench.run(AnalyticsBench.seed(20_000, 1), new int[] {1, 2}, 1, 3);
+        assertEquals(8, results.size());
+        for (Bench.Result r : results) assertTrue(r.score() > 0 && r.secondary("speedup") > 0, r.toString());
+        assertEquals("2", results.get(7).param("threads"));
+        assertEquals(1.0, results.get(0).secondary("speedup"));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class ApiServerIT {
+
+    public ApiServerIT() {
+    }
+
+    private File dataFile;
+    private File journalFile;
+    private CarService service;
+    private ApiServer api;
+    private URI base;
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @BeforeAll
+    public static void noDelay() {
+        System.setProperty("sun.net.httpserver.nodelay", "true"); // as CarSystem --server runs it
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        dataFile = File.createTempFile("carsystem", ".ser");
+        journalFile = File.createTempFile("carsystem", ".journal");
+        dataFile.delete();
+        journalFile.delete();
+        service = new CarService(dataFile, journalFile);
+        service.openJournal();
+        api = new ApiServer(service, 0); // any free port
+        api.start();
+        base = URI.create("http://localhost:" + api.port());
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        api.stop();
+        service.close();
+        dataFile.delete();
+        journalFile.delete();
+    }
+
+    private HttpResponse<String> send(String method, String path, String json) throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(base.resolve(path));
+        b.method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+        return client.send(b.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void testRentalLifecycleOverHttp() throws Exception {
+        HttpResponse<String> v = send("POST", "/vehicles",
+                "{\"make\":\"BMW\",\"model\":\"320i\",\"year\":2022,\"color\":\"Blue\",\"price\":5000000}");
+        assertEquals(201, v.statusCode());
+        assertEquals("Available", Json.parseObject(v.body()).get("status"));
+        assertEquals(201, send("POST", "/customers",
+                "{\"name\":\"Sam\",\"phone\":\"0823163452\",\"email\":\"sam@mail.com\",\"address\":\"Cape Town\"}").statusCode());
+
+        String rental = "{\"vehicleId\":1,\"customerId\":1,\"rentalDate\":\"2025-03-12\",\"returnDate\":\"2025-03-18\",\"totalCost\":4000}";
+        assertEquals(201, send("POST", "/rentals", rental).statusCode());
+        assertEquals(409, send("POST", "/rentals", rental).statusCode()); // already rented
+        assertEquals("Rented", Json.parseObject(send("GET", "/vehicles/1", null).body()).get("status"));
+
+        assertEquals(204, send("DELETE", "/rentals/1", null).statusCode()); // close
+        assertEquals(404, send("DELETE", "/rentals/1", null).statusCode());
+        assertEquals(201, send("POST", "/sales", "{\"vehicleId\":1,\"customerId\":1,\"sellingPrice\":580000}").statusCode());
+        assertEquals(LocalDate.now().toString(), service.findSale(1).dateSold()); // no date: today
+        assertEquals(201, send("POST", "/maintenance",
+                "{\"vehicleId\":1,\"serviceType\":\"Oil Change\",\"serviceDate\":\"2025-05-20\",\"cost\":550,\"mechanic\":\"Joy\"}").statusCode());
+
+        Map<String, Object> report = Json.parseObject(send("GET", "/reports", null).body());
+        assertEquals(584000.0, report.get("revenue")); // the closed rental still counts
+        assertEquals(550.0, report.get("maintenanceSpend"));
+        assertEquals(580000.0, Json.parseObject(send("GET", "/reports?make=bmw", null).body()).get("salesRevenue"));
+        assertEquals(400, send("GET", "/reports?month=March", null).statusCode());
+
+        Map<String, Object> page = Json.parseObject(send("GET", "/sales?offset=0&limit=10", null).body()
+                .replaceAll("\"items\":\\[.*\\]", "\"items\":null")); // flat parser: drop the array
+        assertEquals(1.0, page.get("total"));
+        Map<String, Object> serviced = Json.parseObject(send("GET", "/vehicles?status=Maintenance", null).body()
+                .replaceAll("\"items\":\\[.*\\]", "\"items\":null"));
+        assertEquals(1.0, serviced.get("total")); // sold, then sent for service
+        assertEquals(400, send("GET", "/vehicles?status=Lost", null).statusCode());
+        Map<String, Object> found = Json.parseObject(send("GET", "/vehicles?make=bmw&minYear=2020&maxPrice=6000000", null).body()
+                .replaceAll("\"items\":\\[.*\\]", "\"items\":null"));
+        assertEquals(1.0, found.get("total"));
+        assertEquals(400, send("GET", "/vehicles?maxPrice=cheap", null).statusCode());
+        assertTrue(send("GET", "/customers?q=sam", null).body().contains("\"email\":\"sam@mail.com\""));
+        assertEquals("{\"items\":[]}", send("GET", "/customers?q=nobody%20here", null).body());
+    }
+
+    @Test
+    public void testReservationsOverHttp() throws Exception {
+        send("POST", "/vehicles", "{\"make\":\"Toyota\",\"model\":\"Corolla\",\"year\":2020,\"color\":\"White\",\"price\":150000}");
+        send("POST", "/customers", "{\"name\":\"Sam\",\"phone\":\"0823163452\",\"email\":\"sam@mail.com\",\"address\":\"Cape Town\"}");
+        String booking = "{\"vehicleId\":1,\"customerId\":1,\"rentalDate\":\"2025-03-10\",\"returnDate\":\"2025-03-14\",\"totalCost\":2000}";
+        assertEquals(201, send("POST", "/reservations", booking).statusCode());
+        assertEquals(409, send("POST", "/reservations", booking).statusCode()); // same days
+        assertEquals(Boolean.FALSE, Json.parseObject(send("GET", "/reservations?vehicleId=1&from=2025-03-12&to=2025-03-13", null).body()).get("free"));
+        assertEquals(404, send("GET", "/reservations?model=Corolla&from=2025-03-12&to=2025-03-13", null).statusCode());
+        assertEquals(200, send("GET", "/reservations?model=Corolla&from=2025-03-14&to=2025-03-15", null).statusCode());
+        assertEquals(400, send("GET", "/reservations?vehicleId=1&from=soon&to=2025-03-13", null).statusCode());
+        HttpResponse<String> sale = send("POST", "/sales", "{\"vehicleId\":1,\"customerId\":1,\"sellingPrice\":140000}");
+        assertEquals(409, sale.statusCode()); // a reserved car is not sold
+        assertTrue(sale.body().contains("has bookings"), sale.body());
+
+        assertEquals(200, send("POST", "/reservations/1", null).statusCode()); // pick up
+        assertEquals("Rented", Json.parseObject(send("GET", "/vehicles/1", null).body()).get("status"));
+        assertEquals(204, send("DELETE", "/reservations/1", null).statusCode());
+        assertEquals("Available", Json.parseObject(send("GET", "/vehicles/1", null).body()).get("status"));
+    }
+
+    @Test
+    public void testBadRequestsAreRejected() throws Exception {
+        assertEquals(400, send("POST", "/vehicles", "{\"make\":").statusCode()); // broken JSON
+        assertEquals(400, send("POST", "/vehicles", "{\"make\":\"VW\"}").statusCode()); // fields missing
+        assertEquals(400, send("GET", "/vehicles/abc", null).statusCode());
+        assertEquals(404, send("GET", "/customers/42", null).statusCode());
+        assertEquals(405, send("PUT", "/vehicles/1", "{}").statusCode());
+        assertEquals(400, send("POST", "/vehicles", "{\"make\":\"VW\",\"model\":\"Polo\",\"year\":2020.5,\"color\":\"Red\",\"price\":1}").statusCode());
+        String longMake = "x".repeat(CarService.MAX_TEXT + 1); // more than the journal can hold: refused before it
+        assertEquals(400, send("POST", "/vehicles", "{\"make\":\"" + longMake + "\",\"model\":\"Polo\",\"year\":2020,\"color\":\"Red\",\"price\":1}").statusCode());
+        assertEquals(400, send("POST", "/vehicles", "{\"make\":\"" + "x".repeat(1 << 20) + "\"}").statusCode()); // body too large
+        assertEquals(0, service.vehicles.size());
+
+        // malformed fields are the client's mistake, not a clash with the data
+        String booking = "{\"vehicleId\":%s,\"customerId\":1,\"rentalDate\":\"%s\",\"returnDate\":\"%s\",\"totalCost\":100}";
+        assertEquals(400, send("POST", "/rentals", String.format(booking, "1", "soon", "2025-03-18")).statusCode());
+        assertEquals(400, send("POST", "/rentals", String.format(booking, "1", "2025-03-12", "2025-03-11")).statusCode());
+        assertEquals(400, send("POST", "/reservations", String.format(booking, "1", "2025-03-12", "18/03/2025")).statusCode());
+        assertEquals(400, send("POST", "/rentals", String.format(booking, "3.7", "2025-03-12", "2025-03-18")).statusCode());
+        assertEquals(400, send("POST", "/reservations", String.format(booking, "4294967297", "2025-03-12", "2025-03-18")).statusCode());
+        assertEquals(409, send("POST", "/rentals", String.format(booking, "1", "2025-03-12", "2025-03-18")).statusCode()); // no car 1
+        assertEquals(400, send("POST", "/sales", "{\"vehicleId\":1.5,\"customerId\":1,\"sellingPrice\":1}").statusCode());
+        assertEquals(400, send("POST", "/maintenance",
+                "{\"vehicleId\":1e10,\"serviceType\":\"Oil\",\"serviceDate\":\"2025-05-20\",\"cost\":1,\"mechanic\":\"Joy\"}").statusCode());
+        assertEquals(400, send("POST", "/sales", "{\"vehicleId\":1,\"customerId\":1,\"dateSold\":\"soon\",\"sellingPrice\":1}").statusCode());
+        assertEquals(400, send("POST", "/maintenance",
+                "{\"vehicleId\":1,\"serviceType\":\"Oil\",\"serviceDate\":\"20/05/2025\",\"cost\":1,\"mechanic\":\"Joy\"}").statusCode());
+    }
+
+    @Test
+    public void testMetricsInPrometheusFormat() throws Exception {
+        send("POST", "/vehicles", "{\"make\":\"VW\",\"model\":\"Polo\",\"year\":2020,\"color\":\"Red\",\"price\":200000}");
+        assertEquals(404, send("DELETE", "/vehicles/9", null).statusCode());
+        HttpResponse<String> m = send("GET", "/metrics", null);
+        assertEquals(200, m.statusCode());
+        assertTrue(m.headers().firstValue("Content-Type").orElse("").startsWith("text/plain; version=0.0.4"));
+        assertTrue(m.body().contains("carsystem_operation_seconds_count{operation=\"addVehicle\"} 1\n"), m.body());
+        assertTrue(m.body().contains("carsystem_operation_failures_total{operation=\"deleteVehicle\"} 1\n"), m.body());
+        assertTrue(m.body().contains("carsystem_records{table=\"vehicles\"} 1\n"), m.body());
+        assertEquals(405, send("POST", "/metrics", "{}").statusCode());
+    }
+
+    @Test
+    public void testJsonEscapesRoundTrip() {
+        String json = Json.object().put("name", "O\"Neil \\ \n\u0001").put("n", 2.5).put("ok", true).toString();
+        Map<String, Object> f = Json.parseObject(json);
+        assertEquals("O\"Neil \\ \n\u0001", f.get("name"));
+        assertEquals(2.5, f.get("n"));
+        assertEquals(Boolean.TRUE, f.get("ok"));
+    }
+
+    // short run of the load-test harness: every request is served and the report has numbers in it
+    @Test
+    public void testLoadHarnessReportsThroughputAndLatency() throws Exception {
+        LoadTest.Report r = new LoadTest(base).run(8, Duration.ofSeconds(2));
+        assertEquals(0, r.errors);
+        assertTrue(r.requests > 0);
+        assertTrue(r.perSecond() > 0);
+        assertTrue(r.p99Micros >= r.p50Micros && r.p50Micros > 0);
+    }
+}
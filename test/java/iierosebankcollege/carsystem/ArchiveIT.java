@@ -0,0 +1,194 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class ArchiveIT {
+
+    public ArchiveIT() {
+    }
+
+    private File dir, data, journal, history;
+    private CarService service;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("archive").toFile();
+        data = new File(dir, "data.ser");
+        journal = new File(dir, "data.journal");
+        history = Archive.dirFor(data);
+        service = open(-1);
+    }
+
+    @AfterEach
+    public void cleanup() throws Exception {
+        service.close();
+        delete(dir);
+    }
+
+    private CarService open(int keepDays) throws Exception {
+        CarService s = new CarService(data, journal);
+        s.openArchive(history, keepDays);
+        s.load();
+        s.openJournal();
+        return s;
+    }
+
+    private CarService reopen(int keepDays) throws Exception {
+        service.close();
+        service = open(keepDays);
+        return service;
+    }
+
+    private static void delete(File f) {
+        File[] files = f.listFiles();
+        if (files != null) for (File c : files) delete(c);
+        f.delete();
+    }
+
+    @Test
+    public void testClosedRentalsStayFindable() throws Exception {
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+        Rental r = service.addRental(1, 1, "2025-03-01", "2025-03-05", 500);
+        assertTrue(service.closeRental(r.id));
+        assertNull(service.rentals.findById(r.id)); // out of memory
+        assertEquals(500, service.findRental(r.id).totalCost);
+        assertEquals(List.of(r.id), ids(service.rentalsBetween("2025-03-01", "2025-03-31")));
+        assertTrue(service.rentalsBetween("2025-04-01", "2025-04-30").isEmpty());
+        assertFalse(service.startRental(r.id)); // archived means closed
+
+        // the journal closes it again on replay: still one record
+        reopen(-1);
+        assertEquals("2025-03-05", service.findRental(r.id).returnDate());
+        assertEquals(List.of(r.id), ids(service.rentalsBetween("2025-01-01", "2025-12-31")));
+        service.writeSnapshot(Progress.NONE);
+        reopen(-1);
+        assertEquals(List.of(r.id), ids(service.rentalsBetween("2025-01-01", "2025-12-31")));
+        assertEquals(500, service.reports().total().rentalRevenue(), 1e-9); // counted from the archive
+        assertEquals(4, service.reports().month(2025, 3).carDays);
+
+        // closed inside a batch: archived at the commit
+        Rental next = service.addRental(1, 1, "2025-05-01", "2025-05-02", 100);
+        CommandBatch batch = new CommandBatch();
+        batch.closeRental(next.id);
+        assertTrue(service.apply(batch).committed);
+        assertEquals(next.id, service.findRental(next.id).id);
+        reopen(-1);
+        assertEquals(600, service.reports().total().rentalRevenue(), 1e-9); // once each, whichever tier
+        assertEquals(2, service.reports().total().rentals);
+    }
+
+    @Test
+    public void testOldSalesAndServicesLeaveMemory() throws Exception {
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        for (int i = 0; i < 4; i++) service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+        Sale old = service.addSale(1, 1, "2020-06-01", 250_000);
+        Sale recent = service.addSale(2, 1, "2025-06-01", 280_000);
+        service.importSales(List.of(new Sale(0, 3, 1, "sometime", 1))); // from an older file, no date to judge by: stays
+        Maintenance oldService = service.addMaint(4, "Oil", "2019-02-03", 50, "Joy");
+        service.addMaint(4, "Tyres", "2025-02-03", 900, "Joy");
+        double revenue = service.reports().total().salesRevenue();
+        double spend = service.reports().total().maintenanceSpend();
+        service.writeSnapshot(Progress.NONE); // keepDays < 0: moves nothing
+        assertEquals(3, service.sales.size());
+        long before = data.length();
+
+        assertEquals(2, service.archive("2024-01-01"));
+        assertEquals(2, service.sales.size());
+        assertEquals(1, service.maints.size());
+        assertNull(service.sales.findById(old.id));
+        assertEquals(250_000, service.findSale(old.id).sellingPrice);
+        assertEquals("Oil", service.findMaint(oldService.id).serviceType);
+        assertEquals(List.of(old.id, recent.id), ids(service.salesBetween("2020-01-01", "2025-12-31")));
+        assertEquals(2, service.maintsBetween("2019-01-01", "2025-12-31").size());
+        assertEquals(revenue, service.reports().total().salesRevenue(), 1e-9); // history still counts
+        assertTrue(data.length() < before); // the snapshot holds less
+
+        // after a restart the totals are rebuilt from both tiers
+        reopen(-1);
+        assertEquals(revenue, service.reports().total().salesRevenue(), 1e-9);
+        assertEquals(spend, service.reports().total().maintenanceSpend(), 1e-9);
+        assertEquals(250_000, service.findSale(old.id).sellingPrice);
+        assertEquals(0, service.archive("2024-01-01")); // nothing older left
+        assertThrows(IllegalArgumentException.class, () -> service.archive("soon"));
+    }
+
+    @Test
+    public void testSnapshotArchivesByAge() throws Exception {
+        reopen(365);
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+        service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+        String today = LocalDate.now().toString();
+        service.addMaint(1, "Oil", LocalDate.now().minusYears(2).toString(), 50, "Joy");
+        service.addMaint(2, "Oil", today, 50, "Joy");
+        service.writeSnapshot(Progress.NONE);
+        assertEquals(1, service.maints.size());
+        assertEquals(2, service.maintsBetween(LocalDate.now().minusYears(3).toString(), today).size());
+        assertEquals(1, service.metrics.prometheus().lines().filter(l -> l.equals("carsystem_archive_records 1")).count());
+    }
+
+    @Test
+    public void testClearDeletesTheHistory() throws Exception {
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+        Rental r = service.addRental(1, 1, "2025-03-01", "2025-03-05", 500);
+        service.closeRental(r.id);
+        service.writeSnapshot(Progress.NONE);
+        service.clear();
+        assertNull(service.findRental(r.id));
+        assertTrue(service.rentalsBetween("2025-01-01", "2025-12-31").isEmpty());
+    }
+
+    // a crash can leave a torn frame, or frames the index does not know of yet
+    @Test
+    public void testOpeningRecoversFromACrash() throws Exception {
+        File d = new File(dir, "raw");
+        Archive a = new Archive(d);
+        for (int i = 1; i <= 1000; i++) a.add(new Maintenance(i, i % 7, "Service", "2025-03-" + (10 + i % 9), 450, "Joy"));
+        a.add(new Maintenance(1001, 1, "Service", "later", 450, "Joy"));
+        a.flush();
+        assertTrue(a.bytes() < 1000 * 10, "compressed to " + a.bytes()); // the records are much alike
+        assertEquals(1001, a.records());
+
+        File march = new File(d, "maintenance-2025-03.arc");
+        try (FileOutputStream out = new FileOutputStream(march, true)) {
+            out.write(new byte[] {0, 0, 1, 0, 0, 0, 0, 5, 1, 2, 3}); // frame header and a little of its body
+        }
+        a = new Archive(d);
+        assertEquals(1000, a.between(Archive.Table.MAINTS, Dates.parse("2025-03-01"), Dates.parse("2025-03-31")).size());
+        a.add(new Maintenance(1002, 1, "Brakes", "2025-03-20", 900, "Sam"));
+        a.flush(); // the torn frame is cut off first
+        assertEquals(1002, a.<Maintenance>all(Archive.Table.MAINTS).size());
+        assertEquals("Brakes", a.findMaint(1002).serviceType);
+        assertNull(a.findMaint(5000));
+
+        assertTrue(new File(d, "archive.index").delete()); // index lost: rebuilt from the files
+        a = new Archive(d);
+        assertEquals(1002, a.records());
+        assertEquals(Archive.UNDATED, Archive.month(Dates.parse("later")));
+        assertEquals("later", a.findMaint(1001).serviceDate());
+        assertEquals(1000, a.findMaint(1000).id);
+    }
+
+    private static List<Integer> ids(List<?> records) {
+        return records.stream().map(r -> r instanceof Rental ? ((Rental) r).id : ((Sale) r).id).toList();
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.swing.SwingUtilities;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class BackgroundTaskIT {
+
+    public BackgroundTaskIT() {
+    }
+
+    private static final long EDT_BUDGET_MS = 100; // longest the event thread may be unresponsive
+
+    private File file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = File.createTempFile("carsystem", ".snapshot");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        file.delete();
+    }
+
+    private static SnapshotCodec.Data fleet(int size) {
+        SnapshotCodec.Data d = new SnapshotCodec.Data();
+        String[] makes = {"Toyota", "BMW", "VW", "Ford", "Audi"};
+        for (int i = 1; i <= size; i++) {
+            d.vehicles.add(new CarSystem.Vehicle(i, makes[i % 5], "Model" + (i % 40), 2000 + i % 25, "White", 100000 + i));
+        }
+        d.nextVehicleId = size + 1;
+        return d;
+    }
+
+    // saving 1M vehicles in the background must leave the event thread responsive
+    @Test
+    public void testEventThreadStaysResponsiveWhileSaving() throws Exception {
+        SnapshotCodec.Data d = fleet(1_000_000);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<Object> outcome = new AtomicReference<>();
+
+        SwingUtilities.invokeAndWait(() -> new BackgroundTask<Void>(p -> { SnapshotCodec.write(file, d, p); return null; },
+                done -> { outcome.set("done"); finished.countDown(); },
+                error -> { outcome.set(error); finished.countDown(); }).execute());
+
+        long worst = 0;
+        while (finished.getCount() > 0) {
+            long start = System.nanoTime();
+            SwingUtilities.invokeAndWait(() -> { }); // round trip through the event queue
+            worst = Math.max(worst, (System.nanoTime() - start) / 1_000_000);
+            Thread.sleep(5);
+        }
+        assertEquals("done", outcome.get());
+        assertTrue(worst < EDT_BUDGET_MS, "event thread blocked for " + worst + "ms");
+        try (SnapshotCodec.Opened m = SnapshotCodec.open(file)) {
+            assertEquals(1_000_000, m.vehicles.size());
+        }
+    }
+
+    @Test
+    public void testCancelStopsWorkAndReportsOnce() throws Exception {
+        SnapshotCodec.Data d = fleet(200_000);
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<Object> outcome = new AtomicReference<>();
+        AtomicReference<BackgroundTask<Void>> task = new AtomicReference<>();
+
+        SwingUtilities.invokeAndWait(() -> {
+            BackgroundTask<Void> t = new BackgroundTask<>(p -> {
+                p.update(0, 1);
+                task.get().requestCancel(); // user clicks Cancel while the work is running
+                SnapshotCodec.write(file, d, p);
+                return null;
+            }, done -> { outcome.set("done"); finished.countDown(); },
+               error -> { outcome.set(error); finished.countDown(); });
+            task.set(t);
+            t.execute();
+        });
+
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+        assertTrue(outcome.get() instanceof CancellationException);
+    }
+
+    // journal replay and clear report to the progress they are given (the window's bar), and stop when it cancels
+    @Test
+    public void testReplayAndClearReportProgressAndCancel() throws Exception {
+        File journal = File.createTempFile("carsystem", ".journal");
+        try {
+            CarService service = new CarService(file, journal);
+            service.openJournal();
+            for (int i = 0; i < 3000; i++) service.addVehicle("Toyota", "Corolla", 2020, "White", 1000 + i);
+            service.close();
+
+            List<Long> seen = new ArrayList<>();
+            CarService loaded = new CarService(file, journal);
+            loaded.openJournal((done, total) -> { assertEquals(journal.length(), total); seen.add(done); });
+            assertEquals(3000, loaded.vehicles.size());
+            assertEquals(2, seen.size()); // every 1,024 records
+            assertTrue(seen.get(0) < seen.get(1));
+            loaded.close();
+
+            CarService cancelled = new CarService(file, journal);
+            assertThrows(CancellationException.class, () -> cancelled.openJournal((done, total) -> { throw new CancellationException(); }));
+            assertEquals(1024, cancelled.vehicles.size()); // as far as it got
+            CarService again = new CarService(file, journal);
+            again.openJournal(); // the journal file was left whole
+            assertEquals(3000, again.vehicles.size());
+
+            assertThrows(CancellationException.class, () -> again.clear((done, total) -> { throw new CancellationException(); }));
+            assertEquals(3000, again.vehicles.size()); // cancelled before it started: nothing cleared
+            seen.clear();
+            again.clear((done, total) -> seen.add(done));
+            assertEquals(0, again.vehicles.size());
+            assertEquals(Arrays.asList(0L), seen);
+            again.close();
+        } finally {
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testFailureReportedOnEventThread() throws Exception {
+        CountDownLatch finished = new CountDownLatch(1);
+        AtomicReference<Boolean> onEdt = new AtomicReference<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+
+        new BackgroundTask<Void>(p -> { throw new IOException("disk full"); },
+                done -> finished.countDown(),
+                ex -> { onEdt.set(SwingUtilities.isEventDispatchThread()); error.set(ex); finished.countDown(); }).execute();
+
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        assertTrue(onEdt.get());
+        assertEquals("disk full", error.get().getMessage());
+    }
+}
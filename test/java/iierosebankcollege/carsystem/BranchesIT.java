@@ -0,0 +1,137 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class BranchesIT {
+
+    public BranchesIT() {
+    }
+
+    private File dir;
+    private Branches branches;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("branches").toFile();
+        branches = new Branches(dir, 3, false);
+        branches.open();
+    }
+
+    @AfterEach
+    public void cleanup() throws Exception {
+        branches.close();
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+    }
+
+    @Test
+    public void testIdsNameTheirBranch() {
+        Vehicle a = branches.addVehicle(0, "Toyota", "Corolla", 2021, "White", 300_000);
+        Vehicle b = branches.addVehicle(2, "Toyota", "Corolla", 2021, "White", 300_000);
+        assertEquals(1, a.id); // branch 0 numbers as a single dealership does
+        assertEquals(2, CarService.branchOf(b.id));
+        assertEquals(1, CarService.serialOf(b.id));
+        assertSame(branches.branch(2), branches.owner(b.id));
+        assertSame(b, branches.findVehicle(b.id));
+        assertNull(branches.branch(0).findVehicle(b.id));
+        assertNull(branches.findVehicle(5 << CarService.BRANCH_SHIFT | 1)); // no branch 5
+        assertFalse(branches.deleteVehicle(-1));
+        assertThrows(IllegalArgumentException.class, () -> new CarService(null, null, false, CarService.MAX_BRANCHES));
+    }
+
+    // each branch counts on its own, with no shared counter or lock, and no id is handed out twice
+    @Test
+    public void testConcurrentBranchesNeverClash() throws Exception {
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        Thread[] threads = new Thread[6];
+        for (int t = 0; t < threads.length; t++) {
+            int branch = t % 3;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) ids.add(branches.addVehicle(branch, "VW", "Polo", 2020, "Red", 200_000).id);
+            });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(12_000, ids.size());
+        for (int b = 0; b < 3; b++) assertEquals(4000, branches.branch(b).vehicles.size());
+        assertEquals(12_000, branches.countVehicles(Status.AVAILABLE));
+    }
+
+    @Test
+    public void testQueriesFanOut() {
+        branches.addVehicle(0, "Toyota", "Corolla", 2019, "White", 250_000);
+        Vehicle polo = branches.addVehicle(1, "VW", "Polo", 2022, "Red", 280_000);
+        Vehicle corolla = branches.addVehicle(2, "Toyota", "Corolla", 2022, "Blue", 320_000);
+        Customer sam = branches.addCustomer(1, "Sam Maseko", "0823163452", "sam@mail.com", "Cape Town");
+        branches.addCustomer(2, "Samantha Jones", "0711111111", "sj@mail.com", "Durban");
+
+        assertEquals(2, branches.findVehicles(new VehicleIndex.Query().make("toyota")).size());
+        assertEquals(List.of(corolla), branches.findVehicles(new VehicleIndex.Query().make("Toyota").years(2020, 2025)));
+        assertEquals(1, branches.findVehicles(new VehicleIndex.Query().make("Toyota").limit(1)).size());
+        assertEquals(2, branches.searchCustomers("sam", 10).size());
+        assertEquals(1, branches.searchCustomers("sam", 1).size());
+
+        // a customer of branch 1 rents the branch 2 Corolla; the rental is kept by branch 2
+        Rental r = branches.addRental(corolla.id, sam.id, "2025-03-01", "2025-03-05", 900);
+        assertNotNull(r);
+        assertEquals(2, CarService.branchOf(r.id));
+        assertSame(r, branches.findRental(r.id));
+        assertEquals(List.of(corolla), branches.vehiclesWith(Status.RENTED));
+        assertNull(branches.addRental(polo.id, 999, "2025-03-01", "2025-03-05", 900)); // unknown customer
+
+        Vehicle free = branches.findFreeVehicle("Corolla", "2025-06-01", "2025-06-03");
+        assertEquals(0, CarService.branchOf(free.id)); // the rented one is not free
+        assertFalse(branches.isFree(corolla.id, "2025-03-02", "2025-03-03"));
+        assertNull(branches.findFreeVehicle("Golf", "2025-06-01", "2025-06-03"));
+        assertThrows(IllegalArgumentException.class, () -> branches.findFreeVehicle("Corolla", "June", "2025-06-03"));
+
+        assertTrue(branches.closeRental(r.id));
+        assertNotNull(branches.addSale(polo.id, sam.id, "2025-03-09", 270_000));
+        assertNotNull(branches.addMaint(corolla.id, "Oil", "2025-03-10", 500, "Joy"));
+        assertEquals(1, branches.countVehicles(Status.SOLD));
+    }
+
+    // each branch keeps its own files; reopened, the ids carry on in each branch's own range
+    @Test
+    public void testBranchesPersistSeparately() throws Exception {
+        Vehicle a = branches.addVehicle(1, "VW", "Polo", 2020, "Red", 200_000);
+        branches.addCustomer(2, "Sam", "0823163452", "sam@mail.com", "Cape Town");
+        branches.writeSnapshots();
+        Vehicle b = branches.addVehicle(1, "VW", "Golf", 2021, "Grey", 300_000); // journal only
+        branches.close();
+        for (int i = 0; i < 3; i++) assertTrue(Branches.dataFile(dir, i).exists());
+
+        branches = new Branches(dir, 3, true);
+        branches.open();
+        assertEquals("Polo", branches.findVehicle(a.id).model);
+        assertEquals("Golf", branches.findVehicle(b.id).model);
+        assertEquals(0, branches.branch(0).vehicles.size());
+        assertEquals(b.id + 1, branches.addVehicle(1, "VW", "Up", 2022, "White", 150_000).id);
+        assertEquals((2 << CarService.BRANCH_SHIFT) + 2, branches.addCustomer(2, "Jo", "0711111111", "jo@mail.com", "Durban").id);
+        assertEquals(2, branches.findVehicles(new VehicleIndex.Query().make("vw").years(2021, 2022)).size());
+
+        branches.branch(1).clear(); // a cleared branch numbers from its own start again
+        assertEquals((1 << CarService.BRANCH_SHIFT) + 1, branches.addVehicle(1, "VW", "Polo", 2020, "Red", 200_000).id);
+        Set<Integer> seen = new HashSet<>();
+        for (Vehicle v : branches.vehiclesWith(Status.AVAILABLE)) assertTrue(seen.add(v.id));
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarService.Table;
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class BulkIOIT {
+
+    public BulkIOIT() {
+    }
+
+    private final List<File> files = new ArrayList<>();
+    private CarService source;
+
+    private CarService open() throws IOException {
+        File data = File.createTempFile("carsystem", ".ser"), journal = File.createTempFile("carsystem", ".journal");
+        data.delete();
+        journal.delete();
+        files.add(data);
+        files.add(journal);
+        CarService s = new CarService(data, journal);
+        s.openJournal();
+        return s;
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        source = open();
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        source.close();
+        for (File f : files) {
+            File[] inside = f.listFiles();
+            if (inside != null) for (File g : inside) g.delete();
+            f.delete();
+        }
+    }
+
+    // a small branch with a gap in the vehicle ids and awkward text
+    private void seed() {
+        Customer sam = source.addCustomer("Sam \"The Man\" Mokoena", "0823163452", "sam@mail.com", "12 Main Road,\nCape Town");
+        Customer joy = source.addCustomer("Joy", "", "", "");
+        Vehicle gone = source.addVehicle("Kia", "Rio", 2020, "Red", 100_000);
+        Vehicle polo = source.addVehicle("VW", "Polo, GTI", 2022, "White", 250_000.5);
+        Vehicle corolla = source.addVehicle("Toyota", "Corolla", 2021, "Silver", 300_000);
+        Vehicle sold = source.addVehicle("Ford", "Fiesta", 2019, "Blue", 150_000);
+        Vehicle serviced = source.addVehicle("BMW", "320i", 2023, "Black", 600_000);
+        source.deleteVehicle(gone.id);
+        assertNotNull(source.addRental(polo.id, sam.id, "2025-03-01", "2025-03-05", 1000));   // out now
+        assertNotNull(source.reserve(polo.id, joy.id, "2025-04-01", "2025-04-03", 800));      // booked after it
+        assertNotNull(source.reserve(corolla.id, sam.id, "2025-05-01", "2025-05-10", 2000));  // booked, still on the lot
+        assertNotNull(source.addSale(sold.id, joy.id, "2025-02-14", 140_000));
+        assertNotNull(source.addMaint(serviced.id, "Brakes", "2025-01-20", 4500.75, "Thabo"));
+    }
+
+    // every table as text with ids replaced by what they point at, so branches with different ids compare equal
+    private static List<String> show(CarService s) {
+        List<String> out = new ArrayList<>();
+        for (Vehicle v : s.vehicles.toList()) out.add(car(v) + "|" + v.color + "|" + v.price + "|" + v.status);
+        for (Customer c : s.customers.toList()) out.add(c.name + "|" + c.phone + "|" + c.email + "|" + c.address);
+        for (Rental r : s.rentals.toList()) {
+            out.add(car(s.findVehicle(r.vehicleId)) + "|" + s.findCustomer(r.customerId).name + "|" + r.rentalDate() + "|" + r.returnDate() + "|" + r.totalCost + "|" + s.isOut(r));
+        }
+        for (Sale x : s.sales.toList()) out.add(car(s.findVehicle(x.vehicleId)) + "|" + s.findCustomer(x.customerId).name + "|" + x.dateSold() + "|" + x.sellingPrice);
+        for (Maintenance m : s.maints.toList()) out.add(car(s.findVehicle(m.vehicleId)) + "|" + m.serviceType + "|" + m.serviceDate() + "|" + m.cost + "|" + m.mechanic);
+        return out;
+    }
+
+    private static String car(Vehicle v) {
+        return v.make + "|" + v.model + "|" + v.year;
+    }
+
+    private void roundTrip(BulkIO.Format format) throws IOException {
+        seed();
+        File dir = Files.createTempDirectory("carsystem").toFile();
+        files.add(dir);
+        new BulkIO(source).exportFolder(dir, format, Progress.NONE);
+        assertTrue(new File(dir, "maintenance" + format.extension).isFile());
+
+        CarService copy = open();
+        try {
+            List<long[]> progress = new ArrayList<>();
+            List<BulkIO.Result> results = new BulkIO(copy).importFolder(dir, (done, total) -> progress.add(new long[]{done, total}));
+            assertEquals(5, results.size());
+            for (BulkIO.Result r : results) assertEquals(0, r.refused, r.errors.toString());
+            assertEquals(show(source), show(copy));
+            for (Status st : Status.values()) assertEquals(source.countVehicles(st), copy.countVehicles(st), st.label);
+            long[] last = progress.get(progress.size() - 1);
+            assertEquals(last[1], last[0]); // finishes at 100%
+            assertNotEquals(source.vehicles.toList().get(0).id, copy.vehicles.toList().get(0).id); // ids are the importer's own
+            assertNull(copy.addSale(copy.vehicles.toList().get(0).id, 1, "2025-03-02", 1)); // the imported car is out
+        } finally {
+            copy.close();
+        }
+    }
+
+    @Test
+    public void testCsvRoundTrip() throws IOException {
+        roundTrip(BulkIO.Format.CSV);
+    }
+
+    @Test
+    public void testJsonRoundTrip() throws IOException {
+        roundTrip(BulkIO.Format.JSON);
+    }
+
+    // refused rows are reported with their line and the rest still go in
+    @Test
+    public void testBadRowsAreRefusedWithTheirLine() throws IOException {
+        BulkIO io = new BulkIO(source);
+        BulkIO.Result vehicles = io.importFrom(Table.VEHICLES, new StringReader(
+                "ID,Make,Model,Year,Price\r\n"
+                + "7,Kia,Rio,2020,100000\r\n"
+                + "8,VW,\"Polo\n\"\"GTI\"\"\",2022,abc\r\n"
+                + "\r\n"
+                + "9,BMW,\"320i, M Sport\",2023,600000\r\n"
+                + "10,Ford,,2019,1\r\n"), BulkIO.Format.CSV, Progress.NONE);
+        assertEquals(4, vehicles.rows);
+        assertEquals(2, vehicles.imported);
+        assertEquals(List.of("line 3: price is not a number: abc", "line 7: model is empty"), vehicles.errors);
+        assertEquals("320i, M Sport", source.vehicles.toList().get(1).model);
+
+        BulkIO.Result customers = io.importFrom(Table.CUSTOMERS, new StringReader(
+                "name,address\nSam,Durban\nLee," + "x".repeat(CarService.MAX_TEXT + 1) + "\n"), BulkIO.Format.CSV, Progress.NONE);
+        assertEquals(List.of("line 3: address is longer than " + CarService.MAX_TEXT + " characters"), customers.errors);
+        BulkIO.Result sales = io.importFrom(Table.SALES, new StringReader(
+                "[\n"
+                + "{\"vehicleId\": 7, \"customerId\": 1, \"dateSold\": \"2025-02-01\", \"sellingPrice\": 90000},\n"
+                + "{\"vehicleId\": 7, \"customerId\": 1, \"dateSold\": \"2025-02-02\", \"sellingPrice\": 90000},\n"
+                + "{\"vehicleId\": 99, \"customerId\": 1, \"dateSold\": \"2025-02-02\", \"sellingPrice\": 1},\n"
+                + "{\"vehicleId\": 9, \"customerId\": 1, \"dateSold\": \"2025-02-02\" \"sellingPrice\": 1}\n"
+                + "]"), BulkIO.Format.JSON, Progress.NONE);
+        assertEquals(1, sales.imported);
+        assertEquals(3, sales.refused);
+        assertTrue(sales.errors.get(0).startsWith("line 3: vehicle "), sales.errors.toString()); // the file's 7 is sold now
+        assertEquals("line 4: no vehicle 99", sales.errors.get(1));
+        assertTrue(sales.errors.get(2).startsWith("line 5: Bad JSON"), sales.errors.toString());
+        assertEquals(Status.SOLD, source.vehicles.toList().get(0).status);
+        BulkIO.Result services = io.importFrom(Table.MAINTS, new StringReader(
+                "vehicleId,serviceType,serviceDate,cost,mechanic\n7,Oil,2025-02-01,50,Joy\n9,Oil,next week,50,Joy\n"), BulkIO.Format.CSV, Progress.NONE);
+        assertEquals(List.of("line 3: serviceDate is not a yyyy-MM-dd date: next week"), services.errors);
+
+        assertThrows(IllegalArgumentException.class, () -> io.importFrom(Table.RENTALS,
+                new StringReader("vehicleId,customerId,rentalDate\n1,1,2025-01-01\n"), BulkIO.Format.CSV, Progress.NONE));
+    }
+
+    // a bulk import tells listeners once per batch, never per row
+    @Test
+    public void testImportRefreshesOncePerBatch() throws IOException {
+        AtomicInteger changed = new AtomicInteger(), rows = new AtomicInteger();
+        source.addListener(new CarService.Listener() {
+            @Override public void rowInserted(Table table, int row) { rows.incrementAndGet(); }
+            @Override public void rowUpdated(Table table, int id) { rows.incrementAndGet(); }
+            @Override public void rowDeleted(Table table, int row) { rows.incrementAndGet(); }
+            @Override public void dataChanged() { changed.incrementAndGet(); }
+        });
+        int n = BulkIO.BATCH * 2 + 5;
+        StringBuilder sb = new StringBuilder("make,model,year,price\n");
+        for (int i = 0; i < n; i++) sb.append("Kia,Rio,2020,").append(i).append('\n');
+        BulkIO.Result r = new BulkIO(source).importFrom(Table.VEHICLES, new StringReader(sb.toString()), BulkIO.Format.CSV, Progress.NONE);
+        assertEquals(n, r.imported);
+        assertEquals(n, source.vehicles.size());
+        assertEquals(3, changed.get());
+        assertEquals(0, rows.get());
+        assertEquals(n + 1, source.addVehicle("VW", "Polo", 2022, "White", 1).id);
+
+        StringWriter out = new StringWriter();
+        assertEquals(n + 1, new BulkIO(source).export(Table.VEHICLES, out, BulkIO.Format.JSON, Progress.NONE));
+        assertTrue(out.toString().startsWith("[\n{\"id\":1,"), out.toString().substring(0, 40));
+    }
+
+    // short run of the throughput benchmark: every step moves every row
+    @Test
+    public void testBenchmarkMovesEveryRow() throws Exception {
+        Map<Table, String> csv = BulkBench.seed(2000, 1);
+        List<Bench.Result> results = BulkBench.run(csv, 1, 2);
+        assertEquals(Table.values().length * 4, results.size());
+        for (Bench.Result r : results) {
+            long lines = csv.get(Table.valueOf(r.param("table"))).chars().filter(c -> c == '\n').count() - 1;
+            assertEquals(lines, r.secondary("rows"), r.toString());
+            assertEquals(2, r.samples().length);
+            assertTrue(r.score() > 0, r.toString());
+        }
+    }
+}
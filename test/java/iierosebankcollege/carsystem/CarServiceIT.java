@@ -0,0 +1,191 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class CarServiceIT {
+
+    public CarServiceIT() {
+    }
+
+    private File dataFile;
+    private File journalFile;
+    private CarService service;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        dataFile = File.createTempFile("carsystem", ".ser");
+        journalFile = File.createTempFile("carsystem", ".journal");
+        dataFile.delete(); // start without any saved data
+        journalFile.delete();
+        service = new CarService(dataFile, journalFile);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        service.close();
+        dataFile.delete();
+        journalFile.delete();
+        new File(dataFile.getPath() + ".tmp").delete();
+    }
+
+    @Test
+    public void testBookingRulesWithoutWindow() {
+        CarSystem.Vehicle v = service.addVehicle("Toyota", "Corolla", 2020, "White", 150000);
+        CarSystem.Customer c = service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+
+        CarSystem.Rental r = service.addRental(v.id, c.id, "2025-03-12", "2025-03-18", 4000);
+        assertNotNull(r);
+        assertEquals(CarSystem.Status.RENTED, v.status);
+        assertNull(service.addRental(v.id, c.id, "2025-03-12", "2025-03-18", 4000)); // already rented
+        assertNull(service.addSale(v.id, c.id, "2025-03-20", 140000)); // not available
+        assertTrue(service.closeRental(r.id));
+        assertFalse(service.closeRental(r.id)); // already closed
+        assertNotNull(service.addSale(v.id, c.id, "2025-03-20", 140000));
+        assertEquals(CarSystem.Status.SOLD, v.status);
+        assertNull(service.addMaint(99, "Oil Change", "2025-03-21", 550, "Joy")); // unknown vehicle
+        assertNull(service.addRental(v.id, 99, "2025-03-12", "2025-03-18", 4000)); // unknown customer
+    }
+
+    @Test
+    public void testListenerSeesTablePositions() {
+        List<String> events = new ArrayList<>();
+        service.addListener(new CarService.Listener() {
+            @Override public void rowInserted(CarService.Table table, int row) { events.add(table + "+" + row); }
+            @Override public void rowUpdated(CarService.Table table, int id) { events.add(table + "~" + id); }
+            @Override public void rowDeleted(CarService.Table table, int row) { events.add(table + "-" + row); }
+            @Override public void dataChanged() { events.add("all"); }
+        });
+        service.addVehicle("BMW", "M4", 2025, "Black", 1600000);
+        service.addVehicle("Audi", "A5", 2018, "Silver", 250000);
+        service.addCustomer("Thando", "0795116854", "thando22@gmail.com", "Nelspruit");
+        service.addRental(2, 1, "2025-04-01", "2025-04-05", 3000);
+        service.deleteVehicle(1);
+        assertEquals(List.of("VEHICLES+0", "VEHICLES+1", "CUSTOMERS+0", "RENTALS+0", "VEHICLES~2", "VEHICLES-0"), events);
+    }
+
+    @Test
+    public void testSnapshotAndJournalRoundTrip() throws Exception {
+        service.openJournal();
+        service.addVehicle("VW", "Golf 7", 2021, "Red", 300000);
+        service.addCustomer("Tinothenda", "0723645123", "tino@mail.com", "Johannesburg");
+        service.writeSnapshot(Progress.NONE);
+        service.addRental(1, 1, "2025-02-01", "2025-02-05", 1000); // only in the journal
+        service.close();
+
+        CarService reopened = new CarService(dataFile, journalFile);
+        reopened.load(); // snapshot first: the journal only replays onto its own generation
+        reopened.openJournal();
+        assertEquals(1, reopened.rentals.size());
+        assertEquals(CarSystem.Status.RENTED, reopened.findVehicle(1).status);
+        assertEquals(2, reopened.nextRentalId.get());
+        reopened.close();
+    }
+
+    // many threads booking a small fleet: no car is ever rented or sold twice, and no update or id is lost
+    @Test
+    public void testConcurrentBookingsStayConsistent() throws Exception {
+        int threads = 8, opsPerThread = 5_000, cars = 50, people = 20;
+        service.openJournal(); // journal appends from every thread too
+        for (int i = 0; i < cars; i++) service.addVehicle("Make" + i, "Model", 2020, "White", 100000);
+        for (int i = 0; i < people; i++) service.addCustomer("Customer" + i, "08200000" + i, "c" + i + "@mail.com", "Durban");
+
+        AtomicInteger rented = new AtomicInteger(), closed = new AtomicInteger(), sold = new AtomicInteger();
+        AtomicInteger added = new AtomicInteger();
+        ConcurrentLinkedQueue<Integer> ids = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread w = new Thread(() -> {
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        int vid = 1 + rnd.nextInt(cars + added.get());
+                        int cid = 1 + rnd.nextInt(people);
+                        int op = rnd.nextInt(100);
+                        if (op < 50) {
+                            CarSystem.Rental r = service.addRental(vid, cid, "2025-01-01", "2025-01-02", 100);
+                            if (r != null) { rented.incrementAndGet(); ids.add(r.id); }
+                        } else if (op < 90) {
+                            // close whichever rental this car has, if any
+                            for (CarSystem.Rental r : snapshotOf(service.rentals)) {
+                                if (r.vehicleId == vid && service.closeRental(r.id)) closed.incrementAndGet();
+                            }
+                        } else if (op < 92) {
+                            if (service.addSale(vid, cid, "2025-01-03", 90000) != null) sold.incrementAndGet();
+                        } else {
+                            service.addVehicle("Extra", "Model", 2024, "Blue", 120000);
+                            added.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable ex) {
+                    errors.add(ex);
+                }
+            });
+            workers.add(w);
+            w.start();
+        }
+        start.countDown();
+        for (Thread w : workers) w.join();
+        assertTrue(errors.isEmpty(), () -> "worker failed: " + errors.peek());
+
+        // every rental id handed out once
+        assertEquals(rented.get(), new HashSet<>(ids).size());
+        assertEquals(rented.get() + 1, service.nextRentalId.get());
+        // nothing lost: open rentals = booked - closed; sales and added vehicles all landed
+        assertEquals(rented.get() - closed.get(), service.rentals.size());
+        assertEquals(sold.get(), service.sales.size());
+        assertEquals(cars + added.get(), service.vehicles.size());
+
+        // at most one open rental per car, and the car's status agrees with it
+        Map<Integer, Integer> open = new HashMap<>();
+        for (CarSystem.Rental r : snapshotOf(service.rentals)) open.merge(r.vehicleId, 1, Integer::sum);
+        Set<Integer> soldCars = new HashSet<>();
+        for (CarSystem.Sale s : snapshotOf(service.sales)) assertTrue(soldCars.add(s.vehicleId), "car sold twice");
+        for (CarSystem.Vehicle v : snapshotOf(service.vehicles)) {
+            int n = open.getOrDefault(v.id, 0);
+            assertTrue(n <= 1, "car " + v.id + " double-booked");
+            if (n == 1) assertEquals(CarSystem.Status.RENTED, v.status);
+            else if (soldCars.contains(v.id)) assertEquals(CarSystem.Status.SOLD, v.status);
+            else assertEquals(CarSystem.Status.AVAILABLE, v.status);
+        }
+
+        // the journal written by all threads replays to the same state
+        service.close();
+        CarService replayed = new CarService(dataFile, journalFile);
+        replayed.openJournal();
+        assertEquals(service.vehicles.size(), replayed.vehicles.size());
+        assertEquals(service.rentals.size(), replayed.rentals.size());
+        assertEquals(service.sales.size(), replayed.sales.size());
+        for (CarSystem.Vehicle v : snapshotOf(service.vehicles)) assertEquals(v.status, replayed.findVehicle(v.id).status);
+        replayed.close();
+    }
+
+    private static <T> List<T> snapshotOf(EntityStore<T> store) {
+        synchronized (store) {
+            return store.toList();
+        }
+    }
+}
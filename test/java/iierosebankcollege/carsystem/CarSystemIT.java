@@ -28,11 +28,11 @@ public class CarSystemIT {
         system.sales.clear();
         system.maints.clear();
 
-        system.nextVehicleId = 1;
-        system.nextCustomerId = 1;
-        system.nextRentalId = 1;
-        system.nextSaleId = 1;
-        system.nextMaintId = 1;
+        system.service.nextVehicleId.set(1);
+        system.service.nextCustomerId.set(1);
+        system.service.nextRentalId.set(1);
+        system.service.nextSaleId.set(1);
+        system.service.nextMaintId.set(1);
     }
 
 //vihecle test
@@ -42,7 +42,7 @@ public class CarSystemIT {
 
         assertEquals(1, system.vehicles.size());
         assertEquals("Toyota", system.vehicles.get(0).make);
-        assertEquals("Available", system.vehicles.get(0).status);
+        assertEquals(CarSystem.Status.AVAILABLE, system.vehicles.get(0).status);
     }
 
     @Test
@@ -86,14 +86,14 @@ public class CarSystemIT {
         boolean ok = system.addRental(1, 1, "2025-03-12", "2025-03-18", 4000);
 
         assertTrue(ok);
-        assertEquals("Rented", system.vehicles.get(0).status);
+        assertEquals(CarSystem.Status.RENTED, system.vehicles.get(0).status);
         assertEquals(1, system.rentals.size());
     }
 
     @Test
     public void testAddRentalVehicleUnavailable() {
         system.addVehicle("Audi", "A5", 2018, "Silver", 250000);
-        system.vehicles.get(0).status = "Rented";
+        system.service.statuses.set(system.vehicles.get(0), CarSystem.Status.RENTED);
 
         system.addCustomer("STones", "0712781032", "stone12@mail.com", "Free State");
 
@@ -113,7 +113,7 @@ public class CarSystemIT {
         boolean closed = system.closeRental(1);
 
         assertTrue(closed);
-        assertEquals("Available", system.vehicles.get(0).status);
+        assertEquals(CarSystem.Status.AVAILABLE, system.vehicles.get(0).status);
         assertEquals(0, system.rentals.size());
     }
 
@@ -126,14 +126,14 @@ public class CarSystemIT {
         boolean ok = system.addSale(1, 1, "2025-03-15", 580000);
 
         assertTrue(ok);
-        assertEquals("Sold", system.vehicles.get(0).status);
+        assertEquals(CarSystem.Status.SOLD, system.vehicles.get(0).status);
         assertEquals(1, system.sales.size());
     }
 
     @Test
     public void testAddSaleVehicleUnavailable() {
         system.addVehicle("Ford", "Ranger", 2020, "Grey", 400000);
-        system.vehicles.get(0).status = "Rented";
+        system.service.statuses.set(system.vehicles.get(0), CarSystem.Status.RENTED);
 
         system.addCustomer("Malwande", "0712324556", "jake@mail.com", "Nelspruit");
 
@@ -151,7 +151,7 @@ public class CarSystemIT {
         boolean ok = system.addMaint(1, "Engine Service", "2025-05-13", 1500, "Joy");
 
         assertTrue(ok);
-        assertEquals("Maintenance", system.vehicles.get(0).status);
+        assertEquals(CarSystem.Status.MAINTENANCE, system.vehicles.get(0).status);
         assertEquals(1, system.maints.size());
     }
 
@@ -0,0 +1,288 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import iierosebankcollege.carsystem.ChangeStream.Change;
+import iierosebankcollege.carsystem.ChangeStream.Kind;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class ChangeStreamIT {
+
+    public ChangeStreamIT() {
+    }
+
+    // Keeps what it is handed
+    private static final class Recorder implements ChangeStream.Handler {
+        final List<Change> changes = new ArrayList<>();
+        long missed;
+
+        @Override
+        public synchronized void onChange(Change change) {
+            changes.add(change);
+        }
+
+        @Override
+        public void missed(long count) {
+            missed += count;
+        }
+
+        synchronized List<Kind> kinds() {
+            return changes.stream().map(c -> c.kind).toList();
+        }
+    }
+
+    @Test
+    public void testEveryChangeIsPublished() throws Exception {
+        File data = File.createTempFile("carsystem", ".ser"), journal = File.createTempFile("carsystem", ".journal");
+        data.delete();
+        journal.delete();
+        CarService service = new CarService(data, journal);
+        Recorder r = new Recorder();
+        ChangeStream.Subscription sub = service.changes.reader(true, r);
+        try {
+            service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+            Vehicle v = service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+            service.addVehicle("VW", "Polo", 2020, "Red", 200_000);
+            Rental rental = service.addRental(v.id, 1, "2025-03-01", "2025-03-05", 500);
+            assertNull(service.addSale(v.id, 1, "2025-03-02", 900)); // refused: nothing published
+            service.closeRental(rental.id);
+            service.addSale(v.id, 1, "2025-03-02", 900);
+            Rental booked = service.reserve(2, 1, "2030-01-01", "2030-01-03", 100);
+            assertTrue(service.startRental(booked.id));
+            service.addMaint(2, "Oil", "2025-03-03", 50, "Joy");
+            service.deleteVehicle(v.id);
+            service.deleteCustomer(1);
+            assertEquals(11, sub.poll(100));
+            assertEquals(List.of(Kind.CUSTOMER_ADDED, Kind.VEHICLE_ADDED, Kind.VEHICLE_ADDED, Kind.RENTAL_ADDED, Kind.RENTAL_CLOSED,
+                    Kind.SALE_ADDED, Kind.RENTAL_RESERVED, Kind.RENTAL_STARTED, Kind.MAINT_ADDED, Kind.VEHICLE_DELETED,
+                    Kind.CUSTOMER_DELETED), r.kinds());
+            assertSame(rental, r.changes.get(4).record);
+            assertEquals(v.id, r.changes.get(9).id);
+            for (int i = 0; i < r.changes.size(); i++) assertEquals(i, r.changes.get(i).sequence);
+
+            // a batch publishes at its commit; a rolled back one publishes nothing
+            CommandBatch ok = new CommandBatch();
+            int car = ok.addVehicle("BMW", "320i", 2022, "Blue", 500_000);
+            ok.addMaint(car, "Tyres", "2025-04-01", 80, "Joy");
+            assertTrue(service.apply(ok).committed);
+            CommandBatch bad = new CommandBatch();
+            bad.addVehicle("BMW", "320i", 2022, "Blue", 500_000);
+            bad.closeRental(999);
+            assertFalse(service.apply(bad).committed);
+            service.clear();
+            r.changes.clear();
+            sub.poll(100);
+            assertEquals(List.of(Kind.VEHICLE_ADDED, Kind.MAINT_ADDED, Kind.RELOADED), r.kinds());
+        } finally {
+            sub.close();
+            service.close();
+            data.delete();
+            journal.delete();
+        }
+    }
+
+    private final AtomicInteger seen = new AtomicInteger();   // changes a subscriber has taken
+    private int made;                                         // changes made so far
+
+    // Wait until the subscriber has taken the change that gave this result
+    private <T> T settled(T result) {
+        int expected = ++made;
+        long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (seen.get() < expected && System.nanoTime() < until) Thread.onSpinWait();
+        assertEquals(expected, seen.get());
+        return result;
+    }
+
+    // an event is published once its change is applied: a subscriber reading the stores finds it there
+    @Test
+    public void testSubscriberSeesTheChangeInTheStores() throws Exception {
+        File data = File.createTempFile("carsystem", ".ser"), journal = File.createTempFile("carsystem", ".journal");
+        data.delete();
+        journal.delete();
+        CarService service = new CarService(data, journal);
+        List<String> stale = new CopyOnWriteArrayList<>();
+        ChangeStream.Subscription sub = service.changes.subscribe("checker", true, c -> {
+            boolean applied;
+            switch (c.kind) {
+                case VEHICLE_ADDED: applied = service.vehicles.containsId(c.id); break;
+                case VEHICLE_DELETED: applied = !service.vehicles.containsId(c.id); break;
+                case CUSTOMER_ADDED: applied = service.customers.containsId(c.id); break;
+                case CUSTOMER_DELETED: applied = !service.customers.containsId(c.id); break;
+                case RENTAL_ADDED: applied = service.rentals.containsId(c.id); break;
+                case RENTAL_CLOSED: applied = !service.rentals.containsId(c.id); break;
+                case SALE_ADDED: applied = service.sales.containsId(c.id); break;
+                default: applied = true;
+            }
+            if (!applied) stale.add(c.toString());
+            seen.incrementAndGet();
+        });
+        try {
+            for (int i = 0; i < 200; i++) { // one change at a time: each is checked before the next is made
+                Customer c = settled(service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town"));
+                Vehicle v = settled(service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000));
+                Rental r = settled(service.addRental(v.id, c.id, "2025-03-01", "2025-03-05", 500));
+                settled(service.closeRental(r.id));
+                if (i % 2 == 0) settled(service.addSale(v.id, c.id, "2025-03-06", 900));
+                else settled(service.deleteVehicle(v.id));
+                settled(service.deleteCustomer(c.id));
+            }
+            assertEquals(List.of(), stale);
+        } finally {
+            sub.close();
+            service.close();
+            data.delete();
+            journal.delete();
+        }
+    }
+
+    // an import and a reload publish once the write lock is let go: a lossless subscriber that reads the data
+    // while it is a whole ring behind lets the writer on instead of waiting for it forever
+    @Test
+    public void testImportAndReloadPublishOutsideTheLock() throws Exception {
+        File data = File.createTempFile("carsystem", ".ser"), journal = File.createTempFile("carsystem", ".journal");
+        data.delete();
+        journal.delete();
+        CarService service = new CarService(data, journal);
+        List<Kind> kinds = new CopyOnWriteArrayList<>();
+        ChangeStream.Subscription sub = service.changes.subscribe("reader", true, c -> {
+            service.saleRefusal(c.id, 1); // takes the read lock
+            kinds.add(c.kind);
+        });
+        try {
+            List<Vehicle> batch = new ArrayList<>();
+            for (int i = 0; i < 20_000; i++) batch.add(new Vehicle(0, "Toyota", "Corolla", 2021, "White", 300_000)); // > the ring
+            Thread writer = new Thread(() -> {
+                service.importVehicles(batch);
+                try {
+                    service.clear();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            writer.start();
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+            assertFalse(writer.isAlive(), "writer stuck publishing under the lock");
+            long until = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (kinds.size() < 20_001 && System.nanoTime() < until) Thread.sleep(1);
+            assertEquals(20_001, kinds.size());
+            assertEquals(Kind.RELOADED, kinds.get(20_000));
+        } finally {
+            sub.close();
+            service.close();
+            data.delete();
+            journal.delete();
+        }
+    }
+
+    @Test
+    public void testNothingIsPublishedWithoutSubscribers() {
+        ChangeStream stream = new ChangeStream(8);
+        stream.publish(Kind.VEHICLE_ADDED, 1, null);
+        assertEquals(0, stream.head());
+        ChangeStream.Subscription s = stream.reader(false, new Recorder());
+        stream.publish(Kind.VEHICLE_ADDED, 2, null);
+        s.close();
+        stream.publish(Kind.VEHICLE_ADDED, 3, null);
+        assertEquals(1, stream.head());
+        assertThrows(IllegalArgumentException.class, () -> new ChangeStream(12));
+    }
+
+    // many writers at once; every lossless subscriber sees every change, in sequence order, without gaps
+    @Test
+    public void testConcurrentWritersAndSubscribers() throws Exception {
+        ChangeStream stream = new ChangeStream(64); // small ring: the writers keep lapping it
+        Recorder[] recorders = new Recorder[3];
+        List<ChangeStream.Subscription> subs = new ArrayList<>();
+        for (int i = 0; i < recorders.length; i++) subs.add(stream.subscribe("test-subscriber", true, recorders[i] = new Recorder()));
+        Thread[] writers = new Thread[4];
+        for (int w = 0; w < writers.length; w++) {
+            int base = w * 100_000;
+            writers[w] = new Thread(() -> { for (int i = 0; i < 20_000; i++) stream.publish(Kind.VEHICLE_ADDED, base + i, null); });
+            writers[w].start();
+        }
+        for (Thread t : writers) t.join();
+        for (ChangeStream.Subscription s : subs) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+            while (s.lag() > 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            s.close();
+        }
+        for (Recorder r : recorders) {
+            assertEquals(0, r.missed);
+            assertEquals(80_000, r.changes.size());
+            int[] lastOfWriter = {-1, -1, -1, -1};
+            for (int i = 0; i < r.changes.size(); i++) {
+                Change c = r.changes.get(i);
+                assertEquals(i, c.sequence);
+                int w = c.id / 100_000;
+                assertTrue(c.id > lastOfWriter[w]); // each writer's changes in the order it made them
+                lastOfWriter[w] = c.id;
+            }
+        }
+    }
+
+    // a subscriber that may be lapped never holds the writer up; it hears what it missed
+    @Test
+    public void testSlowSubscriberIsLapped() {
+        ChangeStream stream = new ChangeStream(16);
+        Recorder r = new Recorder();
+        ChangeStream.Subscription s = stream.reader(false, r);
+        for (int i = 0; i < 100; i++) stream.publish(Kind.SALE_ADDED, i, null);
+        assertEquals(0, stream.waits());
+        assertEquals(100, s.lag());
+        assertTrue(s.poll(1000) > 0);
+        assertEquals(100, r.missed + r.changes.size());
+        assertTrue(r.missed >= 100 - 16);
+        assertEquals(99, r.changes.get(r.changes.size() - 1).id);
+        assertEquals(0, s.lag());
+        s.close();
+    }
+
+    // back-pressure: a lossless subscriber a whole ring behind makes the writer wait until it reads
+    @Test
+    public void testLosslessSubscriberHoldsWritersBack() throws Exception {
+        ChangeStream stream = new ChangeStream(16);
+        Recorder r = new Recorder();
+        ChangeStream.Subscription s = stream.reader(true, r);
+        Thread writer = new Thread(() -> { for (int i = 0; i < 40; i++) stream.publish(Kind.SALE_ADDED, i, null); });
+        writer.start();
+        writer.join(200);
+        assertTrue(writer.isAlive()); // stuck one ring ahead
+        assertEquals(16, stream.head() - 1);
+        while (writer.isAlive() || s.lag() > 0) s.poll(4);
+        assertEquals(40, r.changes.size());
+        assertEquals(0, r.missed);
+        assertTrue(stream.waits() > 0);
+        s.close();
+    }
+
+    // short run of the benchmark for 1 to 8 subscribers
+    @Test
+    public void testBenchmarkReportsEverySubscriberCount() throws Exception {
+        List<Bench.Result> results = ChangeStreamBench.run(50_000, 0, 2);
+        assertEquals(2 * ChangeStreamBench.SUBSCRIBERS.length, results.size());
+        for (Bench.Result res : results) {
+            assertTrue(res.score() > 0, res.toString());
+            long sent = 50_000L * Integer.parseInt(res.param("subscribers"));
+            if (res.param("delivery").equals("lossless")) assertEquals(sent, res.secondary("delivered"), res.toString());
+            else assertEquals(sent, res.secondary("delivered") + res.secondary("missed"), res.toString());
+        }
+    }
+}
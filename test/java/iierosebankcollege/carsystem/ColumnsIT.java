@@ -0,0 +1,176 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class ColumnsIT {
+
+    public ColumnsIT() {
+    }
+
+    private static final String[] MAKES = {"Toyota", "VW", "BMW", "Ford", "Kia"};
+
+    private final List<File> files = new ArrayList<>();
+    private CarService objects, columns;
+
+    private CarService open(boolean columnar) throws IOException {
+        File data = File.createTempFile("carsystem", ".ser"), journal = File.createTempFile("carsystem", ".journal");
+        data.delete();
+        journal.delete();
+        files.add(data);
+        files.add(journal);
+        CarService s = new CarService(data, journal, columnar);
+        s.openJournal();
+        return s;
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        objects = open(false);
+        columns = open(true);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        objects.close();
+        columns.close();
+        for (File f : files) f.delete();
+    }
+
+    // the same mixed workload on a service: odd dates, deletes (so the columns compact), status changes
+    private static void work(CarService service, int steps, long seed) {
+        Random rnd = new Random(seed);
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        for (int i = 0; i < steps; i++) {
+            int vid = 1 + rnd.nextInt(Math.max(1, service.nextVehicleId.get() - 1));
+            String from = LocalDate.of(2025, 1, 1).plusDays(rnd.nextInt(120)).toString();
+            String to = rnd.nextInt(20) == 0 ? "next week" : LocalDate.parse(from).plusDays(rnd.nextInt(10)).toString();
+            switch (rnd.nextInt(7)) {
+                case 0: case 1: service.addVehicle(MAKES[rnd.nextInt(MAKES.length)], "Model " + rnd.nextInt(9), 2020, rnd.nextInt(9) == 0 ? "Red" : "White", 150000); break;
+                case 2: service.addRental(vid, 1, from, to, rnd.nextInt(50_000) / 100.0); break;
+                case 3: service.closeRental(1 + rnd.nextInt(Math.max(1, service.nextRentalId.get() - 1))); break;
+                case 4: // odd dates come from older files only
+                    if (rnd.nextInt(10) == 0) service.importSales(List.of(new Sale(0, vid, 1, "someday", 120_000.5)));
+                    else service.addSale(vid, 1, from, 120_000.5);
+                    break;
+                case 5: {
+                    String type = rnd.nextBoolean() ? "Tyres" : "Service";
+                    if (rnd.nextInt(15) == 0) service.importMaints(List.of(new Maintenance(0, vid, type, "", 99.99, "Joy")));
+                    else service.addMaint(vid, type, from, 99.99, "Joy");
+                    break;
+                }
+                default: service.deleteVehicle(vid);
+            }
+        }
+    }
+
+    private static String vehicle(Vehicle v) {
+        return v.id + "|" + v.make + "|" + v.model + "|" + v.year + "|" + v.color + "|" + v.price + "|" + v.status;
+    }
+
+    private static String rental(Rental r) {
+        return r.id + "|" + r.vehicleId + "|" + r.customerId + "|" + r.rentalDate() + "|" + r.returnDate() + "|" + r.totalCost;
+    }
+
+    private static String sale(Sale s) {
+        return s.id + "|" + s.vehicleId + "|" + s.customerId + "|" + s.dateSold() + "|" + s.sellingPrice;
+    }
+
+    private static String maint(Maintenance m) {
+        return m.id + "|" + m.vehicleId + "|" + m.serviceType + "|" + m.serviceDate() + "|" + m.cost + "|" + m.mechanic;
+    }
+
+    private static <T> List<String> rows(EntityStore<T> store, Function<T, String> show) {
+        List<String> out = new ArrayList<>();
+        for (T r : store.toList()) out.add(show.apply(r));
+        return out;
+    }
+
+    private void assertSameRows(CarService expected, CarService actual) {
+        assertEquals(rows(expected.vehicles, ColumnsIT::vehicle), rows(actual.vehicles, ColumnsIT::vehicle));
+        assertEquals(rows(expected.rentals, ColumnsIT::rental), rows(actual.rentals, ColumnsIT::rental));
+        assertEquals(rows(expected.sales, ColumnsIT::sale), rows(actual.sales, ColumnsIT::sale));
+        assertEquals(rows(expected.maints, ColumnsIT::maint), rows(actual.maints, ColumnsIT::maint));
+        for (Status s : Status.values()) assertEquals(expected.countVehicles(s), actual.countVehicles(s), s.label);
+    }
+
+    @Test
+    public void testColumnarStoresHoldTheSameRecords() throws Exception {
+        work(objects, 6000, 5);
+        work(columns, 6000, 5);
+        assertTrue(columns.vehicles.isColumnar() && !objects.vehicles.isColumnar());
+        assertTrue(columns.vehicles.size() > 500 && columns.sales.size() > 100);
+        assertSameRows(objects, columns);
+
+        CarService reopened = new CarService(files.get(2), files.get(3), true); // the columnar journal, replayed
+        columns.close(); // flush the journal's last batch
+        reopened.load();
+        reopened.openJournal();
+        columns = reopened;
+        assertSameRows(objects, columns);
+        columns.writeSnapshot(Progress.NONE); // and through an opened snapshot
+        reopened = new CarService(files.get(2), files.get(3), true);
+        columns.close(); // flush the journal's last batch
+        reopened.load();
+        reopened.openJournal();
+        columns = reopened;
+        assertSameRows(objects, columns);
+    }
+
+    // a record looked up by id is one object while held, and its status outlives the view
+    @Test
+    public void testViewsAreSharedWhileHeldAndStatusIsWrittenBack() {
+        columns.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        Vehicle added = columns.addVehicle("Kia", "Rio", 2024, "Red", 250_000);
+        int id = added.id;
+        assertSame(added, columns.findVehicle(id));
+        assertNotNull(columns.addRental(id, 1, "2025-03-01", "2025-03-05", 1000));
+        assertEquals(Status.RENTED, added.status); // the caller's object is the view the service changed
+        added = null;
+        columns.vehicleCache.invalidate(id); // as if pushed out of the lookup cache, which holds it too
+
+        WeakReference<Vehicle> view = new WeakReference<>(columns.findVehicle(id));
+        for (int i = 0; i < 50 && view.get() != null; i++) System.gc();
+        assertNull(view.get());
+        Vehicle fresh = columns.findVehicle(id); // built from the row again
+        assertEquals(Status.RENTED, fresh.status);
+        assertEquals("Kia|Rio|2024|Red", fresh.make + "|" + fresh.model + "|" + fresh.year + "|" + fresh.color);
+        assertNull(columns.addSale(id, 1, "2025-03-02", 1)); // still out, so not for sale
+    }
+
+    // short run of the footprint benchmark: every table is smaller in columns
+    @Test
+    public void testBenchmarkShowsColumnsSmaller() throws Exception {
+        List<Bench.Result> results = ColumnsBench.run(100_000, 1, 0, 3);
+        assertEquals(10, results.size());
+        for (int i = 0; i < results.size(); i += 2) {
+            Bench.Result objects = results.get(i), columns = results.get(i + 1);
+            assertEquals(objects.method(), columns.method());
+            assertEquals("columns", columns.param("layout"));
+            assertTrue(objects.score() > 0 && columns.score() > 0, columns.toString());
+            assertTrue(columns.score() < objects.score(), objects + " / " + columns);
+        }
+        assertEquals("all", results.get(8).method());
+    }
+}
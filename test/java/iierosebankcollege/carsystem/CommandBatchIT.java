@@ -0,0 +1,181 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarService.Table;
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class CommandBatchIT {
+
+    public CommandBatchIT() {
+    }
+
+    private File data, journal;
+    private CarService service;
+    private final AtomicInteger changed = new AtomicInteger(), rowEvents = new AtomicInteger();
+    private Vehicle rented, spare;
+    private Rental rental;
+
+    private CarService open() throws Exception {
+        CarService s = new CarService(data, journal);
+        s.load();
+        s.openJournal();
+        s.addListener(new CarService.Listener() {
+            @Override public void rowInserted(Table table, int row) { rowEvents.incrementAndGet(); }
+            @Override public void rowUpdated(Table table, int id) { rowEvents.incrementAndGet(); }
+            @Override public void rowDeleted(Table table, int row) { rowEvents.incrementAndGet(); }
+            @Override public void dataChanged() { changed.incrementAndGet(); }
+        });
+        return s;
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        data = File.createTempFile("carsystem", ".ser");
+        journal = File.createTempFile("carsystem", ".journal");
+        data.delete();
+        journal.delete();
+        service = open();
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        rented = service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+        spare = service.addVehicle("VW", "Polo", 2022, "Red", 250_000);
+        rental = service.addRental(rented.id, 1, "2025-03-01", "2025-03-05", 1200);
+        assertNotNull(rental);
+        service.reports(); // totals kept from here on
+        changed.set(0);
+        rowEvents.set(0);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        service.close();
+        data.delete();
+        journal.delete();
+    }
+
+    // everything a batch can touch, as text
+    private static List<String> state(CarService s) {
+        List<String> out = new ArrayList<>();
+        for (Vehicle v : s.vehicles.toList()) out.add(v.id + ":" + v.make + ":" + v.status);
+        for (Rental r : s.rentals.toList()) out.add("rental " + r.id + ":" + r.vehicleId + ":" + r.rentalDate());
+        for (Sale x : s.sales.toList()) out.add("sale " + x.id + ":" + x.vehicleId + ":" + x.sellingPrice);
+        for (Maintenance m : s.maints.toList()) out.add("maint " + m.id + ":" + m.vehicleId + ":" + m.serviceType);
+        for (Status st : Status.values()) out.add(st.label + " " + s.countVehicles(st));
+        Reports.Totals t = s.reports().total();
+        out.add("totals " + t.salesCents + "/" + t.rentalCents + "/" + t.maintCents + "/" + t.carDays);
+        out.add("next " + s.nextVehicleId.get() + "/" + s.nextRentalId.get() + "/" + s.nextSaleId.get() + "/" + s.nextMaintId.get());
+        return out;
+    }
+
+    @Test
+    public void testBatchCommitsAsOne() throws Exception {
+        CommandBatch batch = new CommandBatch();
+        batch.closeRental(rental.id);
+        batch.addSale(rented.id, 1, "2025-03-05", 280_000);
+        batch.addMaint(spare.id, "Brakes", "2025-03-05", 900, "Joy");
+        int car = batch.addVehicle("Kia", "Rio", 2024, "Blue", 200_000);
+        batch.addRental(car, 1, "2025-03-06", "2025-03-08", 700);
+        CommandBatch.Result r = service.apply(batch);
+
+        assertTrue(r.committed, r.toString());
+        assertArrayEquals(new int[] {rental.id, 1, 1, 3, 2}, r.ids);
+        assertEquals(1, changed.get()); // one update for the window
+        assertEquals(0, rowEvents.get());
+        assertEquals(Status.SOLD, rented.status);
+        assertEquals(Status.MAINTENANCE, spare.status);
+        assertEquals(Status.RENTED, service.findVehicle(3).status);
+        assertNull(service.findRental(rental.id));
+        assertEquals(1200 + 280_000 + 700, service.reports().total().revenue(), 1e-9); // the closed rental still counts
+
+        List<String> expected = state(service);
+        service.close();
+        service = open(); // replayed from the journal
+        assertEquals(expected, state(service));
+    }
+
+    // the sale comes after a service record, which leaves the car in Maintenance: the whole batch is undone
+    @Test
+    public void testRefusedCommandRollsBackEverything() throws Exception {
+        List<String> before = state(service);
+        CommandBatch batch = new CommandBatch();
+        batch.closeRental(rental.id);
+        batch.addMaint(rented.id, "Service", "2025-03-05", 900, "Joy");
+        int car = batch.addVehicle("Kia", "Rio", 2024, "Blue", 200_000);
+        batch.addSale(car, 1, "2025-03-05", 150_000);
+        batch.addSale(rented.id, 1, "2025-03-05", 280_000);
+        CommandBatch.Result r = service.apply(batch);
+
+        assertFalse(r.committed);
+        assertEquals(4, r.failed);
+        assertEquals("vehicle " + rented.id + " is Maintenance", r.reason);
+        assertEquals(before, state(service));
+        assertEquals(0, changed.get() + rowEvents.get());
+        assertFalse(service.isFree(rented.id, "2025-03-02", "2025-03-03")); // still booked
+        assertEquals(3, service.addVehicle("BMW", "320i", 2023, "Black", 600_000).id); // no id was used up
+
+        service.close();
+        service = open(); // nothing of the batch was journaled
+        assertEquals(Status.RENTED, service.findVehicle(rented.id).status);
+        assertEquals(1, service.rentals.size());
+        assertEquals(0, service.maints.size() + service.sales.size());
+        assertEquals(3, service.vehicles.size());
+    }
+
+    @Test
+    public void testReferencesAndRepeatedClose() {
+        CommandBatch batch = new CommandBatch();
+        int car = batch.addVehicle("Kia", "Rio", 2024, "Blue", 200_000);
+        assertThrows(IllegalArgumentException.class, () -> batch.closeRental(car)); // a vehicle, not a rental
+        assertThrows(IllegalArgumentException.class, () -> batch.addSale(-5, 1, "2025-03-05", 1)); // no such command
+
+        int booked = batch.addRental(car, 1, "2025-04-01", "2025-04-03", 500);
+        batch.closeRental(booked);
+        batch.closeRental(booked);
+        CommandBatch.Result r = service.apply(batch);
+        assertFalse(r.committed);
+        assertEquals(3, r.failed);
+        assertEquals("no rental 2", r.reason);
+        assertEquals(2, service.vehicles.size());
+        assertEquals(2, service.nextRentalId.get());
+
+        CommandBatch dated = new CommandBatch(); // dates must be yyyy-MM-dd, as in the single operations
+        dated.addMaint(1, "Oil", "soon", 50, "Joy");
+        r = service.apply(dated);
+        assertFalse(r.committed);
+        assertEquals(0, r.failed);
+        assertEquals("serviceDate is not a yyyy-MM-dd date", r.reason);
+    }
+
+    // short run of the throughput benchmark: one UI update per batch
+    @Test
+    public void testBenchmarkUpdatesOncePerBatch() throws Exception {
+        List<Bench.Result> results = CommandBench.run(2000, 0, 2);
+        assertEquals(1 + CommandBench.BATCH_SIZES.length, results.size());
+        for (Bench.Result r : results) {
+            assertEquals(2000, r.batchSize);
+            assertTrue(r.score() > 0, r.toString());
+            if (r.param("batchSize") == null) continue;
+            int size = Integer.parseInt(r.param("batchSize"));
+            assertEquals((2000 + size - 1) / size, r.secondary("uiUpdates"), r.toString());
+        }
+        assertEquals("singleCalls", results.get(0).method());
+        assertTrue(results.get(0).secondary("uiUpdates") > 2000); // single calls: a row event or two per command
+    }
+}
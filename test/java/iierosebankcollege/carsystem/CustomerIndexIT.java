@@ -0,0 +1,144 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Customer;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class CustomerIndexIT {
+
+    public CustomerIndexIT() {
+    }
+
+    private static final String[] FIRST = {"Sam", "Thandi", "Sipho", "Lerato", "John", "Mary", "Ayesha", "Pieter", "Nomsa", "Kagiso"};
+
+    private File dataFile;
+    private CarService service;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        dataFile = File.createTempFile("carsystem", ".ser");
+        dataFile.delete();
+        service = new CarService(dataFile, new File(dataFile.getPath() + ".journal"));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        dataFile.delete();
+    }
+
+    private void addPeople(int n, Random rnd) {
+        for (int i = 0; i < n; i++) {
+            service.addCustomer(FIRST[rnd.nextInt(FIRST.length)] + " Surname" + rnd.nextInt(n / 5 + 1),
+                    String.format("08%08d", rnd.nextInt(100_000_000)), "user" + service.customers.size() + "@mail.co.za", "Durban");
+        }
+    }
+
+    private List<String> names(String text) {
+        return service.searchCustomers(text, 10).stream().map(c -> c.name).toList();
+    }
+
+    @Test
+    public void testNamePhoneAndEmailPrefixes() {
+        service.addCustomer("Thandi Mokoena", "082 316 3452", "thandi@mail.com", "Cape Town");
+        service.addCustomer("Thabo Mokoena", "+27 71 555 0101", "tm@work.co.za", "Durban");
+        service.addCustomer("Sam van der Merwe", "0215550199", "sam@mail.com", "Paarl");
+
+        assertEquals(List.of("Thabo Mokoena", "Thandi Mokoena"), names("tha").stream().sorted().toList());
+        assertEquals(List.of("Thandi Mokoena"), names("thandi mok"));
+        assertEquals(List.of("Thandi Mokoena"), names("MOK than"));        // any order, any case
+        assertEquals(List.of("Sam van der Merwe"), names("merw"));         // not only the first word
+        assertEquals(List.of("Thandi Mokoena"), names("0823163452"));
+        assertEquals(List.of("Thandi Mokoena"), names("+27 82 316"));      // same number, international
+        assertEquals(List.of("Thabo Mokoena"), names("071 555"));
+        assertEquals(List.of("Thabo Mokoena"), names("0101"));             // last digits
+        assertEquals(List.of("Sam van der Merwe"), names("sam@"));
+        assertEquals(List.of(), names("thandi merwe"));
+        assertEquals(List.of(), names("   "));
+    }
+
+    @Test
+    public void testOneTypoIsForgiven() {
+        service.addCustomer("Thandi Mokoena", "0823163452", "thandi@mail.com", "Cape Town");
+        service.addCustomer("Sipho Dlamini", "0731112222", "sipho@mail.com", "Soweto");
+        assertEquals(List.of("Thandi Mokoena"), names("thnadi"));          // swapped letters
+        assertEquals(List.of("Sipho Dlamini"), names("dlamni"));           // missing letter
+        assertEquals(List.of("Sipho Dlamini"), names("sipho dlamimi"));
+        assertEquals(List.of(), names("xyzzy"));
+    }
+
+    // adds and deletes after the index is built, across several merges, give what a scan would
+    @Test
+    public void testSearchFollowsChanges() {
+        Random rnd = new Random(7);
+        addPeople(2000, rnd);
+        assertFalse(names("surname1").isEmpty()); // builds the index
+        for (int i = 0; i < 12_000; i++) {
+            if (rnd.nextInt(3) == 0) service.deleteCustomer(1 + rnd.nextInt(service.customers.size() + 1000));
+            else addPeople(1, rnd);
+        }
+        List<Customer> live = service.customers.toList();
+        for (int i = 0; i < 200; i++) { // names that exist, so no typo fallback
+            String[] name = live.get(rnd.nextInt(live.size())).name.toLowerCase().split(" ");
+            String first = name[0];
+            String last = name[1];
+            List<Integer> expected = service.customers.toList().stream()
+                    .filter(c -> c.name.toLowerCase().startsWith(first + " ") && c.name.toLowerCase().contains(" " + last))
+                    .map(c -> c.id).sorted().toList();
+            List<Integer> found = service.searchCustomers(first + " " + last, Integer.MAX_VALUE).stream()
+                    .map(c -> c.id).sorted().toList();
+            assertEquals(expected, found, first + " " + last);
+        }
+        Customer gone = service.customers.toList().get(0);
+        service.deleteCustomer(gone.id);
+        assertTrue(service.searchCustomers(gone.email, 10).isEmpty());
+    }
+
+    @Test
+    public void testClearedCustomersAreReindexed() throws IOException {
+        addPeople(100, new Random(3));
+        assertEquals(1, service.searchCustomers("user42@", 10).size());
+        service.clear();
+        assertTrue(service.searchCustomers("user42@", 10).isEmpty());
+        service.addCustomer("Lerato Nkosi", "0825550000", "lerato@mail.com", "Pretoria");
+        assertEquals(List.of("Lerato Nkosi"), names("nkos"));
+    }
+
+    // a keystroke over half a million customers reads those its binary searches over the token entries land
+    // on, and its results: a few hundred for a prefix, a few thousand when every one-typo variant is tried.
+    // A scan reads all 500,000
+    @Test
+    public void testKeystrokesReadFewCustomersAtHalfAMillion() {
+        addPeople(500_000, new Random(5));
+        String[] prefixes = {"t", "th", "tha", "than", "thandi", "thandi s", "thandi surname1", "thandi surname12",
+            "0", "08", "082", "082 3", "3452", "user12345@"};
+        String[] typos = {"thnadi surname12", "surnmae99"};
+        long prefixReads = mostReads(prefixes), typoReads = mostReads(typos);
+        assertEquals(1, service.searchCustomers("user12345@", 10).size());
+        assertTrue(prefixReads < 1000, "a keystroke read " + prefixReads + " of 500k customers");
+        assertTrue(typoReads < 10_000, "a keystroke with a typo read " + typoReads + " of 500k customers");
+    }
+
+    // Most customers one of these searches reads
+    private long mostReads(String[] typed) {
+        for (String q : typed) service.searchCustomers(q, 10); // builds the index
+        long most = 0;
+        for (String q : typed) {
+            long reads = service.customers.reads();
+            service.searchCustomers(q, 10);
+            most = Math.max(most, service.customers.reads() - reads);
+        }
+        return most;
+    }
+}
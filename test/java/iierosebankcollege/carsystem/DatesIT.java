@@ -0,0 +1,130 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.LocalDate;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class DatesIT {
+
+    public DatesIT() {
+    }
+
+    @Test
+    public void testParseAgreesWithLocalDate() {
+        for (LocalDate d = LocalDate.of(1899, 12, 1); d.isBefore(LocalDate.of(2101, 3, 1)); d = d.plusDays(1)) {
+            String s = d.toString();
+            assertEquals(d.toEpochDay(), Dates.parse(s), s);
+            assertEquals(s, Dates.format(Dates.parse(s)));
+            if (d.getYear() >= 1970 && d.getYear() < 2100) assertSame(Dates.format(Dates.parse(s)), Dates.format(Dates.parse(s))); // cached
+        }
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), Dates.parse(" 2024-02-29 "));
+        for (String bad : new String[] {"2025-02-29", "1900-02-29", "2025-13-01", "2025-00-10", "2025-04-31", "2025-1-01",
+            "2025/01/01", "abcd-ef-gh", "", "next week", null}) {
+            assertEquals(Dates.NONE, Dates.parse(bad), bad);
+        }
+    }
+
+    @Test
+    public void testOddTextIsKeptAsWritten() {
+        for (String s : new String[] {"next week", " 2025-01-01", "2025-02-30", ""}) {
+            int d = Dates.of(s);
+            assertFalse(Dates.isDay(d), s);
+            assertEquals(s, Dates.format(d));
+            assertEquals(d, Dates.of(s)); // same text, same value
+        }
+        assertEquals(Dates.NONE, Dates.of(null));
+        assertNull(Dates.format(Dates.NONE));
+        assertTrue(Dates.isDay(Dates.of("2025-01-01")));
+        assertEquals(LocalDate.now().toEpochDay(), Dates.today());
+    }
+
+    // the records keep writing their dates as text, so files from before and after read the same
+    @Test
+    public void testRecordsSerializeDatesAsText() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(new Rental(1, 2, 3, "2025-03-01", "later", 500));
+            out.writeObject(new Sale(1, 2, 3, "2025-03-02", 900));
+            out.writeObject(new Maintenance(1, 2, "Brakes", null, 50, "Joy"));
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Rental r = (Rental) in.readObject();
+            assertEquals("2025-03-01", r.rentalDate());
+            assertEquals("later", r.returnDate());
+            assertEquals(500, r.totalCost);
+            assertEquals("2025-03-02", ((Sale) in.readObject()).dateSold());
+            Maintenance m = (Maintenance) in.readObject();
+            assertNull(m.serviceDate());
+            assertEquals("Joy", m.mechanic);
+        }
+    }
+
+    @Test
+    public void testRangeQueries() throws Exception {
+        File data = File.createTempFile("carsystem", ".ser"), journal = File.createTempFile("carsystem", ".journal");
+        data.delete();
+        journal.delete();
+        CarService service = new CarService(data, journal);
+        try {
+            service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+            for (int i = 0; i < 4; i++) service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+            assertNotNull(service.addRental(1, 1, "2025-02-28", "2025-03-02", 100));
+            assertNotNull(service.addRental(2, 1, " 2025-03-31 ", "2025-04-02", 100)); // parsed once, stored as a day
+            assertEquals("2025-03-31", service.findRental(2).rentalDate());
+            assertNull(service.addRental(3, 1, "2025-03-05", "soon", 100));
+            assertNotNull(service.addSale(3, 1, "2025-03-01", 900));
+            assertNull(service.addSale(4, 1, "sometime", 900)); // free text is refused on new records
+            assertNull(service.addMaint(4, "Oil", "soon", 50, "Joy"));
+            assertNull(service.importSales(List.of(new Sale(0, 4, 1, "sometime", 900)))[0]); // as an older file holds it: kept, but in no range
+            assertNotNull(service.addMaint(1, "Oil", "2025-04-01", 50, "Joy"));
+
+            assertEquals(List.of(2), ids(service.rentalsBetween("2025-03-01", "2025-03-31")));
+            assertEquals(List.of(1), ids(service.salesBetween("2025-03-01", "2025-03-01")));
+            assertTrue(service.salesBetween("2025-03-02", "2025-12-31").isEmpty());
+            assertEquals(1, service.maintsBetween("2025-01-01", "2025-12-31").size());
+            assertThrows(IllegalArgumentException.class, () -> service.salesBetween("March", "2025-03-31"));
+        } finally {
+            service.close();
+            data.delete();
+            journal.delete();
+        }
+    }
+
+    private static List<Integer> ids(List<?> records) {
+        return records.stream().map(r -> r instanceof Rental ? ((Rental) r).id : ((Sale) r).id).toList();
+    }
+
+    // short run of the microbenchmark: parsing, range checks and showing a date no longer allocate
+    @Test
+    public void testBenchmarkAllocatesLess() throws Exception {
+        List<Bench.Result> results = DatesBench.run(20_000, 1, 2);
+        assertEquals(8, results.size());
+        for (int i = 0; i < results.size(); i += 2) {
+            Bench.Result before = results.get(i), after = results.get(i + 1);
+            assertEquals(before.method(), after.method());
+            assertEquals("before", before.param("way"));
+            assertEquals("after", after.param("way"));
+            double beforeBytes = before.secondary("gc.alloc.rate.norm"), afterBytes = after.secondary("gc.alloc.rate.norm");
+            if (afterBytes < 0) continue; // no allocation counter on this JVM
+            assertTrue(afterBytes < 1, after.toString());
+            if (!before.method().equals("show")) assertTrue(beforeBytes > 10, before.toString());
+        }
+    }
+}
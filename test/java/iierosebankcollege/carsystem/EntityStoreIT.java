@@ -0,0 +1,168 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class EntityStoreIT {
+
+    public EntityStoreIT() {
+    }
+
+    private EntityStore<CarSystem.Vehicle> store;
+
+    @BeforeEach
+    public void setup() {
+        store = new EntityStore<>(v -> v.id);
+    }
+
+    private static CarSystem.Vehicle vehicle(int id) {
+        return new CarSystem.Vehicle(id, "Toyota", "Corolla", 2020, "White", 150000);
+    }
+
+    // lookup test
+    @Test
+    public void testFindById() {
+        store.add(vehicle(5));
+        store.add(vehicle(9));
+
+        assertEquals(9, store.findById(9).id);
+        assertNull(store.findById(7));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void testDuplicateIdRejected() {
+        store.add(vehicle(1));
+        assertThrows(IllegalStateException.class, () -> store.add(vehicle(1)));
+    }
+
+    // delete test
+    @Test
+    public void testRemoveKeepsOrderAndIndex() {
+        for (int i = 1; i <= 5; i++) store.add(vehicle(i));
+
+        assertEquals(3, store.removeById(3).id);
+        assertNull(store.removeById(3));
+
+        assertEquals(4, store.size());
+        assertEquals(4, store.get(2).id); // rows after the removed one moved up
+        assertEquals(5, store.findById(5).id);
+        assertNull(store.findById(3));
+    }
+
+    @Test
+    public void testIndexSurvivesManyInsertsAndRemoves() {
+        for (int i = 1; i <= 10000; i++) store.add(vehicle(i));
+        for (int i = 1; i <= 10000; i += 2) store.removeById(i);
+
+        assertEquals(5000, store.size());
+        for (int i = 1; i <= 10000; i++) {
+            if (i % 2 == 0) assertEquals(i, store.findById(i).id);
+            else assertNull(store.findById(i));
+        }
+    }
+
+    @Test
+    public void testGetAfterRemovesSkipsGaps() {
+        for (int i = 1; i <= 6; i++) store.add(vehicle(i));
+        store.removeById(2);
+        store.removeById(6); // tail delete
+        store.removeById(4);
+
+        assertEquals(3, store.size());
+        assertEquals(1, store.get(0).id);
+        assertEquals(3, store.get(1).id);
+        assertEquals(5, store.get(2).id);
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(3));
+
+        store.add(vehicle(7)); // appended after the survivors
+        assertEquals(7, store.get(3).id);
+        assertEquals(7, store.findById(7).id);
+    }
+
+    @Test
+    public void testIteratorSkipsDeleted() {
+        for (int i = 1; i <= 4; i++) store.add(vehicle(i));
+        store.removeById(1);
+        store.removeById(3);
+
+        StringBuilder ids = new StringBuilder();
+        for (CarSystem.Vehicle v : store) ids.append(v.id).append(',');
+        assertEquals("2,4,", ids.toString());
+    }
+
+    // random adds and removes checked against a plain list
+    @Test
+    public void testMatchesArrayListUnderRandomChurn() {
+        java.util.ArrayList<Integer> model = new java.util.ArrayList<>();
+        java.util.Random rnd = new java.util.Random(7);
+        int nextId = 1;
+        for (int step = 0; step < 20000; step++) {
+            int op = rnd.nextInt(10);
+            if (op < 5 || model.isEmpty()) {
+                store.add(vehicle(nextId));
+                model.add(nextId++);
+            } else if (op < 8) {
+                int id = model.remove(rnd.nextInt(model.size()));
+                assertEquals(id, store.removeById(id).id);
+            } else {
+                int row = rnd.nextInt(model.size());
+                assertEquals((int) model.get(row), store.get(row).id);
+                assertEquals(row, store.indexOf(model.get(row)));
+            }
+            assertEquals(model.size(), store.size());
+        }
+    }
+
+    // bulk cleanup: deleting 100k closed rentals out of 200k moves no record and keeps table order
+    @Test
+    public void testDeleteHundredThousandClosedRentals() {
+        long[] keys = {0};
+        EntityStore<CarSystem.Rental> rentals = new EntityStore<>(r -> { keys[0]++; return r.id; });
+        for (int i = 1; i <= 200_000; i++) rentals.add(new CarSystem.Rental(i, i, 1, "2025-01-01", "2025-01-05", 500));
+
+        keys[0] = 0;
+        for (int i = 1; i <= 200_000; i += 2) assertNotNull(rentals.removeById(i)); // close every odd rental
+        // shifting the array on every delete would re-index every record behind the gap: billions of times here
+        assertEquals(0, keys[0]);
+
+        assertEquals(100_000, rentals.size());
+        for (int row = 0; row < rentals.size(); row++) assertEquals((row + 1) * 2, rentals.get(row).id);
+    }
+
+    // scaling test: a lookup reads one record and no other record's id, at 1k as at 1M records
+    @Test
+    public void testLookupCostStaysFlat() {
+        assertEquals(0, keysRead(1_000));
+        assertEquals(0, keysRead(1_000_000)); // a linear scan reads the id of every record before it
+    }
+
+    // Record ids read while looking up every record once, in random order
+    private static long keysRead(int records) {
+        long[] keys = {0};
+        EntityStore<CarSystem.Vehicle> s = new EntityStore<>(v -> { keys[0]++; return v.id; });
+        for (int i = 1; i <= records; i++) s.add(vehicle(i));
+
+        int[] ids = new int[records];
+        java.util.Random rnd = new java.util.Random(42);
+        for (int i = 0; i < records; i++) { // shuffled
+            int j = rnd.nextInt(i + 1);
+            ids[i] = ids[j];
+            ids[j] = i + 1;
+        }
+        keys[0] = 0;
+        long reads = s.reads();
+        for (int id : ids) assertEquals(id, s.findById(id).id);
+        assertNull(s.findById(records + 1));
+        assertEquals(reads + records, s.reads());
+        return keys[0];
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class JournalIT {
+
+    public JournalIT() {
+    }
+
+    private File file;
+
+    // Handler that writes down what was replayed
+    private static class Recorder implements Journal.Handler {
+        final List<String> events = new ArrayList<>();
+
+        @Override public void vehicleAdded(CarSystem.Vehicle v) { events.add("vehicle+" + v.id + ":" + v.make); }
+        @Override public void vehicleDeleted(int id) { events.add("vehicle-" + id); }
+        @Override public void customerAdded(CarSystem.Customer c) { events.add("customer+" + c.id + ":" + c.name); }
+        @Override public void customerDeleted(int id) { events.add("customer-" + id); }
+        @Override public void rentalAdded(CarSystem.Rental r) { events.add("rental+" + r.id + ":" + r.returnDate()); }
+        @Override public void rentalClosed(int id) { events.add("rental-" + id); }
+        @Override public void saleAdded(CarSystem.Sale s) { events.add("sale+" + s.id + ":" + s.sellingPrice); }
+        @Override public void maintAdded(CarSystem.Maintenance m) { events.add("maint+" + m.id + ":" + m.mechanic); }
+        @Override public void rentalReserved(CarSystem.Rental r) { events.add("reserved+" + r.id + ":" + r.rentalDate()); }
+        @Override public void rentalStarted(int id) { events.add("started-" + id); }
+    }
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = File.createTempFile("carsystem", ".journal");
+        file.delete(); // start without a journal
+    }
+
+    @AfterEach
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void testReplayAllRecordTypes() throws IOException {
+        Journal j = new Journal(file, 1000);
+        assertEquals(0, j.open(0, new Recorder()));
+        j.vehicleAdded(new CarSystem.Vehicle(1, "Toyota", "Corolla", 2020, "White", 150000));
+        j.customerAdded(new CarSystem.Customer(1, "Sam", "0823163452", "sam@mail.com", "Cape Town"));
+        j.rentalAdded(new CarSystem.Rental(1, 1, 1, "2025-03-12", "2025-03-18", 4000));
+        j.rentalClosed(1);
+        j.saleAdded(new CarSystem.Sale(1, 1, 1, "2025-03-20", 140000));
+        j.maintAdded(new CarSystem.Maintenance(1, 1, "Oil Change", "2025-03-21", 550, "Joy"));
+        j.rentalReserved(new CarSystem.Rental(2, 1, 1, "2025-04-10", "2025-04-14", 2000));
+        j.rentalStarted(2);
+        j.customerDeleted(1);
+        j.vehicleDeleted(1);
+        j.close();
+
+        Recorder r = new Recorder();
+        assertEquals(10, new Journal(file, 1000).open(0, r));
+        assertEquals(List.of("vehicle+1:Toyota", "customer+1:Sam", "rental+1:2025-03-18", "rental-1",
+                "sale+1:140000.0", "maint+1:Joy", "reserved+2:2025-04-10", "started-2", "customer-1", "vehicle-1"), r.events);
+    }
+
+    @Test
+    public void testTornRecordIsDroppedAndLogContinues() throws IOException {
+        Journal j = new Journal(file, 1);
+        j.open(0, new Recorder());
+        j.vehicleAdded(new CarSystem.Vehicle(1, "BMW", "M4", 2025, "Black", 1600000));
+        j.vehicleAdded(new CarSystem.Vehicle(2, "Audi", "A5", 2018, "Silver", 250000));
+        j.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 5); // simulate a crash in the middle of the last record
+        }
+
+        Journal reopened = new Journal(file, 1);
+        Recorder r = new Recorder();
+        assertEquals(1, reopened.open(0, r));
+        reopened.vehicleAdded(new CarSystem.Vehicle(3, "VW", "Golf 7", 2021, "Red", 300000));
+        reopened.close();
+
+        Recorder again = new Recorder();
+        new Journal(file, 1).open(0, again);
+        assertEquals(List.of("vehicle+1:BMW", "vehicle+3:VW"), again.events);
+    }
+
+    @Test
+    public void testGroupReplaysWholeOrNotAtAll() throws IOException {
+        Journal j = new Journal(file, 1);
+        j.open(0, new Recorder());
+        j.vehicleDeleted(1);
+        j.group(3, g -> {
+            g.rentalClosed(4);
+            g.saleAdded(new CarSystem.Sale(5, 2, 1, "2025-03-20", 140000));
+            g.maintAdded(new CarSystem.Maintenance(6, 2, "Brakes", "2025-03-20", 900, "Joy"));
+        });
+        long whole = file.length();
+        j.group(2, g -> {
+            g.vehicleDeleted(7);
+            g.vehicleDeleted(8);
+        });
+        j.close();
+
+        Recorder r = new Recorder();
+        assertEquals(6, new Journal(file, 1).open(0, r));
+        assertEquals(List.of("vehicle-1", "rental-4", "sale+5:140000.0", "maint+6:Joy", "vehicle-7", "vehicle-8"), r.events);
+
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3); // crash while the last group was being written: its first record is whole
+        }
+        Journal reopened = new Journal(file, 1);
+        r = new Recorder();
+        assertEquals(4, reopened.open(0, r));
+        assertEquals(List.of("vehicle-1", "rental-4", "sale+5:140000.0", "maint+6:Joy"), r.events);
+        assertEquals(whole, file.length()); // the torn group is cut off
+        reopened.close();
+    }
+
+    // a record (or group) writeUTF cannot take is refused whole: the records after it still replay
+    @Test
+    public void testFailedWriteLeavesNothingBehind() throws IOException {
+        Journal j = new Journal(file, 64);
+        j.open(0, new Recorder());
+        j.vehicleAdded(new CarSystem.Vehicle(1, "BMW", "M4", 2025, "Black", 1600000));
+        String huge = "x".repeat(70_000); // over 65,535 bytes
+        assertThrows(IOException.class, () -> j.vehicleAdded(new CarSystem.Vehicle(2, huge, "A5", 2018, "Silver", 250000)));
+        assertThrows(IOException.class, () -> j.group(2, g -> {
+            g.vehicleDeleted(1);
+            g.customerAdded(new CarSystem.Customer(3, "Sam", "0823163452", "sam@mail.com", huge));
+        }));
+        j.vehicleAdded(new CarSystem.Vehicle(4, "VW", "Polo", 2023, "Red", 250000));
+        j.group(2, g -> {
+            g.vehicleDeleted(4);
+            g.vehicleAdded(new CarSystem.Vehicle(5, "Kia", "Rio", 2024, "Blue", 200000));
+        });
+        assertEquals(4, j.records());
+        j.close();
+
+        Recorder r = new Recorder();
+        assertEquals(4, new Journal(file, 64).open(0, r));
+        assertEquals(List.of("vehicle+1:BMW", "vehicle+4:VW", "vehicle-4", "vehicle+5:Kia"), r.events);
+    }
+
+    @Test
+    public void testJournalOfOlderSnapshotIsIgnored() throws IOException {
+        Journal j = new Journal(file, 10);
+        j.open(3, new Recorder());
+        j.vehicleDeleted(7);
+        j.close();
+
+        Recorder r = new Recorder();
+        assertEquals(0, new Journal(file, 10).open(4, r)); // snapshot 4 already contains these changes
+        assertTrue(r.events.isEmpty());
+    }
+
+    @Test
+    public void testUnflushedBatchIsNotOnDisk() throws IOException {
+        Journal j = new Journal(file, 3);
+        j.open(0, new Recorder());
+        j.vehicleDeleted(1);
+        j.vehicleDeleted(2);
+        long before = file.length();
+        j.vehicleDeleted(3); // third record completes the batch
+        assertTrue(file.length() > before);
+        j.close();
+    }
+}
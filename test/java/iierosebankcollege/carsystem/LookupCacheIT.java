@@ -0,0 +1,192 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class LookupCacheIT {
+
+    public LookupCacheIT() {
+    }
+
+    @Test
+    public void testLeastRecentlyUsedGoesFirst() {
+        LookupCache<String> cache = new LookupCache<>(3);
+        List<Integer> loads = new ArrayList<>();
+        for (int id : new int[] {1, 2, 3, 1, 4, 1, 3, 2}) {
+            assertEquals("r" + id, cache.get(id, i -> { loads.add(i); return "r" + i; }));
+        }
+        // 4 pushes out 2 (1 was used after it); 2 then pushes out 4
+        assertEquals(List.of(1, 2, 3, 4, 2), loads);
+        assertEquals(3, cache.hits());
+        assertEquals(5, cache.misses());
+        assertEquals(2, cache.evictions());
+        assertEquals(3, cache.size());
+        assertEquals(3 / 8.0, cache.hitRate(), 1e-9);
+
+        assertNull(cache.get(9, i -> null)); // nothing found is not kept
+        assertEquals(3, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertThrows(IllegalArgumentException.class, () -> new LookupCache<>(-1));
+    }
+
+    @Test
+    public void testNoCapacityAlwaysLoads() {
+        LookupCache<String> cache = new LookupCache<>(0);
+        int[] loads = new int[1];
+        for (int i = 0; i < 5; i++) cache.get(7, id -> { loads[0]++; return "r"; });
+        assertEquals(5, loads[0]);
+        assertEquals(5, cache.misses());
+        assertEquals(0, cache.hits());
+        assertEquals(0, cache.size());
+        cache.invalidate(7);
+        cache.clear();
+    }
+
+    // a lookup that read the store while the record was invalidated must not cache what it read
+    @Test
+    public void testInvalidatedWhileLoadingIsNotCached() {
+        LookupCache<String> cache = new LookupCache<>(8);
+        assertEquals("old", cache.get(1, id -> {
+            cache.invalidate(id); // e.g. deleted by another thread meanwhile
+            return "old";
+        }));
+        assertEquals(0, cache.size());
+        assertEquals("new", cache.get(1, id -> "new"));
+        assertEquals("new", cache.get(1, id -> "other"));
+        cache.invalidate(1);
+        assertEquals("other", cache.get(1, id -> "other"));
+    }
+
+    // random lookups and invalidations against a LinkedHashMap in access order
+    @Test
+    public void testMatchesAccessOrderMap() {
+        int capacity = 50;
+        LookupCache<Integer> cache = new LookupCache<>(capacity); // one segment: one LRU order
+        LinkedHashMap<Integer, Integer> model = new LinkedHashMap<>(16, 0.75f, true);
+        Random rnd = new Random(3);
+        for (int op = 0; op < 100_000; op++) {
+            int id = rnd.nextInt(120);
+            if (rnd.nextInt(5) == 0) {
+                cache.invalidate(id);
+                model.remove(id);
+            } else {
+                boolean hit = model.get(id) != null;
+                boolean[] loaded = {false};
+                assertEquals(id * 10, (int) cache.get(id, i -> { loaded[0] = true; return i * 10; }));
+                assertEquals(hit, !loaded[0], "lookup " + op + " of " + id);
+                if (!hit) {
+                    model.put(id, id * 10);
+                    if (model.size() > capacity) {
+                        Iterator<Integer> eldest = model.keySet().iterator();
+                        eldest.next();
+                        eldest.remove();
+                    }
+                }
+            }
+            assertEquals(model.size(), cache.size());
+        }
+    }
+
+    // several segments: capacity holds, and hot ids stay
+    @Test
+    public void testSegmentsKeepTheHotRecords() {
+        LookupCache<Integer> cache = new LookupCache<>(1024);
+        int[] ids = LookupCacheBench.zipfian(50_000, 200_000, LookupCacheBench.SKEW, 5);
+        for (int id : ids) assertEquals(id, (int) cache.get(id, i -> i));
+        assertTrue(cache.size() <= 1024);
+        assertTrue(cache.size() > 900, "size " + cache.size());
+        assertTrue(cache.hitRate() > 0.3, "hit rate " + cache.hitRate());
+        assertEquals(cache.misses() - cache.size(), cache.evictions());
+    }
+
+    // the booking path of a columnar service with caches looks vehicles and customers up through them
+    @Test
+    public void testServiceCachesAndInvalidates() throws Exception {
+        File data = File.createTempFile("carsystem", ".ser"), journal = File.createTempFile("carsystem", ".journal");
+        data.delete();
+        journal.delete();
+        CarService plain = new CarService(data, journal, true);
+        assertEquals(0, plain.vehicleCache.capacity()); // off unless asked for
+        assertFalse(plain.metrics.prometheus().contains("lookup_cache"));
+        CarService service = new CarService(data, journal, true, 0, CarService.LOOKUP_CACHE);
+        try {
+            service.openJournal();
+            Vehicle car = service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+            Vehicle other = service.addVehicle("Kia", "Rio", 2024, "Blue", 200_000);
+            service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+            service.addCustomer("Lee", "0823163453", "lee@mail.com", "Durban");
+
+            Rental r = service.addRental(car.id, 1, "2025-03-01", "2025-03-05", 500);
+            assertNotNull(r);
+            assertEquals(1, service.vehicleCache.size());
+            assertEquals(1, service.customerCache.size());
+            // status changes land on the cached record, whichever way they are made
+            assertEquals(Status.RENTED, service.findVehicle(car.id).status);
+            assertNull(service.addSale(car.id, 2, "2025-03-02", 280_000)); // cached, and seen as rented
+            assertTrue(service.closeRental(r.id));
+            assertNotNull(service.addMaint(car.id, "Oil", "2025-03-06", 50, "Joy"));
+            assertEquals(Status.MAINTENANCE, service.findVehicle(car.id).status);
+            assertNull(service.addRental(car.id, 1, "2025-03-07", "2025-03-08", 100));
+            assertTrue(service.vehicleCache.hits() >= 2);
+            assertTrue(service.customerCache.hits() >= 1);
+
+            // deletes are invalidated
+            Rental done = service.addRental(other.id, 2, "2025-03-01", "2025-03-02", 100);
+            assertTrue(service.closeRental(done.id));
+            assertTrue(service.deleteVehicle(other.id));
+            assertNull(service.addRental(other.id, 1, "2025-03-01", "2025-03-02", 100));
+            assertNull(service.addMaint(other.id, "Oil", "2025-03-06", 50, "Joy"));
+            assertTrue(service.deleteCustomer(2));
+            assertNull(service.addRental(car.id, 2, "2025-03-01", "2025-03-02", 100));
+
+            // cleared: the ids are handed out again, to new records
+            service.clear();
+            assertEquals(0, service.vehicleCache.size());
+            Vehicle fresh = service.addVehicle("VW", "Polo", 2023, "Red", 250_000);
+            assertEquals(car.id, fresh.id);
+            service.addCustomer("Ann", "0823163454", "ann@mail.com", "Durban");
+            assertNotNull(service.addRental(fresh.id, 1, "2025-03-01", "2025-03-05", 500)); // not the old, serviced car
+            assertEquals("Ann", service.findCustomer(1).name);
+
+            String text = service.metrics.prometheus();
+            assertTrue(text.contains("carsystem_lookup_cache_hits{table=\"vehicles\"}"), text);
+            assertTrue(text.contains("carsystem_lookup_cache_records{table=\"customers\"} 1"), text);
+        } finally {
+            service.close();
+            data.delete();
+            journal.delete();
+        }
+    }
+
+    // short run of the benchmark: hit rate grows with the capacity
+    @Test
+    public void testBenchmarkRuns() throws Exception {
+        List<Bench.Result> results = LookupCacheBench.run(20_000, 50_000, 1, 1, 2);
+        assertEquals(2 + LookupCacheBench.CAPACITIES.length, results.size());
+        assertEquals("columns", results.get(1).param("store"));
+        assertEquals(0, results.get(1).secondary("hitRate"));
+        double last = 0;
+        for (int i = 2; i < results.size(); i++) {
+            assertTrue(results.get(i).secondary("hitRate") > last, results.get(i).toString());
+            last = results.get(i).secondary("hitRate");
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class MetricsIT {
+
+    public MetricsIT() {
+    }
+
+    private File dataFile;
+    private File journalFile;
+    private CarService service;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        dataFile = File.createTempFile("carsystem", ".ser");
+        journalFile = File.createTempFile("carsystem", ".journal");
+        dataFile.delete();
+        journalFile.delete();
+        service = new CarService(dataFile, journalFile);
+    }
+
+    @AfterEach
+    public void cleanup() throws Exception {
+        service.metrics.unregister();
+        service.close();
+        dataFile.delete();
+        journalFile.delete();
+    }
+
+    // every value is counted in a bucket no wider than 1/64 of it
+    @Test
+    public void testBucketsAreWithinPrecision() {
+        Random rnd = new Random(3);
+        for (int i = 0; i < 100_000; i++) {
+            long v = rnd.nextInt(4) == 0 ? rnd.nextInt(200) : (long) Math.exp(rnd.nextDouble() * 28);
+            long top = Metrics.Histogram.highest(Metrics.Histogram.index(v));
+            assertTrue(top >= v && top - v <= v / 64, v + " -> " + top);
+        }
+        assertEquals(Long.MAX_VALUE, Metrics.Histogram.highest(Metrics.Histogram.index(Long.MAX_VALUE))); // overflow bucket
+    }
+
+    @Test
+    public void testQuantiles() {
+        Metrics.Histogram h = new Metrics.Histogram();
+        assertEquals(0, h.valueAt(0.99));
+        for (long v = 1; v <= 1_000_000; v++) h.record(v * 1000); // 1 us to 1 s
+        assertEquals(1_000_000, h.count());
+        assertEquals(1_000_000, h.max() / 1000);
+        assertEquals(500_000_500_000_000L, h.sum());
+        for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            double exact = q * 1e9;
+            assertEquals(exact, h.valueAt(q), exact / 64, "q " + q);
+        }
+        assertEquals(h.max(), h.valueAt(1));
+    }
+
+    // recording takes no lock, and no count is lost between threads
+    @Test
+    public void testConcurrentRecording() throws Exception {
+        Metrics.Histogram h = new Metrics.Histogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> { for (int i = 0; i < 100_000; i++) h.record(i % 5000); });
+            threads[t].start();
+        }
+        for (Thread t : threads) t.join();
+        assertEquals(400_000, h.count());
+        assertEquals(4L * 20 * (4999L * 5000 / 2), h.sum());
+        assertEquals(4999, h.max());
+    }
+
+    @Test
+    public void testOperationsAreTimedAndRefusalsCounted() throws Exception {
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+        assertNotNull(service.addRental(1, 1, "2025-03-01", "2025-03-05", 500));
+        assertNull(service.addRental(1, 1, "2025-03-01", "2025-03-05", 500)); // already rented
+        assertNull(service.addSale(1, 1, "2025-03-02", 900));
+        service.writeSnapshot(Progress.NONE);
+        service.install(service.read());
+
+        Metrics.Timer rental = service.metrics.timer("addRental");
+        assertEquals(2, rental.count());
+        assertEquals(1, rental.failures());
+        assertEquals(1, service.metrics.timer("addSale").failures());
+        assertEquals(1, service.metrics.timer("writeSnapshot").count());
+        assertEquals(1, service.metrics.timer("read").count());
+        assertTrue(rental.latency.max() > 0);
+
+        String text = service.metrics.prometheus();
+        assertTrue(text.contains("# TYPE carsystem_operation_seconds summary\n"), text);
+        assertTrue(text.contains("carsystem_operation_seconds{operation=\"addRental\",quantile=\"0.99\"} "), text);
+        assertTrue(text.contains("carsystem_operation_seconds_count{operation=\"addRental\"} 2\n"), text);
+        assertTrue(text.contains("carsystem_operation_failures_total{operation=\"addRental\"} 1\n"), text);
+        assertTrue(text.contains("carsystem_records{table=\"rentals\"} 1\n"), text);
+        assertTrue(text.contains("carsystem_data_file_bytes " + dataFile.length() + "\n"), text);
+        assertEquals(1, text.split("# TYPE carsystem_records ").length - 1); // one family for all tables
+        for (String line : text.split("\n")) {
+            assertTrue(line.startsWith("# ") || line.matches("carsystem_\\w+(\\{[^}]*\\})? [0-9.]+"), line);
+        }
+    }
+
+    @Test
+    public void testImportsCountRecords() {
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        service.importSales(java.util.List.of(new CarSystem.Sale(0, 7, 1, "2025-03-02", 900)));
+        assertEquals(1, service.metrics.timer("import").count());
+        assertTrue(service.metrics.prometheus().contains("carsystem_import_refused_records_total 1\n"));
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        ObjectName name = service.metrics.register("test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+        assertEquals(1L, server.getAttribute(name, "addVehicle.count"));
+        assertEquals(0L, server.getAttribute(name, "addVehicle.failures"));
+        assertTrue((Double) server.getAttribute(name, "addVehicle.p99Micros") > 0);
+        assertEquals(1L, server.getAttribute(name, "records.vehicles"));
+        assertTrue(((String) server.invoke(name, "prometheus", null, null)).contains("operation=\"addVehicle\""));
+
+        server.setAttribute(name, new Attribute("enabled", false)); // off: nothing recorded
+        service.addVehicle("Toyota", "Corolla", 2021, "White", 300_000);
+        assertEquals(1L, server.getAttribute(name, "addVehicle.count"));
+        assertEquals(false, server.getAttribute(name, "enabled"));
+
+        assertEquals(name, service.metrics.register("test")); // registering again replaces it
+        service.metrics.unregister();
+        assertFalse(server.isRegistered(name));
+    }
+
+    // every call lands in one bucket, its time is the time between start and stop, and switched off
+    // the timer reads no clock and records nothing
+    @Test
+    public void testTimerRecordsEveryCallOnce() {
+        Metrics metrics = new Metrics();
+        Metrics.Timer t = metrics.timer("noop");
+        int n = 100_000;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) t.stop(t.start(), i % 10 != 0);
+        long elapsed = System.nanoTime() - t0;
+        assertEquals(n, t.count());
+        assertEquals(n / 10, t.failures());
+        assertTrue(t.latency.sum() <= elapsed, t.latency.sum() + " > " + elapsed); // no call timed twice
+        assertTrue(t.latency.max() <= elapsed);
+        assertTrue(t.latency.valueAt(0.5) <= t.latency.valueAt(0.99));
+        assertTrue(t.latency.valueAt(0.99) <= t.latency.max());
+
+        metrics.enabled = false;
+        assertEquals(0, t.start());
+        for (int i = 0; i < n; i++) t.stop(t.start(), false);
+        assertEquals(n, t.count());
+        assertEquals(n / 10, t.failures());
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Status;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class OpsBenchIT {
+
+    public OpsBenchIT() {
+    }
+
+    // the same seed gives the same dataset
+    @Test
+    public void testSeededDataset() throws Exception {
+        CarService a = new CarService(new File("unused.dat"), new File("unused.journal"));
+        CarService b = new CarService(new File("unused.dat"), new File("unused.journal"));
+        OpsBench.seed(a, 2000, 7);
+        OpsBench.seed(b, 2000, 7);
+        assertEquals(2000, a.vehicles.size());
+        assertEquals(200, a.customers.size());
+        assertEquals(200, a.rentals.size());
+        assertEquals(200, a.sales.size());
+        assertEquals(400, a.maints.size());
+        assertEquals(200, a.countVehicles(Status.RENTED));
+        assertEquals(200, a.countVehicles(Status.SOLD));
+        for (int id : new int[] {1, 500, 2000}) {
+            assertEquals(a.findVehicle(id).model, b.findVehicle(id).model);
+            assertEquals(a.findVehicle(id).price, b.findVehicle(id).price);
+        }
+        assertEquals(a.reports().total().revenue(), b.reports().total().revenue(), 1e-9);
+    }
+
+    // short headless run of every operation: a score per operation and size, and a JMH-style result file
+    @Test
+    public void testBenchmarkRunsHeadless() throws Exception {
+        List<Bench.Result> results = OpsBench.run(new int[] {1000}, Arrays.asList(OpsBench.Op.values()), 1, 2);
+        assertEquals(OpsBench.Op.values().length, results.size());
+        for (Bench.Result r : results) {
+            assertEquals("1000", r.param("size"));
+            assertEquals(2, r.samples().length);
+            assertTrue(r.score() > 0, r.toString());
+            assertFalse(Double.isNaN(r.error()), r.toString());
+        }
+        String json = Bench.toJson(results);
+        assertTrue(json.startsWith("[") && json.trim().endsWith("]"));
+        assertTrue(json.contains("\"benchmark\":\"iierosebankcollege.carsystem.OpsBench.refreshAllTables\""));
+        assertTrue(json.contains("\"params\":{\"size\":\"1000\"}"));
+        assertEquals(results.size(), json.split("\"primaryMetric\"").length - 1);
+        assertEquals(3, json.split("\"secondaryMetrics\":\\{\"fileSize\"").length - 1);
+    }
+
+    // the same dataset saved as a binary snapshot and with Java serialization, both loaded and sized
+    @Test
+    public void testLegacyLoadComparesTheSameDataset() throws Exception {
+        List<Bench.Result> results = OpsBench.run(new int[] {2000}, Arrays.asList(OpsBench.Op.LOAD_DATA, OpsBench.Op.LOAD_LEGACY), 0, 1);
+        Bench.Result binary = results.get(0), legacy = results.get(1);
+        assertEquals("loadLegacyData", legacy.method());
+        double binaryBytes = binary.secondary("fileSize"), legacyBytes = legacy.secondary("fileSize");
+        assertTrue(binaryBytes > 0 && binaryBytes < legacyBytes, binary + " / " + legacy);
+        assertTrue(legacy.toString().contains("fileSize"), legacy.toString());
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Maintenance;
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Sale;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import iierosebankcollege.carsystem.Reports.Totals;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class ReportsIT {
+
+    public ReportsIT() {
+    }
+
+    private static final String[] MAKES = {"Toyota", "VW", "BMW", "Ford", "Kia"};
+
+    private File dataFile;
+    private File journalFile;
+    private CarService service;
+    private final List<Rental> closed = new ArrayList<>(); // closed by the workload: still counted
+
+    @BeforeEach
+    public void setup() throws IOException {
+        dataFile = File.createTempFile("carsystem", ".ser");
+        journalFile = File.createTempFile("carsystem", ".journal");
+        dataFile.delete();
+        journalFile.delete();
+        service = new CarService(dataFile, journalFile);
+        service.openJournal();
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        service.close();
+        dataFile.delete();
+        journalFile.delete();
+        File history = Archive.dirFor(dataFile);
+        File[] files = history.listFiles();
+        if (files != null) for (File f : files) f.delete();
+        history.delete();
+    }
+
+    private static String date(Random rnd) {
+        return LocalDate.of(2025, 1, 1).plusDays(rnd.nextInt(120)).toString();
+    }
+
+    // a mixed workload: bookings, returns, cancellations, sales, services and deleted cars
+    private void work(int steps, Random rnd) {
+        for (int i = 0; i < steps; i++) {
+            int vid = 1 + rnd.nextInt(Math.max(1, service.nextVehicleId.get() - 1));
+            String from = date(rnd), to = LocalDate.parse(from).plusDays(rnd.nextInt(40)).toString();
+            double cost = rnd.nextInt(500_000) / 100.0; // cents, to catch rounding
+            switch (rnd.nextInt(8)) {
+                case 0: service.addVehicle(MAKES[rnd.nextInt(MAKES.length)], "Model" + rnd.nextInt(4), 2020, "White", 150000); break;
+                case 1: service.addRental(vid, 1, from, to, cost); break;
+                case 2: service.reserve(vid, 1, from, to, cost); break;
+                case 3: close(1 + rnd.nextInt(Math.max(1, service.nextRentalId.get() - 1))); break;
+                case 4: // now and then a sale from an older file, with its date as free text
+                    if (rnd.nextInt(10) == 0) service.importSales(List.of(new Sale(0, vid, 1, "someday", cost * 100)));
+                    else service.addSale(vid, 1, from, cost * 100);
+                    break;
+                case 5: service.addMaint(vid, "Service", from, cost, "Joy"); break;
+                case 6: close(1 + rnd.nextInt(Math.max(1, service.nextRentalId.get() - 1))); break;
+                default: if (rnd.nextInt(10) == 0) service.deleteVehicle(vid); else service.addMaint(vid, "Tyres", from, cost, "Sam");
+            }
+        }
+    }
+
+    private void close(int rentalId) {
+        Rental r = service.rentals.findById(rentalId);
+        if (service.closeRental(rentalId)) closed.add(r);
+    }
+
+    // Totals summed the slow way over the record lists and the closed rentals, grouped by key (null: not
+    // counted in any group)
+    private Map<Object, Totals> recompute(Function<Integer, Object> vehicleKey, boolean byDate) {
+        Map<Object, Totals> out = new HashMap<>();
+        List<Rental> all = new ArrayList<>(service.rentals.toList());
+        all.addAll(closed);
+        for (Rental r : all) {
+            Totals t = new Totals();
+            t.rentalCents = Reports.cents(r.totalCost);
+            t.rentals = 1;
+            int end = Reservations.end(r.rentalDay, r.returnDay);
+            if (!byDate && end != Dates.NONE) t.carDays = end - r.rentalDay;
+            put(out, byDate ? month(r.rentalDate()) : vehicleKey.apply(r.vehicleId), t);
+            if (byDate && end != Dates.NONE) { // car-days land in the months they fall in
+                for (int d = r.rentalDay; d < end; d++) {
+                    Totals day = new Totals();
+                    day.carDays = 1;
+                    put(out, month(LocalDate.ofEpochDay(d).toString()), day);
+                }
+            }
+        }
+        for (Sale s : service.sales.toList()) {
+            Totals t = new Totals();
+            t.salesCents = Reports.cents(s.sellingPrice);
+            t.sales = 1;
+            put(out, byDate ? month(s.dateSold()) : vehicleKey.apply(s.vehicleId), t);
+        }
+        for (Maintenance m : service.maints.toList()) {
+            Totals t = new Totals();
+            t.maintCents = Reports.cents(m.cost);
+            t.maints = 1;
+            put(out, byDate ? month(m.serviceDate()) : vehicleKey.apply(m.vehicleId), t);
+        }
+        return out;
+    }
+
+    private static void put(Map<Object, Totals> out, Object key, Totals t) {
+        if (key != null) out.computeIfAbsent(key, k -> new Totals()).add(t, 1);
+    }
+
+    private static Integer month(String date) {
+        try {
+            LocalDate d = LocalDate.parse(date);
+            return d.getYear() * 100 + d.getMonthValue();
+        } catch (RuntimeException ex) {
+            return null; // not dated
+        }
+    }
+
+    private String make(int vehicleId) {
+        Vehicle v = service.findVehicle(vehicleId);
+        return v == null ? Reports.UNKNOWN : v.make.toLowerCase();
+    }
+
+    private static void assertTotals(Totals expected, Totals actual, String what) {
+        assertEquals(expected.salesCents, actual.salesCents, what + " sales");
+        assertEquals(expected.rentalCents, actual.rentalCents, what + " rentals");
+        assertEquals(expected.maintCents, actual.maintCents, what + " maintenance");
+        assertEquals(expected.sales + "/" + expected.rentals + "/" + expected.maints + "/" + expected.carDays,
+                actual.sales + "/" + actual.rentals + "/" + actual.maints + "/" + actual.carDays, what + " counts");
+    }
+
+    // every figure the reports keep matches a full recompute over the lists
+    private void reconcile() {
+        Reports reports = service.reports();
+        Totals all = new Totals();
+        recompute(id -> "all", false).values().forEach(t -> all.add(t, 1));
+        assertTotals(all, reports.total(), "total");
+        for (Map.Entry<Object, Totals> e : recompute(this::make, false).entrySet()) {
+            assertTotals(e.getValue(), reports.make((String) e.getKey()), "make " + e.getKey());
+        }
+        for (Map.Entry<Object, Totals> e : recompute(id -> id, false).entrySet()) {
+            assertTotals(e.getValue(), reports.vehicle((Integer) e.getKey()), "vehicle " + e.getKey());
+        }
+        Map<Object, Totals> months = recompute(null, true);
+        assertEquals(months.keySet(), reports.months().keySet());
+        for (Map.Entry<Integer, Totals> e : reports.months().entrySet()) {
+            assertTotals(months.get(e.getKey()), e.getValue(), "month " + e.getKey());
+        }
+    }
+
+    @Test
+    public void testTotalsReconcileWithAFullRecompute() throws Exception {
+        Random rnd = new Random(17);
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        for (int i = 0; i < 30; i++) service.addVehicle(MAKES[i % MAKES.length], "Model" + i % 4, 2020, "White", 150000);
+        work(3000, rnd);
+        reconcile(); // built from the lists
+        work(5000, rnd);
+        reconcile(); // kept up to date by the writes
+
+        CarService reopened = new CarService(dataFile, journalFile); // replayed from the journal
+        service.close();
+        reopened.load();
+        reopened.openJournal();
+        service = reopened;
+        reconcile();
+        service.writeSnapshot(Progress.NONE);
+        work(2000, rnd);
+        reconcile();
+    }
+
+    // closed before the first build: counted once, from the archive if one is open, else straight away
+    @Test
+    public void testRentalsClosedBeforeTheFirstBuild() throws IOException {
+        for (boolean archived : new boolean[] {false, true}) {
+            service.clear();
+            if (archived) service.openArchive(Archive.dirFor(dataFile), -1);
+            service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+            Vehicle a = service.addVehicle("Toyota", "Corolla", 2020, "White", 150000);
+            Vehicle b = service.addVehicle("Kia", "Rio", 2021, "Red", 160000);
+            for (int i = 0; i < 50; i++) service.closeRental(service.addRental(a.id, 1, "2025-01-30", "2025-02-04", 10).id);
+            service.closeRental(service.addRental(b.id, 1, "2025-03-01", "2025-03-03", 7).id);
+            service.deleteVehicle(b.id); // after its rental was counted: moves to make ""
+            service.addRental(a.id, 1, "2025-04-01", "2025-04-02", 1); // still open
+            Totals all = service.reports().total();
+            assertEquals(52, all.rentals, "archive " + archived);
+            assertEquals(50 * 1000 + 700 + 100, all.rentalCents);
+            assertEquals(50 * 5 + 2 + 1, all.carDays);
+            assertEquals(7, service.reports().make(Reports.UNKNOWN).rentalRevenue(), 1e-9);
+            assertTrue(service.reports().make("kia").isEmpty());
+        }
+    }
+
+    @Test
+    public void testDayMonthAndUtilization() throws IOException {
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        Vehicle a = service.addVehicle("Toyota", "Corolla", 2020, "White", 150000);
+        service.addVehicle("Toyota", "Corolla", 2021, "Red", 160000);
+        assertEquals(0, service.reports().total().revenue());
+
+        Rental r = service.addRental(a.id, 1, "2025-01-30", "2025-02-04", 1000.10); // 2 days in January, 3 in February
+        service.addMaint(2, "Oil", "2025-01-30", 550.25, "Joy");
+        assertEquals(1000.10, service.reports().day("2025-01-30").revenue());
+        assertEquals(550.25, service.reports().day("2025-01-30").maintenanceSpend());
+        assertEquals(2, service.reports().month(2025, 1).carDays);
+        assertEquals(3, service.reports().month(2025, 2).carDays);
+        assertEquals(0, service.reports().month(2025, 2).revenue()); // revenue is dated by the start
+        assertEquals(1000.10, service.reports().model("COROLLA").revenue());
+        assertEquals(0.5, service.utilization()); // one of two cars out (the other is in the workshop, not rented)
+        assertEquals(3.0 / (2 * 28), service.utilization(2025, 2));
+
+        service.closeRental(r.id); // returned: still earned, and the car-days were used
+        assertEquals(1000.10, service.reports().make("toyota").rentalRevenue());
+        assertEquals(550.25, service.reports().make("toyota").maintenanceSpend());
+        assertEquals(3, service.reports().month(2025, 2).carDays);
+        assertEquals(Set.of(202501, 202502), service.reports().months().keySet());
+        service.deleteVehicle(2); // its service record stays, under make ""
+        assertEquals(550.25, service.reports().make(Reports.UNKNOWN).maintenanceSpend());
+        assertEquals(550.25, service.reports().vehicle(2).maintenanceSpend());
+
+        service.clear();
+        assertTrue(service.reports().total().isEmpty());
+    }
+}
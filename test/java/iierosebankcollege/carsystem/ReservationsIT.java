@@ -0,0 +1,178 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Rental;
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class ReservationsIT {
+
+    public ReservationsIT() {
+    }
+
+    private File dataFile;
+    private File journalFile;
+    private CarService service;
+    private Vehicle car;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        dataFile = File.createTempFile("carsystem", ".ser");
+        journalFile = File.createTempFile("carsystem", ".journal");
+        dataFile.delete();
+        journalFile.delete();
+        service = new CarService(dataFile, journalFile);
+        car = service.addVehicle("Toyota", "Corolla", 2020, "White", 150000);
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        service.close();
+        dataFile.delete();
+        journalFile.delete();
+    }
+
+    @Test
+    public void testOverlappingBookingsAreRejected() {
+        assertNotNull(service.reserve(car.id, 1, "2025-03-10", "2025-03-14", 2000));
+        assertEquals(Status.AVAILABLE, car.status); // booked, not out yet
+        assertNull(service.reserve(car.id, 1, "2025-03-13", "2025-03-20", 2000)); // overlaps the end
+        assertNull(service.reserve(car.id, 1, "2025-03-01", "2025-03-11", 2000)); // overlaps the start
+        assertNull(service.reserve(car.id, 1, "2025-03-11", "2025-03-12", 2000)); // inside
+        assertNotNull(service.reserve(car.id, 1, "2025-03-14", "2025-03-16", 1000)); // return day is free again
+        assertNotNull(service.reserve(car.id, 1, "2025-03-05", "2025-03-10", 1000)); // ends as the next starts
+        assertNull(service.reserve(car.id, 1, "2025-03-20", "2025-03-18", 1000)); // ends before it starts
+        assertNull(service.reserve(car.id, 1, "next week", "2025-03-18", 1000));
+
+        assertFalse(service.isFree(car.id, "2025-03-12", "2025-03-13"));
+        assertTrue(service.isFree(car.id, "2025-03-16", "2025-03-20"));
+        assertThrows(IllegalArgumentException.class, () -> service.isFree(car.id, "2025-03-16", "soon"));
+    }
+
+    @Test
+    public void testRentingNowMustEndBeforeTheNextReservation() {
+        Rental later = service.reserve(car.id, 1, "2025-03-20", "2025-03-25", 2000);
+        assertNull(service.addRental(car.id, 1, "2025-03-12", "2025-03-22", 4000)); // runs into the reservation
+        Rental now = service.addRental(car.id, 1, "2025-03-12", "2025-03-18", 4000);
+        assertNotNull(now);
+        assertEquals(Status.RENTED, car.status);
+
+        assertFalse(service.startRental(later.id)); // car is still out
+        assertNull(service.addSale(car.id, 1, "2025-03-19", 140000));
+        assertTrue(service.closeRental(now.id));
+        assertEquals(Status.AVAILABLE, car.status);
+        assertNull(service.addSale(car.id, 1, "2025-03-19", 140000)); // still reserved: no sale with bookings
+        assertEquals("vehicle " + car.id + " has bookings; cancel them before selling it", service.saleRefusal(car.id, 1));
+
+        assertTrue(service.startRental(later.id));
+        assertEquals(Status.RENTED, car.status);
+        assertTrue(service.closeRental(later.id));
+        assertEquals(Status.AVAILABLE, car.status);
+        assertNull(service.saleRefusal(car.id, 1));
+        assertNotNull(service.addSale(car.id, 1, "2025-03-26", 140000));
+        assertEquals("vehicle " + car.id + " is Sold", service.saleRefusal(car.id, 1));
+        assertNull(service.reserve(car.id, 1, "2025-04-01", "2025-04-02", 100)); // sold cars are not booked
+    }
+
+    @Test
+    public void testCancellingAReservationLeavesTheCurrentRentalOut() {
+        Rental now = service.addRental(car.id, 1, "2025-03-12", "2025-03-18", 4000);
+        Rental later = service.reserve(car.id, 1, "2025-03-20", "2025-03-25", 2000);
+        assertTrue(service.closeRental(later.id)); // cancel
+        assertEquals(Status.RENTED, car.status);
+        assertTrue(service.isFree(car.id, "2025-03-20", "2025-03-25"));
+        assertTrue(service.closeRental(now.id));
+        assertEquals(Status.AVAILABLE, car.status);
+    }
+
+    @Test
+    public void testOnlyTheEarliestReservationCanStart() {
+        Rental second = service.reserve(car.id, 1, "2025-03-20", "2025-03-25", 2000);
+        Rental first = service.reserve(car.id, 1, "2025-03-10", "2025-03-14", 2000);
+        assertFalse(service.startRental(second.id));
+        assertTrue(service.startRental(first.id));
+        assertFalse(service.startRental(first.id)); // already out
+    }
+
+    @Test
+    public void testFindFreeCarOfModel() {
+        Vehicle other = service.addVehicle("Toyota", "Corolla", 2021, "Red", 160000);
+        service.addVehicle("VW", "Polo", 2021, "Blue", 120000);
+        assertNotNull(service.reserve(car.id, 1, "2025-03-10", "2025-03-14", 2000));
+        assertEquals(other.id, service.findFreeVehicle("corolla", "2025-03-12", "2025-03-13").id); // model ignores case
+        assertNotNull(service.reserve(other.id, 1, "2025-03-12", "2025-03-20", 2000));
+        assertNull(service.findFreeVehicle("Corolla", "2025-03-12", "2025-03-13"));
+        assertEquals(car.id, service.findFreeVehicle("Corolla", "2025-03-14", "2025-03-15").id);
+        assertNull(service.findFreeVehicle("Golf", "2025-03-14", "2025-03-15"));
+    }
+
+    @Test
+    public void testReservationsSurviveJournalReplay() throws Exception {
+        service.load();
+        service.openJournal(); // journal from here on: the setup records are not in it
+        car = service.addVehicle("VW", "Polo", 2021, "Blue", 120000);
+        service.addCustomer("Lee", "0821111111", "lee@mail.com", "Durban");
+        Rental first = service.reserve(car.id, 1, "2025-03-10", "2025-03-14", 2000);
+        service.reserve(car.id, 1, "2025-03-20", "2025-03-25", 2000);
+        assertTrue(service.startRental(first.id));
+        service.close();
+
+        CarService reopened = new CarService(dataFile, journalFile);
+        reopened.load();
+        reopened.openJournal();
+        assertEquals(Status.RENTED, reopened.findVehicle(car.id).status);
+        assertFalse(reopened.isFree(car.id, "2025-03-21", "2025-03-22"));
+        assertNull(reopened.reserve(car.id, 2, "2025-03-12", "2025-03-13", 100));
+        assertTrue(reopened.closeRental(first.id));
+        assertEquals(Status.AVAILABLE, reopened.findVehicle(car.id).status);
+        assertEquals(3, reopened.reserve(car.id, 2, "2025-04-01", "2025-04-02", 100).id); // counter replayed too
+        reopened.close();
+    }
+
+    // Two million past bookings over 2,000 cars of 20 models. isFree is one binary search; findFreeVehicle is
+    // one per car of the model until a free one turns up, O(cars of model x log bookings). Neither reads a
+    // rental, and only a car that is free is read (to see it is not sold); a scan would read all 2M bookings
+    @Test
+    public void testQueriesReadNoBookings() throws IOException {
+        service.clear(); // fleet of 2,000 with ids from 1
+        for (int i = 0; i < 2000; i++) service.addVehicle("Make", "Model" + (i % 20), 2020, "White", 100000);
+        String[] dates = new String[1001], returns = new String[1001];
+        LocalDate day = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = day.plusDays(i * 2).toString();
+            returns[i] = day.plusDays(i * 2 + 1).toString();
+        }
+        int id = 1;
+        for (int vid = 1; vid <= 2000; vid++) {
+            for (int k = 0; k < 1000; k++) { // one-day bookings every other day, all on record
+                service.rentals.add(new Rental(id++, vid, 1, dates[k], returns[k], 100));
+            }
+        }
+        assertEquals(2_000_000, service.rentals.size());
+        String from = day.plusDays(1001).toString(), to = day.plusDays(1002).toString(); // a free gap day
+        assertTrue(service.isFree(1, from, to)); // builds the schedule
+
+        long rentalReads = service.rentals.reads(), vehicleReads = service.vehicles.reads();
+        for (int round = 0; round < 20; round++) {
+            assertTrue(service.isFree(777, from, to));
+            assertFalse(service.isFree(777, dates[500], to));
+            assertNotNull(service.findFreeVehicle("Model7", from, to));
+            assertNull(service.findFreeVehicle("Model7", dates[500], dates[501])); // every car of the model is booked
+        }
+        assertEquals(rentalReads, service.rentals.reads());
+        assertEquals(vehicleReads + 20 * 2, service.vehicles.reads()); // the free car: checked, then returned
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class SnapshotCodecIT {
+
+    public SnapshotCodecIT() {
+    }
+
+    private File file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = File.createTempFile("carsystem", ".snapshot");
+    }
+
+    @AfterEach
+    public void cleanup() {
+        file.delete();
+    }
+
+    private static SnapshotCodec.Data sample() {
+        SnapshotCodec.Data d = new SnapshotCodec.Data();
+        d.vehicles.add(new CarSystem.Vehicle(1, "Toyota", "Corolla", 2020, "White", 150000));
+        d.vehicles.add(new CarSystem.Vehicle(2, "BMW", "M4", 2025, "Black", 1600000.5));
+        d.vehicles.get(1).status = CarSystem.Status.RENTED;
+        d.customers.add(new CarSystem.Customer(1, "Thandô", "0795116854", "thando22@gmail.com", null));
+        d.rentals.add(new CarSystem.Rental(1, 2, 1, "2025-03-12", "2025-03-18", 4000));
+        d.sales.add(new CarSystem.Sale(1, 1, 1, "2025-03-15", 140000));
+        d.maints.add(new CarSystem.Maintenance(1, 1, "Engine Service", "2025-05-13", 1500, "Joy"));
+        d.nextVehicleId = 3; d.nextCustomerId = 2; d.nextRentalId = 2; d.nextSaleId = 2; d.nextMaintId = 2;
+        d.generation = 7;
+        return d;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        SnapshotCodec.write(file, sample());
+        assertTrue(SnapshotCodec.isSnapshot(file));
+
+        SnapshotCodec.Data d = SnapshotCodec.read(file);
+        assertEquals(2, d.vehicles.size());
+        assertEquals("BMW", d.vehicles.get(1).make);
+        assertEquals(CarSystem.Status.RENTED, d.vehicles.get(1).status);
+        assertEquals(1600000.5, d.vehicles.get(1).price);
+        assertEquals("Thandô", d.customers.get(0).name);
+        assertNull(d.customers.get(0).address);
+        assertEquals("2025-03-18", d.rentals.get(0).returnDate());
+        assertEquals(140000, d.sales.get(0).sellingPrice);
+        assertEquals("Joy", d.maints.get(0).mechanic);
+        assertEquals(3, d.nextVehicleId);
+        assertEquals(2, d.nextMaintId);
+        assertEquals(7, d.generation);
+    }
+
+    @Test
+    public void testRepeatedStringsShareOneInstance() throws IOException {
+        SnapshotCodec.Data d = new SnapshotCodec.Data();
+        d.vehicles.add(new CarSystem.Vehicle(1, "Toyota", "Corolla", 2020, new String("White"), 150000));
+        d.vehicles.add(new CarSystem.Vehicle(2, "Toyota", "Yaris", 2021, new String("White"), 120000));
+        SnapshotCodec.write(file, d);
+
+        SnapshotCodec.Data back = SnapshotCodec.read(file);
+        assertSame(back.vehicles.get(0).color, back.vehicles.get(1).color); // decoded once from the string table
+        assertSame(back.vehicles.get(0).status, back.vehicles.get(1).status);
+    }
+
+    @Test
+    public void testSerializedFileIsNotSnapshot() throws IOException {
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(file))) {
+            out.writeObject(new java.util.ArrayList<CarSystem.Vehicle>());
+        }
+        assertFalse(SnapshotCodec.isSnapshot(file));
+    }
+
+    @Test
+    public void testNewerVersionRejected() throws IOException {
+        SnapshotCodec.write(file, sample());
+        byte[] bytes = java.nio.file.Files.readAllBytes(file.toPath());
+        bytes[5] = 99; // version field
+        assertThrows(IOException.class, () -> SnapshotCodec.read(ByteBuffer.wrap(bytes)));
+    }
+
+    @Test
+    public void testTruncatedFileRejected() throws IOException {
+        SnapshotCodec.write(file, sample());
+        byte[] bytes = java.nio.file.Files.readAllBytes(file.toPath());
+        java.nio.file.Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+        assertThrows(IOException.class, () -> SnapshotCodec.read(file));
+    }
+
+    // lazy loading: opening a snapshot decodes nothing until a row is touched
+    @Test
+    public void testOpenedStoreDecodesOnDemand() throws IOException {
+        SnapshotCodec.Data d = new SnapshotCodec.Data();
+        for (int i = 1; i <= 1000; i++) d.vehicles.add(new CarSystem.Vehicle(i, "Toyota", "Corolla", 2020, "White", 1000 + i));
+        d.vehicles.get(9).status = CarSystem.Status.SOLD;
+        d.nextVehicleId = 1001;
+        SnapshotCodec.write(file, d);
+        assertTrue(SnapshotCodec.hasDirectory(file));
+
+        try (SnapshotCodec.Opened m = SnapshotCodec.open(file)) {
+            assertEquals(1001, m.nextVehicleId);
+            EntityStore<CarSystem.Vehicle> store = new EntityStore<>(v -> v.id);
+            store.replaceAll(m.vehicles);
+            assertEquals(1000, store.size());
+            assertEquals(1000, store.undecoded());
+
+            assertEquals(CarSystem.Status.SOLD, store.findById(10).status);
+            assertEquals(1500, store.get(499).price);
+            assertEquals(998, store.undecoded());
+
+            store.findById(10).status = CarSystem.Status.AVAILABLE; // decoded objects are kept, so changes stick
+            assertEquals(CarSystem.Status.AVAILABLE, store.findById(10).status);
+
+            assertEquals(10, store.removeById(10).id);
+            assertNull(store.findById(10));
+            assertEquals(11, store.get(9).id);
+            store.add(new CarSystem.Vehicle(1001, "BMW", "M4", 2025, "Black", 1600000));
+            assertEquals(1001, store.get(999).id);
+            assertThrows(IllegalStateException.class, () -> store.add(new CarSystem.Vehicle(5, "VW", "Polo", 2019, "Red", 1)));
+        }
+    }
+
+    @Test
+    public void testOpenedUnsortedIds() throws IOException {
+        SnapshotCodec.Data d = new SnapshotCodec.Data();
+        d.customers.add(new CarSystem.Customer(9, "Sam", "1", "a", "b"));
+        d.customers.add(new CarSystem.Customer(3, "Watts", "2", "c", "d"));
+        SnapshotCodec.write(file, d);
+
+        try (SnapshotCodec.Opened m = SnapshotCodec.open(file)) {
+            assertEquals(1, m.customers.rowOf(3));
+            assertEquals(0, m.customers.rowOf(9));
+            assertEquals(-1, m.customers.rowOf(4));
+            assertEquals("Watts", m.customers.decode(1).name);
+        }
+    }
+
+    // an opened snapshot holds no mapping: the next snapshot can replace the file, and clear can delete it,
+    // while rows not decoded yet are still read from the version that was opened
+    @Test
+    public void testOpenedFileCanBeReplacedAndDeleted() throws IOException {
+        SnapshotCodec.Data d = new SnapshotCodec.Data();
+        for (int i = 1; i <= 5000; i++) d.vehicles.add(new CarSystem.Vehicle(i, "Toyota", "Corolla", 2020, "White", 1000 + i));
+        SnapshotCodec.write(file, d);
+        File next = new File(file.getPath() + ".tmp");
+        try (SnapshotCodec.Opened m = SnapshotCodec.open(file)) {
+            d.vehicles.clear();
+            d.vehicles.add(new CarSystem.Vehicle(1, "BMW", "M4", 2025, "Black", 1600000));
+            SnapshotCodec.write(next, d);
+            java.nio.file.Files.move(next.toPath(), file.toPath(), java.nio.file.StandardCopyOption.REPLACE_EXISTING,
+                    java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+            assertEquals("Toyota", m.vehicles.decode(4999).make);
+            assertEquals(1, SnapshotCodec.read(file).vehicles.size());
+            assertTrue(file.delete());
+            assertEquals(2500, m.vehicles.decode(m.vehicles.rowOf(1500)).price);
+        } finally {
+            next.delete();
+        }
+        SnapshotCodec.write(file, d);
+        SnapshotCodec.Opened m = SnapshotCodec.open(file);
+        m.close(); // once closed, rows can no longer be read
+        assertThrows(UncheckedIOException.class, () -> m.vehicles.decode(0));
+    }
+
+    // size comparison against Java serialization of the same lists
+    @Test
+    public void testSmallerThanJavaSerialization() throws IOException {
+        SnapshotCodec.Data d = new SnapshotCodec.Data();
+        String[] makes = {"Toyota", "BMW", "VW", "Ford", "Audi"};
+        for (int i = 1; i <= 100_000; i++) {
+            d.vehicles.add(new CarSystem.Vehicle(i, makes[i % 5], "Model" + (i % 40), 2000 + i % 25, "White", 100000 + i));
+        }
+        SnapshotCodec.write(file, d);
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(d.vehicles);
+        }
+        // includes the row directory used for lazy loading (8 bytes per row)
+        assertTrue(file.length() * 3 < serialized.size() * 2, "binary " + file.length() + " bytes vs serialized " + serialized.size());
+        long[] last = {-1};
+        assertEquals(100_000, SnapshotCodec.read(file, (done, total) -> {
+            assertTrue(done > last[0] && total == file.length()); // bytes decoded, on their way to the end
+            last[0] = done;
+        }).vehicles.size());
+        assertTrue(last[0] > 0);
+    }
+}
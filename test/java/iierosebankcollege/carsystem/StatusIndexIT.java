@@ -0,0 +1,120 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Status;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class StatusIndexIT {
+
+    public StatusIndexIT() {
+    }
+
+    private File dataFile;
+    private CarService service;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        dataFile = File.createTempFile("carsystem", ".ser");
+        dataFile.delete();
+        service = new CarService(dataFile, new File(dataFile.getPath() + ".journal"));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        dataFile.delete();
+    }
+
+    // ids with this status found the slow way
+    private int[] scan(Status s) {
+        return service.vehicles.toList().stream().filter(v -> v.status == s).mapToInt(v -> v.id).sorted().toArray();
+    }
+
+    private int[] indexed(Status s) {
+        int[] ids = service.statuses.ids(s);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    @Test
+    public void testIndexFollowsEveryOperation() {
+        Random rnd = new Random(7);
+        for (int i = 0; i < 200; i++) service.addVehicle("Make" + i, "Model", 2020, "White", 100000);
+        for (int i = 0; i < 20; i++) service.addCustomer("C" + i, "082", "c@mail.com", "Durban");
+        assertEquals(200, service.countVehicles(Status.AVAILABLE)); // builds the index
+        for (int i = 0; i < 5000; i++) {
+            int vid = 1 + rnd.nextInt(220), cid = 1 + rnd.nextInt(20);
+            switch (rnd.nextInt(6)) {
+                case 0: case 1: service.addRental(vid, cid, "2025-01-01", "2025-01-02", 100); break;
+                case 2: if (!service.rentals.isEmpty()) service.closeRental(service.rentals.get(0).id); break;
+                case 3: service.addSale(vid, cid, "2025-01-03", 90000); break;
+                case 4: service.addMaint(vid, "Service", "2025-01-04", 500, "Joy"); break;
+                default:
+                    if (rnd.nextBoolean()) service.deleteVehicle(vid);
+                    else service.addVehicle("Extra", "Model", 2024, "Blue", 120000);
+            }
+        }
+        for (Status s : Status.values()) {
+            assertArrayEquals(scan(s), indexed(s), s.label);
+            assertEquals(scan(s).length, service.countVehicles(s));
+        }
+    }
+
+    // listing a status reads the vehicles that have it and counting reads none; a fleet scan reads them all
+    @Test
+    public void testListingCostsResultNotFleet() {
+        for (int i = 0; i < 20_000; i++) service.addVehicle("Make", "Model", 2020, "White", 100000);
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        for (int id = 1; id <= 20_000; id++) if (id % 5000 != 0) service.addSale(id, 1, "2025-01-01", 1);
+        assertEquals(4, service.vehiclesWith(Status.AVAILABLE).size()); // builds the index
+
+        long reads = service.vehicles.reads();
+        for (int round = 0; round < 20; round++) {
+            assertEquals(4, service.vehiclesWith(Status.AVAILABLE).size());
+            assertEquals(19_996, service.countVehicles(Status.SOLD));
+        }
+        assertEquals(reads + 20 * 4, service.vehicles.reads());
+    }
+
+    @Test
+    public void testLazyFleetIsNotDecodedUntilQueried() throws Exception {
+        for (int i = 0; i < 1000; i++) service.addVehicle("Make", "Model", 2020, "White", 100000);
+        service.writeSnapshot(Progress.NONE);
+
+        CarService reopened = new CarService(dataFile, new File(dataFile.getPath() + ".journal"));
+        reopened.load();
+        assertEquals(1000, reopened.vehicles.undecoded());
+        assertEquals(1000, reopened.countVehicles(Status.AVAILABLE));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testStatusStillSavedAsTextForSerializedFiles() throws Exception {
+        CarSystem.Vehicle v = new CarSystem.Vehicle(1, "Audi", "A5", 2018, "Silver", 250000);
+        v.status = Status.MAINTENANCE;
+        ArrayList<CarSystem.Vehicle> list = new ArrayList<>();
+        list.add(v);
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(dataFile))) {
+            out.writeObject(list); // same layout as files saved before the binary snapshot
+            for (int i = 0; i < 4; i++) out.writeObject(new ArrayList<>());
+            for (int i = 0; i < 5; i++) out.writeInt(2);
+        }
+        SnapshotCodec.Data d = CarService.readSerialized(dataFile);
+        assertEquals(Status.MAINTENANCE, d.vehicles.get(0).status);
+        assertEquals("Audi", d.vehicles.get(0).make);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.swing.event.TableModelEvent;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class StoreTableModelIT {
+
+    public StoreTableModelIT() {
+    }
+
+    private EntityStore<CarSystem.Vehicle> store;
+    private StoreTableModel<CarSystem.Vehicle> model;
+    private List<String> events;
+
+    @BeforeEach
+    public void setup() {
+        store = new EntityStore<>(v -> v.id);
+        model = new StoreTableModel<>(store, (v, col) -> col == 0 ? v.id : v.status.label, "ID", "Status");
+        events = new ArrayList<>();
+        model.addTableModelListener(e -> {
+            String type = e.getType() == TableModelEvent.INSERT ? "insert" : e.getType() == TableModelEvent.DELETE ? "delete" : "update";
+            events.add(type + " " + e.getFirstRow() + "-" + e.getLastRow());
+        });
+    }
+
+    @Test
+    public void testReadsStraightFromStore() {
+        store.add(new CarSystem.Vehicle(1, "Toyota", "Corolla", 2020, "White", 150000));
+        store.add(new CarSystem.Vehicle(2, "BMW", "M4", 2025, "Black", 1600000));
+
+        assertEquals(2, model.getRowCount());
+        assertEquals(2, model.getColumnCount());
+        assertEquals("Status", model.getColumnName(1));
+        assertEquals(2, model.getValueAt(1, 0));
+        assertEquals("Available", model.getValueAt(0, 1));
+        assertFalse(model.isCellEditable(0, 1));
+    }
+
+    // one change fires one single-row event
+    @Test
+    public void testFineGrainedEvents() {
+        for (int i = 1; i <= 5; i++) {
+            store.add(new CarSystem.Vehicle(i, "Toyota", "Corolla", 2020, "White", 150000));
+            model.rowAdded(i - 1);
+        }
+        store.findById(3).status = CarSystem.Status.RENTED;
+        model.rowChanged(3);
+        int row = store.indexOf(2);
+        store.removeById(2);
+        model.rowRemoved(row);
+        model.rowChanged(4); // now at row 2
+
+        assertEquals(List.of("insert 0-0", "insert 1-1", "insert 2-2", "insert 3-3", "insert 4-4",
+                "update 2-2", "delete 1-1", "update 2-2"), events);
+        assertEquals("Rented", model.getValueAt(1, 1));
+        assertEquals(4, model.getRowCount());
+    }
+
+    // a search result narrows the rows to those ids; null brings the whole store back
+    @Test
+    public void testShowsOnlyTheGivenIds() {
+        for (int i = 1; i <= 5; i++) store.add(new CarSystem.Vehicle(i, "Toyota", "Corolla", 2020, "White", 150000));
+        model.show(new int[] {4, 2});
+        assertTrue(model.isFiltered());
+        events.clear();
+        store.add(new CarSystem.Vehicle(6, "Kia", "Rio", 2024, "Blue", 200000));
+        model.rowAdded(5); // past the rows on display: no event
+        assertTrue(events.isEmpty());
+        assertEquals(2, model.getRowCount());
+        assertEquals(4, model.getValueAt(0, 0));
+        store.removeById(2);
+        assertNull(model.getValueAt(1, 0)); // deleted since the search
+        model.show(null);
+        assertEquals(5, model.getRowCount());
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/UnitTests/JUnit5TestClass.java to edit this template
+ */
+package iierosebankcollege.carsystem;
+
+import iierosebankcollege.carsystem.CarSystem.Status;
+import iierosebankcollege.carsystem.CarSystem.Vehicle;
+import iierosebankcollege.carsystem.VehicleIndex.Query;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Bongumusa Maseko
+ */
+public class VehicleIndexIT {
+
+    public VehicleIndexIT() {
+    }
+
+    private static final String[] MAKES = {"Toyota", "VW", "BMW", "Ford", "Kia", "Audi", "Honda", "Mazda", "Nissan", "Renault",
+        "Hyundai", "Suzuki", "Opel", "Fiat", "Volvo", "Jeep", "Mini", "Lexus", "Haval", "Chery"};
+    private static final String[] COLORS = {"White", "Silver", "Black", "Blue", "Red", "Grey", "Green", "Yellow", "Brown", "Orange"};
+
+    private File dataFile;
+    private CarService service;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        dataFile = File.createTempFile("carsystem", ".ser");
+        dataFile.delete();
+        service = new CarService(dataFile, new File(dataFile.getPath() + ".journal"));
+    }
+
+    @AfterEach
+    public void cleanup() {
+        dataFile.delete();
+    }
+
+    private void addFleet(int n, Random rnd) {
+        for (int i = 0; i < n; i++) {
+            service.addVehicle(MAKES[rnd.nextInt(MAKES.length)], "Model" + rnd.nextInt(50), 2000 + rnd.nextInt(25),
+                    COLORS[rnd.nextInt(COLORS.length)], 50_000 + rnd.nextInt(950_000));
+        }
+    }
+
+    // ids of the matches found the slow way, and from the indexes
+    private int[] scan(Query q) {
+        return service.vehicles.toList().stream().filter(q::matches).mapToInt(v -> v.id).sorted().toArray();
+    }
+
+    private int[] indexed(Query q) {
+        return service.findVehicles(q).stream().mapToInt(v -> v.id).sorted().toArray();
+    }
+
+    @Test
+    public void testSearchMatchesAScan() {
+        Random rnd = new Random(11);
+        addFleet(3000, rnd);
+        service.addCustomer("Sam", "0823163452", "sam@mail.com", "Cape Town");
+        assertEquals(3000, indexed(new Query()).length); // builds the indexes
+        for (int i = 0; i < 500; i++) { // keep changing the fleet after the build
+            int id = 1 + rnd.nextInt(3200);
+            if (rnd.nextBoolean()) service.deleteVehicle(id);
+            else if (rnd.nextBoolean()) service.addSale(id, 1, "2025-01-01", 1);
+            else addFleet(1, rnd);
+        }
+        for (int i = 0; i < 300; i++) {
+            Query q = new Query();
+            if (rnd.nextInt(3) == 0) q.make(MAKES[rnd.nextInt(MAKES.length)].toLowerCase());
+            if (rnd.nextInt(3) == 0) q.model("Model" + rnd.nextInt(50));
+            if (rnd.nextInt(3) == 0) q.color(" " + COLORS[rnd.nextInt(COLORS.length)]);
+            if (rnd.nextInt(2) == 0) { int y = 2000 + rnd.nextInt(25); q.years(y, y + rnd.nextInt(6)); }
+            if (rnd.nextInt(2) == 0) { double p = 50_000 + rnd.nextInt(950_000); q.price(p, p + rnd.nextInt(300_000)); }
+            if (rnd.nextInt(3) == 0) q.status(rnd.nextBoolean() ? Status.AVAILABLE : Status.SOLD);
+            assertArrayEquals(scan(q), indexed(q));
+        }
+        assertEquals(0, indexed(new Query().make("Trabant")).length);
+        assertEquals(0, indexed(new Query().years(2020, 2010)).length);
+        assertEquals(5, service.findVehicles(new Query().limit(5)).size());
+    }
+
+    @Test
+    public void testClearedFleetIsReindexed() throws IOException {
+        addFleet(100, new Random(3));
+        assertEquals(100, indexed(new Query().price(0, 1e9)).length);
+        service.clear();
+        assertEquals(0, indexed(new Query().price(0, 1e9)).length);
+        service.addVehicle("Toyota", "Corolla", 2020, "White", 150000);
+        assertEquals(1, indexed(new Query().make("TOYOTA").price(100000, 150000)).length);
+    }
+
+    // "Toyota, 2018-2022, under 250k, Available" and the like over a million vehicles: candidates are checked
+    // on the index columns, so a search reads its matches and no other vehicle; a scan reads all million
+    @Test
+    public void testSelectiveQueriesReadOnlyTheirMatches() {
+        addFleet(1_000_000, new Random(5));
+        Query toyotas = new Query().make("Toyota").years(2018, 2022).price(0, 250_000).status(Status.AVAILABLE).limit(100);
+        Query narrow = new Query().make("BMW").model("Model7").color("Red").years(2018, 2022);
+        Query cheap = new Query().price(50_000, 50_100); // price range is the only condition
+        List<Vehicle> first = service.findVehicles(toyotas); // builds the indexes
+        assertEquals(100, first.size());
+        for (Vehicle v : first) assertTrue(toyotas.matches(v));
+
+        long reads = service.vehicles.reads(), found = 0;
+        for (Query q : new Query[] {toyotas, narrow, cheap}) {
+            List<Vehicle> matches = service.findVehicles(q);
+            assertFalse(matches.isEmpty());
+            for (Vehicle v : matches) assertTrue(q.matches(v));
+            found += matches.size();
+        }
+        assertEquals(reads + found, service.vehicles.reads()); // every vehicle is Available, so none is read and dropped
+    }
+}